@@ -0,0 +1,112 @@
+package com.am.treenode;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the {@link INaryTree} operations over several tree shapes and sizes.
+ * The text and json representations are benchmarked by {@link NaryTreeTextBenchmark}, with smaller sizes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class NaryTreeBenchmark {
+    @Param({"CHAIN", "STAR", "BALANCED", "RANDOM"})
+    private NaryTreeShape shape;
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    private int size;
+
+    private NaryTree<Integer> tree;
+
+    private Integer last;
+
+    private Integer missing;
+
+    @Setup
+    public void setup() {
+        this.tree = this.shape.build(this.size, false);
+        // The value held by the tree, as getNodeFromElement searches the value itself rather than an equal one.
+        for (final Integer value : this.tree) {
+            if (value == this.size - 1) {
+                this.last = value;
+            }
+        }
+        this.missing = -1;
+    }
+
+    @Benchmark
+    public boolean addRemove() {
+        this.tree.add(this.missing);
+        return this.tree.remove(this.missing);
+    }
+
+    @Benchmark
+    public boolean contains() {
+        return this.tree.contains(this.last);
+    }
+
+    @Benchmark
+    public boolean containsMissing() {
+        return this.tree.contains(this.missing);
+    }
+
+    @Benchmark
+    public INaryTree<Integer> getNodeFromElement() {
+        return this.tree.getNodeFromElement(this.last);
+    }
+
+    @Benchmark
+    public int size() {
+        return this.tree.size();
+    }
+
+    @Benchmark
+    public int getHeight() {
+        return this.tree.getHeight();
+    }
+
+    @Benchmark
+    public int getNumberOfLeaves() {
+        return this.tree.getNumberOfLeaves();
+    }
+
+    @Benchmark
+    public List<Integer> toPrefixList() {
+        return this.tree.toPrefixList();
+    }
+
+    @Benchmark
+    public List<Integer> toPostfixList() {
+        return this.tree.toPostfixList();
+    }
+
+    @Benchmark
+    public List<Integer> toByWidthList() {
+        return this.tree.toByWidthList();
+    }
+
+    @Benchmark
+    public void iterator(final Blackhole blackhole) {
+        for (final Iterator<Integer> iterator = this.tree.iterator(); iterator.hasNext(); ) {
+            blackhole.consume(iterator.next());
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.am.treenode;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the operations of an indexed {@link NaryTree} over several tree shapes and sizes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class NaryTreeIndexedBenchmark {
+    @Param({"CHAIN", "STAR", "BALANCED", "RANDOM"})
+    private NaryTreeShape shape;
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    private int size;
+
+    private NaryTree<Integer> tree;
+
+    private Integer last;
+
+    private Integer missing;
+
+    @Setup
+    public void setup() {
+        this.tree = this.shape.build(this.size, true);
+        // The value held by the tree, as getNodeFromElement searches the value itself rather than an equal one.
+        for (final Integer value : this.tree) {
+            if (value == this.size - 1) {
+                this.last = value;
+            }
+        }
+        this.missing = -1;
+    }
+
+    @Benchmark
+    public boolean addRemove() {
+        this.tree.add(this.missing);
+        return this.tree.remove(this.missing);
+    }
+
+    @Benchmark
+    public boolean contains() {
+        return this.tree.contains(this.last);
+    }
+
+    @Benchmark
+    public boolean containsMissing() {
+        return this.tree.contains(this.missing);
+    }
+
+    @Benchmark
+    public INaryTree<Integer> getNodeFromElement() {
+        return this.tree.getNodeFromElement(this.last);
+    }
+}
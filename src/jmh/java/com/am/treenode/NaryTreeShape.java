@@ -0,0 +1,86 @@
+package com.am.treenode;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * The shapes of the trees used by the benchmarks.
+ * Node 0 is the root, and every other node i is attached to a parent of smaller index.
+ */
+public enum NaryTreeShape {
+    /**
+     * Each node is the only child of the previous one.
+     */
+    CHAIN {
+        @Override
+        int parent(final int node, final Random random) {
+            return node - 1;
+        }
+    },
+    /**
+     * Every node is a child of the root.
+     */
+    STAR {
+        @Override
+        int parent(final int node, final Random random) {
+            return 0;
+        }
+    },
+    /**
+     * A complete tree where each node has {@value #ARITY} children.
+     */
+    BALANCED {
+        @Override
+        int parent(final int node, final Random random) {
+            return (node - 1) / NaryTreeShape.ARITY;
+        }
+    },
+    /**
+     * Each node is attached to a uniformly chosen previous node.
+     */
+    RANDOM {
+        @Override
+        int parent(final int node, final Random random) {
+            return random.nextInt(node);
+        }
+    };
+
+    static final int ARITY = 4;
+
+    abstract int parent(int node, Random random);
+
+    /**
+     * Builds a tree of this shape whose values are the indexes of the nodes.
+     * Nodes are attached bottom-up so that building a deep tree stays linear.
+     *
+     * @param size    - the number of nodes
+     * @param indexed - true to maintain a value index
+     *
+     * @return the built tree
+     */
+    NaryTree<Integer> build(final int size, final boolean indexed) {
+        final Random random = new Random(42);
+        final int[] parents = new int[size];
+        for (int i = 1; i < size; i++) {
+            parents[i] = this.parent(i, random);
+        }
+        @SuppressWarnings("unchecked") final NaryTreeNode<Integer>[] nodes = new NaryTreeNode[size];
+        for (int i = 0; i < size; i++) {
+            nodes[i] = new NaryTreeNode<>(i);
+        }
+        // Prepending in decreasing index order leaves each children list in increasing index order.
+        final int[] first = new int[size];
+        final int[] next = new int[size];
+        Arrays.fill(first, -1);
+        for (int i = size - 1; i > 0; i--) {
+            next[i] = first[parents[i]];
+            first[parents[i]] = i;
+        }
+        for (int i = size - 1; i >= 0; i--) {
+            for (int child = first[i]; child != -1; child = next[child]) {
+                nodes[i].add(nodes[child]);
+            }
+        }
+        return new NaryTree<>(NaryTreeChildStorage.ARRAY, indexed, nodes[0]);
+    }
+}
@@ -0,0 +1,88 @@
+package com.am.treenode;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the text and json representations of a {@link NaryTree} over several tree shapes and sizes.
+ * Each representation holds the whole tree in a string, so the sizes are smaller than in {@link NaryTreeBenchmark}.
+ * The pretty text indents each node by its depth, so its length is quadratic on a chain and it has smaller sizes
+ * still.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class NaryTreeTextBenchmark {
+    /**
+     * The trees whose representations are linear in their size.
+     */
+    @State(Scope.Benchmark)
+    public static class Trees {
+        @Param({"CHAIN", "STAR", "BALANCED", "RANDOM"})
+        private NaryTreeShape shape;
+
+        @Param({"1000", "100000", "1000000"})
+        private int size;
+
+        private NaryTree<Integer> tree;
+
+        @Setup
+        public void setup() {
+            this.tree = this.shape.build(this.size, false);
+        }
+    }
+
+    /**
+     * The trees whose pretty text is rendered.
+     */
+    @State(Scope.Benchmark)
+    public static class PrettyTrees {
+        @Param({"CHAIN", "STAR", "BALANCED", "RANDOM"})
+        private NaryTreeShape shape;
+
+        @Param({"1000", "10000"})
+        private int size;
+
+        private NaryTree<Integer> tree;
+
+        @Setup
+        public void setup() {
+            this.tree = this.shape.build(this.size, false);
+        }
+    }
+
+    @Benchmark
+    public String toJson(final Trees trees) {
+        return trees.tree.toJson();
+    }
+
+    @Benchmark
+    public void toJsonWriter(final Trees trees) throws IOException {
+        trees.tree.toJson(Writer.nullWriter());
+    }
+
+    @Benchmark
+    public String generateText(final Trees trees) {
+        return trees.tree.generateText();
+    }
+
+    @Benchmark
+    public String toPrettyText(final PrettyTrees trees) {
+        return trees.tree.toPrettyText();
+    }
+}
@@ -0,0 +1,658 @@
+package com.am.treenode;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+
+/**
+ * The topology of a compact N-aryTree, stored in flat primitive arrays instead of node objects.
+ * Each node is identified by the index of its slot in the arrays, the root being {@link #ROOT}:
+ * the arrays hold the parent, the first child, the last child and the next sibling of each node, and subclasses
+ * store the values in an array of their own. A node costs 16 bytes of topology plus its value slot, with no object
+ * header and no children list, and nodes added in prefix order are laid out contiguously.
+ * The slots of removed subtrees are reused by the next added nodes.
+ * All the traversals follow the first child and next sibling links, so they neither recurse nor allocate a stack.
+ * The nodes returned by {@link #getNodeFromElement(Object)} are views of a slot, which must not be used once their
+ * node is removed.
+ *
+ * @param <E> the type elements held in this tree
+ */
+abstract class AbstractCompactNaryTree<E> extends AbstractNaryTree<E> {
+    /**
+     * The index of the root node.
+     */
+    public static final int ROOT = 0;
+
+    /**
+     * The index returned when there is no such node.
+     */
+    public static final int NONE = -1;
+
+    /**
+     * The parent of the slots which do not hold a node.
+     */
+    private static final int FREE = -2;
+
+    int[] parents;
+
+    int[] firstChildren;
+
+    int[] lastChildren;
+
+    /**
+     * The next sibling of each node. The free slots are chained through this array.
+     */
+    int[] nextSiblings;
+
+    /**
+     * The number of slots in use or freed, which is the number of slots to scan.
+     */
+    int slots;
+
+    private int size;
+
+    private int free = AbstractCompactNaryTree.NONE;
+
+    /**
+     * Instantiates the topology of a tree holding only a root node.
+     *
+     * @param capacity - the number of nodes to allocate room for
+     */
+    AbstractCompactNaryTree(final int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("The capacity must be positive");
+        }
+        this.parents = new int[capacity];
+        this.firstChildren = new int[capacity];
+        this.lastChildren = new int[capacity];
+        this.nextSiblings = new int[capacity];
+        this.parents[ROOT] = NONE;
+        this.firstChildren[ROOT] = NONE;
+        this.lastChildren[ROOT] = NONE;
+        this.nextSiblings[ROOT] = NONE;
+        this.slots = 1;
+        this.size = 1;
+    }
+
+    /**
+     * Returns the value of a node.
+     *
+     * @param node - the index of the node
+     *
+     * @return the value of the node
+     */
+    abstract E valueAt(int node);
+
+    /**
+     * Sets the value of a node.
+     *
+     * @param node  - the index of the node
+     * @param value - the new value of the node
+     */
+    abstract void store(int node, E value);
+
+    /**
+     * Returns true if a node holds a value equal to the specified element, as tested by
+     * {@link java.util.Objects#equals(Object, Object)}.
+     *
+     * @param node    - the index of the node
+     * @param element - the compared element
+     *
+     * @return true if the node holds the element
+     */
+    abstract boolean holds(int node, Object element);
+
+    /**
+     * Adds a value as the last child of a node.
+     *
+     * @param parent - the index of the parent node
+     * @param value  - the added value
+     *
+     * @return the index of the added node
+     */
+    abstract int append(int parent, E value);
+
+    /**
+     * Clears the value of the root after it was removed.
+     *
+     * @return true if the value was cleared
+     */
+    abstract boolean removeRootValue();
+
+    /**
+     * Resizes the values array after the topology arrays grew.
+     *
+     * @param capacity - the new capacity
+     */
+    abstract void resize(int capacity);
+
+    /**
+     * Releases the value of a node after it was removed.
+     *
+     * @param node - the index of the removed node
+     */
+    abstract void release(int node);
+
+    /**
+     * Returns the index of the parent of a node.
+     *
+     * @param node - the index of the node
+     *
+     * @return the index of the parent, or {@link #NONE} for the root
+     */
+    public int getParent(final int node) {
+        this.checkNode(node);
+        return this.parents[node];
+    }
+
+    /**
+     * Returns the index of the first child of a node.
+     *
+     * @param node - the index of the node
+     *
+     * @return the index of the first child, or {@link #NONE} for a leaf
+     */
+    public int getFirstChild(final int node) {
+        this.checkNode(node);
+        return this.firstChildren[node];
+    }
+
+    /**
+     * Returns the index of the next sibling of a node.
+     *
+     * @param node - the index of the node
+     *
+     * @return the index of the next sibling, or {@link #NONE} for a last child
+     */
+    public int getNextSibling(final int node) {
+        this.checkNode(node);
+        return this.nextSiblings[node];
+    }
+
+    /**
+     * Returns the index of the first node, in prefix order, that holds the specified element.
+     *
+     * @param element - the searched element
+     *
+     * @return the index of the node, or {@link #NONE} if there is none
+     */
+    public int indexOf(final Object element) {
+        return this.find(ROOT, element);
+    }
+
+    /**
+     * Throws an {@link IllegalArgumentException} if no node is stored at an index.
+     *
+     * @param node - the checked index
+     */
+    final void checkNode(final int node) {
+        if (node < 0 || node >= this.slots || this.parents[node] == FREE) {
+            throw new IllegalArgumentException("No node at index " + node);
+        }
+    }
+
+    /**
+     * Returns true if a slot does not hold a node.
+     *
+     * @param node - the index of the slot
+     *
+     * @return true if the slot is free
+     */
+    final boolean isFree(final int node) {
+        return this.parents[node] == FREE;
+    }
+
+    /**
+     * Allocates a slot for a new last child of a node. The value of the new node must be stored by the caller.
+     *
+     * @param parent - the index of the parent node
+     *
+     * @return the index of the new node
+     */
+    final int allocate(final int parent) {
+        this.checkNode(parent);
+        int node = this.free;
+        if (node != NONE) {
+            this.free = this.nextSiblings[node];
+        } else {
+            if (this.slots == this.parents.length) {
+                this.grow();
+            }
+            node = this.slots++;
+        }
+        this.parents[node] = parent;
+        this.firstChildren[node] = NONE;
+        this.lastChildren[node] = NONE;
+        this.nextSiblings[node] = NONE;
+        final int last = this.lastChildren[parent];
+        if (last == NONE) {
+            this.firstChildren[parent] = node;
+        } else {
+            this.nextSiblings[last] = node;
+        }
+        this.lastChildren[parent] = node;
+        this.size++;
+        return node;
+    }
+
+    private void grow() {
+        final int capacity = this.parents.length + (this.parents.length >> 1) + 1;
+        this.parents = Arrays.copyOf(this.parents, capacity);
+        this.firstChildren = Arrays.copyOf(this.firstChildren, capacity);
+        this.lastChildren = Arrays.copyOf(this.lastChildren, capacity);
+        this.nextSiblings = Arrays.copyOf(this.nextSiblings, capacity);
+        this.resize(capacity);
+    }
+
+    /**
+     * Detaches the subtree of a node from its parent and frees its slots.
+     *
+     * @param node - the index of the root of the removed subtree, which must not be the root of the tree
+     *
+     * @return the number of removed nodes
+     */
+    final int unlink(final int node) {
+        final int parent = this.parents[node];
+        int previous = NONE;
+        for (int child = this.firstChildren[parent]; child != node; child = this.nextSiblings[child]) {
+            previous = child;
+        }
+        if (previous == NONE) {
+            this.firstChildren[parent] = this.nextSiblings[node];
+        } else {
+            this.nextSiblings[previous] = this.nextSiblings[node];
+        }
+        if (this.lastChildren[parent] == node) {
+            this.lastChildren[parent] = previous;
+        }
+        // Free in postfix order, so the links of a node are read before it is freed.
+        int removed = 0;
+        for (int current = this.leftmost(node); current != NONE; removed++) {
+            final int next = current == node ? NONE : this.nextInPostfix(current);
+            this.parents[current] = FREE;
+            this.firstChildren[current] = NONE;
+            this.lastChildren[current] = NONE;
+            this.nextSiblings[current] = this.free;
+            this.free = current;
+            this.release(current);
+            current = next;
+        }
+        this.size -= removed;
+        return removed;
+    }
+
+    /**
+     * Removes the subtree of the first child of a node holding a non-null value equal to the specified element.
+     *
+     * @param parent  - the index of the parent node
+     * @param element - the removed element
+     *
+     * @return true if a child was removed
+     */
+    final boolean removeChild(final int parent, final Object element) {
+        for (int child = this.firstChildren[parent]; child != NONE; child = this.nextSiblings[child]) {
+            if (element != null && this.holds(child, element)) {
+                this.unlink(child);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Copies the subtree of a node as the last child of a node of this tree.
+     *
+     * @param parent - the index of the parent of the copy
+     * @param source - the root of the copied subtree
+     */
+    final void copy(final int parent, final INaryTreeNode<E> source) {
+        if (source instanceof CompactNaryTreeNode && ((CompactNaryTreeNode<E>) source).tree == this) {
+            final int node = ((CompactNaryTreeNode<E>) source).node;
+            for (int ancestor = parent; ancestor != NONE; ancestor = this.parents[ancestor]) {
+                if (ancestor == node) {
+                    throw new IllegalArgumentException("A node cannot be added to its own subtree");
+                }
+            }
+        }
+        // Each level of the stack is labeled with the index of the copy of its node.
+        final NaryTreeStack<E> stack = new NaryTreeStack<>();
+        stack.push(source);
+        stack.label(this.append(parent, source.getValue()));
+        while (!stack.isEmpty()) {
+            final INaryTreeNode<E> child = stack.nextChild();
+            if (child == null) {
+                stack.pop();
+                continue;
+            }
+            final int copy = this.append(stack.label(), child.getValue());
+            stack.push(child);
+            stack.label(copy);
+        }
+    }
+
+    final int leftmost(int node) {
+        while (this.firstChildren[node] != NONE) {
+            node = this.firstChildren[node];
+        }
+        return node;
+    }
+
+    /**
+     * Returns the node following a node in prefix order, within a subtree.
+     *
+     * @param node - the index of the current node
+     * @param root - the index of the root of the traversed subtree
+     *
+     * @return the index of the next node, or {@link #NONE} at the end of the subtree
+     */
+    final int nextInPrefix(int node, final int root) {
+        final int child = this.firstChildren[node];
+        if (child != NONE) {
+            return child;
+        }
+        while (node != root) {
+            final int sibling = this.nextSiblings[node];
+            if (sibling != NONE) {
+                return sibling;
+            }
+            node = this.parents[node];
+        }
+        return NONE;
+    }
+
+    /**
+     * Returns the node following a node in postfix order. The node must not be the root of the traversed subtree.
+     *
+     * @param node - the index of the current node
+     *
+     * @return the index of the next node
+     */
+    final int nextInPostfix(final int node) {
+        final int sibling = this.nextSiblings[node];
+        return sibling == NONE ? this.parents[node] : this.leftmost(sibling);
+    }
+
+    /**
+     * Returns the first node of a subtree, in prefix order, that holds the specified element.
+     *
+     * @param root    - the index of the root of the searched subtree
+     * @param element - the searched element
+     *
+     * @return the index of the node, or {@link #NONE} if there is none
+     */
+    final int find(final int root, final Object element) {
+        for (int node = root; node != NONE; node = this.nextInPrefix(node, root)) {
+            if (this.holds(node, element)) {
+                return node;
+            }
+        }
+        return NONE;
+    }
+
+    final int size(final int root) {
+        if (root == ROOT) {
+            return this.size;
+        }
+        int size = 0;
+        for (int node = root; node != NONE; node = this.nextInPrefix(node, root)) {
+            size++;
+        }
+        return size;
+    }
+
+    final int leaves(final int root) {
+        int leaves = 0;
+        if (root == ROOT) {
+            for (int node = 0; node < this.slots; node++) {
+                if (this.firstChildren[node] == NONE && !this.isFree(node)) {
+                    leaves++;
+                }
+            }
+            return leaves;
+        }
+        for (int node = root; node != NONE; node = this.nextInPrefix(node, root)) {
+            if (this.firstChildren[node] == NONE) {
+                leaves++;
+            }
+        }
+        return leaves;
+    }
+
+    final int height(final int root) {
+        int height = 1;
+        int depth = 1;
+        int node = root;
+        while (true) {
+            final int child = this.firstChildren[node];
+            if (child != NONE) {
+                node = child;
+                height = Math.max(height, ++depth);
+                continue;
+            }
+            while (node != root && this.nextSiblings[node] == NONE) {
+                node = this.parents[node];
+                depth--;
+            }
+            if (node == root) {
+                return height;
+            }
+            node = this.nextSiblings[node];
+        }
+    }
+
+    /**
+     * Walks a subtree, following the first child and next sibling links.
+     *
+     * @param root    - the index of the root of the walked subtree
+     * @param handler - the handler receiving the nodes
+     *
+     * @throws IOException if the handler fails to write its output
+     */
+    final void walk(final int root, final NaryTreeHandler<E> handler) throws IOException {
+        int node = root;
+        while (true) {
+            final boolean leaf = this.firstChildren[node] == NONE;
+            handler.enter(this.valueAt(node), leaf);
+            if (!leaf) {
+                node = this.firstChildren[node];
+                continue;
+            }
+            while (true) {
+                handler.leave(this.valueAt(node), this.firstChildren[node] == NONE);
+                if (node == root) {
+                    return;
+                }
+                if (this.nextSiblings[node] != NONE) {
+                    node = this.nextSiblings[node];
+                    break;
+                }
+                node = this.parents[node];
+            }
+        }
+    }
+
+    /**
+     * Visits a subtree, following the first child and next sibling links, see {@link INaryTree#accept(TreeVisitor, int)}.
+     *
+     * @param root     - the index of the root of the visited subtree
+     * @param visitor  - the visitor receiving the values
+     * @param maxDepth - the depth of the deepest visited nodes, the root being at depth 0
+     *
+     * @return false if the visitor terminated the walk, true otherwise
+     */
+    final boolean visit(final int root, final TreeVisitor<? super E> visitor, final int maxDepth) {
+        int node = root;
+        int depth = 0;
+        while (true) {
+            final TreeVisitor.Result result = visitor.enter(this.valueAt(node), depth);
+            if (result == TreeVisitor.Result.TERMINATE) {
+                return false;
+            }
+            if (result == TreeVisitor.Result.CONTINUE && depth < maxDepth && this.firstChildren[node] != NONE) {
+                node = this.firstChildren[node];
+                depth++;
+                continue;
+            }
+            // A skipped node is not left.
+            boolean leave = result == TreeVisitor.Result.CONTINUE;
+            while (true) {
+                if (leave && visitor.leave(this.valueAt(node), depth) == TreeVisitor.Result.TERMINATE) {
+                    return false;
+                }
+                leave = true;
+                if (node == root) {
+                    return true;
+                }
+                if (this.nextSiblings[node] != NONE) {
+                    node = this.nextSiblings[node];
+                    break;
+                }
+                node = this.parents[node];
+                depth--;
+            }
+        }
+    }
+
+    final void toJson(final int root, final Writer writer) throws IOException {
+        final NaryTreeJsonWriter<E> jsonWriter = new NaryTreeJsonWriter<>(writer);
+        this.walk(root, jsonWriter);
+        jsonWriter.flush();
+    }
+
+    final String toJson(final int root) {
+        final StringWriter writer = new StringWriter();
+        try {
+            this.toJson(root, writer);
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return writer.toString();
+    }
+
+    @Override
+    CompactNaryTreeNode<E> getRootNode() {
+        return new CompactNaryTreeNode<>(this, ROOT);
+    }
+
+    @Override
+    public E getRoot() {
+        return this.valueAt(ROOT);
+    }
+
+    @Override
+    public boolean add(final E element) {
+        this.append(ROOT, element);
+        return true;
+    }
+
+    @Override
+    public boolean remove(final Object element) {
+        if (element != null && this.holds(ROOT, element)) {
+            return this.removeRootValue();
+        }
+        return this.removeChild(ROOT, element);
+    }
+
+    @Override
+    public String generateText() {
+        return NaryTreeNode.generateText(this.getRootNode());
+    }
+
+    @Override
+    public boolean contains(final Object element) {
+        // Membership does not depend on the order, so the slots are scanned sequentially.
+        for (int node = 0; node < this.slots; node++) {
+            if (this.holds(node, element) && !this.isFree(node)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int getHeight() {
+        return this.height(ROOT);
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public int getNumberOfLeaves() {
+        return this.leaves(ROOT);
+    }
+
+    @Override
+    public String toJson() {
+        return this.toJson(ROOT);
+    }
+
+    @Override
+    public void toJson(final Writer writer) throws IOException {
+        this.toJson(ROOT, writer);
+    }
+
+    @Override
+    public String toPrettyText() {
+        return NaryTreeNode.toPrettyText(this.getRootNode());
+    }
+
+    @Override
+    public List<E> toPostfixList() {
+        return NaryTreeNode.toList(this.postfixIterator(), this.size);
+    }
+
+    @Override
+    public List<E> toPrefixList() {
+        return NaryTreeNode.toList(this.prefixIterator(), this.size);
+    }
+
+    @Override
+    public List<E> toByWidthList() {
+        return NaryTreeNode.toList(this.breadthFirstIterator(), this.size);
+    }
+
+    @Override
+    public Iterator<E> prefixIterator() {
+        return CompactNaryTreeIterator.prefix(this, ROOT);
+    }
+
+    @Override
+    public Iterator<E> postfixIterator() {
+        return CompactNaryTreeIterator.postfix(this, ROOT);
+    }
+
+    @Override
+    public Iterator<E> breadthFirstIterator() {
+        return CompactNaryTreeIterator.breadthFirst(this, ROOT);
+    }
+
+    @Override
+    public INaryTree<E> getNodeFromElement(final E element) {
+        final int node = this.find(ROOT, element);
+        return node == NONE ? null : new CompactNaryTreeNode<>(this, node);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return false;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return this.breadthFirstIterator();
+    }
+
+    @Override
+    public Spliterator<E> spliterator() {
+        return Spliterators.spliterator(this.prefixIterator(), this.size, Spliterator.ORDERED);
+    }
+}
@@ -0,0 +1,53 @@
+package com.am.treenode;
+
+import java.io.IOException;
+
+/**
+ * The base of the trees of this package, which all expose their root node.
+ * The walks of {@link INaryTree} are implemented on the root node, so that they stream the tree directly
+ * instead of going through {@link #accept(TreeVisitor, int)} like the trees implemented elsewhere.
+ *
+ * @param <E> the type of elements held in this tree
+ */
+abstract class AbstractNaryTree<E> implements INaryTree<E> {
+    /**
+     * Returns the root node of this tree.
+     *
+     * @return the root node
+     */
+    abstract INaryTreeNode<E> getRootNode();
+
+    /**
+     * Returns the root node of a tree of this package, or of a node.
+     *
+     * @param tree - the tree
+     * @param <E>  - the type of elements held in the tree
+     *
+     * @return the root node of the tree, or null if it is implemented outside this package
+     */
+    static <E> INaryTreeNode<E> rootNodeOf(final INaryTree<E> tree) {
+        if (tree instanceof INaryTreeNode) {
+            return (INaryTreeNode<E>) tree;
+        } else if (tree instanceof AbstractNaryTree) {
+            return ((AbstractNaryTree<E>) tree).getRootNode();
+        }
+        return null;
+    }
+
+    @Override
+    public void writeText(final Appendable appendable) throws IOException {
+        this.getRootNode().walk(new NaryTreeTextWriter<>(appendable));
+        NaryTreeTextWriter.flush(appendable);
+    }
+
+    @Override
+    public void writePrettyText(final Appendable appendable, final NaryTreeTextOptions options) throws IOException {
+        NaryTreeTextWriter.writePretty(this.getRootNode(), appendable, options);
+        NaryTreeTextWriter.flush(appendable);
+    }
+
+    @Override
+    public boolean accept(final TreeVisitor<? super E> visitor, final int maxDepth) {
+        return this.getRootNode().accept(visitor, maxDepth);
+    }
+}
@@ -0,0 +1,120 @@
+package com.am.treenode;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A N-aryTree stored in flat arrays, for trees of millions of nodes.
+ * The topology is kept in primitive arrays indexed by node, as described by {@link AbstractCompactNaryTree},
+ * and the values in an array of references: a node costs about 20 bytes, values excluded, against 50 to 80 bytes
+ * for a {@link NaryTree}.
+ * Nodes are identified by their index, from {@link #ROOT}, and can be read and modified through their index
+ * without allocating any view.
+ *
+ * @param <E> the type elements held in this tree
+ */
+public class CompactNaryTree<E> extends AbstractCompactNaryTree<E> {
+    private Object[] values;
+
+    /**
+     * Construct by default for the CompactNaryTree.
+     */
+    public CompactNaryTree() {
+        this(null);
+    }
+
+    /**
+     * Construct a CompactNaryTree with a root element.
+     *
+     * @param root - the root element
+     */
+    public CompactNaryTree(final E root) {
+        this(root, 16);
+    }
+
+    /**
+     * Construct a CompactNaryTree with a root element and room for a number of nodes.
+     *
+     * @param root     - the root element
+     * @param capacity - the number of nodes to allocate room for
+     */
+    public CompactNaryTree(final E root, final int capacity) {
+        super(capacity);
+        this.values = new Object[capacity];
+        this.values[ROOT] = root;
+    }
+
+    /**
+     * Adds a value as the last child of a node.
+     *
+     * @param node  - the index of the parent node
+     * @param value - the added value
+     *
+     * @return the index of the added node
+     */
+    public int addChild(final int node, final E value) {
+        final int child = this.allocate(node);
+        this.values[child] = value;
+        return child;
+    }
+
+    /**
+     * Returns the value of a node.
+     *
+     * @param node - the index of the node
+     *
+     * @return the value of the node
+     */
+    public E get(final int node) {
+        this.checkNode(node);
+        return this.valueAt(node);
+    }
+
+    /**
+     * Sets the value of a node.
+     *
+     * @param node  - the index of the node
+     * @param value - the new value of the node
+     */
+    public void set(final int node, final E value) {
+        this.checkNode(node);
+        this.values[node] = value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    E valueAt(final int node) {
+        return (E) this.values[node];
+    }
+
+    @Override
+    void store(final int node, final E value) {
+        this.values[node] = value;
+    }
+
+    @Override
+    boolean holds(final int node, final Object element) {
+        return Objects.equals(this.values[node], element);
+    }
+
+    @Override
+    int append(final int parent, final E value) {
+        return this.addChild(parent, value);
+    }
+
+    @Override
+    boolean removeRootValue() {
+        this.values[ROOT] = null;
+        return true;
+    }
+
+    @Override
+    void resize(final int capacity) {
+        this.values = Arrays.copyOf(this.values, capacity);
+    }
+
+    @Override
+    void release(final int node) {
+        this.values[node] = null;
+    }
+}
@@ -0,0 +1,157 @@
+package com.am.treenode;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Lazy iterators over the values of a compact tree.
+ * The prefix and postfix iterators only follow the links of the tree, and the breadth first iterator
+ * queues the indices of the nodes whose children have not been visited yet.
+ * The tree must not be modified while it is iterated.
+ *
+ * @param <E> the type of elements held in the iterated tree
+ */
+abstract class CompactNaryTreeIterator<E> implements Iterator<E> {
+    final AbstractCompactNaryTree<E> tree;
+
+    final int root;
+
+    int pending;
+
+    private CompactNaryTreeIterator(final AbstractCompactNaryTree<E> tree, final int root, final int first) {
+        this.tree = tree;
+        this.root = root;
+        this.pending = first;
+    }
+
+    /**
+     * Returns an iterator visiting each node before its children.
+     *
+     * @param tree - the iterated tree
+     * @param root - the index of the root of the iterated subtree
+     * @param <E>  - the type of elements held in the tree
+     *
+     * @return a prefix iterator
+     */
+    static <E> CompactNaryTreeIterator<E> prefix(final AbstractCompactNaryTree<E> tree, final int root) {
+        return new Prefix<>(tree, root);
+    }
+
+    /**
+     * Returns an iterator visiting each node after its children.
+     *
+     * @param tree - the iterated tree
+     * @param root - the index of the root of the iterated subtree
+     * @param <E>  - the type of elements held in the tree
+     *
+     * @return a postfix iterator
+     */
+    static <E> CompactNaryTreeIterator<E> postfix(final AbstractCompactNaryTree<E> tree, final int root) {
+        return new Postfix<>(tree, root);
+    }
+
+    /**
+     * Returns an iterator visiting each level of the tree before the next level.
+     *
+     * @param tree - the iterated tree
+     * @param root - the index of the root of the iterated subtree
+     * @param <E>  - the type of elements held in the tree
+     *
+     * @return a breadth first iterator
+     */
+    static <E> CompactNaryTreeIterator<E> breadthFirst(final AbstractCompactNaryTree<E> tree, final int root) {
+        return new BreadthFirst<>(tree, root);
+    }
+
+    /**
+     * Returns the node following a node.
+     *
+     * @param node - the index of the current node
+     *
+     * @return the index of the next node, or {@link AbstractCompactNaryTree#NONE} at the end of the iteration
+     */
+    abstract int advance(int node);
+
+    @Override
+    public boolean hasNext() {
+        return this.pending != AbstractCompactNaryTree.NONE;
+    }
+
+    @Override
+    public E next() {
+        return this.tree.valueAt(this.nextNode());
+    }
+
+    /**
+     * Returns the index of the next visited node.
+     *
+     * @return the index of the next node
+     */
+    int nextNode() {
+        final int node = this.pending;
+        if (node == AbstractCompactNaryTree.NONE) {
+            throw new NoSuchElementException();
+        }
+        this.pending = this.advance(node);
+        return node;
+    }
+
+    private static final class Prefix<E> extends CompactNaryTreeIterator<E> {
+        private Prefix(final AbstractCompactNaryTree<E> tree, final int root) {
+            super(tree, root, root);
+        }
+
+        @Override
+        int advance(final int node) {
+            return this.tree.nextInPrefix(node, this.root);
+        }
+    }
+
+    private static final class Postfix<E> extends CompactNaryTreeIterator<E> {
+        private Postfix(final AbstractCompactNaryTree<E> tree, final int root) {
+            super(tree, root, tree.leftmost(root));
+        }
+
+        @Override
+        int advance(final int node) {
+            return node == this.root ? AbstractCompactNaryTree.NONE : this.tree.nextInPostfix(node);
+        }
+    }
+
+    private static final class BreadthFirst<E> extends CompactNaryTreeIterator<E> {
+        /**
+         * The nodes whose children have not been visited yet, in a circular buffer. Leaves are never queued.
+         */
+        private int[] parents = new int[16];
+
+        private int head;
+
+        private int count;
+
+        private BreadthFirst(final AbstractCompactNaryTree<E> tree, final int root) {
+            super(tree, root, root);
+        }
+
+        @Override
+        int advance(final int node) {
+            if (this.tree.firstChildren[node] != AbstractCompactNaryTree.NONE) {
+                if (this.count == this.parents.length) {
+                    final int[] grown = Arrays.copyOfRange(this.parents, this.head, this.head + this.count * 2);
+                    System.arraycopy(this.parents, 0, grown, this.count - this.head, this.head);
+                    this.parents = grown;
+                    this.head = 0;
+                }
+                this.parents[(this.head + this.count++) % this.parents.length] = node;
+            }
+            final int sibling = node == this.root ? AbstractCompactNaryTree.NONE : this.tree.nextSiblings[node];
+            if (sibling != AbstractCompactNaryTree.NONE || this.count == 0) {
+                return sibling;
+            }
+            final int parent = this.parents[this.head];
+            this.head = (this.head + 1) % this.parents.length;
+            this.count--;
+            return this.tree.firstChildren[parent];
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.am.treenode;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+
+/**
+ * A view of a node of a compact tree. The view holds the index of the node, so it must not be used once the node
+ * is removed from its tree.
+ * Adding a node to a view copies the values of its subtree into the tree of the view.
+ *
+ * @param <E> the type parameter
+ */
+final class CompactNaryTreeNode<E> implements INaryTreeNode<E> {
+    final AbstractCompactNaryTree<E> tree;
+
+    final int node;
+
+    /**
+     * Instantiates a new CompactNaryTreeNode.
+     *
+     * @param tree - the tree holding the node
+     * @param node - the index of the node
+     */
+    CompactNaryTreeNode(final AbstractCompactNaryTree<E> tree, final int node) {
+        this.tree = tree;
+        this.node = node;
+    }
+
+    @Override
+    public INaryTreeNode<E> getChild(final int index) {
+        int child = this.tree.firstChildren[this.node];
+        for (int i = 0; i < index && child != AbstractCompactNaryTree.NONE; i++) {
+            child = this.tree.nextSiblings[child];
+        }
+        if (index < 0 || child == AbstractCompactNaryTree.NONE) {
+            throw new IndexOutOfBoundsException("Index: " + index);
+        }
+        return new CompactNaryTreeNode<>(this.tree, child);
+    }
+
+    @Override
+    public boolean add(final INaryTreeNode<E> node) {
+        this.tree.copy(this.node, node);
+        return true;
+    }
+
+    @Override
+    public List<INaryTreeNode<E>> getChildren() {
+        final List<INaryTreeNode<E>> children = new ArrayList<>();
+        for (int child = this.tree.firstChildren[this.node]; child != AbstractCompactNaryTree.NONE;
+             child = this.tree.nextSiblings[child]) {
+            children.add(new CompactNaryTreeNode<>(this.tree, child));
+        }
+        return children;
+    }
+
+    @Override
+    public boolean isLeaf() {
+        return this.tree.firstChildren[this.node] == AbstractCompactNaryTree.NONE;
+    }
+
+    @Override
+    public int getChildrenCount() {
+        int count = 0;
+        for (int child = this.tree.firstChildren[this.node]; child != AbstractCompactNaryTree.NONE;
+             child = this.tree.nextSiblings[child]) {
+            count++;
+        }
+        return count;
+    }
+
+    @Override
+    public E getValue() {
+        return this.tree.valueAt(this.node);
+    }
+
+    @Override
+    public void setValue(final E value) {
+        this.tree.store(this.node, value);
+    }
+
+    @Override
+    public E getRoot() {
+        return this.getValue();
+    }
+
+    @Override
+    public boolean add(final E element) {
+        this.tree.append(this.node, element);
+        return true;
+    }
+
+    @Override
+    public boolean remove(final Object element) {
+        return this.tree.removeChild(this.node, element);
+    }
+
+    @Override
+    public String generateText() {
+        return NaryTreeNode.generateText(this);
+    }
+
+    @Override
+    public boolean contains(final Object element) {
+        return this.tree.find(this.node, element) != AbstractCompactNaryTree.NONE;
+    }
+
+    @Override
+    public int getHeight() {
+        return this.tree.height(this.node);
+    }
+
+    @Override
+    public int size() {
+        return this.tree.size(this.node);
+    }
+
+    @Override
+    public int getNumberOfLeaves() {
+        return this.tree.leaves(this.node);
+    }
+
+    @Override
+    public String toJson() {
+        return this.tree.toJson(this.node);
+    }
+
+    @Override
+    public void toJson(final Writer writer) throws IOException {
+        this.tree.toJson(this.node, writer);
+    }
+
+    @Override
+    public void walk(final NaryTreeHandler<E> handler) throws IOException {
+        this.tree.walk(this.node, handler);
+    }
+
+    @Override
+    public boolean visit(final TreeVisitor<? super E> visitor, final int maxDepth) {
+        return this.tree.visit(this.node, visitor, maxDepth);
+    }
+
+    @Override
+    public String toPrettyText() {
+        return NaryTreeNode.toPrettyText(this);
+    }
+
+    @Override
+    public List<E> toPostfixList() {
+        return NaryTreeNode.toList(this.postfixIterator(), 16);
+    }
+
+    @Override
+    public List<E> toPrefixList() {
+        return NaryTreeNode.toList(this.prefixIterator(), 16);
+    }
+
+    @Override
+    public List<E> toByWidthList() {
+        return NaryTreeNode.toList(this.breadthFirstIterator(), 16);
+    }
+
+    @Override
+    public Iterator<E> prefixIterator() {
+        return CompactNaryTreeIterator.prefix(this.tree, this.node);
+    }
+
+    @Override
+    public Iterator<E> postfixIterator() {
+        return CompactNaryTreeIterator.postfix(this.tree, this.node);
+    }
+
+    @Override
+    public Iterator<E> breadthFirstIterator() {
+        return CompactNaryTreeIterator.breadthFirst(this.tree, this.node);
+    }
+
+    @Override
+    public INaryTree<E> getNodeFromElement(final E element) {
+        final int found = this.tree.find(this.node, element);
+        return found == AbstractCompactNaryTree.NONE ? null : new CompactNaryTreeNode<>(this.tree, found);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return false;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return this.breadthFirstIterator();
+    }
+
+    @Override
+    public Spliterator<E> spliterator() {
+        return Spliterators.spliteratorUnknownSize(this.prefixIterator(), Spliterator.ORDERED);
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+        return other instanceof CompactNaryTreeNode && ((CompactNaryTreeNode<?>) other).tree == this.tree
+                && ((CompactNaryTreeNode<?>) other).node == this.node;
+    }
+
+    @Override
+    public int hashCode() {
+        return System.identityHashCode(this.tree) * 31 + this.node;
+    }
+
+    @Override
+    public String toString() {
+        return "CompactNaryTreeNode{" +
+                "node=" + this.node +
+                ", value=" + this.getValue() +
+                '}';
+    }
+}
@@ -0,0 +1,160 @@
+package com.am.treenode;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+
+/**
+ * A thread-safe N-aryTree, for workloads mixing concurrent readers and writers.
+ * Each node keeps its children in a copy-on-write array replaced with a compare-and-set:
+ * readers never lock and scale with the number of cores, and writers only contend
+ * when they modify the children of the same node, or attach existing nodes to the same trees.
+ * All the traversals are weakly consistent: they never throw {@link java.util.ConcurrentModificationException},
+ * and see the children of each node as they were when the traversal reached it.
+ * Adding or removing a child copies the children array of its parent, so very wide nodes are cheaper to read than
+ * to modify. The size, height and number of leaves are cached in each node: a write invalidates the caches up to the
+ * root, and a read recomputes only the modified subtrees.
+ *
+ * @param <E> the type elements held in this tree
+ */
+public class ConcurrentNaryTree<E> extends AbstractNaryTree<E> {
+    private final ConcurrentNaryTreeNode<E> root;
+
+    /**
+     * Construct by default for the ConcurrentNaryTree.
+     */
+    public ConcurrentNaryTree() {
+        this(null);
+    }
+
+    /**
+     * Construct a ConcurrentNaryTree with a root element.
+     *
+     * @param root - the root element
+     */
+    public ConcurrentNaryTree(E root) {
+        this.root = new ConcurrentNaryTreeNode<>(root);
+    }
+
+    /**
+     * Returns the root node of this tree.
+     *
+     * @return the root node
+     */
+    @Override
+    ConcurrentNaryTreeNode<E> getRootNode() {
+        return this.root;
+    }
+
+    @Override
+    public E getRoot() {
+        return this.root.getValue();
+    }
+
+    @Override
+    public boolean add(final E element) {
+        return this.root.add(element);
+    }
+
+    @Override
+    public boolean remove(final Object element) {
+        final E value = this.root.getValue();
+        if (value != null && value.equals(element)) {
+            this.root.setValue(null);
+            return true;
+        }
+        return this.root.remove(element);
+    }
+
+    @Override
+    public String generateText() {
+        return this.root.generateText();
+    }
+
+    @Override
+    public boolean contains(final Object element) {
+        return this.root.contains(element);
+    }
+
+    @Override
+    public int getHeight() {
+        return this.root.getHeight();
+    }
+
+    @Override
+    public int size() {
+        return this.root.size();
+    }
+
+    @Override
+    public int getNumberOfLeaves() {
+        return this.root.getNumberOfLeaves();
+    }
+
+    @Override
+    public String toJson() {
+        return this.root.toJson();
+    }
+
+    @Override
+    public void toJson(final Writer writer) throws IOException {
+        this.root.toJson(writer);
+    }
+
+    @Override
+    public String toPrettyText() {
+        return this.root.toPrettyText();
+    }
+
+    @Override
+    public List<E> toPostfixList() {
+        return this.root.toPostfixList();
+    }
+
+    @Override
+    public List<E> toPrefixList() {
+        return this.root.toPrefixList();
+    }
+
+    @Override
+    public List<E> toByWidthList() {
+        return this.root.toByWidthList();
+    }
+
+    @Override
+    public Iterator<E> prefixIterator() {
+        return this.root.prefixIterator();
+    }
+
+    @Override
+    public Iterator<E> postfixIterator() {
+        return this.root.postfixIterator();
+    }
+
+    @Override
+    public Iterator<E> breadthFirstIterator() {
+        return this.root.breadthFirstIterator();
+    }
+
+    @Override
+    public INaryTree<E> getNodeFromElement(final E element) {
+        return this.root.getNodeFromElement(element);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return false;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return this.breadthFirstIterator();
+    }
+
+    @Override
+    public Spliterator<E> spliterator() {
+        return this.root.spliterator();
+    }
+}
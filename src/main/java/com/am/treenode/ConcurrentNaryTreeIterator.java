@@ -0,0 +1,172 @@
+package com.am.treenode;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Weakly consistent iterators over the values of a {@link ConcurrentNaryTree}.
+ * The children of each node are read once, as a snapshot of its children array, when the node is reached.
+ * The iterators never throw {@link java.util.ConcurrentModificationException}: they reflect the children
+ * added or removed before a node is reached, and ignore the changes made afterwards.
+ *
+ * @param <E> the type of elements held in the iterated tree
+ */
+abstract class ConcurrentNaryTreeIterator<E> implements Iterator<E> {
+
+    /**
+     * Returns an iterator visiting each node before its children.
+     *
+     * @param root - the root of the iterated subtree
+     * @param <E>  - the type of elements held in the tree
+     *
+     * @return a prefix iterator
+     */
+    static <E> Prefix<E> prefix(final ConcurrentNaryTreeNode<E> root) {
+        return new Prefix<>(root);
+    }
+
+    /**
+     * Returns an iterator visiting each node after its children.
+     *
+     * @param root - the root of the iterated subtree
+     * @param <E>  - the type of elements held in the tree
+     *
+     * @return a postfix iterator
+     */
+    static <E> Iterator<E> postfix(final ConcurrentNaryTreeNode<E> root) {
+        return new Postfix<>(root);
+    }
+
+    /**
+     * Returns an iterator visiting each level of the tree before the next level.
+     *
+     * @param root - the root of the iterated subtree
+     * @param <E>  - the type of elements held in the tree
+     *
+     * @return a breadth first iterator
+     */
+    static <E> Iterator<E> breadthFirst(final ConcurrentNaryTreeNode<E> root) {
+        return new BreadthFirst<>(root);
+    }
+
+    /**
+     * An iterator walking the tree depth-first with a {@link NaryTreeStack}, which reads the children of each node
+     * once, from the snapshot returned by {@link ConcurrentNaryTreeNode#getChildren()}, when the node is pushed.
+     *
+     * @param <E> the type of elements held in the iterated tree
+     */
+    private abstract static class Stack<E> extends ConcurrentNaryTreeIterator<E> {
+        final NaryTreeStack<E> stack = new NaryTreeStack<>();
+    }
+
+    /**
+     * A prefix iterator, which can also return the visited nodes themselves.
+     *
+     * @param <E> the type of elements held in the iterated tree
+     */
+    static final class Prefix<E> extends Stack<E> {
+        private ConcurrentNaryTreeNode<E> pending;
+
+        private Prefix(final ConcurrentNaryTreeNode<E> root) {
+            this.pending = root;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.pending != null;
+        }
+
+        @Override
+        public E next() {
+            return this.nextNode().getValue();
+        }
+
+        /**
+         * Returns the next visited node.
+         *
+         * @return the next node
+         */
+        ConcurrentNaryTreeNode<E> nextNode() {
+            final ConcurrentNaryTreeNode<E> node = this.pending;
+            if (node == null) {
+                throw new NoSuchElementException();
+            }
+            this.stack.push(node);
+            this.pending = null;
+            while (!this.stack.isEmpty()
+                    && (this.pending = (ConcurrentNaryTreeNode<E>) this.stack.nextChild()) == null) {
+                this.stack.pop();
+            }
+            return node;
+        }
+    }
+
+    private static final class Postfix<E> extends Stack<E> {
+        private Postfix(final ConcurrentNaryTreeNode<E> root) {
+            this.stack.push(root);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !this.stack.isEmpty();
+        }
+
+        @Override
+        public E next() {
+            if (this.stack.isEmpty()) {
+                throw new NoSuchElementException();
+            }
+            for (INaryTreeNode<E> child = this.stack.nextChild(); child != null; child = this.stack.nextChild()) {
+                this.stack.push(child);
+            }
+            return this.stack.pop().getValue();
+        }
+    }
+
+    private static final class BreadthFirst<E> extends ConcurrentNaryTreeIterator<E> {
+        /**
+         * The snapshots of the children still to visit. Empty snapshots are never queued.
+         */
+        private final ArrayDeque<ConcurrentNaryTreeNode<E>[]> levels = new ArrayDeque<>();
+
+        private ConcurrentNaryTreeNode<E> root;
+
+        private ConcurrentNaryTreeNode<E>[] siblings;
+
+        private int index;
+
+        private BreadthFirst(final ConcurrentNaryTreeNode<E> root) {
+            this.root = root;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.root != null || (this.siblings != null && this.index < this.siblings.length)
+                    || !this.levels.isEmpty();
+        }
+
+        @Override
+        public E next() {
+            final ConcurrentNaryTreeNode<E> node;
+            if (this.root != null) {
+                node = this.root;
+                this.root = null;
+            } else {
+                if (this.siblings == null || this.index >= this.siblings.length) {
+                    this.siblings = this.levels.poll();
+                    this.index = 0;
+                    if (this.siblings == null) {
+                        throw new NoSuchElementException();
+                    }
+                }
+                node = this.siblings[this.index++];
+            }
+            final ConcurrentNaryTreeNode<E>[] children = node.snapshot();
+            if (children.length > 0) {
+                this.levels.add(children);
+            }
+            return node.getValue();
+        }
+    }
+}
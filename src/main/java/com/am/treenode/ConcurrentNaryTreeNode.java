@@ -0,0 +1,498 @@
+package com.am.treenode;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * A node of a {@link ConcurrentNaryTree}.
+ * The children are kept in a copy-on-write array: readers take a snapshot with a single volatile read
+ * and never lock, while writers replace the array with a compare-and-set, so writers of unrelated nodes never
+ * contend.
+ * Each node links to its parent, so that a node already attached, or an ancestor of the node receiving it,
+ * is rejected rather than turning the tree into a graph: an existing node is attached under the locks of both its
+ * own subtree and the root of the receiving tree, taken in a global order, so only the attachments touching the same
+ * trees contend.
+ * <p>
+ * Each node caches the size, height and number of leaves of its subtree with the stamp it was computed at.
+ * Every write bumps the stamps of the modified node and of its ancestors, so a read only recomputes the subtrees
+ * modified since the last read, at the cost of a walk up to the root on each write.
+ *
+ * @param <E> the type parameter
+ */
+final class ConcurrentNaryTreeNode<E> implements INaryTreeNode<E> {
+    @SuppressWarnings("rawtypes")
+    private static final ConcurrentNaryTreeNode[] NO_CHILDREN = new ConcurrentNaryTreeNode[0];
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<ConcurrentNaryTreeNode, ConcurrentNaryTreeNode[]> CHILDREN =
+            AtomicReferenceFieldUpdater.newUpdater(ConcurrentNaryTreeNode.class, ConcurrentNaryTreeNode[].class,
+                    "children");
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicIntegerFieldUpdater<ConcurrentNaryTreeNode> STAMP =
+            AtomicIntegerFieldUpdater.newUpdater(ConcurrentNaryTreeNode.class, "stamp");
+
+    /**
+     * The lock taken first when the two locks of an attachment have the same identity hash code,
+     * so that they are still taken in a global order.
+     */
+    private static final Object TIE_LOCK = new Object();
+
+    private volatile ConcurrentNaryTreeNode<E>[] children;
+
+    private volatile E value;
+
+    /**
+     * The node holding this node in its children, or null for a root or a detached node.
+     */
+    private volatile ConcurrentNaryTreeNode<E> parent;
+
+    /**
+     * The number of writes made in the subtree of this node, modulo 2^32.
+     */
+    private volatile int stamp;
+
+    /**
+     * The aggregates of the subtree of this node, valid while their stamp is the stamp of this node.
+     */
+    private volatile Aggregates aggregates;
+
+    /**
+     * Instantiates a new ConcurrentNaryTreeNode with a value.
+     *
+     * @param element - the value of the node
+     */
+    @SuppressWarnings("unchecked")
+    ConcurrentNaryTreeNode(final E element) {
+        this.value = element;
+        this.children = ConcurrentNaryTreeNode.NO_CHILDREN;
+    }
+
+    /**
+     * Returns the current children of this node. The returned array must not be modified.
+     *
+     * @return a snapshot of the children of this node
+     */
+    ConcurrentNaryTreeNode<E>[] snapshot() {
+        return this.children;
+    }
+
+    @Override
+    public INaryTreeNode<E> getChild(final int index) {
+        return this.children[index];
+    }
+
+    /**
+     * Adds a child to this node.
+     *
+     * @param node - the added child
+     *
+     * @return true if the child was added, false if it already is a child of this node
+     *
+     * @throws IllegalArgumentException if the node is not a concurrent node, is the child of another node,
+     *                                  or is an ancestor of this node
+     */
+    @Override
+    public boolean add(final INaryTreeNode<E> node) {
+        if (!(node instanceof ConcurrentNaryTreeNode)) {
+            throw new IllegalArgumentException("Only concurrent nodes can be added to a concurrent node");
+        }
+        final ConcurrentNaryTreeNode<E> child = (ConcurrentNaryTreeNode<E>) node;
+        while (true) {
+            final ConcurrentNaryTreeNode<E> root = this.findRoot();
+            final Boolean added;
+            final int order = Integer.compare(System.identityHashCode(root), System.identityHashCode(child));
+            if (root == child) {
+                synchronized (root) {
+                    added = this.attach(root, child);
+                }
+            } else if (order < 0) {
+                synchronized (root) {
+                    synchronized (child) {
+                        added = this.attach(root, child);
+                    }
+                }
+            } else if (order > 0) {
+                synchronized (child) {
+                    synchronized (root) {
+                        added = this.attach(root, child);
+                    }
+                }
+            } else {
+                synchronized (ConcurrentNaryTreeNode.TIE_LOCK) {
+                    synchronized (root) {
+                        synchronized (child) {
+                            added = this.attach(root, child);
+                        }
+                    }
+                }
+            }
+            if (added != null) {
+                return added;
+            }
+        }
+    }
+
+    /**
+     * Attaches an existing node to this node, under the locks of the root of this node and of the attached node.
+     * Nothing can be attached to the tree of the locked root, nor can the locked node be attached elsewhere,
+     * so the attached node is an ancestor of this node only if it is the locked root.
+     * Nodes can still be detached from the tree meanwhile, which never closes a cycle.
+     *
+     * @param root  - the locked root, found from this node before locking it
+     * @param child - the locked attached node
+     *
+     * @return true if the node was attached, false if it already is a child of this node,
+     * or null if the root changed before it was locked
+     *
+     * @throws IllegalArgumentException if the node is the child of another node or is an ancestor of this node
+     */
+    private Boolean attach(final ConcurrentNaryTreeNode<E> root, final ConcurrentNaryTreeNode<E> child) {
+        if (root.parent != null || this.findRoot() != root) {
+            return null;
+        }
+        if (child.parent == this) {
+            return false;
+        }
+        if (child.parent != null) {
+            throw new IllegalArgumentException("The node already belongs to a tree");
+        }
+        if (child == root) {
+            throw new IllegalArgumentException("A node cannot be added to its own subtree");
+        }
+        child.parent = this;
+        this.append(child);
+        return true;
+    }
+
+    /**
+     * Returns the root of the tree of this node, as linked when its ancestors are read.
+     *
+     * @return the root of this node
+     */
+    private ConcurrentNaryTreeNode<E> findRoot() {
+        ConcurrentNaryTreeNode<E> root = this;
+        for (ConcurrentNaryTreeNode<E> ancestor = this.parent; ancestor != null; ancestor = ancestor.parent) {
+            root = ancestor;
+        }
+        return root;
+    }
+
+    /**
+     * Appends a child claimed by this node to its children.
+     *
+     * @param child - the appended child
+     */
+    @SuppressWarnings("unchecked")
+    private void append(final ConcurrentNaryTreeNode<E> child) {
+        ConcurrentNaryTreeNode<E>[] current;
+        ConcurrentNaryTreeNode<E>[] updated;
+        do {
+            current = this.children;
+            updated = Arrays.copyOf(current, current.length + 1);
+            updated[current.length] = child;
+        } while (!ConcurrentNaryTreeNode.CHILDREN.compareAndSet(this, current, updated));
+        this.invalidate();
+    }
+
+    /**
+     * Bumps the stamps of this node and of its ancestors, after the children of this node are modified.
+     */
+    private void invalidate() {
+        for (ConcurrentNaryTreeNode<E> node = this; node != null; node = node.parent) {
+            ConcurrentNaryTreeNode.STAMP.incrementAndGet(node);
+        }
+    }
+
+    @Override
+    public List<INaryTreeNode<E>> getChildren() {
+        return Collections.unmodifiableList(Arrays.asList(this.children));
+    }
+
+    @Override
+    public boolean isLeaf() {
+        return this.children.length == 0;
+    }
+
+    @Override
+    public int getChildrenCount() {
+        return this.children.length;
+    }
+
+    @Override
+    public E getValue() {
+        return this.value;
+    }
+
+    @Override
+    public void setValue(final E value) {
+        this.value = value;
+    }
+
+    @Override
+    public E getRoot() {
+        return this.value;
+    }
+
+    @Override
+    public boolean add(final E element) {
+        final ConcurrentNaryTreeNode<E> child = new ConcurrentNaryTreeNode<>(element);
+        child.parent = this;
+        this.append(child);
+        return true;
+    }
+
+    /**
+     * Removes the first child holding a value, under the lock of the removed child,
+     * so that it is not attached elsewhere before it is detached from this node.
+     *
+     * @param element - the value of the removed child
+     *
+     * @return true if a child was removed
+     */
+    @Override
+    public boolean remove(final Object element) {
+        while (true) {
+            ConcurrentNaryTreeNode<E> removed = null;
+            for (final ConcurrentNaryTreeNode<E> child : this.children) {
+                final E childValue = child.getValue();
+                if (childValue != null && childValue.equals(element)) {
+                    removed = child;
+                    break;
+                }
+            }
+            if (removed == null) {
+                return false;
+            }
+            synchronized (removed) {
+                if (removed.parent == this) {
+                    ConcurrentNaryTreeNode<E>[] current;
+                    ConcurrentNaryTreeNode<E>[] updated;
+                    do {
+                        current = this.children;
+                        final int index = Arrays.asList(current).indexOf(removed);
+                        updated = Arrays.copyOf(current, current.length - 1);
+                        System.arraycopy(current, index + 1, updated, index, current.length - index - 1);
+                    } while (!ConcurrentNaryTreeNode.CHILDREN.compareAndSet(this, current, updated));
+                    removed.parent = null;
+                    this.invalidate();
+                    return true;
+                }
+            }
+        }
+    }
+
+    @Override
+    public String generateText() {
+        return NaryTreeNode.generateText(this);
+    }
+
+    @Override
+    public boolean contains(final Object element) {
+        return this.find(element) != null;
+    }
+
+    @Override
+    public int getHeight() {
+        return this.aggregates().height;
+    }
+
+    @Override
+    public int size() {
+        return this.aggregates().size;
+    }
+
+    @Override
+    public int getNumberOfLeaves() {
+        return this.aggregates().leaves;
+    }
+
+    /**
+     * Returns the aggregates of the subtree of this node, recomputing only the subtrees modified since they were
+     * cached. The stale nodes are walked in postfix order, each one being computed from the cached aggregates of its
+     * children, with the stamp it had before its children were read: a write made meanwhile bumps it again,
+     * so a stale result is never cached as valid.
+     *
+     * @return the aggregates of this subtree
+     */
+    @SuppressWarnings("unchecked")
+    private Aggregates aggregates() {
+        final Aggregates cached = this.aggregates;
+        if (cached != null && cached.stamp == this.stamp) {
+            return cached;
+        }
+        final NaryTreeStack<E> stack = new NaryTreeStack<>();
+        stack.push(this);
+        stack.label(this.stamp);
+        Aggregates computed = null;
+        while (!stack.isEmpty()) {
+            final ConcurrentNaryTreeNode<E> child = (ConcurrentNaryTreeNode<E>) stack.nextChild();
+            if (child == null) {
+                final ConcurrentNaryTreeNode<E> node = (ConcurrentNaryTreeNode<E>) stack.peek();
+                computed = node.compute(stack.label(), stack);
+                if (computed != null) {
+                    node.aggregates = computed;
+                    stack.pop();
+                }
+            } else {
+                final Aggregates childAggregates = child.aggregates;
+                if (childAggregates == null || childAggregates.stamp != child.stamp) {
+                    stack.push(child);
+                    stack.label(child.stamp);
+                }
+            }
+        }
+        return computed;
+    }
+
+    /**
+     * Computes the aggregates of this node from the aggregates of its children, or pushes its first child never
+     * computed, which was attached since this node was pushed.
+     *
+     * @param stamp - the stamp of this node before its children were read
+     * @param stack - the stack of the walk, this node being on its top
+     *
+     * @return the aggregates of this node, or null if a child was pushed
+     */
+    private Aggregates compute(final int stamp, final NaryTreeStack<E> stack) {
+        int size = 1;
+        int height = 0;
+        int leaves = 0;
+        final ConcurrentNaryTreeNode<E>[] current = this.children;
+        for (final ConcurrentNaryTreeNode<E> child : current) {
+            final Aggregates childAggregates = child.aggregates;
+            if (childAggregates == null) {
+                stack.push(child);
+                stack.label(child.stamp);
+                return null;
+            }
+            size += childAggregates.size;
+            height = Math.max(height, childAggregates.height);
+            leaves += childAggregates.leaves;
+        }
+        return current.length == 0 ? new Aggregates(stamp, 1, 1, 1) : new Aggregates(stamp, size, height + 1, leaves);
+    }
+
+    @Override
+    public String toJson() {
+        final StringWriter writer = new StringWriter();
+        try {
+            this.toJson(writer);
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return writer.toString();
+    }
+
+    @Override
+    public void toJson(final Writer writer) throws IOException {
+        final NaryTreeJsonWriter<E> jsonWriter = new NaryTreeJsonWriter<>(writer);
+        this.walk(jsonWriter);
+        jsonWriter.flush();
+    }
+
+    @Override
+    public String toPrettyText() {
+        return NaryTreeNode.toPrettyText(this);
+    }
+
+    @Override
+    public List<E> toPostfixList() {
+        return NaryTreeNode.toList(this.postfixIterator(), 16);
+    }
+
+    @Override
+    public List<E> toPrefixList() {
+        return NaryTreeNode.toList(this.prefixIterator(), 16);
+    }
+
+    @Override
+    public List<E> toByWidthList() {
+        return NaryTreeNode.toList(this.breadthFirstIterator(), 16);
+    }
+
+    @Override
+    public Iterator<E> prefixIterator() {
+        return ConcurrentNaryTreeIterator.prefix(this);
+    }
+
+    @Override
+    public Iterator<E> postfixIterator() {
+        return ConcurrentNaryTreeIterator.postfix(this);
+    }
+
+    @Override
+    public Iterator<E> breadthFirstIterator() {
+        return ConcurrentNaryTreeIterator.breadthFirst(this);
+    }
+
+    @Override
+    public INaryTree<E> getNodeFromElement(final E element) {
+        return this.find(element);
+    }
+
+    private ConcurrentNaryTreeNode<E> find(final Object element) {
+        final ConcurrentNaryTreeIterator.Prefix<E> nodes = ConcurrentNaryTreeIterator.prefix(this);
+        while (nodes.hasNext()) {
+            final ConcurrentNaryTreeNode<E> node = nodes.nextNode();
+            if (Objects.equals(node.getValue(), element)) {
+                return node;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return false;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return this.breadthFirstIterator();
+    }
+
+    @Override
+    public Spliterator<E> spliterator() {
+        return Spliterators.spliteratorUnknownSize(this.prefixIterator(), Spliterator.ORDERED);
+    }
+
+    @Override
+    public String toString() {
+        return "ConcurrentNaryTreeNode{" +
+                "value=" + this.value +
+                ", children=" + Arrays.toString(this.children) +
+                '}';
+    }
+
+    /**
+     * The size, height and number of leaves of a subtree, with the stamp of its root when they were computed.
+     */
+    private static final class Aggregates {
+        private final int stamp;
+
+        private final int size;
+
+        private final int height;
+
+        private final int leaves;
+
+        private Aggregates(final int stamp, final int size, final int height, final int leaves) {
+            this.stamp = stamp;
+            this.size = size;
+            this.height = height;
+            this.leaves = leaves;
+        }
+    }
+}
@@ -1,6 +1,14 @@
 package com.am.treenode;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
 import java.util.List;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Represents a tree date structure.
@@ -49,6 +57,21 @@ public interface INaryTree<E> extends Iterable<E> {
      */
     String generateText();
 
+    /**
+     * Writes the text representation of the tree to an appendable.
+     * The output is the same as {@link #generateText()}. The trees of this package stream it while the tree is walked
+     * without recursion, so no intermediate string is built, while this default appends the generated text.
+     * The appendable is flushed if it is {@link java.io.Flushable}, but not closed.
+     *
+     * @param appendable - the appendable receiving the text
+     *
+     * @throws IOException if the appendable fails
+     */
+    default void writeText(final Appendable appendable) throws IOException {
+        appendable.append(this.generateText());
+        NaryTreeTextWriter.flush(appendable);
+    }
+
     /**
      * Returns True if the tree contains the specified value.
      *
@@ -90,6 +113,46 @@ public interface INaryTree<E> extends Iterable<E> {
      */
     String toJson();
 
+    /**
+     * Writes the json representation of the tree to a writer.
+     * The output is the same as {@link #toJson()}. The trees of this package stream it while the tree is walked,
+     * so the memory used does not depend on the number of nodes, while this default writes the generated json.
+     * The writer is flushed but not closed.
+     *
+     * @param writer - the writer receiving the json
+     *
+     * @throws IOException if the writer fails
+     */
+    default void toJson(final Writer writer) throws IOException {
+        writer.write(this.toJson());
+        writer.flush();
+    }
+
+    /**
+     * Writes the json representation of the tree to an appendable.
+     *
+     * @param appendable - the appendable receiving the json
+     *
+     * @throws IOException if the appendable fails
+     * @see #toJson(Writer)
+     */
+    default void toJson(final Appendable appendable) throws IOException {
+        this.toJson(NaryTreeJsonWriter.writerFor(appendable));
+    }
+
+    /**
+     * Writes the json representation of the tree to an output stream, encoded in UTF-8.
+     * The output stream is flushed but not closed.
+     *
+     * @param outputStream - the output stream receiving the json
+     *
+     * @throws IOException if the output stream fails
+     * @see #toJson(Writer)
+     */
+    default void toJson(final OutputStream outputStream) throws IOException {
+        this.toJson(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+    }
+
     /**
      * Returns a pretty text representation of the tree.
      * The pretty text representation consists of a list of the node's value and its children.
@@ -113,6 +176,86 @@ public interface INaryTree<E> extends Iterable<E> {
      */
     String toPrettyText();
 
+    /**
+     * Writes the pretty text representation of the tree to an appendable.
+     * The output is the same as {@link #toPrettyText()}, but it is streamed while the tree is walked without recursion.
+     * The appendable is flushed if it is {@link java.io.Flushable}, but not closed.
+     *
+     * @param appendable - the appendable receiving the text
+     *
+     * @throws IOException if the appendable fails
+     * @see #writePrettyText(Appendable, NaryTreeTextOptions)
+     */
+    default void writePrettyText(final Appendable appendable) throws IOException {
+        this.writePrettyText(appendable, NaryTreeTextOptions.unlimited());
+    }
+
+    /**
+     * Writes the pretty text representation of the top of the tree to an appendable.
+     * The nodes deeper than the maximum depth of the options are not visited, and the walk stops
+     * once the maximum number of nodes is written, so the cost depends on the rendered nodes only.
+     * The cut parts of the tree are replaced by a {@value NaryTreeNodeUtils#VALUE_PRETTY_ELLIPSIS} line.
+     * <p>
+     * Example, with a maximum depth of 1, the root being at depth 0 as in {@link #accept(TreeVisitor, int)}:
+     * <pre>
+     *      root
+     *      ├─child1
+     *      │ ├─…
+     *      ├─child2
+     *  </pre>
+     * This default appends {@link #toPrettyText()} when the options cut nothing, and otherwise walks the tree through
+     * {@link #accept(TreeVisitor, int)}.
+     * The appendable is flushed if it is {@link java.io.Flushable}, but not closed.
+     *
+     * @param appendable - the appendable receiving the text
+     * @param options    - the cut-offs of the rendering
+     *
+     * @throws IOException if the appendable fails
+     */
+    default void writePrettyText(final Appendable appendable, final NaryTreeTextOptions options) throws IOException {
+        if (options.getMaxDepth() == Integer.MAX_VALUE && options.getMaxNodes() == Integer.MAX_VALUE) {
+            appendable.append(this.toPrettyText());
+        } else {
+            NaryTreeTextWriter.visitPretty(this, appendable, options);
+        }
+        NaryTreeTextWriter.flush(appendable);
+    }
+
+    /**
+     * Walks this tree depth-first with a visitor, see {@link #accept(TreeVisitor, int)}.
+     *
+     * @param visitor - the visitor receiving the values
+     *
+     * @return false if the visitor terminated the walk, true otherwise
+     */
+    default boolean accept(final TreeVisitor<? super E> visitor) {
+        return this.accept(visitor, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Walks this tree depth-first with a visitor, down to a maximum depth, the root being at depth 0.
+     * Each node is entered before its children and left after them, unless the visitor skips its subtree on entering
+     * it; the nodes at the maximum depth are entered and left, but their children are not visited.
+     * The walk stops as soon as a callback terminates it. It runs without recursion and allocates nothing per node,
+     * so a query costs only the nodes it touches: the skipped subtrees are never reached.
+     * <p>
+     * This walk exposes the structure of the tree: the trees implemented outside this package are pretty printed
+     * with options, compared by {@link NaryTreeDiff} and encoded by {@link NaryTreeBinaryCodec} and
+     * {@link MappedNaryTree} through it. The trees of this package implement it, while this default does not know
+     * the structure of the tree and throws, so these operations fail on the trees not overriding it.
+     *
+     * @param visitor  - the visitor receiving the values
+     * @param maxDepth - the depth of the deepest visited nodes, 0 to visit only the root
+     *
+     * @return false if the visitor terminated the walk, true otherwise
+     *
+     * @throws IllegalArgumentException      if the maximum depth is negative
+     * @throws UnsupportedOperationException if this tree does not expose its structure
+     */
+    default boolean accept(final TreeVisitor<? super E> visitor, final int maxDepth) {
+        throw new UnsupportedOperationException(this.getClass().getName() + " does not expose its structure");
+    }
+
     /**
      * Returns a postfix list of all values.
      * The postfix list is obtained by traversing the tree in post-order.
@@ -140,6 +283,60 @@ public interface INaryTree<E> extends Iterable<E> {
      */
     List<E> toByWidthList();
 
+    /**
+     * Returns a lazy iterator over the values in prefix order, as in {@link #toPrefixList()}.
+     * The first value is returned in constant time and the tree is walked without recursion by the trees of this
+     * package, while this default iterates over the list.
+     * The tree must not be modified while it is iterated.
+     *
+     * @return a prefix iterator over the values
+     */
+    default Iterator<E> prefixIterator() {
+        return this.toPrefixList().iterator();
+    }
+
+    /**
+     * Returns a lazy iterator over the values in postfix order, as in {@link #toPostfixList()}.
+     * The tree is walked without recursion by the trees of this package, while this default iterates over the list.
+     * The tree must not be modified while it is iterated.
+     *
+     * @return a postfix iterator over the values
+     */
+    default Iterator<E> postfixIterator() {
+        return this.toPostfixList().iterator();
+    }
+
+    /**
+     * Returns a lazy iterator over the values level by level, as in {@link #toByWidthList()}.
+     * The first value is returned in constant time by the trees of this package, while this default iterates over
+     * the list.
+     * The tree must not be modified while it is iterated.
+     *
+     * @return a breadth first iterator over the values
+     */
+    default Iterator<E> breadthFirstIterator() {
+        return this.toByWidthList().iterator();
+    }
+
+    /**
+     * Returns a sequential stream over the values in prefix order.
+     *
+     * @return a sequential stream over the values
+     */
+    default Stream<E> stream() {
+        return StreamSupport.stream(this.spliterator(), false);
+    }
+
+    /**
+     * Returns a parallel stream over the values in prefix order.
+     * The values are split between the tasks of the common fork-join pool along subtree boundaries.
+     *
+     * @return a parallel stream over the values
+     */
+    default Stream<E> parallelStream() {
+        return StreamSupport.stream(this.spliterator(), true);
+    }
+
     /**
      * Returns the node that contains the specified element.
      * If the element is found in the tree, the node that contains the element is returned.
@@ -1,5 +1,6 @@
 package com.am.treenode;
 
+import java.io.IOException;
 import java.util.List;
 
 interface INaryTreeNode<E> extends INaryTree<E> {
@@ -28,6 +29,16 @@ interface INaryTreeNode<E> extends INaryTree<E> {
      */
     List<INaryTreeNode<E>> getChildren();
 
+    /**
+     * Returns True if the children of this node are reached by {@link #getChild(int)} in constant time and without
+     * allocation, so that walks index them instead of iterating over {@link #getChildren()}.
+     *
+     * @return True if the children of this node are randomly accessible
+     */
+    default boolean hasRandomAccessChildren() {
+        return false;
+    }
+
     /**
      * Returns True if this node is a leaf.
      *
@@ -57,4 +68,87 @@ interface INaryTreeNode<E> extends INaryTree<E> {
      * @param value - the value of the node
      */
     void setValue(E value);
-}
\ No newline at end of file
+
+    /**
+     * Walks the subtree of this node depth-first without recursion, with a {@link NaryTreeStack}.
+     * The memory used by the walk is proportional to the height of the subtree. A node is passed as a leaf if the
+     * stack read no children from it, so that the handler sees the same children as the walk on concurrent trees.
+     *
+     * @param handler - the handler receiving the nodes
+     *
+     * @throws IOException if the handler fails to write its output
+     */
+    default void walk(final NaryTreeHandler<E> handler) throws IOException {
+        final NaryTreeStack<E> stack = new NaryTreeStack<>();
+        stack.push(this);
+        handler.enter(this.getValue(), stack.count() == 0);
+        while (!stack.isEmpty()) {
+            final INaryTreeNode<E> child = stack.nextChild();
+            if (child == null) {
+                final boolean leaf = stack.count() == 0;
+                handler.leave(stack.pop().getValue(), leaf);
+            } else {
+                stack.push(child);
+                handler.enter(child.getValue(), stack.count() == 0);
+            }
+        }
+    }
+
+    /**
+     * Visits the subtree of this node depth-first without recursion, as described by
+     * {@link INaryTree#accept(TreeVisitor, int)}. The walk goes through a {@link NaryTreeStack}, so it allocates
+     * nothing per node unless the children of a node are not randomly accessible, and the memory it uses is
+     * proportional to the visited depth.
+     *
+     * @param visitor  - the visitor receiving the values
+     * @param maxDepth - the depth of the deepest visited nodes, this node being at depth 0
+     *
+     * @return false if the visitor terminated the walk, true otherwise
+     */
+    default boolean visit(final TreeVisitor<? super E> visitor, final int maxDepth) {
+        TreeVisitor.Result result = visitor.enter(this.getValue(), 0);
+        if (result != TreeVisitor.Result.CONTINUE) {
+            return result != TreeVisitor.Result.TERMINATE;
+        }
+        if (maxDepth > 0) {
+            final NaryTreeStack<E> stack = new NaryTreeStack<>();
+            stack.push(this);
+            while (true) {
+                final INaryTreeNode<E> child = stack.nextChild();
+                if (child == null) {
+                    final INaryTreeNode<E> node = stack.pop();
+                    if (stack.isEmpty()) {
+                        break;
+                    }
+                    if (visitor.leave(node.getValue(), stack.depth()) == TreeVisitor.Result.TERMINATE) {
+                        return false;
+                    }
+                    continue;
+                }
+                final int depth = stack.depth();
+                result = visitor.enter(child.getValue(), depth);
+                if (result == TreeVisitor.Result.TERMINATE) {
+                    return false;
+                }
+                if (result == TreeVisitor.Result.SKIP_SUBTREE) {
+                    continue;
+                }
+                // The leaves and the nodes at the maximum depth are left at once.
+                if (depth < maxDepth && !child.isLeaf()) {
+                    stack.push(child);
+                } else if (visitor.leave(child.getValue(), depth) == TreeVisitor.Result.TERMINATE) {
+                    return false;
+                }
+            }
+        }
+        return visitor.leave(this.getValue(), 0) != TreeVisitor.Result.TERMINATE;
+    }
+
+    @Override
+    default boolean accept(final TreeVisitor<? super E> visitor, final int maxDepth) {
+        if (maxDepth < 0) {
+            throw new IllegalArgumentException("The maximum depth cannot be negative: " + maxDepth);
+        }
+        return this.visit(visitor, maxDepth);
+    }
+}
@@ -0,0 +1,342 @@
+package com.am.treenode;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Function;
+
+/**
+ * A N-aryTree mirroring an external hierarchy, whose children are loaded on first access.
+ * The children of a node are obtained by calling a loader with the value of the node, the first time they are needed
+ * by {@link INaryTreeNode#getChildren()}, an iterator, a search or an aggregate. The loader must return the same
+ * children each time it is called with the same value, as evicted children are loaded again when they are needed.
+ * <p>
+ * The number of loaded nodes is bounded by a budget. When it is exceeded, the least recently used branches
+ * are unloaded: only the loaded nodes without loaded children are candidates, so a branch is unloaded
+ * from its deepest nodes up, and an unloaded node costs a single entry in the children of its parent.
+ * The branches which were modified by {@link #add(Object)}, {@link #remove(Object)} or by setting the value of a node
+ * are never unloaded. The nodes added to the tree start with no children and are never passed to the loader.
+ * <p>
+ * The size, height and number of leaves of each subtree are cached once computed, and survive the unloading of
+ * the subtree. The nodes of an unloaded branch are detached from the tree: they keep working, but their children
+ * are no longer counted in the budget, so nodes should be obtained from the tree rather than kept.
+ * This tree is not thread-safe.
+ *
+ * @param <E> the type elements held in this tree
+ */
+public class LazyNaryTree<E> extends AbstractNaryTree<E> {
+    private final Function<? super E, ? extends List<? extends E>> loader;
+
+    private final int maxLoadedNodes;
+
+    private final LazyNaryTreeNode<E> root;
+
+    /**
+     * The number of nodes held by the tree: the root and the children of the loaded nodes.
+     */
+    private int loadedNodes = 1;
+
+    /**
+     * The ends of the list of the nodes which can be unloaded, from the least to the most recently used.
+     */
+    private LazyNaryTreeNode<E> eldest;
+
+    private LazyNaryTreeNode<E> newest;
+
+    /**
+     * Construct a LazyNaryTree without a budget.
+     *
+     * @param root   - the root element
+     * @param loader - returns the children of a value, or an empty list or null for a leaf
+     */
+    public LazyNaryTree(final E root, final Function<? super E, ? extends List<? extends E>> loader) {
+        this(root, loader, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Construct a LazyNaryTree holding at most a number of loaded nodes.
+     * The budget may be exceeded while the loaded nodes are all on the path to the last loaded node or modified.
+     *
+     * @param root           - the root element
+     * @param loader         - returns the children of a value, or an empty list or null for a leaf
+     * @param maxLoadedNodes - the number of nodes over which the least recently used branches are unloaded
+     */
+    public LazyNaryTree(final E root, final Function<? super E, ? extends List<? extends E>> loader,
+                        final int maxLoadedNodes) {
+        if (maxLoadedNodes < 1) {
+            throw new IllegalArgumentException("The tree must be able to hold its root: " + maxLoadedNodes);
+        }
+        this.loader = loader;
+        this.maxLoadedNodes = maxLoadedNodes;
+        this.root = new LazyNaryTreeNode<>(this, root, null, false);
+    }
+
+    /**
+     * Returns the root node of this tree.
+     *
+     * @return the root node
+     */
+    @Override
+    LazyNaryTreeNode<E> getRootNode() {
+        return this.root;
+    }
+
+    /**
+     * Returns the number of nodes currently held by this tree.
+     *
+     * @return the number of loaded nodes
+     */
+    public int getLoadedNodes() {
+        return this.loadedNodes;
+    }
+
+    /**
+     * Returns the number of nodes over which the least recently used branches are unloaded.
+     *
+     * @return the budget of loaded nodes
+     */
+    public int getMaxLoadedNodes() {
+        return this.maxLoadedNodes;
+    }
+
+    /**
+     * Loads the children of a node, then unloads the least recently used branches if the budget is exceeded.
+     *
+     * @param node - the node whose children are not loaded
+     *
+     * @return the loaded children
+     */
+    List<LazyNaryTreeNode<E>> load(final LazyNaryTreeNode<E> node) {
+        final List<LazyNaryTreeNode<E>> children = node.loaded(this.loader.apply(node.getValue()));
+        if (node.detached) {
+            return children;
+        }
+        this.loadedNodes += children.size();
+        this.loadedChild(node.parent);
+        this.link(node);
+        this.evict(node);
+        return children;
+    }
+
+    /**
+     * Marks a node as the most recently used one, if it can be unloaded.
+     *
+     * @param node - the accessed node
+     */
+    void touch(final LazyNaryTreeNode<E> node) {
+        if (node.linked && node != this.newest) {
+            this.unlink(node);
+            this.link(node);
+        }
+    }
+
+    /**
+     * Pins a node whose children or whose children values were modified, so that it is never unloaded.
+     *
+     * @param node - the modified node
+     */
+    void modified(final LazyNaryTreeNode<E> node) {
+        node.modified = true;
+        if (node.linked) {
+            this.unlink(node);
+        }
+    }
+
+    /**
+     * Accounts for a child added to a node.
+     *
+     * @param parent - the node receiving the child
+     * @param child  - the added child, loaded or not
+     */
+    void added(final LazyNaryTreeNode<E> parent, final LazyNaryTreeNode<E> child) {
+        this.loadedNodes += child.attach();
+        if (child.children != null) {
+            this.loadedChild(parent);
+        }
+        this.modified(parent);
+        this.evict(null);
+    }
+
+    /**
+     * Accounts for a child removed from a node.
+     *
+     * @param parent - the node which held the child
+     * @param child  - the removed child
+     */
+    void removed(final LazyNaryTreeNode<E> parent, final LazyNaryTreeNode<E> child) {
+        if (child.children != null) {
+            parent.loadedChildren--;
+        }
+        this.loadedNodes -= child.detach(this);
+        this.modified(parent);
+    }
+
+    private void loadedChild(final LazyNaryTreeNode<E> parent) {
+        if (parent != null && parent.loadedChildren++ == 0 && parent.linked) {
+            this.unlink(parent);
+        }
+    }
+
+    private void evict(final LazyNaryTreeNode<E> keep) {
+        while (this.loadedNodes > this.maxLoadedNodes && this.eldest != null && this.eldest != keep) {
+            final LazyNaryTreeNode<E> node = this.eldest;
+            this.unlink(node);
+            this.loadedNodes -= node.unload();
+            final LazyNaryTreeNode<E> parent = node.parent;
+            if (parent != null && --parent.loadedChildren == 0 && !parent.modified) {
+                // The parent was used before its last loaded child, so it is the least recently used node.
+                this.linkEldest(parent);
+            }
+        }
+    }
+
+    private void link(final LazyNaryTreeNode<E> node) {
+        node.linked = true;
+        node.older = this.newest;
+        if (this.newest == null) {
+            this.eldest = node;
+        } else {
+            this.newest.newer = node;
+        }
+        this.newest = node;
+    }
+
+    private void linkEldest(final LazyNaryTreeNode<E> node) {
+        node.linked = true;
+        node.newer = this.eldest;
+        if (this.eldest == null) {
+            this.newest = node;
+        } else {
+            this.eldest.older = node;
+        }
+        this.eldest = node;
+    }
+
+    void unlink(final LazyNaryTreeNode<E> node) {
+        if (node.older == null) {
+            this.eldest = node.newer;
+        } else {
+            node.older.newer = node.newer;
+        }
+        if (node.newer == null) {
+            this.newest = node.older;
+        } else {
+            node.newer.older = node.older;
+        }
+        node.older = null;
+        node.newer = null;
+        node.linked = false;
+    }
+
+    @Override
+    public E getRoot() {
+        return this.root.getValue();
+    }
+
+    @Override
+    public boolean add(final E element) {
+        return this.root.add(element);
+    }
+
+    @Override
+    public boolean remove(final Object element) {
+        final E value = this.root.getValue();
+        if (value != null && value.equals(element)) {
+            this.root.setValue(null);
+            return true;
+        }
+        return this.root.remove(element);
+    }
+
+    @Override
+    public String generateText() {
+        return this.root.generateText();
+    }
+
+    @Override
+    public boolean contains(final Object element) {
+        return this.root.contains(element);
+    }
+
+    @Override
+    public int getHeight() {
+        return this.root.getHeight();
+    }
+
+    @Override
+    public int size() {
+        return this.root.size();
+    }
+
+    @Override
+    public int getNumberOfLeaves() {
+        return this.root.getNumberOfLeaves();
+    }
+
+    @Override
+    public String toJson() {
+        return this.root.toJson();
+    }
+
+    @Override
+    public void toJson(final Writer writer) throws IOException {
+        this.root.toJson(writer);
+    }
+
+    @Override
+    public String toPrettyText() {
+        return this.root.toPrettyText();
+    }
+
+    @Override
+    public List<E> toPostfixList() {
+        return this.root.toPostfixList();
+    }
+
+    @Override
+    public List<E> toPrefixList() {
+        return this.root.toPrefixList();
+    }
+
+    @Override
+    public List<E> toByWidthList() {
+        return this.root.toByWidthList();
+    }
+
+    @Override
+    public Iterator<E> prefixIterator() {
+        return this.root.prefixIterator();
+    }
+
+    @Override
+    public Iterator<E> postfixIterator() {
+        return this.root.postfixIterator();
+    }
+
+    @Override
+    public Iterator<E> breadthFirstIterator() {
+        return this.root.breadthFirstIterator();
+    }
+
+    @Override
+    public INaryTree<E> getNodeFromElement(final E element) {
+        return this.root.getNodeFromElement(element);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return false;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return this.breadthFirstIterator();
+    }
+
+    @Override
+    public Spliterator<E> spliterator() {
+        return this.root.spliterator();
+    }
+}
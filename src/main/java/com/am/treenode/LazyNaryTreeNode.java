@@ -0,0 +1,484 @@
+package com.am.treenode;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+
+/**
+ * A node of a {@link LazyNaryTree}, whose children are loaded on first access.
+ * The node also holds its links in the list of the least recently used nodes of its tree,
+ * and the cached aggregates of its subtree.
+ *
+ * @param <E> the type parameter
+ */
+final class LazyNaryTreeNode<E> implements INaryTreeNode<E> {
+    final LazyNaryTree<E> tree;
+
+    private E value;
+
+    LazyNaryTreeNode<E> parent;
+
+    /**
+     * The children of this node, or null if they are not loaded.
+     */
+    List<LazyNaryTreeNode<E>> children;
+
+    /**
+     * The number of loaded children of this node. A node can be unloaded only if it has none.
+     */
+    int loadedChildren;
+
+    /**
+     * True if the children of this node were modified, in which case they are never unloaded.
+     */
+    boolean modified;
+
+    /**
+     * True if this node is not held by its tree anymore, in which case its children are not counted in the budget.
+     */
+    boolean detached;
+
+    /**
+     * True if this node is in the list of the nodes which can be unloaded.
+     */
+    boolean linked;
+
+    LazyNaryTreeNode<E> older;
+
+    LazyNaryTreeNode<E> newer;
+
+    /**
+     * The aggregates of the subtree, or 0 if they are not known.
+     */
+    private int size;
+
+    private int height;
+
+    private int leaves;
+
+    /**
+     * Instantiates a new LazyNaryTreeNode.
+     *
+     * @param tree     - the tree of the node
+     * @param element  - the value of the node
+     * @param parent   - the parent of the node
+     * @param detached - true if the node is not held by its tree
+     */
+    LazyNaryTreeNode(final LazyNaryTree<E> tree, final E element, final LazyNaryTreeNode<E> parent,
+                     final boolean detached) {
+        this.tree = tree;
+        this.value = element;
+        this.parent = parent;
+        this.detached = detached;
+    }
+
+    /**
+     * Returns the children of this node, loading them if needed.
+     *
+     * @return the children of this node
+     */
+    private List<LazyNaryTreeNode<E>> children() {
+        if (this.children == null) {
+            return this.tree.load(this);
+        }
+        this.tree.touch(this);
+        return this.children;
+    }
+
+    /**
+     * Sets the children of this node from the values returned by the loader.
+     *
+     * @param values - the values of the children, or null for a leaf
+     *
+     * @return the children of this node
+     */
+    List<LazyNaryTreeNode<E>> loaded(final List<? extends E> values) {
+        if (values == null || values.isEmpty()) {
+            this.children = Collections.emptyList();
+        } else {
+            final List<LazyNaryTreeNode<E>> children = new ArrayList<>(values.size());
+            for (final E child : values) {
+                children.add(new LazyNaryTreeNode<>(this.tree, child, this, this.detached));
+            }
+            this.children = children;
+        }
+        return this.children;
+    }
+
+    /**
+     * Unloads the children of this node, which must have no loaded children.
+     *
+     * @return the number of unloaded nodes
+     */
+    int unload() {
+        final List<LazyNaryTreeNode<E>> children = this.children;
+        for (final LazyNaryTreeNode<E> child : children) {
+            child.detached = true;
+            child.parent = null;
+        }
+        this.children = null;
+        return children.size();
+    }
+
+    /**
+     * Attaches the detached subtree of this node to its tree. Its loaded nodes are pinned,
+     * since they may have been modified.
+     *
+     * @return the number of nodes held by the subtree
+     */
+    int attach() {
+        int count = 0;
+        final Deque<LazyNaryTreeNode<E>> stack = new ArrayDeque<>();
+        stack.push(this);
+        while (!stack.isEmpty()) {
+            final LazyNaryTreeNode<E> node = stack.pop();
+            node.detached = false;
+            count++;
+            if (node.children == null) {
+                continue;
+            }
+            node.modified = true;
+            node.loadedChildren = 0;
+            for (final LazyNaryTreeNode<E> child : node.children) {
+                if (child.children != null) {
+                    node.loadedChildren++;
+                }
+                stack.push(child);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Detaches the subtree of this node from its tree.
+     *
+     * @param tree - the tree holding the subtree
+     *
+     * @return the number of nodes which were held by the subtree
+     */
+    int detach(final LazyNaryTree<E> tree) {
+        int count = 0;
+        final Deque<LazyNaryTreeNode<E>> stack = new ArrayDeque<>();
+        stack.push(this);
+        while (!stack.isEmpty()) {
+            final LazyNaryTreeNode<E> node = stack.pop();
+            if (node.linked) {
+                tree.unlink(node);
+            }
+            node.detached = true;
+            count++;
+            if (node.children == null) {
+                continue;
+            }
+            for (final LazyNaryTreeNode<E> child : node.children) {
+                stack.push(child);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Forgets the aggregates of this node and of its ancestors.
+     */
+    private void invalidate() {
+        for (LazyNaryTreeNode<E> node = this; node != null; node = node.parent) {
+            node.size = 0;
+        }
+    }
+
+    @Override
+    public INaryTreeNode<E> getChild(final int index) {
+        return this.children().get(index);
+    }
+
+    @Override
+    public boolean add(final INaryTreeNode<E> node) {
+        if (!(node instanceof LazyNaryTreeNode) || ((LazyNaryTreeNode<E>) node).tree != this.tree) {
+            throw new IllegalArgumentException("Only nodes of the same lazy tree can be added to a lazy node");
+        }
+        final LazyNaryTreeNode<E> child = (LazyNaryTreeNode<E>) node;
+        if (child.parent == this) {
+            return false;
+        }
+        if (child.parent != null || !child.detached) {
+            throw new IllegalArgumentException("The node already belongs to a tree");
+        }
+        for (LazyNaryTreeNode<E> ancestor = this; ancestor != null; ancestor = ancestor.parent) {
+            if (ancestor == child) {
+                throw new IllegalArgumentException("A node cannot be added to its own subtree");
+            }
+        }
+        if (this.children() == Collections.<LazyNaryTreeNode<E>>emptyList()) {
+            this.children = new ArrayList<>(1);
+        }
+        child.parent = this;
+        this.children.add(child);
+        if (!this.detached) {
+            this.tree.added(this, child);
+        }
+        this.invalidate();
+        return true;
+    }
+
+    @Override
+    public List<INaryTreeNode<E>> getChildren() {
+        return Collections.unmodifiableList(this.children());
+    }
+
+    @Override
+    public boolean isLeaf() {
+        return this.children().isEmpty();
+    }
+
+    @Override
+    public int getChildrenCount() {
+        return this.children().size();
+    }
+
+    @Override
+    public E getValue() {
+        return this.value;
+    }
+
+    /**
+     * Sets the value of the node. The children are loaded first and kept,
+     * since the loader would not find them under the new value.
+     *
+     * @param value - the value of the node
+     */
+    @Override
+    public void setValue(final E value) {
+        this.children();
+        this.value = value;
+        if (!this.detached) {
+            this.tree.modified(this);
+            if (this.parent != null) {
+                this.tree.modified(this.parent);
+            }
+        }
+    }
+
+    @Override
+    public E getRoot() {
+        return this.value;
+    }
+
+    /**
+     * Adds a child, which starts with no children and is never passed to the loader.
+     *
+     * @param element - the value of the added child
+     *
+     * @return true
+     */
+    @Override
+    public boolean add(final E element) {
+        final LazyNaryTreeNode<E> child = new LazyNaryTreeNode<>(this.tree, element, null, true);
+        child.children = new ArrayList<>(0);
+        return this.add(child);
+    }
+
+    @Override
+    public boolean remove(final Object element) {
+        final List<LazyNaryTreeNode<E>> children = this.children();
+        for (int i = 0; i < children.size(); i++) {
+            final LazyNaryTreeNode<E> child = children.get(i);
+            if (child.value != null && child.value.equals(element)) {
+                children.remove(i);
+                child.parent = null;
+                if (this.detached) {
+                    child.detached = true;
+                } else {
+                    this.tree.removed(this, child);
+                }
+                this.invalidate();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String generateText() {
+        return NaryTreeNode.generateText(this);
+    }
+
+    @Override
+    public boolean contains(final Object element) {
+        return NaryTreeNode.find(this, element, false, null) != null;
+    }
+
+    @Override
+    public int getHeight() {
+        this.aggregate();
+        return this.height;
+    }
+
+    @Override
+    public int size() {
+        this.aggregate();
+        return this.size;
+    }
+
+    @Override
+    public int getNumberOfLeaves() {
+        this.aggregate();
+        return this.leaves;
+    }
+
+    /**
+     * Computes the aggregates of the subtree of this node without recursion, and caches them on each of its nodes.
+     * The subtrees whose aggregates are already known are not visited.
+     * The children are always obtained from their parent, so that a branch unloaded during the walk is loaded again
+     * rather than walked detached, hence the walk keeps its own stack rather than a {@link NaryTreeStack}, which
+     * iterates the children taken when a node is pushed.
+     */
+    @SuppressWarnings("unchecked")
+    private void aggregate() {
+        if (this.size > 0) {
+            return;
+        }
+        LazyNaryTreeNode<E>[] nodes = (LazyNaryTreeNode<E>[]) new LazyNaryTreeNode<?>[16];
+        int[] next = new int[16];
+        int[] sizes = new int[16];
+        int[] heights = new int[16];
+        int[] leaves = new int[16];
+        int depth = 0;
+        nodes[depth++] = this;
+        while (depth > 0) {
+            final int top = depth - 1;
+            final LazyNaryTreeNode<E> node = nodes[top];
+            final List<LazyNaryTreeNode<E>> children = node.children();
+            if (next[top] < children.size()) {
+                final LazyNaryTreeNode<E> child = children.get(next[top]++);
+                if (child.size > 0) {
+                    sizes[top] += child.size;
+                    heights[top] = Math.max(heights[top], child.height);
+                    leaves[top] += child.leaves;
+                    continue;
+                }
+                if (depth == nodes.length) {
+                    nodes = Arrays.copyOf(nodes, depth * 2);
+                    next = Arrays.copyOf(next, depth * 2);
+                    sizes = Arrays.copyOf(sizes, depth * 2);
+                    heights = Arrays.copyOf(heights, depth * 2);
+                    leaves = Arrays.copyOf(leaves, depth * 2);
+                }
+                nodes[depth] = child;
+                next[depth] = 0;
+                sizes[depth] = 0;
+                heights[depth] = 0;
+                leaves[depth++] = 0;
+            } else {
+                node.size = sizes[top] + 1;
+                node.height = heights[top] + 1;
+                node.leaves = children.isEmpty() ? 1 : leaves[top];
+                nodes[--depth] = null;
+                if (depth > 0) {
+                    sizes[depth - 1] += node.size;
+                    heights[depth - 1] = Math.max(heights[depth - 1], node.height);
+                    leaves[depth - 1] += node.leaves;
+                }
+            }
+        }
+    }
+
+    @Override
+    public String toJson() {
+        final StringWriter writer = new StringWriter();
+        try {
+            this.toJson(writer);
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return writer.toString();
+    }
+
+    @Override
+    public void toJson(final Writer writer) throws IOException {
+        final NaryTreeJsonWriter<E> jsonWriter = new NaryTreeJsonWriter<>(writer);
+        this.walk(jsonWriter);
+        jsonWriter.flush();
+    }
+
+    @Override
+    public String toPrettyText() {
+        return NaryTreeNode.toPrettyText(this);
+    }
+
+    @Override
+    public List<E> toPostfixList() {
+        return NaryTreeNode.toList(this.postfixIterator(), this.sizeHint());
+    }
+
+    @Override
+    public List<E> toPrefixList() {
+        return NaryTreeNode.toList(this.prefixIterator(), this.sizeHint());
+    }
+
+    @Override
+    public List<E> toByWidthList() {
+        return NaryTreeNode.toList(this.breadthFirstIterator(), this.sizeHint());
+    }
+
+    private int sizeHint() {
+        return this.size > 0 ? this.size : 16;
+    }
+
+    @Override
+    public Iterator<E> prefixIterator() {
+        return NaryTreeIterator.prefix(this);
+    }
+
+    @Override
+    public Iterator<E> postfixIterator() {
+        return NaryTreeIterator.postfix(this);
+    }
+
+    @Override
+    public Iterator<E> breadthFirstIterator() {
+        return NaryTreeIterator.breadthFirst(this);
+    }
+
+    @Override
+    public INaryTree<E> getNodeFromElement(final E element) {
+        return NaryTreeNode.find(this, element, true, null);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return false;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return this.breadthFirstIterator();
+    }
+
+    /**
+     * Returns a spliterator over the values in prefix order, which does not load the tree to know its size.
+     *
+     * @return a spliterator over the values of the subtree
+     */
+    @Override
+    public Spliterator<E> spliterator() {
+        return Spliterators.spliteratorUnknownSize(this.prefixIterator(), Spliterator.ORDERED);
+    }
+
+    @Override
+    public String toString() {
+        return "LazyNaryTreeNode{" +
+                "value=" + this.value +
+                ", loaded=" + (this.children != null) +
+                '}';
+    }
+}
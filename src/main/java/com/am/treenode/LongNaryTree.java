@@ -0,0 +1,161 @@
+package com.am.treenode;
+
+import java.util.Arrays;
+
+/**
+ * A compact N-aryTree of {@code long} values, stored in flat primitive arrays as described by
+ * {@link AbstractCompactNaryTree}. A node costs 24 bytes.
+ * The primitive methods never box: {@link #addChild(int, long)}, {@link #getLong(int)}, {@link #setLong(int, long)},
+ * {@link #contains(long)}, {@link #indexOf(long)} and {@link #toPrefixArray()}.
+ * The methods of {@link INaryTree} box the values they return, and the tree cannot hold null values:
+ * adding a null element throws {@link NullPointerException}, and the root value cannot be removed.
+ */
+public class LongNaryTree extends AbstractCompactNaryTree<Long> {
+    private long[] values;
+
+    /**
+     * Construct by default for the LongNaryTree, with a zero root.
+     */
+    public LongNaryTree() {
+        this(0L);
+    }
+
+    /**
+     * Construct an LongNaryTree with a root element.
+     *
+     * @param root - the root element
+     */
+    public LongNaryTree(final long root) {
+        this(root, 16);
+    }
+
+    /**
+     * Construct an LongNaryTree with a root element and room for a number of nodes.
+     *
+     * @param root     - the root element
+     * @param capacity - the number of nodes to allocate room for
+     */
+    public LongNaryTree(final long root, final int capacity) {
+        super(capacity);
+        this.values = new long[capacity];
+        this.values[ROOT] = root;
+    }
+
+    /**
+     * Adds a value as the last child of a node.
+     *
+     * @param node  - the index of the parent node
+     * @param value - the added value
+     *
+     * @return the index of the added node
+     */
+    public int addChild(final int node, final long value) {
+        final int child = this.allocate(node);
+        this.values[child] = value;
+        return child;
+    }
+
+    /**
+     * Returns the value of a node.
+     *
+     * @param node - the index of the node
+     *
+     * @return the value of the node
+     */
+    public long getLong(final int node) {
+        this.checkNode(node);
+        return this.values[node];
+    }
+
+    /**
+     * Sets the value of a node.
+     *
+     * @param node  - the index of the node
+     * @param value - the new value of the node
+     */
+    public void setLong(final int node, final long value) {
+        this.checkNode(node);
+        this.values[node] = value;
+    }
+
+    /**
+     * Returns True if the tree contains the specified value.
+     *
+     * @param value - value whose presence in this tree is to be tested
+     *
+     * @return true if the tree contains the specified value
+     */
+    public boolean contains(final long value) {
+        for (int node = 0; node < this.slots; node++) {
+            if (this.values[node] == value && !this.isFree(node)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the index of the first node, in prefix order, that holds the specified value.
+     *
+     * @param value - the searched value
+     *
+     * @return the index of the node, or {@link #NONE} if there is none
+     */
+    public int indexOf(final long value) {
+        for (int node = ROOT; node != NONE; node = this.nextInPrefix(node, ROOT)) {
+            if (this.values[node] == value) {
+                return node;
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * Returns the values of the tree in prefix order.
+     *
+     * @return an array of the values in prefix order
+     */
+    public long[] toPrefixArray() {
+        final long[] array = new long[this.size()];
+        final CompactNaryTreeIterator<Long> nodes = CompactNaryTreeIterator.prefix(this, ROOT);
+        for (int i = 0; nodes.hasNext(); i++) {
+            array[i] = this.values[nodes.nextNode()];
+        }
+        return array;
+    }
+
+    @Override
+    Long valueAt(final int node) {
+        return this.values[node];
+    }
+
+    @Override
+    void store(final int node, final Long value) {
+        this.values[node] = value;
+    }
+
+    @Override
+    boolean holds(final int node, final Object element) {
+        return element instanceof Long && this.values[node] == (Long) element;
+    }
+
+    @Override
+    int append(final int parent, final Long value) {
+        return this.addChild(parent, value.longValue());
+    }
+
+    @Override
+    boolean removeRootValue() {
+        throw new UnsupportedOperationException("The root value of a primitive tree cannot be removed");
+    }
+
+    @Override
+    void resize(final int capacity) {
+        this.values = Arrays.copyOf(this.values, capacity);
+    }
+
+    @Override
+    void release(final int node) {
+        this.values[node] = 0;
+    }
+}
@@ -0,0 +1,374 @@
+package com.am.treenode;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+
+/**
+ * A read-only N-aryTree read straight from a memory-mapped file.
+ * The file lays the nodes out in prefix order in a table of fixed size records, followed by the values:
+ * <ul>
+ *     <li>a header of {@value #HEADER_SIZE} bytes: a magic number, the version of the format, the number of nodes
+ *     and the number of bytes of values;</li>
+ *     <li>a record of {@value #RECORD_SIZE} bytes per node: the size, number of children, height and number of leaves
+ *     of its subtree, and the offset of its value, or -1 for a null value;</li>
+ *     <li>the values, each as its length on 4 bytes followed by the bytes of a {@link NaryTreeValueCodec}.</li>
+ * </ul>
+ * Since the nodes are in prefix order, the first child of a node is the next record, the next sibling of a node
+ * is the record following its subtree, and every subtree is a contiguous range of records.
+ * Opening a tree maps the file without reading it, and every query reads the mapping with absolute accesses,
+ * so a tree can be larger than the heap, is shared with the other processes mapping the same file, and can be read
+ * by any number of threads. Only the values returned to the caller are decoded, and {@link #contains(Object)}
+ * compares encoded bytes. The node table and the values are each limited to 2 GB.
+ * The {@link #add(Object)} and {@link #remove(Object)} methods throw {@link UnsupportedOperationException}.
+ *
+ * @param <E> the type elements held in this tree
+ */
+public final class MappedNaryTree<E> extends AbstractNaryTree<E> {
+    static final int MAGIC = 0x4E415259;
+
+    static final int VERSION = 1;
+
+    static final int HEADER_SIZE = 16;
+
+    static final int RECORD_SIZE = 20;
+
+    private static final int SIZE_OFFSET = 0;
+
+    private static final int CHILDREN_OFFSET = 4;
+
+    private static final int HEIGHT_OFFSET = 8;
+
+    private static final int LEAVES_OFFSET = 12;
+
+    private static final int VALUE_OFFSET = 16;
+
+    private final ByteBuffer nodes;
+
+    private final ByteBuffer values;
+
+    private final NaryTreeValueCodec<E> codec;
+
+    private final MappedNaryTreeNode<E> root;
+
+    private MappedNaryTree(final ByteBuffer nodes, final ByteBuffer values, final NaryTreeValueCodec<E> codec) {
+        this.nodes = nodes;
+        this.values = values;
+        this.codec = codec;
+        this.root = new MappedNaryTreeNode<>(this, 0);
+    }
+
+    /**
+     * Opens a tree file written by {@link #write(INaryTree, Path, NaryTreeValueCodec)}.
+     * The file is mapped but not read, so opening takes the same time whatever the size of the tree.
+     *
+     * @param path  - the path of the file
+     * @param codec - the codec of the values
+     * @param <E>   - the type of elements held in the tree
+     *
+     * @return the tree read from the file
+     *
+     * @throws IOException if the file cannot be mapped or is not a tree file
+     */
+    public static <E> MappedNaryTree<E> open(final Path path, final NaryTreeValueCodec<E> codec) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE) {
+                throw new IOException("Not a tree file: " + path);
+            }
+            final MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            if (header.getInt(0) != MAGIC) {
+                throw new IOException("Not a tree file: " + path);
+            }
+            if (header.getInt(4) != VERSION) {
+                throw new IOException("Unsupported tree file version " + header.getInt(4) + ": " + path);
+            }
+            final long nodesSize = (long) header.getInt(8) * RECORD_SIZE;
+            final long valuesSize = header.getInt(12);
+            if (header.getInt(8) < 1 || valuesSize < 0 || channel.size() < HEADER_SIZE + nodesSize + valuesSize) {
+                throw new IOException("Truncated tree file: " + path);
+            }
+            return new MappedNaryTree<>(channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, nodesSize),
+                    channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE + nodesSize, valuesSize), codec);
+        }
+    }
+
+    /**
+     * Writes a tree to a file, which can then be opened with {@link #open(Path, NaryTreeValueCodec)}.
+     * The tree is walked once, without recursion, and must not be modified while it is written.
+     *
+     * @param tree  - the written tree, copied first if it is implemented outside this package, which takes memory
+     *              linear in its size
+     * @param path  - the path of the file, which is replaced if it exists
+     * @param codec - the codec of the values
+     * @param <E>   - the type of elements held in the tree
+     *
+     * @throws IOException if the file cannot be written
+     */
+    public static <E> void write(final INaryTree<E> tree, final Path path, final NaryTreeValueCodec<E> codec)
+            throws IOException {
+        final int count = tree.size();
+        if ((long) count * RECORD_SIZE > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("The tree is too large to be mapped: " + count + " nodes");
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            final MappedByteBuffer records = channel.map(FileChannel.MapMode.READ_WRITE, HEADER_SIZE,
+                    (long) count * RECORD_SIZE);
+            final MappedNaryTreeWriter<E> writer = new MappedNaryTreeWriter<>(channel, records,
+                    HEADER_SIZE + (long) count * RECORD_SIZE, codec);
+            final INaryTreeNode<E> root = AbstractNaryTree.rootNodeOf(tree);
+            (root != null ? root : NaryTreeBulkLoader.fromTree(tree)).walk(writer);
+            writer.finish(count);
+            records.force();
+            final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION).putInt(count).putInt(writer.getValuesSize()).flip();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+            channel.force(false);
+        }
+    }
+
+    /**
+     * Writes the record of a node in a node table.
+     *
+     * @param records  - the node table
+     * @param node     - the index of the node
+     * @param size     - the size of the subtree of the node
+     * @param children - the number of children of the node
+     * @param height   - the height of the subtree of the node
+     * @param leaves   - the number of leaves of the subtree of the node
+     */
+    static void putRecord(final ByteBuffer records, final int node, final int size, final int children,
+                          final int height, final int leaves) {
+        final int position = node * RECORD_SIZE;
+        records.putInt(position + SIZE_OFFSET, size);
+        records.putInt(position + CHILDREN_OFFSET, children);
+        records.putInt(position + HEIGHT_OFFSET, height);
+        records.putInt(position + LEAVES_OFFSET, leaves);
+    }
+
+    /**
+     * Writes the offset of the value of a node in a node table.
+     *
+     * @param records - the node table
+     * @param node    - the index of the node
+     * @param offset  - the offset of the value, or -1 for a null value
+     */
+    static void putValueOffset(final ByteBuffer records, final int node, final int offset) {
+        records.putInt(node * RECORD_SIZE + VALUE_OFFSET, offset);
+    }
+
+    int sizeOf(final int node) {
+        return this.nodes.getInt(node * RECORD_SIZE + SIZE_OFFSET);
+    }
+
+    int childrenCountOf(final int node) {
+        return this.nodes.getInt(node * RECORD_SIZE + CHILDREN_OFFSET);
+    }
+
+    int heightOf(final int node) {
+        return this.nodes.getInt(node * RECORD_SIZE + HEIGHT_OFFSET);
+    }
+
+    int leavesOf(final int node) {
+        return this.nodes.getInt(node * RECORD_SIZE + LEAVES_OFFSET);
+    }
+
+    /**
+     * Decodes the value of a node.
+     *
+     * @param node - the index of the node
+     *
+     * @return the value of the node
+     */
+    E valueOf(final int node) {
+        final int offset = this.nodes.getInt(node * RECORD_SIZE + VALUE_OFFSET);
+        if (offset < 0) {
+            return null;
+        }
+        return this.codec.decode(this.values.slice(offset + Integer.BYTES, this.values.getInt(offset)));
+    }
+
+    /**
+     * Returns the first node of a range of nodes holding an element.
+     * The element is encoded once and compared with the bytes of the values, which are not decoded.
+     *
+     * @param from    - the index of the first searched node, inclusive
+     * @param to      - the index of the last searched node, exclusive
+     * @param element - the searched element
+     *
+     * @return the index of the node, or -1 if there is none
+     */
+    @SuppressWarnings("unchecked")
+    int find(final int from, final int to, final Object element) {
+        if (element == null) {
+            for (int node = from; node < to; node++) {
+                if (this.nodes.getInt(node * RECORD_SIZE + VALUE_OFFSET) < 0) {
+                    return node;
+                }
+            }
+            return -1;
+        }
+        final ByteBuffer encoded;
+        try {
+            encoded = ByteBuffer.allocate(this.codec.size((E) element));
+            this.codec.encode((E) element, encoded);
+        } catch (final ClassCastException e) {
+            return -1;
+        }
+        final int length = encoded.capacity();
+        for (int node = from; node < to; node++) {
+            final int offset = this.nodes.getInt(node * RECORD_SIZE + VALUE_OFFSET);
+            if (offset >= 0 && this.values.getInt(offset) == length && this.matches(offset + Integer.BYTES, encoded)) {
+                return node;
+            }
+        }
+        return -1;
+    }
+
+    private boolean matches(final int offset, final ByteBuffer encoded) {
+        for (int i = 0; i < encoded.capacity(); i++) {
+            if (this.values.get(offset + i) != encoded.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the root node of this tree.
+     *
+     * @return the root node
+     */
+    @Override
+    MappedNaryTreeNode<E> getRootNode() {
+        return this.root;
+    }
+
+    @Override
+    public E getRoot() {
+        return this.root.getValue();
+    }
+
+    /**
+     * Always throws {@link UnsupportedOperationException}: a mapped tree is read-only.
+     *
+     * @param element - element to be added
+     *
+     * @return never returns normally
+     */
+    @Override
+    public boolean add(final E element) {
+        throw new UnsupportedOperationException("A mapped tree cannot be modified");
+    }
+
+    /**
+     * Always throws {@link UnsupportedOperationException}: a mapped tree is read-only.
+     *
+     * @param element - element to be removed
+     *
+     * @return never returns normally
+     */
+    @Override
+    public boolean remove(final Object element) {
+        throw new UnsupportedOperationException("A mapped tree cannot be modified");
+    }
+
+    @Override
+    public String generateText() {
+        return this.root.generateText();
+    }
+
+    @Override
+    public boolean contains(final Object element) {
+        return this.root.contains(element);
+    }
+
+    @Override
+    public int getHeight() {
+        return this.root.getHeight();
+    }
+
+    @Override
+    public int size() {
+        return this.root.size();
+    }
+
+    @Override
+    public int getNumberOfLeaves() {
+        return this.root.getNumberOfLeaves();
+    }
+
+    @Override
+    public String toJson() {
+        return this.root.toJson();
+    }
+
+    @Override
+    public void toJson(final Writer writer) throws IOException {
+        this.root.toJson(writer);
+    }
+
+    @Override
+    public String toPrettyText() {
+        return this.root.toPrettyText();
+    }
+
+    @Override
+    public List<E> toPostfixList() {
+        return this.root.toPostfixList();
+    }
+
+    @Override
+    public List<E> toPrefixList() {
+        return this.root.toPrefixList();
+    }
+
+    @Override
+    public List<E> toByWidthList() {
+        return this.root.toByWidthList();
+    }
+
+    @Override
+    public Iterator<E> prefixIterator() {
+        return this.root.prefixIterator();
+    }
+
+    @Override
+    public Iterator<E> postfixIterator() {
+        return this.root.postfixIterator();
+    }
+
+    @Override
+    public Iterator<E> breadthFirstIterator() {
+        return this.root.breadthFirstIterator();
+    }
+
+    @Override
+    public INaryTree<E> getNodeFromElement(final E element) {
+        return this.root.getNodeFromElement(element);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return false;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return this.breadthFirstIterator();
+    }
+
+    @Override
+    public Spliterator<E> spliterator() {
+        return this.root.spliterator();
+    }
+}
@@ -0,0 +1,154 @@
+package com.am.treenode;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Lazy iterators over the values of a {@link MappedNaryTree}, in the orders which are not the order of the records.
+ * The children of a node are found by skipping the subtrees of their previous siblings.
+ *
+ * @param <E> the type of elements held in the iterated tree
+ */
+abstract class MappedNaryTreeIterator<E> implements Iterator<E> {
+    final MappedNaryTree<E> tree;
+
+    private MappedNaryTreeIterator(final MappedNaryTree<E> tree) {
+        this.tree = tree;
+    }
+
+    /**
+     * Returns an iterator visiting each node after its children.
+     *
+     * @param tree - the iterated tree
+     * @param root - the index of the root of the iterated subtree
+     * @param <E>  - the type of elements held in the tree
+     *
+     * @return a postfix iterator
+     */
+    static <E> Iterator<E> postfix(final MappedNaryTree<E> tree, final int root) {
+        return new Postfix<>(tree, root);
+    }
+
+    /**
+     * Returns an iterator visiting each level of the tree before the next level.
+     *
+     * @param tree - the iterated tree
+     * @param root - the index of the root of the iterated subtree
+     * @param <E>  - the type of elements held in the tree
+     *
+     * @return a breadth first iterator
+     */
+    static <E> Iterator<E> breadthFirst(final MappedNaryTree<E> tree, final int root) {
+        return new BreadthFirst<>(tree, root);
+    }
+
+    private static final class Postfix<E> extends MappedNaryTreeIterator<E> {
+        private int[] nodes = new int[16];
+
+        /**
+         * The index of the next child to visit of each node of the stack.
+         */
+        private int[] next = new int[16];
+
+        private int depth;
+
+        private Postfix(final MappedNaryTree<E> tree, final int root) {
+            super(tree);
+            this.push(root);
+        }
+
+        private void push(final int node) {
+            if (this.depth == this.nodes.length) {
+                this.nodes = Arrays.copyOf(this.nodes, this.depth * 2);
+                this.next = Arrays.copyOf(this.next, this.depth * 2);
+            }
+            this.nodes[this.depth] = node;
+            this.next[this.depth++] = node + 1;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.depth > 0;
+        }
+
+        @Override
+        public E next() {
+            if (this.depth == 0) {
+                throw new NoSuchElementException();
+            }
+            while (true) {
+                final int node = this.nodes[this.depth - 1];
+                final int child = this.next[this.depth - 1];
+                if (child >= node + this.tree.sizeOf(node)) {
+                    break;
+                }
+                this.next[this.depth - 1] = child + this.tree.sizeOf(child);
+                this.push(child);
+            }
+            return this.tree.valueOf(this.nodes[--this.depth]);
+        }
+    }
+
+    private static final class BreadthFirst<E> extends MappedNaryTreeIterator<E> {
+        /**
+         * The nodes whose children have not been visited yet, in a circular buffer. Leaves are never queued.
+         */
+        private int[] parents = new int[16];
+
+        private int head;
+
+        private int count;
+
+        private int root;
+
+        /**
+         * The next child to visit, and the end of the subtree of its parent.
+         */
+        private int child;
+
+        private int end;
+
+        private BreadthFirst(final MappedNaryTree<E> tree, final int root) {
+            super(tree);
+            this.root = root;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.root >= 0 || this.child < this.end || this.count > 0;
+        }
+
+        @Override
+        public E next() {
+            final int node;
+            if (this.root >= 0) {
+                node = this.root;
+                this.root = -1;
+            } else {
+                if (this.child >= this.end) {
+                    if (this.count == 0) {
+                        throw new NoSuchElementException();
+                    }
+                    final int parent = this.parents[this.head];
+                    this.head = (this.head + 1) % this.parents.length;
+                    this.count--;
+                    this.child = parent + 1;
+                    this.end = parent + this.tree.sizeOf(parent);
+                }
+                node = this.child;
+                this.child += this.tree.sizeOf(node);
+            }
+            if (this.tree.childrenCountOf(node) > 0) {
+                if (this.count == this.parents.length) {
+                    final int[] grown = Arrays.copyOfRange(this.parents, this.head, this.head + this.count * 2);
+                    System.arraycopy(this.parents, 0, grown, this.count - this.head, this.head);
+                    this.parents = grown;
+                    this.head = 0;
+                }
+                this.parents[(this.head + this.count++) % this.parents.length] = node;
+            }
+            return this.tree.valueOf(node);
+        }
+    }
+}
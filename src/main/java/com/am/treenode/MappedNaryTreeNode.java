@@ -0,0 +1,312 @@
+package com.am.treenode;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.IntStream;
+
+/**
+ * A read-only view of a node of a {@link MappedNaryTree}, holding the index of its record.
+ * The subtree of the node is the range of records from its index to its index plus its size,
+ * so prefix traversals and searches are sequential scans of the mapping.
+ * The mutators throw {@link UnsupportedOperationException}.
+ *
+ * @param <E> the type parameter
+ */
+final class MappedNaryTreeNode<E> implements INaryTreeNode<E> {
+    private final MappedNaryTree<E> tree;
+
+    private final int node;
+
+    /**
+     * Instantiates a new MappedNaryTreeNode.
+     *
+     * @param tree - the tree holding the node
+     * @param node - the index of the node
+     */
+    MappedNaryTreeNode(final MappedNaryTree<E> tree, final int node) {
+        this.tree = tree;
+        this.node = node;
+    }
+
+    @Override
+    public INaryTreeNode<E> getChild(final int index) {
+        if (index < 0 || index >= this.tree.childrenCountOf(this.node)) {
+            throw new IndexOutOfBoundsException("Index: " + index);
+        }
+        int child = this.node + 1;
+        for (int i = 0; i < index; i++) {
+            child += this.tree.sizeOf(child);
+        }
+        return new MappedNaryTreeNode<>(this.tree, child);
+    }
+
+    @Override
+    public boolean add(final INaryTreeNode<E> node) {
+        throw new UnsupportedOperationException("A mapped tree cannot be modified");
+    }
+
+    @Override
+    public List<INaryTreeNode<E>> getChildren() {
+        final int count = this.tree.childrenCountOf(this.node);
+        final List<INaryTreeNode<E>> children = new ArrayList<>(count);
+        for (int i = 0, child = this.node + 1; i < count; i++, child += this.tree.sizeOf(child)) {
+            children.add(new MappedNaryTreeNode<>(this.tree, child));
+        }
+        return children;
+    }
+
+    @Override
+    public boolean isLeaf() {
+        return this.tree.childrenCountOf(this.node) == 0;
+    }
+
+    @Override
+    public int getChildrenCount() {
+        return this.tree.childrenCountOf(this.node);
+    }
+
+    @Override
+    public E getValue() {
+        return this.tree.valueOf(this.node);
+    }
+
+    @Override
+    public void setValue(final E value) {
+        throw new UnsupportedOperationException("A mapped tree cannot be modified");
+    }
+
+    @Override
+    public E getRoot() {
+        return this.getValue();
+    }
+
+    @Override
+    public boolean add(final E element) {
+        throw new UnsupportedOperationException("A mapped tree cannot be modified");
+    }
+
+    @Override
+    public boolean remove(final Object element) {
+        throw new UnsupportedOperationException("A mapped tree cannot be modified");
+    }
+
+    @Override
+    public String generateText() {
+        return NaryTreeNode.generateText(this);
+    }
+
+    @Override
+    public boolean contains(final Object element) {
+        return this.tree.find(this.node, this.node + this.tree.sizeOf(this.node), element) >= 0;
+    }
+
+    @Override
+    public int getHeight() {
+        return this.tree.heightOf(this.node);
+    }
+
+    @Override
+    public int size() {
+        return this.tree.sizeOf(this.node);
+    }
+
+    @Override
+    public int getNumberOfLeaves() {
+        return this.tree.leavesOf(this.node);
+    }
+
+    @Override
+    public String toJson() {
+        final StringWriter writer = new StringWriter();
+        try {
+            this.toJson(writer);
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return writer.toString();
+    }
+
+    @Override
+    public void toJson(final Writer writer) throws IOException {
+        final NaryTreeJsonWriter<E> jsonWriter = new NaryTreeJsonWriter<>(writer);
+        this.walk(jsonWriter);
+        jsonWriter.flush();
+    }
+
+    /**
+     * Walks the subtree of this node in a single scan of its records.
+     * The nodes whose subtree ends before the next record are left before the next record is entered.
+     *
+     * @param handler - the handler receiving the nodes
+     *
+     * @throws IOException if the handler fails to write its output
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public void walk(final NaryTreeHandler<E> handler) throws IOException {
+        E[] values = (E[]) new Object[16];
+        int[] ends = new int[16];
+        int depth = 0;
+        final int end = this.node + this.tree.sizeOf(this.node);
+        for (int current = this.node; current < end; current++) {
+            while (depth > 0 && ends[depth - 1] <= current) {
+                depth--;
+                handler.leave(values[depth], false);
+                values[depth] = null;
+            }
+            final E value = this.tree.valueOf(current);
+            final int size = this.tree.sizeOf(current);
+            handler.enter(value, size == 1);
+            if (size == 1) {
+                handler.leave(value, true);
+            } else {
+                if (depth == ends.length) {
+                    values = Arrays.copyOf(values, depth * 2);
+                    ends = Arrays.copyOf(ends, depth * 2);
+                }
+                values[depth] = value;
+                ends[depth++] = current + size;
+            }
+        }
+        while (depth > 0) {
+            handler.leave(values[--depth], false);
+        }
+    }
+
+    /**
+     * Visits the subtree of this node in a single scan of its records, see {@link INaryTree#accept(TreeVisitor, int)}.
+     * A skipped subtree is jumped over with its size, without reading its records.
+     *
+     * @param visitor  - the visitor receiving the values
+     * @param maxDepth - the depth of the deepest visited nodes, this node being at depth 0
+     *
+     * @return false if the visitor terminated the walk, true otherwise
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean visit(final TreeVisitor<? super E> visitor, final int maxDepth) {
+        E[] values = (E[]) new Object[16];
+        int[] ends = new int[16];
+        int depth = 0;
+        final int end = this.node + this.tree.sizeOf(this.node);
+        int current = this.node;
+        while (current < end) {
+            while (depth > 0 && ends[depth - 1] <= current) {
+                depth--;
+                if (visitor.leave(values[depth], depth) == TreeVisitor.Result.TERMINATE) {
+                    return false;
+                }
+                values[depth] = null;
+            }
+            final E value = this.tree.valueOf(current);
+            final int size = this.tree.sizeOf(current);
+            final TreeVisitor.Result result = visitor.enter(value, depth);
+            if (result == TreeVisitor.Result.TERMINATE) {
+                return false;
+            }
+            if (result == TreeVisitor.Result.SKIP_SUBTREE) {
+                current += size;
+            } else if (size == 1 || depth == maxDepth) {
+                if (visitor.leave(value, depth) == TreeVisitor.Result.TERMINATE) {
+                    return false;
+                }
+                current += size;
+            } else {
+                if (depth == ends.length) {
+                    values = Arrays.copyOf(values, depth * 2);
+                    ends = Arrays.copyOf(ends, depth * 2);
+                }
+                values[depth] = value;
+                ends[depth++] = current + size;
+                current++;
+            }
+        }
+        while (depth > 0) {
+            depth--;
+            if (visitor.leave(values[depth], depth) == TreeVisitor.Result.TERMINATE) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toPrettyText() {
+        return NaryTreeNode.toPrettyText(this);
+    }
+
+    @Override
+    public List<E> toPostfixList() {
+        return NaryTreeNode.toList(this.postfixIterator(), this.size());
+    }
+
+    @Override
+    public List<E> toPrefixList() {
+        return NaryTreeNode.toList(this.prefixIterator(), this.size());
+    }
+
+    @Override
+    public List<E> toByWidthList() {
+        return NaryTreeNode.toList(this.breadthFirstIterator(), this.size());
+    }
+
+    @Override
+    public Iterator<E> prefixIterator() {
+        return this.nodes().mapToObj(this.tree::valueOf).iterator();
+    }
+
+    @Override
+    public Iterator<E> postfixIterator() {
+        return MappedNaryTreeIterator.postfix(this.tree, this.node);
+    }
+
+    @Override
+    public Iterator<E> breadthFirstIterator() {
+        return MappedNaryTreeIterator.breadthFirst(this.tree, this.node);
+    }
+
+    @Override
+    public INaryTree<E> getNodeFromElement(final E element) {
+        final int found = this.tree.find(this.node, this.node + this.tree.sizeOf(this.node), element);
+        return found < 0 ? null : new MappedNaryTreeNode<>(this.tree, found);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return false;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return this.breadthFirstIterator();
+    }
+
+    /**
+     * Returns a spliterator over the values in prefix order, which splits the range of records of the subtree.
+     *
+     * @return a spliterator over the values of the subtree
+     */
+    @Override
+    public Spliterator<E> spliterator() {
+        return this.nodes().mapToObj(this.tree::valueOf).spliterator();
+    }
+
+    private IntStream nodes() {
+        return IntStream.range(this.node, this.node + this.tree.sizeOf(this.node));
+    }
+
+    @Override
+    public String toString() {
+        return "MappedNaryTreeNode{" +
+                "node=" + this.node +
+                ", value=" + this.getValue() +
+                '}';
+    }
+}
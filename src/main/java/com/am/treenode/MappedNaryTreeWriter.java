@@ -0,0 +1,152 @@
+package com.am.treenode;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+
+/**
+ * Writes the node table and the values of a {@link MappedNaryTree} file during a walk of a tree.
+ * A node is numbered and its value is written when it is entered, and its record is completed when it is left,
+ * once the aggregates of its subtree are known. The values are staged in a buffer and written to the channel
+ * in large blocks.
+ *
+ * @param <E> the type of elements held in the written tree
+ */
+final class MappedNaryTreeWriter<E> implements NaryTreeHandler<E> {
+    private final FileChannel channel;
+
+    private final ByteBuffer records;
+
+    private final long valuesStart;
+
+    private final NaryTreeValueCodec<E> codec;
+
+    private ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+
+    private long written;
+
+    private long valuesSize;
+
+    private int count;
+
+    private int[] indices = new int[16];
+
+    private int[] children = new int[16];
+
+    private int[] heights = new int[16];
+
+    private int[] leaves = new int[16];
+
+    private int depth;
+
+    /**
+     * Instantiates a new MappedNaryTreeWriter.
+     *
+     * @param channel     - the channel of the file
+     * @param records     - the mapping of the node table
+     * @param valuesStart - the position of the values in the file
+     * @param codec       - the codec of the values
+     */
+    MappedNaryTreeWriter(final FileChannel channel, final ByteBuffer records, final long valuesStart,
+                         final NaryTreeValueCodec<E> codec) {
+        this.channel = channel;
+        this.records = records;
+        this.valuesStart = valuesStart;
+        this.codec = codec;
+    }
+
+    @Override
+    public void enter(final E value, final boolean leaf) throws IOException {
+        if (this.count * (long) MappedNaryTree.RECORD_SIZE >= this.records.capacity()) {
+            throw new ConcurrentModificationException("The tree was modified while it was written");
+        }
+        final int node = this.count++;
+        if (this.depth > 0) {
+            this.children[this.depth - 1]++;
+        }
+        if (this.depth == this.indices.length) {
+            this.indices = Arrays.copyOf(this.indices, this.depth * 2);
+            this.children = Arrays.copyOf(this.children, this.depth * 2);
+            this.heights = Arrays.copyOf(this.heights, this.depth * 2);
+            this.leaves = Arrays.copyOf(this.leaves, this.depth * 2);
+        }
+        this.indices[this.depth] = node;
+        this.children[this.depth] = 0;
+        this.heights[this.depth] = 0;
+        this.leaves[this.depth++] = 0;
+        MappedNaryTree.putValueOffset(this.records, node, this.writeValue(value));
+    }
+
+    @Override
+    public void leave(final E value, final boolean leaf) {
+        this.depth--;
+        final int node = this.indices[this.depth];
+        final int height = this.heights[this.depth] + 1;
+        final int leaves = this.children[this.depth] == 0 ? 1 : this.leaves[this.depth];
+        MappedNaryTree.putRecord(this.records, node, this.count - node, this.children[this.depth], height, leaves);
+        if (this.depth > 0) {
+            this.heights[this.depth - 1] = Math.max(this.heights[this.depth - 1], height);
+            this.leaves[this.depth - 1] += leaves;
+        }
+    }
+
+    private int writeValue(final E value) throws IOException {
+        if (value == null) {
+            return -1;
+        }
+        final int size = this.codec.size(value);
+        final int length = Integer.BYTES + size;
+        if (this.valuesSize + length > Integer.MAX_VALUE) {
+            throw new IOException("The values of the tree are too large to be mapped");
+        }
+        if (this.buffer.remaining() < length) {
+            this.flush();
+            if (this.buffer.capacity() < length) {
+                this.buffer = ByteBuffer.allocate(length);
+            }
+        }
+        final int offset = (int) this.valuesSize;
+        this.buffer.putInt(size);
+        final int start = this.buffer.position();
+        this.codec.encode(value, this.buffer);
+        if (this.buffer.position() - start != size) {
+            throw new IllegalStateException("The codec wrote " + (this.buffer.position() - start)
+                    + " bytes instead of " + size);
+        }
+        this.valuesSize += length;
+        return offset;
+    }
+
+    private void flush() throws IOException {
+        this.buffer.flip();
+        while (this.buffer.hasRemaining()) {
+            this.written += this.channel.write(this.buffer, this.valuesStart + this.written);
+        }
+        this.buffer.clear();
+    }
+
+    /**
+     * Writes the values still staged, and checks that the whole tree was written.
+     *
+     * @param expected - the number of nodes of the tree
+     *
+     * @throws IOException if the values cannot be written
+     */
+    void finish(final int expected) throws IOException {
+        if (this.count != expected) {
+            throw new ConcurrentModificationException("The tree was modified while it was written");
+        }
+        this.flush();
+    }
+
+    /**
+     * Returns the number of bytes of the values written so far.
+     *
+     * @return the size of the values
+     */
+    int getValuesSize() {
+        return (int) this.valuesSize;
+    }
+}
@@ -1,8 +1,21 @@
 package com.am.treenode;
 
-import java.util.Collections;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
 
 
 /**
@@ -10,9 +23,29 @@ import java.util.List;
  *
  * @param <E> the type elements held in this tree
  */
-public class NaryTree<E> implements INaryTree<E> {
+public class NaryTree<E> extends AbstractNaryTree<E> {
     private final INaryTreeNode<E> root;
 
+    private final NaryTreeIndex<E> index;
+
+    private final NaryTreeChildStorage childStorage;
+
+    /**
+     * The ancestry index, built on the first ancestry query after a modification.
+     */
+    private NaryTreeAncestry<E> ancestry;
+
+    /**
+     * The listener of the instrumented operations, or null.
+     */
+    private TreeMetrics metrics;
+
+    /**
+     * The caches of the fragments of {@link #generateText()} and {@link #toJson()}, or null.
+     */
+    private NaryTreeFragmentCache<E> textCache;
+
+    private NaryTreeFragmentCache<E> jsonCache;
 
     /**
      * Construct by default for the NaryTree.
@@ -27,7 +60,192 @@ public class NaryTree<E> implements INaryTree<E> {
      * @param root - the root element
      */
     public NaryTree(E root) {
-        this.root = new NaryTreeNode<>(root);
+        this(root, false);
+    }
+
+    /**
+     * Construct a NaryTree with a root element and an optional value index.
+     * When indexed, the tree keeps a value to node(s) map up to date on every mutation,
+     * so that {@link #contains(Object)} and {@link #getNodeFromElement(Object)} run in constant time
+     * at the cost of one map entry per distinct value. The nodes holding a duplicated value are kept in the order in
+     * which {@link #getNodeFromElement(Object)} finds them, and once some nodes hold null, which hides their subtrees
+     * from {@link #contains(Object)}, a lookup also checks the ancestors of the nodes holding the value.
+     *
+     * @param root    - the root element
+     * @param indexed - true to maintain a value index
+     */
+    public NaryTree(E root, boolean indexed) {
+        this(root, indexed, NaryTreeChildStorage.ARRAY);
+    }
+
+    /**
+     * Construct a NaryTree with a root element, an optional value index and a child storage strategy.
+     *
+     * @param root         - the root element
+     * @param indexed      - true to maintain a value index
+     * @param childStorage - the strategy used to store the children of the nodes
+     */
+    public NaryTree(E root, boolean indexed, NaryTreeChildStorage childStorage) {
+        this(childStorage, indexed, new NaryTreeNode<>(root));
+    }
+
+    /**
+     * Construct a NaryTree on top of an already built root node.
+     *
+     * @param childStorage - the strategy used to store the children of the nodes
+     * @param indexed      - true to maintain a value index
+     * @param root         - the root node, which must not belong to another node or tree
+     */
+    NaryTree(NaryTreeChildStorage childStorage, boolean indexed, INaryTreeNode<E> root) {
+        this.childStorage = childStorage;
+        this.index = indexed ? new NaryTreeIndex<>() : null;
+        this.root = root;
+        this.attached(null, this.root);
+    }
+
+    /**
+     * Builds a NaryTree from its json representation, as produced by {@link #toJson()}.
+     *
+     * @param reader - the reader providing the json
+     * @param type   - the class of the values
+     * @param <E>    - the type of elements held in the tree
+     *
+     * @return the tree read from the json
+     *
+     * @throws IOException if the reader fails or the json is malformed
+     * @see #fromJson(Reader, Type)
+     */
+    public static <E> NaryTree<E> fromJson(final Reader reader, final Class<E> type) throws IOException {
+        return NaryTree.fromJson(reader, (Type) type);
+    }
+
+    /**
+     * Builds a NaryTree from its json representation, as produced by {@link #toJson()}.
+     * The json is parsed in a single streaming pass without recursion and without building an intermediate
+     * document, so the memory used besides the tree itself is proportional to its height.
+     * The values are read with Gson, and unknown keys are ignored.
+     *
+     * @param reader - the reader providing the json
+     * @param type   - the type of the values, which may be generic
+     * @param <E>    - the type of elements held in the tree
+     *
+     * @return the tree read from the json
+     *
+     * @throws IOException if the reader fails or the json is malformed
+     */
+    public static <E> NaryTree<E> fromJson(final Reader reader, final Type type) throws IOException {
+        final NaryTreeNode<E> root = new NaryTreeJsonReader<E>(reader, type).read();
+        return new NaryTree<>(NaryTreeChildStorage.ARRAY, false, root);
+    }
+
+    /**
+     * Builds a NaryTree of strings from its text representation, as produced by {@link #generateText()}.
+     *
+     * @param reader - the reader providing the text
+     *
+     * @return the tree read from the text
+     *
+     * @throws IOException if the reader fails or the text is malformed
+     *
+     * @see #fromText(Reader, Function)
+     */
+    public static NaryTree<String> fromText(final Reader reader) throws IOException {
+        return NaryTree.fromText(reader, Function.identity());
+    }
+
+    /**
+     * Builds a NaryTree from its text representation, as produced by {@link #generateText()}.
+     * The text is parsed in a single streaming pass without recursion, so the memory used besides the tree itself
+     * is proportional to its height. Whitespace is allowed between the brackets, parentheses and commas.
+     * Since the format does not escape the values, a value ends at the first closing bracket followed by a comma,
+     * a parenthesis or the end of the text, and the value {@value NaryTreeNodeUtils#VALUE_NULL} is read as null.
+     *
+     * @param reader  - the reader providing the text
+     * @param decoder - converts the text of each non-null value to a value
+     * @param <E>     - the type of elements held in the tree
+     *
+     * @return the tree read from the text
+     *
+     * @throws IOException if the reader fails or the text is malformed
+     */
+    public static <E> NaryTree<E> fromText(final Reader reader, final Function<String, ? extends E> decoder)
+            throws IOException {
+        final NaryTreeNode<E> root = new NaryTreeTextReader<E>(reader, decoder).read();
+        return new NaryTree<>(NaryTreeChildStorage.ARRAY, false, root);
+    }
+
+    /**
+     * Builds a NaryTree from a parent-pointer array in a single linear pass.
+     *
+     * @param values  - the value of each node
+     * @param parents - the index in the values of the parent of each node, or a negative index for the root
+     * @param <E>     - the type of elements held in the tree
+     *
+     * @return the built tree
+     *
+     * @throws IllegalArgumentException if the parents are not a single tree over the values
+     * @see #bulkLoad(List, int[], boolean, NaryTreeChildStorage)
+     */
+    public static <E> NaryTree<E> bulkLoad(final List<? extends E> values, final int[] parents) {
+        return NaryTree.bulkLoad(values, parents, false, NaryTreeChildStorage.ARRAY);
+    }
+
+    /**
+     * Builds a NaryTree from a parent-pointer array in a single linear pass.
+     * The children of each node are in the order of the values, and their list is created with its final capacity.
+     * The nodes are attached bottom-up, so no duplicate or cycle check is made per node: the input is validated
+     * as a whole, in linear time, while it is sorted by parent.
+     *
+     * @param values       - the value of each node
+     * @param parents      - the index in the values of the parent of each node, or a negative index for the root
+     * @param indexed      - true to maintain a value index
+     * @param childStorage - the strategy used to store the children of the nodes
+     * @param <E>          - the type of elements held in the tree
+     *
+     * @return the built tree
+     *
+     * @throws IllegalArgumentException if the parents are not a single tree over the values
+     */
+    public static <E> NaryTree<E> bulkLoad(final List<? extends E> values, final int[] parents, final boolean indexed,
+                                           final NaryTreeChildStorage childStorage) {
+        final NaryTreeNode<E> root = NaryTreeBulkLoader.fromParents(values, parents, childStorage);
+        return new NaryTree<>(childStorage, indexed, root);
+    }
+
+    /**
+     * Builds a NaryTree from its (parent, child) edges in a single linear pass.
+     * The values identify the nodes, so each value must be held by a single node. The root is the only value which
+     * is never a child. The children of each node are in the encounter order of the edges.
+     * The edges may be parsed in parallel by a parallel stream; they are then linked on the calling thread.
+     *
+     * @param edges - the edges, each one from a parent value to a child value
+     * @param <E>   - the type of elements held in the tree
+     *
+     * @return the built tree
+     *
+     * @throws IllegalArgumentException if the edges are not a single tree
+     */
+    public static <E> NaryTree<E> bulkLoadEdges(final Stream<? extends Map.Entry<? extends E, ? extends E>> edges) {
+        final NaryTreeNode<E> root = NaryTreeBulkLoader.fromEdges(edges);
+        return new NaryTree<>(NaryTreeChildStorage.ARRAY, false, root);
+    }
+
+    /**
+     * Builds a NaryTree from the paths from its root to its nodes, in a single pass costing the total length
+     * of the paths. The paths must be grouped by subtree, as they are when sorted or in prefix order:
+     * each path reuses the nodes of its common prefix with the previous path. The intermediate nodes need not have
+     * their own path, so the paths to the leaves are enough.
+     *
+     * @param paths - the paths, each one starting with the root
+     * @param <E>   - the type of elements held in the tree
+     *
+     * @return the built tree
+     *
+     * @throws IllegalArgumentException if there is no path, or a path is empty or does not start with the root
+     */
+    public static <E> NaryTree<E> bulkLoadPaths(final Iterable<? extends List<? extends E>> paths) {
+        final NaryTreeNode<E> root = NaryTreeBulkLoader.fromPaths(paths);
+        return new NaryTree<>(NaryTreeChildStorage.ARRAY, false, root);
     }
 
     @Override
@@ -37,26 +255,69 @@ public class NaryTree<E> implements INaryTree<E> {
 
     @Override
     public boolean add(final E element) {
-        return this.root.add(new NaryTreeNode<>(element));
+        final NaryTreeProbe probe = NaryTreeProbe.start(this.metrics, TreeMetrics.Operation.ADD);
+        final boolean added = this.root.add(new NaryTreeNode<>(element));
+        if (probe != null) {
+            probe.stop(1, this.size());
+        }
+        return added;
     }
 
     @Override
     public boolean remove(final Object element) {
+        final NaryTreeProbe probe = NaryTreeProbe.start(this.metrics, TreeMetrics.Operation.REMOVE);
+        final int visited = probe == null ? 0 : 1 + this.root.getChildrenCount();
+        final boolean removed;
         if (this.root.getValue().equals(element)) {
             this.root.setValue(null);
-            return true;
+            removed = true;
+        } else {
+            removed = this.root.remove(element);
+        }
+        if (probe != null) {
+            probe.stop(visited, this.size());
         }
-        return this.root.remove(element);
+        return removed;
     }
 
     @Override
     public String generateText() {
-        return this.root.generateText();
+        final NaryTreeProbe probe = NaryTreeProbe.start(this.metrics, TreeMetrics.Operation.TEXT);
+        final String text = this.textCache == null ? this.root.generateText()
+                : this.textCache.serialize(this.root, probe);
+        if (probe != null) {
+            probe.stop(this.textCache == null ? this.size() : 0, this.size());
+        }
+        return text;
+    }
+
+    @Override
+    public void writeText(final Appendable appendable) throws IOException {
+        final NaryTreeProbe probe = NaryTreeProbe.start(this.metrics, TreeMetrics.Operation.TEXT);
+        if (this.textCache == null) {
+            super.writeText(appendable);
+        } else {
+            appendable.append(this.textCache.serialize(this.root, probe));
+            NaryTreeTextWriter.flush(appendable);
+        }
+        if (probe != null) {
+            probe.stop(this.textCache == null ? this.size() : 0, this.size());
+        }
     }
 
     @Override
     public boolean contains(final Object element) {
-        return this.root.contains(element);
+        final NaryTreeProbe probe = NaryTreeProbe.start(this.metrics, TreeMetrics.Operation.CONTAINS);
+        if (probe == null) {
+            if (this.index != null) {
+                return this.index.contains(element, this.root);
+            }
+            return this.root.contains(element);
+        }
+        final boolean contains = this.index != null ? this.index.contains(element, this.root)
+                : NaryTreeNode.find(this.root, element, false, probe) != null;
+        probe.stop(0, this.size());
+        return contains;
     }
 
     @Override
@@ -76,32 +337,92 @@ public class NaryTree<E> implements INaryTree<E> {
 
     @Override
     public String toJson() {
-        return this.root.toJson();
+        final NaryTreeProbe probe = NaryTreeProbe.start(this.metrics, TreeMetrics.Operation.JSON);
+        final String json = this.jsonCache == null ? this.root.toJson() : this.jsonCache.serialize(this.root, probe);
+        if (probe != null) {
+            probe.stop(this.jsonCache == null ? this.size() : 0, this.size());
+        }
+        return json;
+    }
+
+    @Override
+    public void toJson(final Writer writer) throws IOException {
+        final NaryTreeProbe probe = NaryTreeProbe.start(this.metrics, TreeMetrics.Operation.JSON);
+        if (this.jsonCache == null) {
+            this.root.toJson(writer);
+        } else {
+            writer.write(this.jsonCache.serialize(this.root, probe));
+            writer.flush();
+        }
+        if (probe != null) {
+            probe.stop(this.jsonCache == null ? this.size() : 0, this.size());
+        }
     }
 
     @Override
     public String toPrettyText() {
-        return this.root.toPrettyText();
+        final NaryTreeProbe probe = NaryTreeProbe.start(this.metrics, TreeMetrics.Operation.PRETTY_TEXT);
+        final String text = this.root.toPrettyText();
+        if (probe != null) {
+            probe.stop(this.size(), this.size());
+        }
+        return text;
+    }
+
+    @Override
+    public void writePrettyText(final Appendable appendable, final NaryTreeTextOptions options) throws IOException {
+        final NaryTreeProbe probe = NaryTreeProbe.start(this.metrics, TreeMetrics.Operation.PRETTY_TEXT);
+        final int written = NaryTreeTextWriter.writePretty(this.root, appendable, options);
+        NaryTreeTextWriter.flush(appendable);
+        if (probe != null) {
+            probe.stop(written, this.size());
+        }
     }
 
     @Override
     public List<E> toPostfixList() {
-        return this.root.toPostfixList();
+        final NaryTreeProbe probe = NaryTreeProbe.start(this.metrics, TreeMetrics.Operation.TRAVERSAL);
+        final List<E> list = this.root.toPostfixList();
+        if (probe != null) {
+            probe.stop(list.size(), this.size());
+        }
+        return list;
     }
 
     @Override
     public List<E> toPrefixList() {
-        return this.root.toPrefixList();
+        final NaryTreeProbe probe = NaryTreeProbe.start(this.metrics, TreeMetrics.Operation.TRAVERSAL);
+        final List<E> list = this.root.toPrefixList();
+        if (probe != null) {
+            probe.stop(list.size(), this.size());
+        }
+        return list;
     }
 
     @Override
     public List<E> toByWidthList() {
-        return this.root.toByWidthList();
+        final NaryTreeProbe probe = NaryTreeProbe.start(this.metrics, TreeMetrics.Operation.TRAVERSAL);
+        final List<E> list = this.root.toByWidthList();
+        if (probe != null) {
+            probe.stop(list.size(), this.size());
+        }
+        return list;
     }
 
     @Override
     public INaryTree<E> getNodeFromElement(final E element) {
-        return this.root.getNodeFromElement(element);
+        final NaryTreeProbe probe = NaryTreeProbe.start(this.metrics, TreeMetrics.Operation.GET_NODE_FROM_ELEMENT);
+        final INaryTree<E> node;
+        if (this.index != null) {
+            node = this.index.lookup(element, this.root);
+        } else {
+            node = probe == null ? this.root.getNodeFromElement(element)
+                    : NaryTreeNode.find(this.root, element, true, probe);
+        }
+        if (probe != null) {
+            probe.stop(0, this.size());
+        }
+        return node;
     }
 
     @Override
@@ -109,12 +430,391 @@ public class NaryTree<E> implements INaryTree<E> {
         return this.root == null;
     }
 
+    @Override
+    public Iterator<E> prefixIterator() {
+        return this.root.prefixIterator();
+    }
+
+    @Override
+    public Iterator<E> postfixIterator() {
+        return this.root.postfixIterator();
+    }
+
+    @Override
+    public Iterator<E> breadthFirstIterator() {
+        return this.root.breadthFirstIterator();
+    }
+
     @Override
     public Iterator<E> iterator() {
-        List<E> list = this.toByWidthList();
-        if (list != null) {
-            return list.iterator();
+        return this.breadthFirstIterator();
+    }
+
+    @Override
+    public Spliterator<E> spliterator() {
+        return this.root.spliterator();
+    }
+
+    /**
+     * Returns a view evaluating the queries of this tree in parallel with the common fork-join pool.
+     *
+     * @return a parallel query view of this tree
+     */
+    public NaryTreeParallelQuery<E> parallel() {
+        return this.parallel(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Returns a view evaluating the queries of this tree in parallel with the specified fork-join pool.
+     *
+     * @param pool - the pool running the tasks
+     *
+     * @return a parallel query view of this tree
+     */
+    public NaryTreeParallelQuery<E> parallel(final ForkJoinPool pool) {
+        return new NaryTreeParallelQuery<>(this, pool);
+    }
+
+    /**
+     * Builds the isomorphic tree holding the image of each value by a function, on the calling thread.
+     * The output tree has the same shape, child storage and indexing as this tree, and its children lists are created
+     * with their final capacity. It is built without recursion, in time linear in the size of this tree.
+     *
+     * @param mapper - the function mapping each value
+     * @param <R>    - the type of elements held in the output tree
+     *
+     * @return the output tree
+     */
+    public <R> NaryTree<R> map(final Function<? super E, ? extends R> mapper) {
+        return this.map(mapper, null);
+    }
+
+    /**
+     * Builds the isomorphic tree holding the image of each value by a function, mapping the values in parallel
+     * with the common fork-join pool.
+     *
+     * @param mapper - the function mapping each value, which must be thread-safe
+     * @param <R>    - the type of elements held in the output tree
+     *
+     * @return the output tree
+     * @see #mapParallel(Function, ForkJoinPool)
+     */
+    public <R> NaryTree<R> mapParallel(final Function<? super E, ? extends R> mapper) {
+        return this.mapParallel(mapper, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Builds the isomorphic tree holding the image of each value by a function, mapping the values in parallel
+     * with the specified fork-join pool.
+     * The nodes are numbered in prefix order, so that each subtree is a contiguous range, and the ranges are mapped
+     * by tasks small enough to be stolen by the idle workers: the speedup is near-linear when the function dominates
+     * the cost. A function blocking on I/O should be given a pool with more workers than cores.
+     * Only the values are mapped in parallel; the output nodes are linked on the calling thread, in linear time.
+     * This tree must not be modified while it is mapped.
+     *
+     * @param mapper - the function mapping each value, which must be thread-safe
+     * @param pool   - the pool running the tasks
+     * @param <R>    - the type of elements held in the output tree
+     *
+     * @return the output tree
+     * @see #map(Function)
+     */
+    public <R> NaryTree<R> mapParallel(final Function<? super E, ? extends R> mapper, final ForkJoinPool pool) {
+        return this.map(mapper, Objects.requireNonNull(pool, "pool"));
+    }
+
+    private <R> NaryTree<R> map(final Function<? super E, ? extends R> mapper, final ForkJoinPool pool) {
+        final NaryTreeNode<R> root = NaryTreeMapper.map(this.root, mapper, pool, this.childStorage);
+        return new NaryTree<>(this.childStorage, this.index != null, root);
+    }
+
+    /**
+     * Removes the subtree of the first node holding a value in prefix order, at any depth.
+     * The root is never removed. When the tree is indexed, the node is found through the index and only the children
+     * of its parent are scanned; otherwise the tree is searched once without recursion.
+     *
+     * @param element - the value of the root of the subtree to remove
+     *
+     * @return the number of removed nodes, or 0 if no node below the root holds the value
+     */
+    public int removeSubtree(final E element) {
+        final NaryTreeNode<E> root = this.naryTreeRoot();
+        if (this.index != null) {
+            final INaryTreeNode<E> node = this.index.first(element, root);
+            if (node == null || node == root) {
+                return 0;
+            }
+            if (node instanceof NaryTreeNode && ((NaryTreeNode<E>) node).getParent() != null) {
+                return ((NaryTreeNode<E>) node).getParent().removeChild(node);
+            }
+        }
+        return root.removeSubtree(element);
+    }
+
+    /**
+     * Removes the subtrees of all the nodes whose value matches a predicate, in a single walk of the tree.
+     * The root is never removed, and the nodes of a removed subtree are not tested.
+     * The size, height and number of leaves are computed again once per changed node rather than per removal,
+     * so pruning any number of subtrees runs in linear time.
+     *
+     * @param filter - returns true for the values of the nodes to remove
+     *
+     * @return the number of removed nodes
+     */
+    public int removeIf(final Predicate<? super E> filter) {
+        return this.naryTreeRoot().removeIf(filter);
+    }
+
+    private NaryTreeNode<E> naryTreeRoot() {
+        if (!(this.root instanceof NaryTreeNode)) {
+            throw new UnsupportedOperationException("The root is not a NaryTreeNode");
+        }
+        return (NaryTreeNode<E>) this.root;
+    }
+
+    /**
+     * Returns True if the first node holding a value is a strict ancestor of the first node holding another value.
+     * The ancestry queries share an index of the tree, built in O(n log n) on the first query after a modification,
+     * after which each query runs in constant time. A value is resolved to the first node holding an equal value in
+     * prefix order.
+     *
+     * @param ancestor   - the value of the candidate ancestor
+     * @param descendant - the value of the candidate descendant
+     *
+     * @return True if the descendant is in the subtree of the ancestor, and is not the ancestor itself
+     */
+    public boolean isAncestor(final E ancestor, final E descendant) {
+        final NaryTreeAncestry<E> ancestry = this.ancestry();
+        final int first = ancestry.numberOf(ancestor);
+        final int second = ancestry.numberOf(descendant);
+        return first >= 0 && second >= 0 && ancestry.isAncestor(first, second);
+    }
+
+    /**
+     * Returns the depth of the first node holding a value, the root being at depth 0, in constant time.
+     *
+     * @param element - the value of the node
+     *
+     * @return the depth of the node, or -1 if no node holds the value
+     * @see #isAncestor(Object, Object)
+     */
+    public int depthOf(final E element) {
+        final NaryTreeAncestry<E> ancestry = this.ancestry();
+        final int node = ancestry.numberOf(element);
+        return node < 0 ? -1 : ancestry.depth(node);
+    }
+
+    /**
+     * Returns the deepest node having the first nodes holding two values in its subtree, in constant time.
+     * A node is the lowest common ancestor of itself and of its descendants.
+     *
+     * @param first  - the value of the first node
+     * @param second - the value of the second node
+     *
+     * @return the lowest common ancestor, or null if a value is not held by any node
+     * @see #isAncestor(Object, Object)
+     */
+    public INaryTree<E> lowestCommonAncestor(final E first, final E second) {
+        final NaryTreeAncestry<E> ancestry = this.ancestry();
+        final int firstNode = ancestry.numberOf(first);
+        final int secondNode = ancestry.numberOf(second);
+        if (firstNode < 0 || secondNode < 0) {
+            return null;
+        }
+        return ancestry.node(ancestry.lowestCommonAncestor(firstNode, secondNode));
+    }
+
+    /**
+     * Returns the values of the nodes from the first node holding a value up to the root, in O(depth).
+     *
+     * @param element - the value of the first node of the path
+     *
+     * @return the values of the path, starting with the element and ending with the root,
+     * or an empty list if no node holds the value
+     * @see #isAncestor(Object, Object)
+     */
+    public List<E> pathToRoot(final E element) {
+        final NaryTreeAncestry<E> ancestry = this.ancestry();
+        final int node = ancestry.numberOf(element);
+        return node < 0 ? new ArrayList<>() : ancestry.pathToRoot(node);
+    }
+
+    /**
+     * Sets the listener receiving a record of each instrumented operation of this tree: the additions, removals,
+     * searches, traversals to a list and serializations, with their duration and the number of nodes they visited.
+     * The iterators, streams and aggregates are not instrumented.
+     * Without a listener, and while no JDK Flight Recorder recording enables the
+     * {@code com.am.treenode.NaryTreeOperation} event, the instrumentation costs a null check per operation.
+     * The operations are also reported to the recorder while such a recording runs, with or without a listener.
+     *
+     * @param metrics - the listener, or null to stop recording the operations
+     */
+    public void setMetrics(final TreeMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Returns the listener receiving a record of each instrumented operation of this tree.
+     *
+     * @return the listener, or null if there is none
+     */
+    public TreeMetrics getMetrics() {
+        return this.metrics;
+    }
+
+    /**
+     * Enables the memoization of the serialized fragments of the subtrees by {@link #generateText()},
+     * {@link #writeText(Appendable)} and the toJson methods.
+     * Each serialization reuses the fragments of the unchanged subtrees and caches some of the fragments it builds,
+     * and each change made through this tree drops only the fragments on the path from the changed node to the root.
+     * A fragment is only cached if it is at least twice as long as the longest fragment cached below it, so that
+     * a deep tree does not cache a copy of each of its subtrees: the cached fragments hold at most
+     * log2(output length) copies of each character of the output. Serializing again after a change walks the nodes
+     * which are not in an unchanged cached fragment, and never walks more nodes than a serialization without cache;
+     * on a balanced tree, it walks the changed path and the children of its nodes.
+     * The cached fragments of each format hold at most a number of characters, over which the least recently used
+     * are dropped, so the cache of each format uses at most two bytes per character, plus one map entry per fragment.
+     * With metrics, the serializations report the number of nodes they walked.
+     * The fragments of the leaves are never cached, and neither are those of the subtrees holding nodes of another
+     * implementation than the nodes of this tree, as their changes are not seen by the tree.
+     * With a cache, the serializations update it, so they must not run concurrently.
+     *
+     * @param maxCachedChars - the maximum total length of the cached fragments of each format, or 0 to disable
+     *                         the cache and drop the cached fragments
+     *
+     * @throws IllegalArgumentException if the maximum length is negative
+     */
+    public void setSerializationCacheSize(final long maxCachedChars) {
+        if (maxCachedChars < 0) {
+            throw new IllegalArgumentException("The cache size cannot be negative: " + maxCachedChars);
+        }
+        if (maxCachedChars == 0) {
+            this.textCache = null;
+            this.jsonCache = null;
+        } else {
+            this.textCache = new NaryTreeFragmentCache<>(NaryTreeFragmentFormat.TEXT, maxCachedChars);
+            this.jsonCache = new NaryTreeFragmentCache<>(NaryTreeFragmentFormat.JSON, maxCachedChars);
+        }
+    }
+
+    /**
+     * Returns the total length of the fragments currently cached for the serializations, in all formats.
+     *
+     * @return the number of cached characters, 0 if the cache is disabled
+     * @see #setSerializationCacheSize(long)
+     */
+    public long getSerializationCachedChars() {
+        return this.textCache == null ? 0 : this.textCache.getCachedChars() + this.jsonCache.getCachedChars();
+    }
+
+    /**
+     * Drops the cached fragments of a changed node and of its ancestors.
+     *
+     * @param node - the node whose subtree changed, or null
+     */
+    private void invalidateFragments(final INaryTreeNode<E> node) {
+        if (this.textCache != null && node instanceof NaryTreeNode) {
+            this.textCache.invalidate((NaryTreeNode<E>) node);
+            this.jsonCache.invalidate((NaryTreeNode<E>) node);
+        }
+    }
+
+    private NaryTreeAncestry<E> ancestry() {
+        if (this.ancestry == null) {
+            this.ancestry = new NaryTreeAncestry<>(this.root);
+        }
+        return this.ancestry;
+    }
+
+    /**
+     * Returns the root node of this tree.
+     *
+     * @return the root node
+     */
+    @Override
+    INaryTreeNode<E> getRootNode() {
+        return this.root;
+    }
+
+    /**
+     * Returns True if this tree maintains a value index.
+     *
+     * @return True if this tree maintains a value index
+     */
+    boolean isIndexed() {
+        return this.index != null;
+    }
+
+    /**
+     * Returns the strategy used to store the children of the nodes of this tree.
+     *
+     * @return the child storage strategy
+     */
+    NaryTreeChildStorage getChildStorage() {
+        return this.childStorage;
+    }
+
+    /**
+     * Called when a subtree has been attached to one of the nodes of this tree.
+     *
+     * @param parent  - the node receiving the subtree, or null for the root
+     * @param subtree - the attached subtree
+     */
+    void attached(final INaryTreeNode<E> parent, final INaryTreeNode<E> subtree) {
+        this.ancestry = null;
+        this.invalidateFragments(parent);
+        final Deque<INaryTreeNode<E>> stack = new ArrayDeque<>();
+        stack.push(subtree);
+        while (!stack.isEmpty()) {
+            final INaryTreeNode<E> node = stack.pop();
+            if (node instanceof NaryTreeNode) {
+                ((NaryTreeNode<E>) node).tree = this;
+            }
+            if (this.index != null) {
+                this.index.register(node);
+            }
+            node.getChildren().forEach(stack::push);
+        }
+    }
+
+    /**
+     * Called when a subtree has been detached from one of the nodes of this tree.
+     *
+     * @param parent  - the node which held the subtree
+     * @param subtree - the detached subtree
+     */
+    void detached(final INaryTreeNode<E> parent, final INaryTreeNode<E> subtree) {
+        this.ancestry = null;
+        this.invalidateFragments(parent);
+        final Deque<INaryTreeNode<E>> stack = new ArrayDeque<>();
+        stack.push(subtree);
+        while (!stack.isEmpty()) {
+            final INaryTreeNode<E> node = stack.pop();
+            if (node instanceof NaryTreeNode) {
+                ((NaryTreeNode<E>) node).tree = null;
+            }
+            if (this.index != null) {
+                this.index.unregister(node);
+            }
+            if (this.textCache != null) {
+                this.textCache.forget(node);
+                this.jsonCache.forget(node);
+            }
+            node.getChildren().forEach(stack::push);
+        }
+    }
+
+    /**
+     * Called when the value of one of the nodes of this tree has changed.
+     *
+     * @param node     - the node whose value changed
+     * @param previous - the previous value of the node
+     */
+    void valueChanged(final INaryTreeNode<E> node, final E previous) {
+        this.ancestry = null;
+        this.invalidateFragments(node);
+        if (this.index != null) {
+            this.index.update(node, previous);
         }
-        return Collections.emptyIterator();
     }
-}
\ No newline at end of file
+}
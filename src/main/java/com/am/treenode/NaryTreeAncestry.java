@@ -0,0 +1,192 @@
+package com.am.treenode;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An ancestry index of a tree, answering ancestor, depth and lowest common ancestor queries.
+ * The nodes are numbered in prefix order, so the subtree of a node is the range of numbers from its own number
+ * to its number plus its size, and a node is an ancestor of another one if the number of the other one is in its range.
+ * The lowest common ancestor of two nodes is the parent of the shallowest node numbered after the first one,
+ * up to the second one, which is found in constant time with a sparse table of the shallowest node of each range
+ * of a power of two length.
+ * The index is built in O(n log n) time and memory, and is a snapshot: it must be rebuilt when the tree changes.
+ * Each value is resolved to the first node holding an equal value in prefix order.
+ *
+ * @param <E> the type of elements held in the indexed tree
+ */
+final class NaryTreeAncestry<E> {
+    private final INaryTreeNode<E>[] nodes;
+
+    private final int[] parents;
+
+    private final int[] depths;
+
+    /**
+     * The number past the last node of the subtree of each node.
+     */
+    private final int[] ends;
+
+    /**
+     * The number of the first node holding each value.
+     */
+    private final Map<Object, Integer> numbers;
+
+    /**
+     * For each level k from 1, the shallowest node of each range of 2^k nodes, by the number of its first node.
+     * The level 0 is the identity, and is not stored.
+     */
+    private final int[][] shallowest;
+
+    /**
+     * Builds the ancestry index of a subtree without recursion.
+     *
+     * @param root - the root of the indexed subtree
+     */
+    @SuppressWarnings("unchecked")
+    NaryTreeAncestry(final INaryTreeNode<E> root) {
+        final int size = root.size();
+        this.nodes = (INaryTreeNode<E>[]) new INaryTreeNode<?>[size];
+        this.parents = new int[size];
+        this.depths = new int[size];
+        this.ends = new int[size];
+        this.numbers = new HashMap<>();
+        // Each level of the stack is labeled with the number of its node.
+        final NaryTreeStack<E> stack = new NaryTreeStack<>();
+        int count = 0;
+        this.number(root, count, -1, 0);
+        stack.push(root);
+        stack.label(count++);
+        while (!stack.isEmpty()) {
+            final int parent = stack.label();
+            final INaryTreeNode<E> child = stack.nextChild();
+            if (child == null) {
+                this.ends[parent] = count;
+                stack.pop();
+                continue;
+            }
+            if (count == size) {
+                throw new IllegalStateException("The size of the tree does not match its nodes");
+            }
+            this.number(child, count, parent, stack.depth());
+            stack.push(child);
+            stack.label(count++);
+        }
+        this.shallowest = this.buildSparseTable();
+    }
+
+    private void number(final INaryTreeNode<E> node, final int number, final int parent, final int depth) {
+        this.nodes[number] = node;
+        this.parents[number] = parent;
+        this.depths[number] = depth;
+        this.numbers.putIfAbsent(node.getValue(), number);
+    }
+
+    private int[][] buildSparseTable() {
+        final int size = this.nodes.length;
+        final int levels = size < 2 ? 0 : 31 - Integer.numberOfLeadingZeros(size);
+        final int[][] table = new int[levels][];
+        for (int level = 1; level <= levels; level++) {
+            final int half = 1 << (level - 1);
+            final int[] ranges = new int[size - (1 << level) + 1];
+            for (int i = 0; i < ranges.length; i++) {
+                ranges[i] = this.shallower(NaryTreeAncestry.shallowestOf(table, level - 1, i),
+                        NaryTreeAncestry.shallowestOf(table, level - 1, i + half));
+            }
+            table[level - 1] = ranges;
+        }
+        return table;
+    }
+
+    private static int shallowestOf(final int[][] table, final int level, final int from) {
+        return level == 0 ? from : table[level - 1][from];
+    }
+
+    private int shallower(final int first, final int second) {
+        return this.depths[second] < this.depths[first] ? second : first;
+    }
+
+    /**
+     * Returns the number of the first node holding a value.
+     *
+     * @param element - the value of the node
+     *
+     * @return the number of the node, or -1 if no node holds the value
+     */
+    int numberOf(final Object element) {
+        final Integer number = this.numbers.get(element);
+        return number == null ? -1 : number;
+    }
+
+    /**
+     * Returns True if a node is a strict ancestor of another node.
+     *
+     * @param ancestor   - the number of the candidate ancestor
+     * @param descendant - the number of the candidate descendant
+     *
+     * @return True if the descendant is in the subtree of the ancestor, and is not the ancestor itself
+     */
+    boolean isAncestor(final int ancestor, final int descendant) {
+        return ancestor < descendant && descendant < this.ends[ancestor];
+    }
+
+    /**
+     * Returns the depth of a node, the root being at depth 0.
+     *
+     * @param node - the number of the node
+     *
+     * @return the depth of the node
+     */
+    int depth(final int node) {
+        return this.depths[node];
+    }
+
+    /**
+     * Returns the lowest common ancestor of two nodes in constant time.
+     * A node is the lowest common ancestor of itself and of its descendants.
+     *
+     * @param first  - the number of the first node
+     * @param second - the number of the second node
+     *
+     * @return the number of the lowest common ancestor
+     */
+    int lowestCommonAncestor(final int first, final int second) {
+        if (first == second) {
+            return first;
+        }
+        final int from = Math.min(first, second) + 1;
+        final int to = Math.max(first, second);
+        final int level = 31 - Integer.numberOfLeadingZeros(to - from + 1);
+        final int shallowest = this.shallower(NaryTreeAncestry.shallowestOf(this.shallowest, level, from),
+                NaryTreeAncestry.shallowestOf(this.shallowest, level, to - (1 << level) + 1));
+        return this.parents[shallowest];
+    }
+
+    /**
+     * Returns the values of the nodes from a node up to the root.
+     *
+     * @param node - the number of the first node of the path
+     *
+     * @return the values of the path, starting with the value of the node
+     */
+    List<E> pathToRoot(final int node) {
+        final List<E> path = new ArrayList<>(this.depths[node] + 1);
+        for (int current = node; current >= 0; current = this.parents[current]) {
+            path.add(this.nodes[current].getValue());
+        }
+        return path;
+    }
+
+    /**
+     * Returns a node from its number.
+     *
+     * @param number - the number of the node
+     *
+     * @return the node
+     */
+    INaryTreeNode<E> node(final int number) {
+        return this.nodes[number];
+    }
+}
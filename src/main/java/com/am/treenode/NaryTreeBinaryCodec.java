@@ -0,0 +1,270 @@
+package com.am.treenode;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+
+/**
+ * Writes trees to channels and reads them back in a compact binary format.
+ * The format is a header, made of a magic number, a version byte and the number of nodes as a varint,
+ * followed by the nodes in prefix order. Each node is its number of children as a varint, then its value:
+ * a varint holding 0 for a null value, or the length of the encoding of the value plus one,
+ * followed by the bytes of the {@link NaryTreeValueCodec}.
+ * The varints are unsigned LEB128: 7 bits per byte, the high bit set on all the bytes but the last one.
+ * <p>
+ * A codec owns a direct buffer, reused by all its reads and writes to move the bytes in large blocks,
+ * so a codec must not be used by several threads at the same time. Trees are written and read without recursion.
+ *
+ * @param <E> the type of elements held in the trees
+ */
+public final class NaryTreeBinaryCodec<E> {
+    static final int MAGIC = 0x4E544231;
+
+    static final byte VERSION = 1;
+
+    private static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+    /**
+     * The maximum length of a varint of an int.
+     */
+    private static final int VARINT_SIZE = 5;
+
+    private final NaryTreeValueCodec<E> codec;
+
+    private final ByteBuffer buffer;
+
+    /**
+     * Instantiates a new NaryTreeBinaryCodec with a buffer of 64 kB.
+     *
+     * @param codec - the codec of the values
+     */
+    public NaryTreeBinaryCodec(final NaryTreeValueCodec<E> codec) {
+        this(codec, NaryTreeBinaryCodec.DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Instantiates a new NaryTreeBinaryCodec.
+     *
+     * @param codec      - the codec of the values
+     * @param bufferSize - the size of the direct buffer, at least 16 bytes
+     */
+    public NaryTreeBinaryCodec(final NaryTreeValueCodec<E> codec, final int bufferSize) {
+        if (bufferSize < 16) {
+            throw new IllegalArgumentException("The buffer must hold at least 16 bytes");
+        }
+        this.codec = codec;
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    /**
+     * Writes a tree to a channel. The channel is neither flushed nor closed.
+     *
+     * @param tree    - the written tree, copied first if it is implemented outside this package, which takes memory
+     *                linear in its size
+     * @param channel - the channel receiving the bytes
+     *
+     * @throws IOException if the channel fails
+     */
+    public void write(final INaryTree<E> tree, final WritableByteChannel channel) throws IOException {
+        final ByteBuffer buffer = this.buffer;
+        buffer.clear();
+        final int size = tree.size();
+        buffer.putInt(NaryTreeBinaryCodec.MAGIC).put(NaryTreeBinaryCodec.VERSION);
+        NaryTreeBinaryCodec.putVarint(buffer, size);
+        final INaryTreeNode<E> root = AbstractNaryTree.rootNodeOf(tree);
+        final NaryTreeStack<E> stack = new NaryTreeStack<>();
+        stack.push(root != null ? root : NaryTreeBulkLoader.fromTree(tree));
+        // The stack counts the children on the list which it iterates, so that both agree on concurrent trees.
+        this.writeNode(channel, stack.count(), stack.peek().getValue());
+        int written = 1;
+        while (!stack.isEmpty()) {
+            final INaryTreeNode<E> child = stack.nextChild();
+            if (child == null) {
+                stack.pop();
+                continue;
+            }
+            stack.push(child);
+            this.writeNode(channel, stack.count(), child.getValue());
+            written++;
+        }
+        if (written != size) {
+            throw new ConcurrentModificationException("The tree was modified while it was written");
+        }
+        NaryTreeBinaryCodec.drain(buffer, channel);
+    }
+
+    private void writeNode(final WritableByteChannel channel, final int children, final E value) throws IOException {
+        final ByteBuffer buffer = this.buffer;
+        if (buffer.remaining() < 2 * NaryTreeBinaryCodec.VARINT_SIZE) {
+            NaryTreeBinaryCodec.drain(buffer, channel);
+        }
+        NaryTreeBinaryCodec.putVarint(buffer, children);
+        if (value == null) {
+            NaryTreeBinaryCodec.putVarint(buffer, 0);
+            return;
+        }
+        final int length = this.codec.size(value);
+        NaryTreeBinaryCodec.putVarint(buffer, length + 1);
+        if (buffer.remaining() < length) {
+            NaryTreeBinaryCodec.drain(buffer, channel);
+        }
+        final ByteBuffer target = buffer.remaining() < length ? ByteBuffer.allocate(length) : buffer;
+        final int start = target.position();
+        this.codec.encode(value, target);
+        if (target.position() - start != length) {
+            throw new IllegalStateException("The codec wrote " + (target.position() - start)
+                    + " bytes instead of " + length);
+        }
+        if (target != buffer) {
+            target.flip();
+            while (target.hasRemaining()) {
+                channel.write(target);
+            }
+        }
+    }
+
+    /**
+     * Reads a tree written by {@link #write(INaryTree, WritableByteChannel)} from a channel.
+     * The channel may be read ahead of the end of the tree by up to the size of the buffer.
+     * Each node is attached to its parent once all its children have been read,
+     * so that the aggregates of the open nodes are updated in constant time.
+     *
+     * @param channel - the channel providing the bytes
+     *
+     * @return the tree read from the channel
+     *
+     * @throws IOException if the channel fails or the bytes are not a tree
+     */
+    @SuppressWarnings("unchecked")
+    public NaryTree<E> read(final ReadableByteChannel channel) throws IOException {
+        final ByteBuffer buffer = this.buffer;
+        buffer.clear().flip();
+        NaryTreeBinaryCodec.fill(buffer, channel, Integer.BYTES + 1);
+        if (buffer.getInt() != NaryTreeBinaryCodec.MAGIC) {
+            throw new StreamCorruptedException("Not a binary tree");
+        }
+        final byte version = buffer.get();
+        if (version != NaryTreeBinaryCodec.VERSION) {
+            throw new StreamCorruptedException("Unsupported binary tree version " + version);
+        }
+        final int size = this.readVarint(channel);
+        NaryTreeNode<E>[] nodes = (NaryTreeNode<E>[]) new NaryTreeNode<?>[16];
+        int[] remaining = new int[16];
+        int depth = 0;
+        for (int read = 0; read < size; read++) {
+            final int children = this.readVarint(channel);
+            final NaryTreeNode<E> node = new NaryTreeNode<>(this.readValue(channel));
+            if (depth == 1 && remaining[0] == 0) {
+                throw new StreamCorruptedException("Nodes after the end of the tree");
+            }
+            if (depth == nodes.length) {
+                nodes = Arrays.copyOf(nodes, depth * 2);
+                remaining = Arrays.copyOf(remaining, depth * 2);
+            }
+            nodes[depth] = node;
+            remaining[depth++] = children;
+            while (remaining[depth - 1] == 0 && depth > 1) {
+                final NaryTreeNode<E> complete = nodes[--depth];
+                nodes[depth] = null;
+                nodes[depth - 1].add(complete);
+                remaining[depth - 1]--;
+            }
+        }
+        if (depth != 1 || remaining[0] != 0) {
+            throw new StreamCorruptedException("Truncated binary tree");
+        }
+        return new NaryTree<>(NaryTreeChildStorage.ARRAY, false, nodes[0]);
+    }
+
+    private E readValue(final ReadableByteChannel channel) throws IOException {
+        final int length = this.readVarint(channel) - 1;
+        if (length < 0) {
+            return null;
+        }
+        final ByteBuffer buffer = this.buffer;
+        if (length > buffer.capacity()) {
+            final ByteBuffer value = ByteBuffer.allocate(length);
+            final int buffered = Math.min(buffer.remaining(), length);
+            value.put(value.position(), buffer, buffer.position(), buffered).position(buffered);
+            buffer.position(buffer.position() + buffered);
+            while (value.hasRemaining()) {
+                if (channel.read(value) < 0) {
+                    throw new EOFException("Truncated binary tree");
+                }
+            }
+            return this.codec.decode(value.flip());
+        }
+        NaryTreeBinaryCodec.fill(buffer, channel, length);
+        final int limit = buffer.limit();
+        final int end = buffer.position() + length;
+        buffer.limit(end);
+        try {
+            return this.codec.decode(buffer);
+        } finally {
+            buffer.limit(limit).position(end);
+        }
+    }
+
+    private int readVarint(final ReadableByteChannel channel) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            if (!this.buffer.hasRemaining()) {
+                NaryTreeBinaryCodec.fill(this.buffer, channel, 1);
+            }
+            final byte b = this.buffer.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new StreamCorruptedException("Malformed varint");
+    }
+
+    static void putVarint(final ByteBuffer buffer, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    /**
+     * Reads from a channel until a buffer in read mode has at least a number of remaining bytes,
+     * or as many bytes as the channel can provide without blocking on its end.
+     *
+     * @param buffer  - the buffer in read mode
+     * @param channel - the channel providing the bytes
+     * @param needed  - the number of bytes needed
+     *
+     * @throws IOException if the channel fails or ends before the needed bytes
+     */
+    private static void fill(final ByteBuffer buffer, final ReadableByteChannel channel, final int needed)
+            throws IOException {
+        if (buffer.remaining() >= needed) {
+            return;
+        }
+        buffer.compact();
+        try {
+            while (buffer.position() < needed) {
+                if (channel.read(buffer) < 0) {
+                    throw new EOFException("Truncated binary tree");
+                }
+            }
+        } finally {
+            buffer.flip();
+        }
+    }
+
+    private static void drain(final ByteBuffer buffer, final WritableByteChannel channel) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
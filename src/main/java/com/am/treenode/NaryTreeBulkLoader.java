@@ -0,0 +1,239 @@
+package com.am.treenode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * Builds trees from their whole description in a single linear pass, see {@link NaryTree#bulkLoad(List, int[])}.
+ * The nodes are attached bottom-up, each one once all its children are attached, so that every attachment
+ * runs in constant time, and the children lists are created with their final capacity.
+ */
+enum NaryTreeBulkLoader {
+    ;
+
+    /**
+     * Builds the root node of a tree from a parent-pointer array.
+     * The children are counted and grouped by parent with a counting sort, the nodes are ordered
+     * breadth first from the root, and each node receives its children in the reverse of that order.
+     *
+     * @param values       - the value of each node
+     * @param parents      - the index of the parent of each node, or a negative index for the root
+     * @param childStorage - the strategy used to store the children of the nodes
+     * @param <E>          - the type of elements held in the tree
+     *
+     * @return the root node
+     *
+     * @throws IllegalArgumentException if the parents are not a single tree over the values
+     */
+    @SuppressWarnings("unchecked")
+    static <E> NaryTreeNode<E> fromParents(final List<? extends E> values, final int[] parents,
+                                           final NaryTreeChildStorage childStorage) {
+        final int size = values.size();
+        if (parents.length != size) {
+            throw new IllegalArgumentException("There are " + size + " values but " + parents.length + " parents");
+        }
+        int root = -1;
+        final int[] firsts = new int[size + 1];
+        for (int node = 0; node < size; node++) {
+            final int parent = parents[node];
+            if (parent < 0) {
+                if (root >= 0) {
+                    throw new IllegalArgumentException("Both " + root + " and " + node + " are roots");
+                }
+                root = node;
+            } else if (parent >= size) {
+                throw new IllegalArgumentException("The parent " + parent + " of " + node + " is not a node");
+            } else {
+                firsts[parent + 1]++;
+            }
+        }
+        if (root < 0) {
+            throw new IllegalArgumentException("There is no root");
+        }
+        for (int node = 0; node < size; node++) {
+            firsts[node + 1] += firsts[node];
+        }
+        // The children of each node, in the order of the values, from firsts[node] to firsts[node + 1].
+        final int[] children = new int[Math.max(0, size - 1)];
+        final int[] cursors = Arrays.copyOf(firsts, size);
+        for (int node = 0; node < size; node++) {
+            if (parents[node] >= 0) {
+                children[cursors[parents[node]]++] = node;
+            }
+        }
+        final int[] order = new int[size];
+        int count = 0;
+        order[count++] = root;
+        for (int head = 0; head < count; head++) {
+            final int node = order[head];
+            for (int child = firsts[node]; child < firsts[node + 1]; child++) {
+                order[count++] = children[child];
+            }
+        }
+        if (count != size) {
+            throw new IllegalArgumentException((size - count) + " nodes are in a cycle, unreachable from the root");
+        }
+        final NaryTreeNode<E>[] nodes = (NaryTreeNode<E>[]) new NaryTreeNode<?>[size];
+        int created = 0;
+        for (final E value : values) {
+            nodes[created++] = new NaryTreeNode<>(value);
+        }
+        for (int position = size - 1; position >= 0; position--) {
+            final int node = order[position];
+            final int from = firsts[node];
+            final int to = firsts[node + 1];
+            if (from == to) {
+                continue;
+            }
+            final NaryTreeNode<E> parent = nodes[node];
+            parent.presize(childStorage, to - from);
+            for (int child = from; child < to; child++) {
+                parent.add(nodes[children[child]]);
+            }
+        }
+        return nodes[root];
+    }
+
+    /**
+     * Copies a tree to nodes, through {@link INaryTree#accept(TreeVisitor)}, for the trees implemented outside this
+     * package. The copy holds the whole tree, so it takes memory linear in the size of the tree on top of it.
+     *
+     * @param tree - the copied tree
+     * @param <E>  - the type of elements held in the tree
+     *
+     * @return the root node of the copy
+     */
+    static <E> NaryTreeNode<E> fromTree(final INaryTree<E> tree) {
+        final List<E> values = new ArrayList<>();
+        final int[][] parents = {new int[16]};
+        final int[][] path = {new int[16]};
+        tree.accept(new TreeVisitor<E>() {
+            @Override
+            public Result enter(final E value, final int depth) {
+                final int node = values.size();
+                if (node == parents[0].length) {
+                    parents[0] = Arrays.copyOf(parents[0], node * 2);
+                }
+                if (depth == path[0].length) {
+                    path[0] = Arrays.copyOf(path[0], depth * 2);
+                }
+                parents[0][node] = depth == 0 ? -1 : path[0][depth - 1];
+                path[0][depth] = node;
+                values.add(value);
+                return Result.CONTINUE;
+            }
+        });
+        return NaryTreeBulkLoader.fromParents(values, Arrays.copyOf(parents[0], values.size()),
+                NaryTreeChildStorage.ARRAY);
+    }
+
+    /**
+     * Builds the root node of a tree from its (parent, child) edges.
+     * The values identify the nodes, so each value must be held by a single node.
+     * The edges are consumed in their encounter order, which is the order of the children of each node,
+     * and may be produced by a parallel stream.
+     *
+     * @param edges - the edges, each one from a parent value to a child value
+     * @param <E>   - the type of elements held in the tree
+     *
+     * @return the root node
+     *
+     * @throws IllegalArgumentException if the edges are not a single tree
+     */
+    static <E> NaryTreeNode<E> fromEdges(final Stream<? extends Map.Entry<? extends E, ? extends E>> edges) {
+        final Map<Object, Integer> numbers = new HashMap<>();
+        final List<E> values = new ArrayList<>();
+        final int[][] parents = {new int[16]};
+        edges.forEachOrdered(edge -> {
+            final int parent = NaryTreeBulkLoader.number(edge.getKey(), numbers, values, parents);
+            final int child = NaryTreeBulkLoader.number(edge.getValue(), numbers, values, parents);
+            if (parents[0][child] >= 0) {
+                throw new IllegalArgumentException("The node " + edge.getValue() + " has several parents");
+            }
+            parents[0][child] = parent;
+        });
+        if (values.isEmpty()) {
+            throw new IllegalArgumentException("There is no edge");
+        }
+        return NaryTreeBulkLoader.fromParents(values, Arrays.copyOf(parents[0], values.size()),
+                NaryTreeChildStorage.ARRAY);
+    }
+
+    private static <E> int number(final E value, final Map<Object, Integer> numbers, final List<E> values,
+                                  final int[][] parents) {
+        final Integer number = numbers.get(value);
+        if (number != null) {
+            return number;
+        }
+        final int added = values.size();
+        numbers.put(value, added);
+        values.add(value);
+        if (added == parents[0].length) {
+            parents[0] = Arrays.copyOf(parents[0], added * 2);
+        }
+        parents[0][added] = -1;
+        return added;
+    }
+
+    /**
+     * Builds the root node of a tree from the paths from its root to its nodes.
+     * The paths must be grouped by subtree, as they are when sorted: the nodes of the common prefix of a path with
+     * the previous one are reused, and the other nodes of the path are created. The intermediate nodes need not
+     * have their own path. Each node is attached to its parent when a path leaves it, so each path costs its length.
+     *
+     * @param paths - the paths, each one starting with the root
+     * @param <E>   - the type of elements held in the tree
+     *
+     * @return the root node
+     *
+     * @throws IllegalArgumentException if a path is empty or does not start with the root
+     */
+    @SuppressWarnings("unchecked")
+    static <E> NaryTreeNode<E> fromPaths(final Iterable<? extends List<? extends E>> paths) {
+        NaryTreeNode<E>[] stack = (NaryTreeNode<E>[]) new NaryTreeNode<?>[16];
+        int depth = 0;
+        final Iterator<? extends List<? extends E>> iterator = paths.iterator();
+        if (!iterator.hasNext()) {
+            throw new IllegalArgumentException("There is no path");
+        }
+        while (iterator.hasNext()) {
+            final List<? extends E> path = iterator.next();
+            if (path.isEmpty()) {
+                throw new IllegalArgumentException("A path is empty");
+            }
+            if (depth > 0 && !Objects.equals(stack[0].getValue(), path.get(0))) {
+                throw new IllegalArgumentException("The path " + path + " does not start with the root "
+                        + stack[0].getValue());
+            }
+            int common = Math.min(depth, path.size());
+            for (int i = 1; i < common; i++) {
+                if (!Objects.equals(stack[i].getValue(), path.get(i))) {
+                    common = i;
+                    break;
+                }
+            }
+            while (depth > Math.max(common, 1)) {
+                final NaryTreeNode<E> node = stack[--depth];
+                stack[depth] = null;
+                stack[depth - 1].add(node);
+            }
+            for (final E value : path.subList(depth, path.size())) {
+                if (depth == stack.length) {
+                    stack = Arrays.copyOf(stack, depth * 2);
+                }
+                stack[depth++] = new NaryTreeNode<>(value);
+            }
+        }
+        while (depth > 1) {
+            final NaryTreeNode<E> node = stack[--depth];
+            stack[depth - 1].add(node);
+        }
+        return stack[0];
+    }
+}
@@ -0,0 +1,50 @@
+package com.am.treenode;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * The strategies available to store the children of the nodes of a {@link NaryTree}.
+ * Leaves never allocate a children list, whatever the strategy: the list is created when the first child is added.
+ * <p>
+ * Approximate memory footprint per node on a 64-bit JVM with compressed oops, values excluded:
+ * <ul>
+ *     <li>{@link #ARRAY}: 48 bytes for the node, 4 bytes for its slot in the parent array,
+ *     plus 40 bytes for the children list of an internal node;</li>
+ *     <li>{@link #LINKED}: 48 bytes for the node, 24 bytes for its entry in the parent list,
+ *     plus 32 bytes for the children list of an internal node.</li>
+ * </ul>
+ */
+public enum NaryTreeChildStorage {
+    /**
+     * Children are stored in a growable array.
+     * Gives constant time indexed access and amortized constant time insertion at the end.
+     */
+    ARRAY {
+        @Override
+        <E> List<INaryTreeNode<E>> create(final int capacity) {
+            return new ArrayList<>(capacity);
+        }
+    },
+    /**
+     * Children are stored in a doubly linked list.
+     * Indexed access is linear in the number of children.
+     */
+    LINKED {
+        @Override
+        <E> List<INaryTreeNode<E>> create(final int capacity) {
+            return new LinkedList<>();
+        }
+    };
+
+    /**
+     * Creates an empty children list.
+     *
+     * @param capacity - the expected number of children
+     * @param <E>      - the type of elements held in the tree
+     *
+     * @return an empty children list
+     */
+    abstract <E> List<INaryTreeNode<E>> create(int capacity);
+}
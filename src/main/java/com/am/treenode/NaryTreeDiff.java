@@ -0,0 +1,313 @@
+package com.am.treenode;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * An edit script turning a source tree into a target tree, computed by {@link #between(INaryTree, INaryTree)}.
+ * The edits are applied in order, and address the nodes by their path: the indexes of the children to follow
+ * from the root, in the tree as left by the previous edits.
+ * <p>
+ * The trees are compared with Merkle hashes of their subtrees: two subtrees with the same hash are taken as equal
+ * without being walked, so the comparison only walks the changed nodes and their children. The hashes of the nodes
+ * of a {@link NaryTree} are cached and kept up to date by its changes, so comparing such trees costs in proportion
+ * to the size of the change; the nodes of the other trees are hashed once per comparison.
+ * <p>
+ * The children of each changed node are paired in turn with the children of its counterpart holding the same
+ * subtree, then the same value. The unpaired subtrees of the source which are found unchanged under another parent
+ * of the target are moved rather than removed and added again, and the remaining children are paired by position,
+ * with their value changed. The unpaired target children are added, the unpaired source children removed,
+ * and the paired children are reordered with the least moves, so the script is small, although not always minimal.
+ * <p>
+ * A script does not refer to the trees it was computed from: the added subtrees are copied into the edits,
+ * and the hash checked by {@link #applyTo(NaryTree)} does not depend on the running JVM, so a script computed
+ * in one process can be applied to an equal tree in another.
+ *
+ * @param <E> the type of elements held in the trees
+ */
+public final class NaryTreeDiff<E> {
+    private final long sourceHash;
+
+    private final int sourceSize;
+
+    private final List<Edit<E>> edits;
+
+    NaryTreeDiff(final long sourceHash, final int sourceSize, final List<Edit<E>> edits) {
+        this.sourceHash = sourceHash;
+        this.sourceSize = sourceSize;
+        this.edits = Collections.unmodifiableList(edits);
+    }
+
+    /**
+     * Computes the edit script turning a source tree into a target tree.
+     * The trees must not be modified during the computation. The trees implemented outside this package are first
+     * copied through {@link INaryTree#accept(TreeVisitor)}, which takes memory linear in their size.
+     *
+     * @param source - the tree to edit
+     * @param target - the tree to obtain
+     * @param <E>    - the type of elements held in the trees
+     *
+     * @return the edit script
+     */
+    public static <E> NaryTreeDiff<E> between(final INaryTree<E> source, final INaryTree<E> target) {
+        final INaryTreeNode<E> sourceRoot = AbstractNaryTree.rootNodeOf(source);
+        final INaryTreeNode<E> targetRoot = AbstractNaryTree.rootNodeOf(target);
+        return new NaryTreeDiffer<>(sourceRoot != null ? sourceRoot : NaryTreeBulkLoader.fromTree(source),
+                targetRoot != null ? targetRoot : NaryTreeBulkLoader.fromTree(target)).diff();
+    }
+
+    /**
+     * Returns the edits, in the order they must be applied.
+     *
+     * @return the unmodifiable list of the edits
+     */
+    public List<Edit<E>> getEdits() {
+        return this.edits;
+    }
+
+    /**
+     * Returns True if the source and target trees are equal.
+     *
+     * @return True if there is no edit
+     */
+    public boolean isEmpty() {
+        return this.edits.isEmpty();
+    }
+
+    /**
+     * Applies the edits to a tree equal to the source tree, which becomes equal to the target tree.
+     * The added subtrees are built from the copies held by the edits, and the moved subtrees keep their nodes.
+     *
+     * @param tree - the edited tree
+     *
+     * @throws IllegalArgumentException if the tree is not equal to the source tree
+     */
+    @SuppressWarnings("unchecked")
+    public void applyTo(final NaryTree<E> tree) {
+        final INaryTreeNode<E> root = tree.getRootNode();
+        if (root.size() != this.sourceSize
+                || NaryTreeHashes.hash(root, new IdentityHashMap<>()) != this.sourceHash) {
+            throw new IllegalArgumentException("The tree is not the source of the diff");
+        }
+        for (final Edit<E> edit : this.edits) {
+            switch (edit.type) {
+                case CHANGE:
+                    NaryTreeDiff.resolve(root, edit.path).setValue(edit.value);
+                    break;
+                case REMOVE: {
+                    final NaryTreeNode<E> node = NaryTreeDiff.resolve(root, edit.path);
+                    node.getParent().removeChild(node);
+                    break;
+                }
+                case ADD: {
+                    final NaryTreeNode<E> subtree = NaryTreeBulkLoader.fromParents(edit.values, edit.parents,
+                            tree.getChildStorage());
+                    NaryTreeDiff.resolve(root, edit.parentPath).insert(edit.index, subtree);
+                    break;
+                }
+                case MOVE: {
+                    final NaryTreeNode<E> node = NaryTreeDiff.resolve(root, edit.path);
+                    node.getParent().removeChild(node);
+                    NaryTreeDiff.resolve(root, edit.parentPath).insert(edit.index, node);
+                    break;
+                }
+                default:
+                    throw new IllegalStateException("Unknown edit " + edit.type);
+            }
+        }
+    }
+
+    private static <E> NaryTreeNode<E> resolve(final INaryTreeNode<E> root, final int[] path) {
+        INaryTreeNode<E> node = root;
+        for (final int index : path) {
+            node = node.getChild(index);
+        }
+        return (NaryTreeNode<E>) node;
+    }
+
+    @Override
+    public String toString() {
+        return this.edits.toString();
+    }
+
+    /**
+     * An edit of a tree.
+     *
+     * @param <E> the type of elements held in the tree
+     */
+    public static final class Edit<E> {
+        /**
+         * The kinds of edits.
+         */
+        public enum Type {
+            /**
+             * Inserts a copy of a subtree of the target tree as a child of a node.
+             */
+            ADD,
+            /**
+             * Removes the subtree of a node.
+             */
+            REMOVE,
+            /**
+             * Sets the value of a node.
+             */
+            CHANGE,
+            /**
+             * Detaches the subtree of a node, then inserts it as a child of a node of the tree left by the detachment.
+             */
+            MOVE
+        }
+
+        private final Type type;
+
+        private final int[] path;
+
+        private final int[] parentPath;
+
+        private final int index;
+
+        private final E value;
+
+        /**
+         * The values of the added subtree in prefix order, and the number of the parent of each node,
+         * -1 for the root of the subtree.
+         */
+        private final List<E> values;
+
+        private final int[] parents;
+
+        private Edit(final Type type, final int[] path, final int[] parentPath, final int index, final E value,
+                     final List<E> values, final int[] parents) {
+            this.type = type;
+            this.path = path;
+            this.parentPath = parentPath;
+            this.index = index;
+            this.value = value;
+            this.values = values;
+            this.parents = parents;
+        }
+
+        /**
+         * Creates the addition of a copy of a subtree.
+         *
+         * @param parentPath - the path of the node receiving the subtree
+         * @param index      - the position of the subtree among the children of the node
+         * @param subtree    - the root of the added subtree, copied by this method
+         * @param <E>        - the type of elements held in the tree
+         *
+         * @return the addition
+         */
+        @SuppressWarnings("unchecked")
+        static <E> Edit<E> add(final int[] parentPath, final int index, final INaryTreeNode<E> subtree) {
+            final int size = subtree.size();
+            final Object[] values = new Object[size];
+            final int[] parents = new int[size];
+            NaryTreeMapper.flatten(subtree, values, parents);
+            return new Edit<>(Type.ADD, null, parentPath, index, null,
+                    Collections.unmodifiableList((List<E>) Arrays.asList(values)), parents);
+        }
+
+        static <E> Edit<E> remove(final int[] path) {
+            return new Edit<>(Type.REMOVE, path, null, -1, null, null, null);
+        }
+
+        static <E> Edit<E> change(final int[] path, final E value) {
+            return new Edit<>(Type.CHANGE, path, null, -1, value, null, null);
+        }
+
+        static <E> Edit<E> move(final int[] path, final int[] parentPath, final int index) {
+            return new Edit<>(Type.MOVE, path, parentPath, index, null, null, null);
+        }
+
+        /**
+         * Returns the kind of this edit.
+         *
+         * @return the kind of this edit
+         */
+        public Type getType() {
+            return this.type;
+        }
+
+        /**
+         * Returns the path of the removed, changed or moved node.
+         *
+         * @return the indexes of the children to follow from the root, or null for an addition
+         */
+        public int[] getPath() {
+            return this.path == null ? null : this.path.clone();
+        }
+
+        /**
+         * Returns the path of the node receiving the added or moved subtree.
+         *
+         * @return the indexes of the children to follow from the root, or null for a removal or a change
+         */
+        public int[] getParentPath() {
+            return this.parentPath == null ? null : this.parentPath.clone();
+        }
+
+        /**
+         * Returns the position of the added or moved subtree among the children of its new parent.
+         *
+         * @return the index of the subtree, or -1 for a removal or a change
+         */
+        public int getIndex() {
+            return this.index;
+        }
+
+        /**
+         * Returns the new value of the changed node.
+         *
+         * @return the new value, or null for the other edits
+         */
+        public E getValue() {
+            return this.value;
+        }
+
+        /**
+         * Returns a new tree holding the copy of the added subtree, which does not change with the target tree.
+         *
+         * @return the added subtree, or null for the other edits
+         */
+        public NaryTree<E> getSubtree() {
+            return this.values == null ? null : NaryTree.bulkLoad(this.values, this.parents);
+        }
+
+        /**
+         * Returns the values of the added subtree in prefix order, the root of the subtree first.
+         *
+         * @return the unmodifiable list of the values, or null for the other edits
+         */
+        public List<E> getSubtreeValues() {
+            return this.values;
+        }
+
+        /**
+         * Returns the topology of the added subtree: the position in {@link #getSubtreeValues()} of the parent
+         * of each node, -1 for the root of the subtree, as read by {@link NaryTree#bulkLoad(List, int[])}.
+         *
+         * @return the parent of each node, or null for the other edits
+         */
+        public int[] getSubtreeParents() {
+            return this.parents == null ? null : this.parents.clone();
+        }
+
+        @Override
+        public String toString() {
+            switch (this.type) {
+                case ADD:
+                    return "ADD " + Arrays.toString(this.parentPath) + " " + this.index + " "
+                            + this.getSubtree().generateText();
+                case REMOVE:
+                    return "REMOVE " + Arrays.toString(this.path);
+                case CHANGE:
+                    return "CHANGE " + Arrays.toString(this.path) + " " + this.value;
+                default:
+                    return "MOVE " + Arrays.toString(this.path) + " " + Arrays.toString(this.parentPath) + " "
+                            + this.index;
+            }
+        }
+    }
+}
@@ -0,0 +1,379 @@
+package com.am.treenode;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Computes the edit script of a {@link NaryTreeDiff}.
+ * The changed nodes of the source tree are paired with their counterpart in the target tree top-down, and mirrored
+ * by entries holding the order of their children as the edits go. The edits are then emitted parent by parent,
+ * and the paths of the edited nodes are read from the entries, so they match the tree left by the previous edits.
+ * Only the compared nodes and their children get an entry, so the work is proportional to the change.
+ *
+ * @param <E> the type of elements held in the trees
+ */
+final class NaryTreeDiffer<E> {
+    private final INaryTreeNode<E> sourceRoot;
+
+    private final INaryTreeNode<E> targetRoot;
+
+    /**
+     * The hashes of the nodes which do not cache their hash.
+     */
+    private final Map<INaryTreeNode<?>, Long> memo = new IdentityHashMap<>();
+
+    /**
+     * The compared entries, each one after its parent.
+     */
+    private final List<Entry<E>> compared = new ArrayList<>();
+
+    /**
+     * The source children left unpaired by their parent, by hash, which may be moved under another parent.
+     * The entries paired since are skipped when polled.
+     */
+    private final Map<Long, ArrayDeque<Entry<E>>> unpairedSources = new HashMap<>();
+
+    /**
+     * The compared entries whose target has unpaired children.
+     */
+    private List<Entry<E>> unpairedTargetParents = new ArrayList<>();
+
+    private final List<NaryTreeDiff.Edit<E>> edits = new ArrayList<>();
+
+    /**
+     * A node of the source tree, as moved by the edits emitted so far.
+     *
+     * @param <E> the type of elements held in the trees
+     */
+    private static final class Entry<E> {
+        /**
+         * The node of the source tree, or null for an added node.
+         */
+        private final INaryTreeNode<E> source;
+
+        /**
+         * The position of the node among the children of its parent in the source tree.
+         */
+        private final int sourceIndex;
+
+        private Entry<E> parent;
+
+        /**
+         * The node of the target tree paired with this node, or null if the node is to be removed.
+         */
+        private INaryTreeNode<E> target;
+
+        /**
+         * The children of a compared entry, in their current order.
+         */
+        private List<Entry<E>> children;
+
+        /**
+         * The entries paired with the children of the target of a compared entry, or null for the added ones.
+         */
+        private Entry<E>[] pairs;
+
+        /**
+         * The children of the target of a compared entry, listed once so that they are reached in constant time.
+         */
+        private INaryTreeNode<E>[] targets;
+
+        private Entry(final INaryTreeNode<E> source, final int sourceIndex, final Entry<E> parent) {
+            this.source = source;
+            this.sourceIndex = sourceIndex;
+            this.parent = parent;
+        }
+    }
+
+    /**
+     * Instantiates a new NaryTreeDiffer.
+     *
+     * @param sourceRoot - the root of the tree to edit
+     * @param targetRoot - the root of the tree to obtain
+     */
+    NaryTreeDiffer(final INaryTreeNode<E> sourceRoot, final INaryTreeNode<E> targetRoot) {
+        this.sourceRoot = sourceRoot;
+        this.targetRoot = targetRoot;
+    }
+
+    /**
+     * Computes the edit script.
+     *
+     * @return the diff between the source and the target trees
+     */
+    NaryTreeDiff<E> diff() {
+        final long sourceHash = this.hash(this.sourceRoot);
+        final Entry<E> root = new Entry<>(this.sourceRoot, 0, null);
+        root.target = this.targetRoot;
+        if (!this.same(this.sourceRoot, this.targetRoot)) {
+            final ArrayDeque<Entry<E>> queue = new ArrayDeque<>();
+            queue.add(root);
+            while (!queue.isEmpty()) {
+                while (!queue.isEmpty()) {
+                    this.compare(queue.poll(), queue);
+                }
+                this.pairMoved();
+                this.pairByPosition(queue);
+            }
+            for (final Entry<E> entry : this.compared) {
+                this.emit(entry);
+            }
+        }
+        return new NaryTreeDiff<>(sourceHash, this.sourceRoot.size(), this.edits);
+    }
+
+    private long hash(final INaryTreeNode<?> node) {
+        return NaryTreeHashes.hash(node, this.memo);
+    }
+
+    /**
+     * Returns True if two subtrees are taken as equal: same hash, same size and same root value.
+     */
+    private boolean same(final INaryTreeNode<E> source, final INaryTreeNode<E> target) {
+        return source.size() == target.size() && this.hash(source) == this.hash(target)
+                && Objects.equals(source.getValue(), target.getValue());
+    }
+
+    /**
+     * Pairs the children of a compared entry with the children of its target holding the same subtree,
+     * then the same value, and queues the pairs holding the same value for comparison.
+     */
+    @SuppressWarnings("unchecked")
+    private void compare(final Entry<E> entry, final ArrayDeque<Entry<E>> queue) {
+        this.compared.add(entry);
+        final INaryTreeNode<E> source = entry.source;
+        final INaryTreeNode<E> target = entry.target;
+        final List<INaryTreeNode<E>> sourceChildren = source.getChildren();
+        final int sourceCount = sourceChildren.size();
+        entry.targets = (INaryTreeNode<E>[]) target.getChildren().toArray(new INaryTreeNode<?>[0]);
+        final int targetCount = entry.targets.length;
+        entry.children = new ArrayList<>(sourceCount);
+        entry.pairs = (Entry<E>[]) new Entry<?>[targetCount];
+        final Map<Long, ArrayDeque<Entry<E>>> byHash = new HashMap<>();
+        int i = 0;
+        for (final INaryTreeNode<E> sourceChild : sourceChildren) {
+            final Entry<E> child = new Entry<>(sourceChild, i++, entry);
+            entry.children.add(child);
+            byHash.computeIfAbsent(this.hash(child.source), hash -> new ArrayDeque<>()).add(child);
+        }
+        boolean unpaired = false;
+        for (int j = 0; j < targetCount; j++) {
+            final INaryTreeNode<E> child = entry.targets[j];
+            final ArrayDeque<Entry<E>> candidates = byHash.get(this.hash(child));
+            if (candidates != null && !candidates.isEmpty() && this.same(candidates.peek().source, child)) {
+                this.pair(candidates.poll(), entry, j);
+            } else {
+                unpaired = true;
+            }
+        }
+        if (!unpaired && sourceCount == targetCount) {
+            return;
+        }
+        final Map<Object, ArrayDeque<Entry<E>>> byValue = new HashMap<>();
+        for (final Entry<E> child : entry.children) {
+            if (child.target == null) {
+                byValue.computeIfAbsent(child.source.getValue(), value -> new ArrayDeque<>()).add(child);
+            }
+        }
+        unpaired = false;
+        for (int j = 0; j < targetCount; j++) {
+            if (entry.pairs[j] == null) {
+                final ArrayDeque<Entry<E>> candidates = byValue.get(entry.targets[j].getValue());
+                if (candidates != null && !candidates.isEmpty()) {
+                    queue.add(this.pair(candidates.poll(), entry, j));
+                } else {
+                    unpaired = true;
+                }
+            }
+        }
+        for (final Entry<E> child : entry.children) {
+            if (child.target == null) {
+                this.unpairedSources.computeIfAbsent(this.hash(child.source), hash -> new ArrayDeque<>()).add(child);
+            }
+        }
+        if (unpaired) {
+            this.unpairedTargetParents.add(entry);
+        }
+    }
+
+    private Entry<E> pair(final Entry<E> child, final Entry<E> parent, final int index) {
+        child.target = parent.targets[index];
+        parent.pairs[index] = child;
+        return child;
+    }
+
+    /**
+     * Pairs the unpaired target children with the unpaired source children holding the same subtree,
+     * under any parent, so that they are moved.
+     */
+    private void pairMoved() {
+        for (final Entry<E> entry : this.unpairedTargetParents) {
+            for (int j = 0; j < entry.pairs.length; j++) {
+                if (entry.pairs[j] != null) {
+                    continue;
+                }
+                final INaryTreeNode<E> child = entry.targets[j];
+                final ArrayDeque<Entry<E>> candidates = this.unpairedSources.get(this.hash(child));
+                while (candidates != null && !candidates.isEmpty() && candidates.peek().target != null) {
+                    candidates.poll();
+                }
+                if (candidates != null && !candidates.isEmpty() && this.same(candidates.peek().source, child)) {
+                    this.pair(candidates.poll(), entry, j);
+                }
+            }
+        }
+    }
+
+    /**
+     * Pairs the remaining unpaired children of each compared entry and of its target in order,
+     * and queues the pairs for comparison. The entries keeping unpaired target children are kept for the next round.
+     */
+    private void pairByPosition(final ArrayDeque<Entry<E>> queue) {
+        final List<Entry<E>> parents = this.unpairedTargetParents;
+        this.unpairedTargetParents = new ArrayList<>();
+        for (final Entry<E> entry : parents) {
+            int i = 0;
+            boolean unpaired = false;
+            for (int j = 0; j < entry.pairs.length; j++) {
+                if (entry.pairs[j] != null) {
+                    continue;
+                }
+                while (i < entry.children.size() && entry.children.get(i).target != null) {
+                    i++;
+                }
+                if (i < entry.children.size()) {
+                    queue.add(this.pair(entry.children.get(i), entry, j));
+                } else {
+                    unpaired = true;
+                }
+            }
+            if (unpaired) {
+                this.unpairedTargetParents.add(entry);
+            }
+        }
+    }
+
+    /**
+     * Emits the edits of a compared entry: its value, then the removal of its unpaired children,
+     * then the additions and moves ordering its children as the children of its target.
+     * The children staying under the entry in the longest increasing run of their source positions are not moved.
+     */
+    private void emit(final Entry<E> entry) {
+        final E value = entry.target.getValue();
+        if (!Objects.equals(entry.source.getValue(), value)) {
+            this.edits.add(NaryTreeDiff.Edit.change(this.path(entry), value));
+        }
+        for (int i = entry.children.size() - 1; i >= 0; i--) {
+            final Entry<E> child = entry.children.get(i);
+            if (child.target == null) {
+                this.edits.add(NaryTreeDiff.Edit.remove(this.path(child)));
+                entry.children.remove(i);
+            }
+        }
+        final boolean[] anchors = NaryTreeDiffer.anchors(entry);
+        Entry<E> previous = null;
+        int hint = 0;
+        for (int j = 0; j < entry.pairs.length; j++) {
+            Entry<E> child = entry.pairs[j];
+            if (child != null && anchors[j]) {
+                previous = child;
+                hint = NaryTreeDiffer.indexOf(entry.children, child, hint);
+                continue;
+            }
+            if (child == null) {
+                child = new Entry<>(null, -1, entry);
+                final int index = previous == null ? 0 : NaryTreeDiffer.indexOf(entry.children, previous, hint) + 1;
+                this.edits.add(NaryTreeDiff.Edit.add(this.path(entry), index, entry.targets[j]));
+                entry.children.add(index, child);
+                hint = index;
+            } else {
+                final int[] from = this.path(child);
+                child.parent.children.remove(child);
+                child.parent = entry;
+                final int index = previous == null ? 0
+                        : NaryTreeDiffer.indexOf(entry.children, previous, Math.max(0, hint - 1)) + 1;
+                this.edits.add(NaryTreeDiff.Edit.move(from, this.path(entry), index));
+                entry.children.add(index, child);
+                hint = index;
+            }
+            previous = child;
+        }
+    }
+
+    /**
+     * Returns the target positions of the children paired under their own parent which are left in place:
+     * a longest run of them whose source positions increase in the target order.
+     */
+    @SuppressWarnings("unchecked")
+    private static <E> boolean[] anchors(final Entry<E> entry) {
+        final Entry<E>[] pairs = entry.pairs;
+        final boolean[] anchors = new boolean[pairs.length];
+        // tails[k] is the target position ending the run of length k + 1 with the least source position.
+        final int[] tails = new int[pairs.length];
+        final int[] previous = new int[pairs.length];
+        int length = 0;
+        for (int j = 0; j < pairs.length; j++) {
+            if (pairs[j] == null || pairs[j].parent != entry) {
+                continue;
+            }
+            final int key = pairs[j].sourceIndex;
+            int low = 0;
+            int high = length;
+            while (low < high) {
+                final int middle = (low + high) >>> 1;
+                if (pairs[tails[middle]].sourceIndex < key) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            previous[j] = low > 0 ? tails[low - 1] : -1;
+            tails[low] = j;
+            if (low == length) {
+                length++;
+            }
+        }
+        for (int j = length > 0 ? tails[length - 1] : -1; j >= 0; j = previous[j]) {
+            anchors[j] = true;
+        }
+        return anchors;
+    }
+
+    /**
+     * Returns the index of an entry in a list of children, searching from a hint.
+     */
+    private static <E> int indexOf(final List<Entry<E>> children, final Entry<E> child, final int hint) {
+        for (int i = Math.min(hint, children.size()); i < children.size(); i++) {
+            if (children.get(i) == child) {
+                return i;
+            }
+        }
+        for (int i = Math.min(hint, children.size()) - 1; i >= 0; i--) {
+            if (children.get(i) == child) {
+                return i;
+            }
+        }
+        throw new IllegalStateException("The entry is not a child of its parent");
+    }
+
+    /**
+     * Returns the current path of an entry, from the positions of its ancestors among their siblings.
+     */
+    private int[] path(final Entry<E> entry) {
+        int depth = 0;
+        for (Entry<E> node = entry; node.parent != null; node = node.parent) {
+            depth++;
+        }
+        final int[] path = new int[depth];
+        for (Entry<E> node = entry; node.parent != null; node = node.parent) {
+            path[--depth] = NaryTreeDiffer.indexOf(node.parent.children, node, 0);
+        }
+        return path;
+    }
+}
@@ -0,0 +1,164 @@
+package com.am.treenode;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Memoizes the serialized fragments of the subtrees of a {@link NaryTree} in one format.
+ * A serialization appends the cached fragment of a subtree instead of walking it, and caches some of the fragments
+ * it builds, so after a change only the cached fragments on the path from the changed node to the root are built
+ * again, each one from the cached fragments below it.
+ * <p>
+ * Only the fragments of the inner {@link NaryTreeNode} nodes whose subtree only holds such nodes are cached:
+ * the fragment of a leaf is cheaper to build than to look up. A fragment is cached only if it is at least twice
+ * as long as the longest fragment cached in its subtree, so the lengths of the cached fragments at least double
+ * from one to the next up any path: a character of the output is copied in at most log2(output length) fragments,
+ * whatever the depth of the tree, and building again the fragments of a path copies at most twice the length
+ * of the longest one. A chain thus caches a few checkpoints rather than one copy of its tail per node,
+ * while the nodes of a balanced tree are cached on every level. The total length of the cached fragments is bounded
+ * by a number of characters, over which the least recently used fragments are dropped; a fragment longer than
+ * the whole budget is never cached. This cache is not thread-safe.
+ *
+ * @param <E> the type of elements held in the serialized tree
+ */
+final class NaryTreeFragmentCache<E> {
+    private final NaryTreeFragmentFormat format;
+
+    private final long maxCachedChars;
+
+    private long cachedChars;
+
+    /**
+     * The cached fragments by node, from the least to the most recently used.
+     * The nodes do not override equals, so they are compared by identity.
+     */
+    private final Map<NaryTreeNode<E>, String> fragments = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * Instantiates a new NaryTreeFragmentCache.
+     *
+     * @param format         - the format of the fragments
+     * @param maxCachedChars - the maximum total length of the cached fragments
+     */
+    NaryTreeFragmentCache(final NaryTreeFragmentFormat format, final long maxCachedChars) {
+        this.format = format;
+        this.maxCachedChars = maxCachedChars;
+    }
+
+    /**
+     * Returns the total length of the cached fragments.
+     *
+     * @return the number of cached characters
+     */
+    long getCachedChars() {
+        return this.cachedChars;
+    }
+
+    /**
+     * Serializes a subtree without recursion, reusing and filling the cache.
+     *
+     * @param root  - the root of the subtree
+     * @param probe - the probe counting the walked nodes, or null
+     *
+     * @return the serialized subtree
+     */
+    String serialize(final INaryTreeNode<E> root, final NaryTreeProbe probe) {
+        final String cached = this.cached(root);
+        if (cached != null) {
+            return cached;
+        }
+        final StringBuilder out = new StringBuilder();
+        // The label of each level is the start of the text of its node, and its accumulator is the length of the
+        // longest fragment cached in its subtree, or -1 if its subtree holds a node which cannot be cached.
+        final NaryTreeStack<E> stack = new NaryTreeStack<>();
+        int walked = 1;
+        stack.push(root);
+        stack.accumulator(root instanceof NaryTreeNode ? 0 : -1);
+        this.format.open(out, root.getValue(), root.isLeaf());
+        while (!stack.isEmpty()) {
+            final boolean separated = stack.taken() > 0;
+            final INaryTreeNode<E> child = stack.nextChild();
+            if (child != null) {
+                if (separated) {
+                    out.append(this.format.separator());
+                }
+                final String fragment = this.cached(child);
+                if (fragment != null) {
+                    out.append(fragment);
+                    if (stack.accumulator() >= 0) {
+                        stack.accumulator(Math.max(stack.accumulator(), fragment.length()));
+                    }
+                    continue;
+                }
+                if (!(child instanceof NaryTreeNode)) {
+                    stack.accumulator(-1);
+                }
+                walked++;
+                stack.push(child);
+                stack.label(out.length());
+                stack.accumulator(child instanceof NaryTreeNode ? 0 : -1);
+                this.format.open(out, child.getValue(), child.isLeaf());
+            } else {
+                final int start = stack.label();
+                long longest = stack.accumulator();
+                final INaryTreeNode<E> node = stack.pop();
+                final boolean leaf = node.isLeaf();
+                this.format.close(out, leaf);
+                final int length = out.length() - start;
+                if (longest >= 0 && !leaf && length <= this.maxCachedChars && length >= 2L * longest) {
+                    this.put((NaryTreeNode<E>) node, out.substring(start));
+                    longest = length;
+                }
+                if (!stack.isEmpty() && stack.accumulator() >= 0) {
+                    stack.accumulator(longest < 0 ? -1 : Math.max(stack.accumulator(), longest));
+                }
+            }
+        }
+        if (probe != null) {
+            probe.visitedNodes += walked;
+        }
+        final String fragment = this.cached(root);
+        return fragment != null ? fragment : out.toString();
+    }
+
+    private String cached(final INaryTreeNode<E> node) {
+        return node instanceof NaryTreeNode ? this.fragments.get(node) : null;
+    }
+
+    private void put(final NaryTreeNode<E> node, final String fragment) {
+        this.cachedChars += fragment.length();
+        final String previous = this.fragments.put(node, fragment);
+        if (previous != null) {
+            this.cachedChars -= previous.length();
+        }
+        for (final Iterator<String> eldest = this.fragments.values().iterator();
+             this.cachedChars > this.maxCachedChars && eldest.hasNext(); ) {
+            this.cachedChars -= eldest.next().length();
+            eldest.remove();
+        }
+    }
+
+    /**
+     * Drops the fragments of a node and of its ancestors, after the subtree of the node changed.
+     *
+     * @param node - the changed node, or null
+     */
+    void invalidate(final NaryTreeNode<E> node) {
+        for (NaryTreeNode<E> ancestor = node; ancestor != null; ancestor = ancestor.getParent()) {
+            this.forget(ancestor);
+        }
+    }
+
+    /**
+     * Drops the fragment of a single node, after it left the tree.
+     *
+     * @param node - the node
+     */
+    void forget(final INaryTreeNode<E> node) {
+        final String fragment = this.fragments.remove(node);
+        if (fragment != null) {
+            this.cachedChars -= fragment.length();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.am.treenode;
+
+/**
+ * The serialization formats whose subtree fragments can be cached by a {@link NaryTreeFragmentCache}.
+ * The fragment of a node is the opening of the node, the fragments of its children separated by
+ * the separator of the format, then the closing of the node, so it does not depend on the position of the node.
+ */
+enum NaryTreeFragmentFormat {
+    /**
+     * The format of {@link INaryTree#generateText()}, written by {@link NaryTreeTextWriter}.
+     */
+    TEXT {
+        @Override
+        void open(final StringBuilder out, final Object value, final boolean leaf) {
+            out.append(NaryTreeNodeUtils.VALUE_PREFIX).append(value).append(NaryTreeNodeUtils.VALUE_SUFFIX);
+            if (!leaf) {
+                out.append(NaryTreeNodeUtils.VALUE_SEPARATOR).append(NaryTreeNodeUtils.CHILDREN_PREFIX);
+            }
+        }
+
+        @Override
+        void close(final StringBuilder out, final boolean leaf) {
+            if (!leaf) {
+                out.append(NaryTreeNodeUtils.CHILDREN_SUFFIX);
+            }
+        }
+
+        @Override
+        String separator() {
+            return NaryTreeNodeUtils.CHILDREN_SEPARATOR;
+        }
+    },
+    /**
+     * The format of {@link INaryTree#toJson()}, written by {@link NaryTreeJsonWriter}.
+     */
+    JSON {
+        @Override
+        void open(final StringBuilder out, final Object value, final boolean leaf) {
+            out.append("{\"").append(NaryTreeNodeUtils.JSON_VALUE_KEY).append("\":");
+            if (value == null) {
+                out.append("null");
+            } else {
+                NaryTreeJsonWriter.GSON.toJson(value, value.getClass(), out);
+            }
+            if (!leaf) {
+                out.append(",\"").append(NaryTreeNodeUtils.JSON_CHILDREN_KEY).append("\":[");
+            }
+        }
+
+        @Override
+        void close(final StringBuilder out, final boolean leaf) {
+            if (!leaf) {
+                out.append(']');
+            }
+            out.append('}');
+        }
+
+        @Override
+        String separator() {
+            return ",";
+        }
+    };
+
+    /**
+     * Appends the opening of a node, before the fragments of its children.
+     *
+     * @param out   - the output
+     * @param value - the value of the node
+     * @param leaf  - true if the node has no children
+     */
+    abstract void open(StringBuilder out, Object value, boolean leaf);
+
+    /**
+     * Appends the closing of a node, after the fragments of its children.
+     *
+     * @param out  - the output
+     * @param leaf - true if the node has no children
+     */
+    abstract void close(StringBuilder out, boolean leaf);
+
+    /**
+     * Returns the separator appended between the fragments of two siblings.
+     *
+     * @return the separator
+     */
+    abstract String separator();
+}
@@ -0,0 +1,31 @@
+package com.am.treenode;
+
+import java.io.IOException;
+
+/**
+ * Receives the nodes of a tree during a depth-first walk.
+ * Each node is entered before its children and left after them.
+ *
+ * @param <E> the type of elements held in the walked tree
+ */
+interface NaryTreeHandler<E> {
+    /**
+     * Called when a node is entered, before any of its children.
+     *
+     * @param value - the value of the node
+     * @param leaf  - true if the node has no children
+     *
+     * @throws IOException if the handler fails to write its output
+     */
+    void enter(E value, boolean leaf) throws IOException;
+
+    /**
+     * Called when a node is left, after all of its children.
+     *
+     * @param value - the value of the node
+     * @param leaf  - true if the node has no children
+     *
+     * @throws IOException if the handler fails to write its output
+     */
+    void leave(E value, boolean leaf) throws IOException;
+}
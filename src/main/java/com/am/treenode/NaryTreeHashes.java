@@ -0,0 +1,132 @@
+package com.am.treenode;
+
+import java.util.Map;
+
+/**
+ * Computes the Merkle hashes of subtrees: the hash of a node mixes the hash of its value with the hashes of its
+ * children in order, so two subtrees holding equal values in the same shape have the same hash.
+ * The hashes of the {@link NaryTreeNode} nodes are cached in the nodes, and forgotten on the path to the root when
+ * a subtree changes, so hashing a tree again after a change costs the changed nodes and their children only.
+ * The hashes of the other nodes are memoized for the duration of a single computation, such as a diff.
+ * <p>
+ * The values are hashed on 64 bits: the characters of the character sequences, the integral numbers and the names
+ * of the enum constants are hashed from their content, the other values from their {@link Object#hashCode()},
+ * salted with the name of their class. The hashes thus do not depend on the running JVM, so that a diff can be
+ * computed in one process and applied in another, as long as the other values have a content-based hash code,
+ * as the strings, boxed primitives and records of such values do.
+ * As with any hash-based comparison, subtrees whose hashes collide are taken as equal.
+ */
+enum NaryTreeHashes {
+    ;
+
+    private static final long NULL_HASH = 0x5DEECE66DL;
+
+    private static final long MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    /**
+     * Returns the hash of a subtree, computed without recursion.
+     * Only the nodes whose hash is neither cached nor memoized are walked.
+     *
+     * @param root - the root of the subtree
+     * @param memo - the hashes of the nodes which cannot cache their hash, updated by this computation
+     *
+     * @return the hash of the subtree, never 0
+     */
+    static <E> long hash(final INaryTreeNode<E> root, final Map<INaryTreeNode<?>, Long> memo) {
+        final long known = NaryTreeHashes.known(root, memo);
+        if (known != 0) {
+            return known;
+        }
+        // The accumulator of each level is the hash of its node so far, and its label is 1 while the hashes of its
+        // subtree can be cached in the nodes.
+        final NaryTreeStack<E> stack = new NaryTreeStack<>();
+        stack.push(root);
+        stack.accumulator(NaryTreeHashes.valueHash(root.getValue()));
+        stack.label(root instanceof NaryTreeNode ? 1 : 0);
+        while (true) {
+            final INaryTreeNode<E> child = stack.nextChild();
+            if (child != null) {
+                final long childHash = NaryTreeHashes.known(child, memo);
+                if (childHash != 0) {
+                    stack.accumulator(NaryTreeHashes.combine(stack.accumulator(), childHash));
+                    if (!(child instanceof NaryTreeNode)) {
+                        stack.label(0);
+                    }
+                    continue;
+                }
+                stack.push(child);
+                stack.accumulator(NaryTreeHashes.valueHash(child.getValue()));
+                stack.label(child instanceof NaryTreeNode ? 1 : 0);
+            } else {
+                final boolean cacheable = stack.label() != 0;
+                final long partial = stack.accumulator();
+                final INaryTreeNode<E> node = stack.pop();
+                final long hash = NaryTreeHashes.finish(partial, node.getChildrenCount());
+                if (cacheable) {
+                    ((NaryTreeNode<E>) node).hash = hash;
+                } else {
+                    memo.put(node, hash);
+                }
+                if (stack.isEmpty()) {
+                    return hash;
+                }
+                stack.accumulator(NaryTreeHashes.combine(stack.accumulator(), hash));
+                if (!cacheable) {
+                    stack.label(0);
+                }
+            }
+        }
+    }
+
+    private static long known(final INaryTreeNode<?> node, final Map<INaryTreeNode<?>, Long> memo) {
+        if (node instanceof NaryTreeNode) {
+            final long hash = ((NaryTreeNode<?>) node).hash;
+            if (hash != 0) {
+                return hash;
+            }
+        }
+        final Long hash = memo.get(node);
+        return hash == null ? 0 : hash;
+    }
+
+    private static long valueHash(final Object value) {
+        if (value == null) {
+            return NaryTreeHashes.NULL_HASH;
+        }
+        final long content;
+        if (value instanceof CharSequence) {
+            final CharSequence chars = (CharSequence) value;
+            long hash = chars.length();
+            for (int i = 0; i < chars.length(); i++) {
+                hash = hash * 31 + chars.charAt(i);
+            }
+            content = hash;
+        } else if (value instanceof Long || value instanceof Integer || value instanceof Short
+                || value instanceof Byte) {
+            content = ((Number) value).longValue();
+        } else if (value instanceof Enum) {
+            content = ((Enum<?>) value).name().hashCode();
+        } else {
+            content = value.hashCode();
+        }
+        return NaryTreeHashes.mix(content * NaryTreeHashes.MULTIPLIER + value.getClass().getName().hashCode());
+    }
+
+    private static long combine(final long hash, final long childHash) {
+        return Long.rotateLeft((hash ^ childHash) * NaryTreeHashes.MULTIPLIER, 29);
+    }
+
+    private static long finish(final long hash, final int childrenCount) {
+        final long finished = NaryTreeHashes.mix(hash ^ childrenCount);
+        return finished == 0 ? 1 : finished;
+    }
+
+    /**
+     * The finalizer of SplitMix64, spreading every bit of the input over the output.
+     */
+    private static long mix(long hash) {
+        hash = (hash ^ (hash >>> 30)) * 0xBF58476D1CE4E5B9L;
+        hash = (hash ^ (hash >>> 27)) * 0x94D049BB133111EBL;
+        return hash ^ (hash >>> 31);
+    }
+}
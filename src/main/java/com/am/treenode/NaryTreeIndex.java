@@ -0,0 +1,309 @@
+package com.am.treenode;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A value to node(s) index owned by a {@link NaryTree}.
+ * Each value is mapped either to the single node holding it or, for duplicated values, to the nodes holding it
+ * in the order in which {@link INaryTree#getNodeFromElement(Object)} finds them: in prefix order, with the children
+ * of each node taken from the last one to the first one. The null value is indexed like any other value.
+ * <p>
+ * A node is inserted among the duplicates of its value by a binary search comparing the positions of the nodes,
+ * each comparison costing O(depth + width). Since the relative order of the nodes of a tree only changes when they
+ * are detached or attached, which unregisters or registers them, the duplicates stay in order between registrations.
+ * The positions of the nodes which are not {@link NaryTreeNode} cannot be compared: once such a node is registered
+ * under a duplicated value, the lookups of that value walk the tree.
+ *
+ * @param <E> the type of elements held in the indexed tree
+ */
+final class NaryTreeIndex<E> {
+    private final Map<Object, Object> nodes = new HashMap<>();
+
+    /**
+     * The nodes holding a duplicated value.
+     *
+     * @param <E> the type of elements held in the indexed tree
+     */
+    private static final class Duplicates<E> {
+        /**
+         * The nodes, in the order of {@link INaryTree#getNodeFromElement(Object)} if they are ordered.
+         */
+        private final List<INaryTreeNode<E>> nodes = new ArrayList<>(2);
+
+        /**
+         * False once a node whose position cannot be compared is registered.
+         */
+        private boolean ordered = true;
+
+        /**
+         * Inserts a node at its position, or at the end if its position cannot be compared.
+         *
+         * @param node - the inserted node
+         */
+        private void insert(final INaryTreeNode<E> node) {
+            int low = 0;
+            int high = this.ordered ? this.nodes.size() : 0;
+            while (low < high) {
+                final int middle = (low + high) >>> 1;
+                final int order = NaryTreeIndex.compare(this.nodes.get(middle), node, true);
+                if (order == 0) {
+                    this.ordered = false;
+                    break;
+                } else if (order < 0) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            this.nodes.add(this.ordered ? low : this.nodes.size(), node);
+        }
+    }
+
+    /**
+     * Registers a node under its current value.
+     *
+     * @param node - the node to register
+     */
+    void register(final INaryTreeNode<E> node) {
+        this.register(node.getValue(), node);
+    }
+
+    /**
+     * Unregisters a node from its current value.
+     *
+     * @param node - the node to unregister
+     */
+    void unregister(final INaryTreeNode<E> node) {
+        this.unregister(node.getValue(), node);
+    }
+
+    /**
+     * Moves a node from its previous value to its current value.
+     *
+     * @param node     - the node whose value changed
+     * @param previous - the previous value of the node
+     */
+    void update(final INaryTreeNode<E> node, final E previous) {
+        this.unregister(previous, node);
+        this.register(node.getValue(), node);
+    }
+
+    /**
+     * Returns True if the tree contains the specified value, as {@link INaryTree#contains(Object)} does:
+     * a node holding null hides the values of its subtree. While no node holds null, the lookup runs in constant
+     * time; otherwise the ancestors of the nodes holding the value are checked.
+     *
+     * @param element - the value to look for
+     * @param root    - the root of the indexed tree, walked if the ancestors of a node are not known
+     *
+     * @return True if the tree contains the specified value
+     */
+    @SuppressWarnings("unchecked")
+    boolean contains(final Object element, final INaryTreeNode<E> root) {
+        final Object current = this.nodes.get(element);
+        if (current == null) {
+            return false;
+        }
+        if (element == null || !this.nodes.containsKey(null)) {
+            return true;
+        }
+        final List<INaryTreeNode<E>> candidates = current instanceof Duplicates
+                ? ((Duplicates<E>) current).nodes : List.of((INaryTreeNode<E>) current);
+        for (final INaryTreeNode<E> candidate : candidates) {
+            final Boolean visible = NaryTreeIndex.visible(candidate, root);
+            if (visible == null) {
+                return NaryTreeNode.find(root, element, false, null) != null;
+            }
+            if (visible) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the node holding the specified value itself which {@link INaryTree#getNodeFromElement(Object)} finds,
+     * or null if there is none.
+     *
+     * @param element - the value to look for
+     * @param root    - the root of the indexed tree, walked if the positions of the nodes holding the value cannot
+     *                  be compared
+     *
+     * @return the node holding the value
+     */
+    @SuppressWarnings("unchecked")
+    INaryTreeNode<E> lookup(final Object element, final INaryTreeNode<E> root) {
+        final Object current = this.nodes.get(element);
+        if (current instanceof Duplicates) {
+            final Duplicates<E> duplicates = (Duplicates<E>) current;
+            if (!duplicates.ordered) {
+                return NaryTreeNode.find(root, element, true, null);
+            }
+            for (final INaryTreeNode<E> node : duplicates.nodes) {
+                if (node.getValue() == element) {
+                    return node;
+                }
+            }
+            return null;
+        }
+        final INaryTreeNode<E> node = (INaryTreeNode<E>) current;
+        return node != null && node.getValue() == element ? node : null;
+    }
+
+    /**
+     * Returns the first node holding the specified value in prefix order, or null if there is none.
+     *
+     * @param element - the value to look for
+     * @param root    - the root of the indexed tree, walked if the positions of the nodes holding the value cannot
+     *                  be compared
+     *
+     * @return the first node holding the value
+     */
+    @SuppressWarnings("unchecked")
+    INaryTreeNode<E> first(final Object element, final INaryTreeNode<E> root) {
+        final Object current = this.nodes.get(element);
+        if (!(current instanceof Duplicates)) {
+            return (INaryTreeNode<E>) current;
+        }
+        final Duplicates<E> duplicates = (Duplicates<E>) current;
+        if (!duplicates.ordered) {
+            return NaryTreeIndex.walk(root, element);
+        }
+        INaryTreeNode<E> first = duplicates.nodes.get(0);
+        for (int i = 1; i < duplicates.nodes.size(); i++) {
+            if (NaryTreeIndex.compare(duplicates.nodes.get(i), first, false) < 0) {
+                first = duplicates.nodes.get(i);
+            }
+        }
+        return first;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void register(final E value, final INaryTreeNode<E> node) {
+        final Object current = this.nodes.putIfAbsent(value, node);
+        if (current == null) return;
+        if (current instanceof Duplicates) {
+            ((Duplicates<E>) current).insert(node);
+            return;
+        }
+        final Duplicates<E> duplicates = new Duplicates<>();
+        duplicates.nodes.add((INaryTreeNode<E>) current);
+        duplicates.insert(node);
+        this.nodes.put(value, duplicates);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void unregister(final E value, final INaryTreeNode<E> node) {
+        final Object current = this.nodes.get(value);
+        if (current == node) {
+            this.nodes.remove(value);
+        } else if (current instanceof Duplicates) {
+            final Duplicates<E> duplicates = (Duplicates<E>) current;
+            duplicates.nodes.removeIf(duplicate -> duplicate == node);
+            if (duplicates.nodes.size() == 1) {
+                this.nodes.put(value, duplicates.nodes.get(0));
+            }
+        }
+    }
+
+    /**
+     * Searches the first node holding a value in prefix order, for the nodes whose positions cannot be compared.
+     */
+    private static <E> INaryTreeNode<E> walk(final INaryTreeNode<E> root, final Object element) {
+        if (Objects.equals(root.getValue(), element)) {
+            return root;
+        }
+        final NaryTreeStack<E> stack = new NaryTreeStack<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            final INaryTreeNode<E> node = stack.nextChild();
+            if (node == null) {
+                stack.pop();
+            } else if (Objects.equals(node.getValue(), element)) {
+                return node;
+            } else {
+                stack.push(node);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns True if none of the ancestors of a node holds null.
+     *
+     * @return True if the node is visible, False if it is hidden, or null if its ancestors up to the root of the tree
+     * are not known
+     */
+    private static <E> Boolean visible(final INaryTreeNode<E> node, final INaryTreeNode<E> root) {
+        if (!(node instanceof NaryTreeNode)) {
+            return null;
+        }
+        NaryTreeNode<E> ancestor = (NaryTreeNode<E>) node;
+        while (ancestor.getParent() != null) {
+            ancestor = ancestor.getParent();
+            if (ancestor.getValue() == null) {
+                return false;
+            }
+        }
+        return ancestor == root ? Boolean.TRUE : null;
+    }
+
+    /**
+     * Compares the positions of two distinct nodes of the tree in prefix order: the ancestor of the other one comes
+     * first, otherwise the one under the first of the children of their lowest common ancestor leading to them,
+     * or under the last of them if the children are reversed.
+     *
+     * @return a negative number if the node comes first, a positive number if the other node comes first,
+     * or 0 if a node is not a {@link NaryTreeNode}, whose parent is not known, or if the nodes have no common ancestor
+     */
+    private static <E> int compare(final INaryTreeNode<E> node, final INaryTreeNode<E> other,
+                                   final boolean reversed) {
+        if (!(node instanceof NaryTreeNode) || !(other instanceof NaryTreeNode)) {
+            return 0;
+        }
+        NaryTreeNode<E> left = (NaryTreeNode<E>) node;
+        NaryTreeNode<E> right = (NaryTreeNode<E>) other;
+        int leftDepth = NaryTreeIndex.depth(left);
+        int rightDepth = NaryTreeIndex.depth(right);
+        final boolean leftRaised = leftDepth > rightDepth;
+        while (leftDepth > rightDepth) {
+            left = left.getParent();
+            leftDepth--;
+        }
+        while (rightDepth > leftDepth) {
+            right = right.getParent();
+            rightDepth--;
+        }
+        if (left == right) {
+            return leftRaised ? 1 : -1;
+        }
+        while (left.getParent() != right.getParent()) {
+            left = left.getParent();
+            right = right.getParent();
+        }
+        if (left.getParent() == null) {
+            return 0;
+        }
+        for (final INaryTreeNode<E> child : left.getParent().getChildren()) {
+            if (child == left) {
+                return reversed ? 1 : -1;
+            }
+            if (child == right) {
+                return reversed ? -1 : 1;
+            }
+        }
+        return 0;
+    }
+
+    private static int depth(final NaryTreeNode<?> node) {
+        int depth = 0;
+        for (NaryTreeNode<?> ancestor = node.getParent(); ancestor != null; ancestor = ancestor.getParent()) {
+            depth++;
+        }
+        return depth;
+    }
+}
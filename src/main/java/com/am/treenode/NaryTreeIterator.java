@@ -0,0 +1,205 @@
+package com.am.treenode;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Lazy iterators over the values of a tree.
+ * The iterators walk the tree with an explicit stack or queue, so they do not recurse, and reach the children
+ * of each node by their index, so they allocate nothing per visited value once their stack or queue has grown,
+ * unless the children of a node are not randomly accessible, see {@link NaryTreeStack}.
+ * The tree must not be modified while it is iterated.
+ *
+ * @param <E> the type of elements held in the iterated tree
+ */
+abstract class NaryTreeIterator<E> implements Iterator<E> {
+
+    /**
+     * Returns an iterator visiting each node before its children.
+     *
+     * @param root - the root of the iterated subtree
+     * @param <E>  - the type of elements held in the tree
+     *
+     * @return a prefix iterator
+     */
+    static <E> Iterator<E> prefix(final INaryTreeNode<E> root) {
+        return new Prefix<>(root);
+    }
+
+    /**
+     * Returns an iterator visiting, each node before its children, the subtrees of a range of children of a node.
+     * The node itself is not visited.
+     *
+     * @param parent - the parent of the iterated subtrees
+     * @param from   - the index of the first iterated child, inclusive
+     * @param to     - the index of the last iterated child, exclusive
+     * @param <E>    - the type of elements held in the tree
+     *
+     * @return a prefix iterator
+     */
+    static <E> Iterator<E> prefix(final INaryTreeNode<E> parent, final int from, final int to) {
+        return new Prefix<>(parent, from, to);
+    }
+
+    /**
+     * Returns an iterator visiting each node after its children.
+     *
+     * @param root - the root of the iterated subtree
+     * @param <E>  - the type of elements held in the tree
+     *
+     * @return a postfix iterator
+     */
+    static <E> Iterator<E> postfix(final INaryTreeNode<E> root) {
+        return new Postfix<>(root);
+    }
+
+    /**
+     * Returns an iterator visiting each level of the tree before the next level.
+     *
+     * @param root - the root of the iterated subtree
+     * @param <E>  - the type of elements held in the tree
+     *
+     * @return a breadth first iterator
+     */
+    static <E> Iterator<E> breadthFirst(final INaryTreeNode<E> root) {
+        return new BreadthFirst<>(root);
+    }
+
+    /**
+     * An iterator walking the tree depth-first with a {@link NaryTreeStack}.
+     *
+     * @param <E> the type of elements held in the iterated tree
+     */
+    private abstract static class Stack<E> extends NaryTreeIterator<E> {
+        final NaryTreeStack<E> stack = new NaryTreeStack<>();
+    }
+
+    /**
+     * A prefix iterator.
+     *
+     * @param <E> the type of elements held in the iterated tree
+     */
+    private static final class Prefix<E> extends Stack<E> {
+        private INaryTreeNode<E> pending;
+
+        private Prefix(final INaryTreeNode<E> root) {
+            this.pending = root;
+        }
+
+        private Prefix(final INaryTreeNode<E> parent, final int from, final int to) {
+            this.stack.push(parent, from, to);
+            this.pending = this.stack.nextChild();
+            if (this.pending == null) {
+                this.stack.pop();
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.pending != null;
+        }
+
+        @Override
+        public E next() {
+            return this.nextNode().getValue();
+        }
+
+        /**
+         * Returns the next visited node.
+         *
+         * @return the next node
+         */
+        INaryTreeNode<E> nextNode() {
+            final INaryTreeNode<E> node = this.pending;
+            if (node == null) {
+                throw new NoSuchElementException();
+            }
+            this.stack.push(node);
+            this.pending = null;
+            while (!this.stack.isEmpty() && (this.pending = this.stack.nextChild()) == null) {
+                this.stack.pop();
+            }
+            return node;
+        }
+    }
+
+    private static final class Postfix<E> extends Stack<E> {
+        private Postfix(final INaryTreeNode<E> root) {
+            this.stack.push(root);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !this.stack.isEmpty();
+        }
+
+        @Override
+        public E next() {
+            if (this.stack.isEmpty()) {
+                throw new NoSuchElementException();
+            }
+            for (INaryTreeNode<E> child = this.stack.nextChild(); child != null; child = this.stack.nextChild()) {
+                this.stack.push(child);
+            }
+            return this.stack.pop().getValue();
+        }
+    }
+
+    private static final class BreadthFirst<E> extends NaryTreeIterator<E> {
+        /**
+         * The nodes whose children have not been visited yet. Leaves are never queued.
+         */
+        private final ArrayDeque<INaryTreeNode<E>> parents = new ArrayDeque<>();
+
+        private INaryTreeNode<E> root;
+
+        private INaryTreeNode<E> parent;
+
+        private int index;
+
+        /**
+         * The children left to visit of the last node taken from the queue, if they are not randomly accessible.
+         */
+        private Iterator<INaryTreeNode<E>> children;
+
+        private BreadthFirst(final INaryTreeNode<E> root) {
+            this.root = root;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.root != null || this.hasChild() || !this.parents.isEmpty();
+        }
+
+        @Override
+        public E next() {
+            final INaryTreeNode<E> node;
+            if (this.root != null) {
+                node = this.root;
+                this.root = null;
+            } else {
+                while (!this.hasChild()) {
+                    this.parent = this.parents.poll();
+                    if (this.parent == null) {
+                        throw new NoSuchElementException();
+                    }
+                    this.index = 0;
+                    this.children = this.parent.hasRandomAccessChildren() ? null : this.parent.getChildren().iterator();
+                }
+                node = this.children != null ? this.children.next() : this.parent.getChild(this.index++);
+            }
+            if (!node.isLeaf()) {
+                this.parents.add(node);
+            }
+            return node.getValue();
+        }
+
+        private boolean hasChild() {
+            if (this.parent == null) {
+                return false;
+            }
+            return this.children != null ? this.children.hasNext() : this.index < this.parent.getChildrenCount();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.am.treenode;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.MalformedJsonException;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.reflect.Type;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Builds a tree from its json representation, as written by {@link NaryTreeJsonWriter}.
+ * The json is read with a single {@link JsonReader} and an explicit stack of the nodes being read.
+ *
+ * @param <E> the type of elements held in the read tree
+ */
+final class NaryTreeJsonReader<E> {
+    private final JsonReader reader;
+
+    private final Type type;
+
+    /**
+     * Instantiates a new NaryTreeJsonReader on top of a reader.
+     *
+     * @param reader - the reader providing the json
+     * @param type   - the type of the values
+     */
+    NaryTreeJsonReader(final Reader reader, final Type type) {
+        this.reader = NaryTreeJsonWriter.GSON.newJsonReader(reader);
+        this.type = type;
+    }
+
+    /**
+     * Reads the whole tree.
+     * Each node is attached to its parent once all its children have been read,
+     * so that the aggregates of the open nodes are updated in constant time.
+     *
+     * @return the root node of the tree
+     *
+     * @throws IOException if the reader fails or the json is malformed, including a {@link MalformedJsonException}
+     *                     if a token or a value does not have the expected type
+     */
+    NaryTreeNode<E> read() throws IOException {
+        try {
+            return this.readNodes();
+        } catch (final IllegalStateException | JsonParseException e) {
+            // Gson reports the unexpected tokens and the values it cannot convert with unchecked exceptions.
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new MalformedJsonException(e.getMessage(), e);
+        }
+    }
+
+    private NaryTreeNode<E> readNodes() throws IOException {
+        final Deque<NaryTreeNode<E>> stack = new ArrayDeque<>();
+        this.reader.beginObject();
+        stack.push(new NaryTreeNode<>());
+        boolean inChildren = false;
+        while (true) {
+            final NaryTreeNode<E> node = stack.peek();
+            if (inChildren) {
+                if (this.reader.hasNext()) {
+                    this.reader.beginObject();
+                    stack.push(new NaryTreeNode<>());
+                    inChildren = false;
+                } else {
+                    this.reader.endArray();
+                    inChildren = false;
+                }
+            } else if (this.reader.hasNext()) {
+                final String name = this.reader.nextName();
+                if (NaryTreeNodeUtils.JSON_VALUE_KEY.equals(name)) {
+                    node.setValue(NaryTreeJsonWriter.GSON.fromJson(this.reader, this.type));
+                } else if (NaryTreeNodeUtils.JSON_CHILDREN_KEY.equals(name)) {
+                    this.reader.beginArray();
+                    inChildren = true;
+                } else {
+                    this.reader.skipValue();
+                }
+            } else {
+                this.reader.endObject();
+                stack.pop();
+                if (stack.isEmpty()) {
+                    return node;
+                }
+                stack.peek().add(node);
+                inChildren = true;
+            }
+        }
+    }
+}
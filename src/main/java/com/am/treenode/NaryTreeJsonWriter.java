@@ -0,0 +1,141 @@
+package com.am.treenode;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Streams a tree as json through a single {@link JsonWriter}.
+ * The json's key for the value is {@value NaryTreeNodeUtils#JSON_VALUE_KEY}.
+ * The json's key for the children is {@value NaryTreeNodeUtils#JSON_CHILDREN_KEY}, and is omitted for leaves.
+ *
+ * @param <E> the type of elements held in the written tree
+ */
+final class NaryTreeJsonWriter<E> implements NaryTreeHandler<E> {
+    /**
+     * The Gson instance shared by all the writers to serialize the values.
+     */
+    static final Gson GSON = new Gson();
+
+    private final JsonWriter writer;
+
+    /**
+     * Instantiates a new NaryTreeJsonWriter on top of a writer.
+     *
+     * @param writer - the writer receiving the json
+     *
+     * @throws IOException if the json writer cannot be created
+     */
+    NaryTreeJsonWriter(final Writer writer) throws IOException {
+        this.writer = NaryTreeJsonWriter.GSON.newJsonWriter(writer);
+        this.writer.setSerializeNulls(true);
+    }
+
+    /**
+     * Returns a writer appending to the specified appendable.
+     *
+     * @param appendable - the appendable receiving the characters
+     *
+     * @return the appendable itself if it is a writer, a writer appending to it otherwise
+     */
+    static Writer writerFor(final Appendable appendable) {
+        return appendable instanceof Writer ? (Writer) appendable : new AppendableWriter(appendable);
+    }
+
+    @Override
+    public void enter(final E value, final boolean leaf) throws IOException {
+        this.writer.beginObject();
+        this.writer.name(NaryTreeNodeUtils.JSON_VALUE_KEY);
+        if (value == null) {
+            this.writer.nullValue();
+        } else {
+            NaryTreeJsonWriter.GSON.toJson(value, value.getClass(), this.writer);
+        }
+        if (!leaf) {
+            this.writer.name(NaryTreeNodeUtils.JSON_CHILDREN_KEY);
+            this.writer.beginArray();
+        }
+    }
+
+    @Override
+    public void leave(final E value, final boolean leaf) throws IOException {
+        if (!leaf) {
+            this.writer.endArray();
+        }
+        this.writer.endObject();
+    }
+
+    /**
+     * Flushes the json written so far to the underlying writer.
+     *
+     * @throws IOException if the underlying writer fails
+     */
+    void flush() throws IOException {
+        this.writer.flush();
+    }
+
+    private static final class AppendableWriter extends Writer {
+        private final Appendable appendable;
+
+        private final CharArraySequence chars = new CharArraySequence();
+
+        private AppendableWriter(final Appendable appendable) {
+            this.appendable = appendable;
+        }
+
+        @Override
+        public void write(final char[] buffer, final int offset, final int length) throws IOException {
+            this.chars.buffer = buffer;
+            this.appendable.append(this.chars, offset, offset + length);
+        }
+
+        @Override
+        public void write(final String string, final int offset, final int length) throws IOException {
+            this.appendable.append(string, offset, offset + length);
+        }
+
+        @Override
+        public void write(final int character) throws IOException {
+            this.appendable.append((char) character);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (this.appendable instanceof Flushable) {
+                ((Flushable) this.appendable).flush();
+            }
+        }
+
+        @Override
+        public void close() {
+            // The appendable is owned by the caller.
+        }
+    }
+
+    private static final class CharArraySequence implements CharSequence {
+        private char[] buffer;
+
+        @Override
+        public int length() {
+            return this.buffer.length;
+        }
+
+        @Override
+        public char charAt(final int index) {
+            return this.buffer[index];
+        }
+
+        @Override
+        public CharSequence subSequence(final int start, final int end) {
+            return new String(this.buffer, start, end - start);
+        }
+
+        @Override
+        public String toString() {
+            return new String(this.buffer);
+        }
+    }
+}
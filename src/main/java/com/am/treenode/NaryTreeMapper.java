@@ -0,0 +1,130 @@
+package com.am.treenode;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Function;
+
+/**
+ * Builds the isomorphic image of a tree by a function of its values, see {@link NaryTree#map(Function)}.
+ * The source tree is numbered in prefix order into a value array and a parent-pointer array, in one walk,
+ * so that every subtree is a contiguous range of numbers. The values are then mapped range by range, sequentially
+ * or by the tasks of a {@link ForkJoinPool}, into an output array of the final size, and the output nodes are
+ * linked in a single pass by {@link NaryTreeBulkLoader#fromParents(List, int[], NaryTreeChildStorage)}.
+ */
+enum NaryTreeMapper {
+    ;
+
+    /**
+     * The number of ranges per worker of the pool, so that workers mapping cheaper values steal the ranges of the
+     * workers mapping more expensive ones.
+     */
+    private static final int RANGES_PER_WORKER = 16;
+
+    /**
+     * Builds the root node of the image of a subtree.
+     *
+     * @param root         - the root of the mapped subtree
+     * @param mapper       - the function mapping each value
+     * @param pool         - the pool mapping the values in parallel, or null to map them on the calling thread
+     * @param childStorage - the strategy used to store the children of the output nodes
+     * @param <E>          - the type of elements held in the mapped tree
+     * @param <R>          - the type of elements held in the output tree
+     *
+     * @return the root node of the image
+     */
+    @SuppressWarnings("unchecked")
+    static <E, R> NaryTreeNode<R> map(final INaryTreeNode<E> root, final Function<? super E, ? extends R> mapper,
+                                      final ForkJoinPool pool, final NaryTreeChildStorage childStorage) {
+        final int size = root.size();
+        final Object[] values = new Object[size];
+        final int[] parents = new int[size];
+        NaryTreeMapper.flatten(root, values, parents);
+        if (pool == null || size == 1) {
+            for (int i = 0; i < size; i++) {
+                values[i] = mapper.apply((E) values[i]);
+            }
+        } else {
+            final int grain = Math.max(1, size / (pool.getParallelism() * NaryTreeMapper.RANGES_PER_WORKER));
+            pool.invoke(new MapTask<>(values, mapper, 0, size, grain));
+        }
+        return NaryTreeBulkLoader.fromParents((List<R>) Arrays.asList(values), parents, childStorage);
+    }
+
+    /**
+     * Numbers a subtree in prefix order without recursion.
+     *
+     * @param root    - the root of the subtree
+     * @param values  - receives the value of each node
+     * @param parents - receives the number of the parent of each node, -1 for the root
+     * @param <E>     - the type of elements held in the subtree
+     */
+    static <E> void flatten(final INaryTreeNode<E> root, final Object[] values, final int[] parents) {
+        // Each level of the stack is labeled with the number of its node.
+        final NaryTreeStack<E> stack = new NaryTreeStack<>();
+        int count = 0;
+        values[count] = root.getValue();
+        parents[count] = -1;
+        stack.push(root);
+        stack.label(count++);
+        while (!stack.isEmpty()) {
+            final INaryTreeNode<E> child = stack.nextChild();
+            if (child == null) {
+                stack.pop();
+                continue;
+            }
+            if (count == values.length) {
+                throw new IllegalStateException("The size of the tree does not match its nodes");
+            }
+            values[count] = child.getValue();
+            parents[count] = stack.label();
+            stack.push(child);
+            stack.label(count++);
+        }
+    }
+
+    /**
+     * Maps a range of values in place, splitting it in halves down to the grain.
+     *
+     * @param <E> the type of the mapped values
+     * @param <R> the type of the output values
+     */
+    private static final class MapTask<E, R> extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Object[] values;
+
+        private final Function<? super E, ? extends R> mapper;
+
+        private final int from;
+
+        private final int to;
+
+        private final int grain;
+
+        private MapTask(final Object[] values, final Function<? super E, ? extends R> mapper, final int from,
+                        final int to, final int grain) {
+            this.values = values;
+            this.mapper = mapper;
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        protected void compute() {
+            if (this.to - this.from <= this.grain) {
+                for (int i = this.from; i < this.to; i++) {
+                    this.values[i] = this.mapper.apply((E) this.values[i]);
+                }
+                return;
+            }
+            final int middle = (this.from + this.to) >>> 1;
+            ForkJoinTask.invokeAll(new MapTask<>(this.values, this.mapper, this.from, middle, this.grain),
+                    new MapTask<>(this.values, this.mapper, middle, this.to, this.grain));
+        }
+    }
+}
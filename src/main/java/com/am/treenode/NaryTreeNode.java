@@ -1,15 +1,19 @@
 package com.am.treenode;
 
-import com.google.gson.Gson;
 import lombok.Getter;
-import lombok.Setter;
 
-import java.text.MessageFormat;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.Spliterator;
+import java.util.function.Predicate;
 
 /**
  * The type Nary tree node.
@@ -17,12 +21,30 @@ import java.util.stream.Collectors;
  * @param <E> the type parameter
  */
 class NaryTreeNode<E> implements INaryTreeNode<E> {
-    private final List<INaryTreeNode<E>> children;
+    private List<INaryTreeNode<E>> children;
 
-    @Setter
     @Getter
     private E value;
 
+    /**
+     * The tree this node belongs to, or null if the node is not attached to a tree.
+     */
+    NaryTree<E> tree;
+
+    private NaryTreeNode<E> parent;
+
+    private int size = 1;
+
+    private int height = 1;
+
+    private int leaves = 1;
+
+    /**
+     * The Merkle hash of the subtree of this node, or 0 if it is unknown, see {@link NaryTreeHashes}.
+     * When the hash of a node is known, the hashes of all its descendants are known.
+     */
+    long hash;
+
     /**
      * Instantiates a new NaryTreeNode.
      */
@@ -37,17 +59,7 @@ class NaryTreeNode<E> implements INaryTreeNode<E> {
      */
     public NaryTreeNode(final E element) {
         this.value = element;
-        this.children = new LinkedList<>();
-    }
-
-    private static <E> String toPrettyText(final INaryTreeNode<E> node, final int depth) {
-        return MessageFormat.format("{0}{1}{2}\n{3}",
-                NaryTreeNodeUtils.VALUE_PRETTY_DEPTH.repeat(depth - 1),
-                NaryTreeNodeUtils.VALUE_PRETTY_CHILDREN_PREFIX,
-                node.getValue().toString(),
-                node.getChildren().stream().map(
-                                child -> NaryTreeNode.toPrettyText(child, depth + 1))
-                        .collect(Collectors.joining("")));
+        this.children = Collections.emptyList();
     }
 
     @Override
@@ -57,10 +69,113 @@ class NaryTreeNode<E> implements INaryTreeNode<E> {
 
     @Override
     public boolean add(INaryTreeNode<E> node) {
-        if (this.children.contains(node)) {
+        return this.insert(this.children.size(), node);
+    }
+
+    /**
+     * Inserts a child at a position of the children of this node.
+     *
+     * @param index - the position of the child among the children of this node
+     * @param node  - the inserted child
+     *
+     * @return true if the child was inserted, false if it already is a child of this node
+     *
+     * @throws IllegalArgumentException if the node belongs to another tree, or is an ancestor of this node
+     */
+    boolean insert(final int index, final INaryTreeNode<E> node) {
+        if (node instanceof NaryTreeNode) {
+            final NaryTreeNode<E> child = (NaryTreeNode<E>) node;
+            if (child.parent == this) {
+                return false;
+            }
+            if (child.parent != null || child.tree != null) {
+                throw new IllegalArgumentException("The node already belongs to a tree");
+            }
+            for (NaryTreeNode<E> ancestor = this; ancestor != null; ancestor = ancestor.parent) {
+                if (ancestor == child) {
+                    throw new IllegalArgumentException("A node cannot be added to its own subtree");
+                }
+            }
+            child.parent = this;
+        } else if (this.children.contains(node)) {
             return false;
         }
-        return this.children.add(node);
+        final boolean wasLeaf = this.children.isEmpty();
+        if (this.children == Collections.<INaryTreeNode<E>>emptyList()) {
+            this.children = this.getChildStorage().create(1);
+        }
+        this.children.add(index, node);
+        this.invalidateHash();
+        this.propagate(node.size(), node.getNumberOfLeaves() - (wasLeaf ? 1 : 0), 0, node.getHeight());
+        if (this.tree != null) {
+            this.tree.attached(this, node);
+        }
+        return true;
+    }
+
+    /**
+     * Creates the children list of this leaf with its final capacity, before its children are added in bulk.
+     *
+     * @param childStorage - the strategy used to store the children
+     * @param capacity     - the number of children to be added
+     */
+    void presize(final NaryTreeChildStorage childStorage, final int capacity) {
+        if (this.children.isEmpty()) {
+            this.children = childStorage.create(capacity);
+        }
+    }
+
+    /**
+     * Forgets the hashes of this node and of its ancestors, after the subtree of this node changed.
+     * The walk stops at the first unknown hash, as the hashes of its ancestors are unknown too.
+     */
+    private void invalidateHash() {
+        for (NaryTreeNode<E> node = this; node != null && node.hash != 0; node = node.parent) {
+            node.hash = 0;
+        }
+    }
+
+    /**
+     * Returns the parent of this node, or null if this node is a root.
+     *
+     * @return the parent of this node
+     */
+    NaryTreeNode<E> getParent() {
+        return this.parent;
+    }
+
+    /**
+     * Returns the strategy used to store the children of this node.
+     *
+     * @return the child storage of the tree this node belongs to, or {@link NaryTreeChildStorage#ARRAY}
+     */
+    private NaryTreeChildStorage getChildStorage() {
+        return this.tree == null ? NaryTreeChildStorage.ARRAY : this.tree.getChildStorage();
+    }
+
+    /**
+     * Updates the cached aggregates of this node and of its ancestors after one of its children changed.
+     * Sizes and leaves are shifted by the given deltas, heights are only recomputed from the children
+     * when the changed child was the one defining the height of its parent.
+     *
+     * @param sizeDelta      - the number of nodes added to the subtree
+     * @param leavesDelta    - the number of leaves added to the subtree
+     * @param oldChildHeight - the height of the changed child before the change, 0 if it was just added
+     * @param newChildHeight - the height of the changed child after the change, 0 if it was just removed
+     */
+    private void propagate(final int sizeDelta, final int leavesDelta, int oldChildHeight, int newChildHeight) {
+        for (NaryTreeNode<E> node = this; node != null; node = node.parent) {
+            final int previousHeight = node.height;
+            node.size += sizeDelta;
+            node.leaves += leavesDelta;
+            if (newChildHeight + 1 > node.height) {
+                node.height = newChildHeight + 1;
+            } else if (newChildHeight < oldChildHeight && oldChildHeight + 1 == node.height) {
+                node.height = 1 + node.children.stream().mapToInt(INaryTree::getHeight).max().orElse(0);
+            }
+            oldChildHeight = previousHeight;
+            newChildHeight = node.height;
+        }
     }
 
     @Override
@@ -73,6 +188,11 @@ class NaryTreeNode<E> implements INaryTreeNode<E> {
         return this.children.isEmpty();
     }
 
+    @Override
+    public boolean hasRandomAccessChildren() {
+        return this.children instanceof RandomAccess;
+    }
+
     @Override
     public int getChildrenCount() {
         return this.children.size();
@@ -98,118 +218,375 @@ class NaryTreeNode<E> implements INaryTreeNode<E> {
 
     @Override
     public boolean remove(final Object element) {
-        for (INaryTreeNode<E> child : this.children) {
+        for (Iterator<INaryTreeNode<E>> iterator = this.children.iterator(); iterator.hasNext(); ) {
+            final INaryTreeNode<E> child = iterator.next();
             if ((child.getValue() != null) && child.getValue().equals(element)) {
-                return this.children.remove(child);
+                iterator.remove();
+                this.detachChild(child);
+                return true;
             }
         }
         return false;
     }
 
+    /**
+     * Updates this node, its ancestors and its tree after a child was removed from the children list.
+     *
+     * @param child - the removed child
+     *
+     * @return the number of nodes of the subtree of the child
+     */
+    private int detachChild(final INaryTreeNode<E> child) {
+        if (child instanceof NaryTreeNode) {
+            ((NaryTreeNode<E>) child).parent = null;
+        }
+        final int size = child.size();
+        this.invalidateHash();
+        this.propagate(-size, (this.children.isEmpty() ? 1 : 0) - child.getNumberOfLeaves(), child.getHeight(), 0);
+        if (this.tree != null) {
+            this.tree.detached(this, child);
+        }
+        return size;
+    }
+
+    /**
+     * Removes a child of this node, found by identity.
+     *
+     * @param child - the child to remove
+     *
+     * @return the number of removed nodes, or 0 if the node is not a child of this node
+     */
+    int removeChild(final INaryTreeNode<E> child) {
+        for (Iterator<INaryTreeNode<E>> iterator = this.children.iterator(); iterator.hasNext(); ) {
+            if (iterator.next() == child) {
+                iterator.remove();
+                return this.detachChild(child);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Removes the subtree of the first node holding a value in prefix order, at any depth below this node.
+     * This node itself is never removed. The nodes are searched without recursion, and the matching child is removed
+     * at the index at which it was found, so its parent is not searched again.
+     * The children which are not {@link NaryTreeNode} are matched on their value but not searched.
+     *
+     * @param element - the value of the root of the subtree to remove
+     *
+     * @return the number of removed nodes, or 0 if no node below this node holds the value
+     */
+    int removeSubtree(final Object element) {
+        final NaryTreeStack<E> stack = new NaryTreeStack<>();
+        stack.push(this);
+        while (!stack.isEmpty()) {
+            final INaryTreeNode<E> child = stack.nextChild();
+            if (child == null) {
+                stack.pop();
+            } else if (Objects.equals(child.getValue(), element)) {
+                final NaryTreeNode<E> parent = (NaryTreeNode<E>) stack.peek();
+                parent.children.remove(stack.taken() - 1);
+                return parent.detachChild(child);
+            } else if (child instanceof NaryTreeNode && !child.isLeaf()) {
+                stack.push(child);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Removes the subtrees of all the nodes below this node whose value matches a predicate, in a single walk.
+     * This node itself is never removed, and the nodes of a removed subtree are not tested.
+     * The children of each visited node are filtered in one pass of their list, and the aggregates of the nodes
+     * whose subtree changed are computed again from their children when they are left, instead of being propagated
+     * to the root on each removal, so the whole walk runs in linear time.
+     * The children which are not {@link NaryTreeNode} are tested on their value but not searched.
+     *
+     * @param filter - returns true for the values of the nodes to remove
+     *
+     * @return the number of removed nodes
+     */
+    int removeIf(final Predicate<? super E> filter) {
+        final int height = this.height;
+        final int leaves = this.leaves;
+        // Each level of the stack is labeled 1 once the subtree of its node changed.
+        final NaryTreeStack<E> stack = new NaryTreeStack<>();
+        int removed = this.removeChildren(filter);
+        stack.push(this);
+        stack.label(removed > 0 ? 1 : 0);
+        while (true) {
+            final INaryTreeNode<E> child = stack.nextChild();
+            if (child != null) {
+                if (child instanceof NaryTreeNode && !child.isLeaf()) {
+                    final int below = ((NaryTreeNode<E>) child).removeChildren(filter);
+                    removed += below;
+                    stack.push(child);
+                    stack.label(below > 0 ? 1 : 0);
+                }
+                continue;
+            }
+            final boolean changed = stack.label() != 0;
+            final NaryTreeNode<E> node = (NaryTreeNode<E>) stack.pop();
+            if (changed) {
+                node.aggregate();
+                if (!stack.isEmpty()) {
+                    stack.label(1);
+                }
+            }
+            if (stack.isEmpty()) {
+                if (removed > 0 && this.parent != null) {
+                    this.parent.propagate(-removed, this.leaves - leaves, height, this.height);
+                }
+                return removed;
+            }
+        }
+    }
+
+    /**
+     * Removes the children of this node whose value matches a predicate, in one pass of their list.
+     *
+     * @param filter - returns true for the values of the children to remove
+     *
+     * @return the number of nodes of the removed subtrees
+     */
+    private int removeChildren(final Predicate<? super E> filter) {
+        int removed = 0;
+        for (final Iterator<INaryTreeNode<E>> iterator = this.children.iterator(); iterator.hasNext(); ) {
+            final INaryTreeNode<E> child = iterator.next();
+            if (filter.test(child.getValue())) {
+                iterator.remove();
+                if (child instanceof NaryTreeNode) {
+                    ((NaryTreeNode<E>) child).parent = null;
+                }
+                removed += child.size();
+                this.invalidateHash();
+                if (this.tree != null) {
+                    this.tree.detached(this, child);
+                }
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Computes the aggregates of this node again from the aggregates of its children.
+     */
+    private void aggregate() {
+        int size = 1;
+        int leaves = 0;
+        int height = 0;
+        for (final INaryTreeNode<E> child : this.children) {
+            size += child.size();
+            leaves += child.getNumberOfLeaves();
+            height = Math.max(height, child.getHeight());
+        }
+        this.size = size;
+        this.leaves = this.children.isEmpty() ? 1 : leaves;
+        this.height = height + 1;
+    }
+
     @Override
     public String generateText() {
-        if (this.isLeaf()) {
-            return NaryTreeNodeUtils.VALUE_PREFIX + (this.value == null ? NaryTreeNodeUtils.VALUE_NULL :
-                    this.value.toString()) +
-                    NaryTreeNodeUtils.VALUE_SUFFIX;
+        return NaryTreeNode.generateText(this);
+    }
+
+    /**
+     * Returns the text representation of a subtree, as described by {@link INaryTree#generateText()}.
+     *
+     * @param node - the root of the subtree
+     * @param <E>  - the type of elements held in the tree
+     *
+     * @return the text representation of the subtree
+     */
+    static <E> String generateText(final INaryTreeNode<E> node) {
+        final StringBuilder text = new StringBuilder();
+        try {
+            node.walk(new NaryTreeTextWriter<>(text));
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
         }
-        return NaryTreeNodeUtils.VALUE_PREFIX + (this.value == null ? NaryTreeNodeUtils.VALUE_NULL :
-                this.value.toString()) +
-                NaryTreeNodeUtils.VALUE_SUFFIX + NaryTreeNodeUtils.VALUE_SEPARATOR
-                + this.children.stream().map(INaryTree::generateText).collect(Collectors.joining(
-                NaryTreeNodeUtils.CHILDREN_SEPARATOR,
-                NaryTreeNodeUtils.CHILDREN_PREFIX, NaryTreeNodeUtils.CHILDREN_SUFFIX));
+        return text.toString();
     }
 
     @Override
-    public boolean contains(final Object element) {
-        if (this.value == null) return element == null;
-        if (this.value.equals(element)) return true;
-        for (final INaryTree<E> child : this.children) {
-            if (child.contains(element)) {
-                return true;
-            }
+    public void setValue(final E value) {
+        final E previous = this.value;
+        this.value = value;
+        this.invalidateHash();
+        if (this.tree != null) {
+            this.tree.valueChanged(this, previous);
         }
-        return false;
+    }
+
+    @Override
+    public boolean contains(final Object element) {
+        return NaryTreeNode.find(this, element, false, null) != null;
     }
 
     @Override
     public int getHeight() {
-        if (this.children.isEmpty()) return 1;
-        return 1 + this.children.stream().mapToInt(INaryTree::getHeight).max().getAsInt();
+        return this.height;
     }
 
     @Override
     public int size() {
-        return this.isLeaf() ? 1 : 1 + this.children.stream().mapToInt(INaryTree::size).sum();
+        return this.size;
     }
 
     @Override
     public int getNumberOfLeaves() {
-        return this.isLeaf() ? 1 : this.children.stream().mapToInt(INaryTree::getNumberOfLeaves).sum();
+        return this.leaves;
     }
 
     @Override
     public String toJson() {
-        if (this.isLeaf()) {
-            return "{\"" + NaryTreeNodeUtils.JSON_VALUE_KEY + "\":"
-                    + new Gson().toJson(this.value) + "}";
+        final StringWriter writer = new StringWriter();
+        try {
+            this.toJson(writer);
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
         }
-        return "{\"" + NaryTreeNodeUtils.JSON_VALUE_KEY + "\":"
-                + new Gson().toJson(this.value) + ",\"" + NaryTreeNodeUtils.JSON_CHILDREN_KEY + "\":["
-                + this.children.stream().map(INaryTree::toJson).collect(Collectors.joining(",")) + "]}";
+        return writer.toString();
+    }
+
+    @Override
+    public void toJson(final Writer writer) throws IOException {
+        final NaryTreeJsonWriter<E> jsonWriter = new NaryTreeJsonWriter<>(writer);
+        this.walk(jsonWriter);
+        jsonWriter.flush();
     }
 
     @Override
     public String toPrettyText() {
-        return MessageFormat.format("{0}\n{1}",
-                this.value.toString(),
-                this.children.stream().map(node -> NaryTreeNode.toPrettyText(node, 1))
-                        .collect(Collectors.joining("")));
+        return NaryTreeNode.toPrettyText(this);
+    }
+
+    /**
+     * Returns the pretty text representation of a subtree, as described by {@link INaryTree#toPrettyText()}.
+     *
+     * @param node - the root of the subtree
+     * @param <E>  - the type of elements held in the tree
+     *
+     * @return the pretty text representation of the subtree
+     */
+    static <E> String toPrettyText(final INaryTreeNode<E> node) {
+        final StringBuilder text = new StringBuilder();
+        try {
+            NaryTreeTextWriter.writePretty(node, text, NaryTreeTextOptions.unlimited());
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return text.toString();
     }
 
     @Override
     public List<E> toPostfixList() {
-        List<E> list = new LinkedList<>();
-        for (INaryTree<E> child : this.children) {
-            list.addAll(child.toPostfixList());
-        }
-        list.add(this.value);
-        return list;
+        return NaryTreeNode.toList(this.postfixIterator(), this.size);
     }
 
     @Override
     public List<E> toPrefixList() {
-        List<E> list = new LinkedList<>();
-        list.add(this.value);
-        for (INaryTree<E> child : this.children) {
-            list.addAll(child.toPrefixList());
-        }
-        return list;
+        return NaryTreeNode.toList(this.prefixIterator(), this.size);
     }
 
     @Override
     public List<E> toByWidthList() {
-        List<E> list = new LinkedList<>();
-        LinkedList<INaryTreeNode<E>> queue = new LinkedList<>();
-        queue.add(this);
-        while (!queue.isEmpty()) {
-            INaryTreeNode<E> node = queue.poll();
-            list.add(node.getValue());
-            queue.addAll(node.getChildren());
-        }
+        return NaryTreeNode.toList(this.breadthFirstIterator(), this.size);
+    }
+
+    static <E> List<E> toList(final Iterator<E> iterator, final int size) {
+        final List<E> list = new ArrayList<>(size);
+        iterator.forEachRemaining(list::add);
         return list;
     }
 
+    @Override
+    public Iterator<E> prefixIterator() {
+        return NaryTreeIterator.prefix(this);
+    }
+
+    @Override
+    public Iterator<E> postfixIterator() {
+        return NaryTreeIterator.postfix(this);
+    }
+
+    @Override
+    public Iterator<E> breadthFirstIterator() {
+        return NaryTreeIterator.breadthFirst(this);
+    }
+
     @Override
     public final INaryTree<E> getNodeFromElement(final E element) {
-        if (this.value == element) return this;
-        INaryTree<E> result = null;
-        for (INaryTree<E> child : this.children) {
-            INaryTree<E> response = child.getNodeFromElement(element);
-            result = (response == null) ? result : response;
+        return NaryTreeNode.find(this, element, true, null);
+    }
+
+    /**
+     * Searches a subtree without recursion, as {@link #contains(Object)} or {@link #getNodeFromElement(Object)} do.
+     * The search for an equal value goes in prefix order, and a node holding null only matches null and hides its
+     * subtree. The search for the value itself goes in prefix order with the children of each node taken from the last
+     * one to the first one, which finds the node that the recursive search kept, the last match of the last child.
+     *
+     * @param root     - the root of the searched subtree
+     * @param element  - the searched value
+     * @param identity - true to search the value itself, false to search an equal value
+     * @param probe    - the probe counting the visited nodes, or null
+     * @param <E>      - the type of elements held in the tree
+     *
+     * @return the found node, or null if no node matches
+     */
+    static <E> INaryTreeNode<E> find(final INaryTreeNode<E> root, final Object element, final boolean identity,
+                                     final NaryTreeProbe probe) {
+        int visited = 1;
+        INaryTreeNode<E> found = null;
+        if (NaryTreeNode.matches(root.getValue(), element, identity)) {
+            found = root;
+        } else if (NaryTreeNode.searchesBelow(root.getValue(), identity)) {
+            final NaryTreeStack<E> stack = new NaryTreeStack<>(identity);
+            stack.push(root);
+            while (found == null && !stack.isEmpty()) {
+                final INaryTreeNode<E> node = stack.nextChild();
+                if (node == null) {
+                    stack.pop();
+                    continue;
+                }
+                visited++;
+                if (NaryTreeNode.matches(node.getValue(), element, identity)) {
+                    found = node;
+                } else if (NaryTreeNode.searchesBelow(node.getValue(), identity)) {
+                    stack.push(node);
+                }
+            }
+        }
+        if (probe != null) {
+            probe.visitedNodes += visited;
         }
-        return result;
+        return found;
+    }
+
+    /**
+     * Returns True if a node holding a value is found by the search of an element.
+     *
+     * @param value    - the value of the node
+     * @param element  - the searched value
+     * @param identity - true to search the value itself, false to search an equal value
+     *
+     * @return True if the node matches
+     */
+    static boolean matches(final Object value, final Object element, final boolean identity) {
+        return identity ? value == element : Objects.equals(value, element);
+    }
+
+    /**
+     * Returns True if the search of an element goes on in the subtree of a node which did not match,
+     * that is unless the node holds null and an equal value is searched.
+     *
+     * @param value    - the value of the node
+     * @param identity - true to search the value itself, false to search an equal value
+     *
+     * @return True if the children of the node are searched
+     */
+    static boolean searchesBelow(final Object value, final boolean identity) {
+        return identity || value != null;
     }
 
     @Override
@@ -219,6 +596,11 @@ class NaryTreeNode<E> implements INaryTreeNode<E> {
 
     @Override
     public Iterator<E> iterator() {
-        return this.toByWidthList().iterator();
+        return this.breadthFirstIterator();
+    }
+
+    @Override
+    public Spliterator<E> spliterator() {
+        return new NaryTreeSpliterator<>(this);
     }
 }
\ No newline at end of file
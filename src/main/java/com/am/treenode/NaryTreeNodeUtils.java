@@ -12,6 +12,9 @@ enum NaryTreeNodeUtils {
     static final String VALUE_NULL = "null";
     static final String VALUE_PRETTY_DEPTH = "│ ";
     static final String VALUE_PRETTY_CHILDREN_PREFIX = "├─";
+    static final String VALUE_PRETTY_ELLIPSIS = "…";
     static final String JSON_VALUE_KEY = "value";
     static final String JSON_CHILDREN_KEY = "children";
-}
\ No newline at end of file
+    static final int PARALLEL_THRESHOLD = 1 << 13;
+
+}
@@ -0,0 +1,28 @@
+package com.am.treenode;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The JDK Flight Recorder event reporting an instrumented operation of a {@link NaryTree}.
+ * The event is only created and committed while a recording enables it, see {@link NaryTreeProbe}.
+ */
+@Name("com.am.treenode.NaryTreeOperation")
+@Label("NaryTree Operation")
+@Category("NaryTree")
+@Description("An operation of a NaryTree, with the number of nodes it visited")
+@StackTrace(false)
+final class NaryTreeOperationEvent extends Event {
+    @Label("Operation")
+    String operation;
+
+    @Label("Visited Nodes")
+    int visitedNodes;
+
+    @Label("Tree Size")
+    int treeSize;
+}
@@ -0,0 +1,245 @@
+package com.am.treenode;
+
+import java.util.Iterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Evaluates the queries of a {@link NaryTree} with the tasks of a {@link ForkJoinPool}.
+ * The tree is split into tasks along subtree boundaries, and subtrees of less than
+ * {@value NaryTreeNodeUtils#PARALLEL_THRESHOLD} nodes are searched sequentially.
+ * The searches find the same nodes as the sequential ones, and stop as soon as their result is known:
+ * {@link #contains(Object)} stops every task once a match is found, and {@link #getNodeFromElement(Object)} stops
+ * the tasks searching the children before the one holding a match, as it prefers the last children.
+ * The tree must not be modified while it is queried.
+ *
+ * @param <E> the type of elements held in the queried tree
+ */
+public final class NaryTreeParallelQuery<E> {
+    private final NaryTree<E> tree;
+
+    private final ForkJoinPool pool;
+
+    /**
+     * Instantiates a new NaryTreeParallelQuery.
+     *
+     * @param tree - the queried tree
+     * @param pool - the pool running the tasks
+     */
+    NaryTreeParallelQuery(final NaryTree<E> tree, final ForkJoinPool pool) {
+        this.tree = tree;
+        this.pool = pool;
+    }
+
+    /**
+     * Returns True if the tree contains the specified value.
+     *
+     * @param element - element whose presence in this tree is to be tested
+     *
+     * @return true if the tree contains the specified value
+     *
+     * @see INaryTree#contains(Object)
+     */
+    public boolean contains(final Object element) {
+        if (this.tree.isIndexed()) {
+            return this.tree.contains(element);
+        }
+        return this.search(element, new AtomicBoolean()) != null;
+    }
+
+    /**
+     * Returns the node that contains the specified element itself, or null if there is none.
+     *
+     * @param element the element
+     *
+     * @return the node that contains the specified element
+     *
+     * @see INaryTree#getNodeFromElement(Object)
+     */
+    public INaryTree<E> getNodeFromElement(final E element) {
+        if (this.tree.isIndexed()) {
+            return this.tree.getNodeFromElement(element);
+        }
+        return this.search(element, null);
+    }
+
+    /**
+     * Returns the number of nodes in the tree.
+     * The sizes of the subtrees are maintained on each mutation, so no task is needed.
+     *
+     * @return the number of nodes in the tree
+     */
+    public int size() {
+        return this.tree.size();
+    }
+
+    /**
+     * Returns the height of the tree.
+     * The heights of the subtrees are maintained on each mutation, so no task is needed.
+     *
+     * @return the height of the tree
+     */
+    public int getHeight() {
+        return this.tree.getHeight();
+    }
+
+    /**
+     * Returns the number of leaves in the tree.
+     * The numbers of leaves of the subtrees are maintained on each mutation, so no task is needed.
+     *
+     * @return the number of leaves in the tree
+     */
+    public int getNumberOfLeaves() {
+        return this.tree.getNumberOfLeaves();
+    }
+
+    private INaryTreeNode<E> search(final Object element, final AtomicBoolean found) {
+        final INaryTreeNode<E> root = this.tree.getRootNode();
+        final boolean identity = found == null;
+        if (NaryTreeNode.matches(root.getValue(), element, identity)) {
+            return root;
+        }
+        if (!NaryTreeNode.searchesBelow(root.getValue(), identity)) {
+            return null;
+        }
+        return this.pool.invoke(new SearchTask<>(null, root, 0, root.getChildrenCount(), element, found));
+    }
+
+    /**
+     * Searches the subtrees of a range of children of a node for a value, in the order of
+     * {@link NaryTreeNode#find(INaryTreeNode, Object, boolean, NaryTreeProbe)}.
+     *
+     * @param <E> the type of elements held in the searched tree
+     */
+    private static final class SearchTask<E> extends RecursiveTask<INaryTreeNode<E>> {
+        private static final long serialVersionUID = 1L;
+
+        private static final int CHECK_INTERVAL = 1 << 10;
+
+        private final SearchTask<E> parentTask;
+
+        private final INaryTreeNode<E> parent;
+
+        private final int from;
+
+        private final int to;
+
+        private final Object element;
+
+        /**
+         * Set once any task found an equal value, or null if the tasks search the value itself.
+         */
+        private final AtomicBoolean found;
+
+        /**
+         * Set when a match was found in a range searched before the range of this task.
+         */
+        private volatile boolean obsolete;
+
+        private SearchTask(final SearchTask<E> parentTask, final INaryTreeNode<E> parent, final int from,
+                           final int to, final Object element, final AtomicBoolean found) {
+            this.parentTask = parentTask;
+            this.parent = parent;
+            this.from = from;
+            this.to = to;
+            this.element = element;
+            this.found = found;
+        }
+
+        @Override
+        protected INaryTreeNode<E> compute() {
+            INaryTreeNode<E> parent = this.parent;
+            int from = this.from;
+            int to = this.to;
+            long size;
+            while (true) {
+                // The children are walked with iterators, since reaching each one by its index is linear on linked
+                // children.
+                size = 0;
+                INaryTreeNode<E> child = null;
+                final Iterator<INaryTreeNode<E>> children = parent.getChildren().listIterator(from);
+                for (int i = from; i < to; i++) {
+                    child = children.next();
+                    size += child.size();
+                }
+                if (size <= NaryTreeNodeUtils.PARALLEL_THRESHOLD) {
+                    return this.found(this.searchSequentially(parent, from, to));
+                }
+                if (to - from > 1) {
+                    break;
+                }
+                // A single large subtree: check its root and split its children instead.
+                if (NaryTreeNode.matches(child.getValue(), this.element, this.found == null)) {
+                    return this.found(child);
+                }
+                if (!NaryTreeNode.searchesBelow(child.getValue(), this.found == null) || this.isStopped()) {
+                    return null;
+                }
+                parent = child;
+                from = 0;
+                to = child.getChildrenCount();
+            }
+            final Iterator<INaryTreeNode<E>> children = parent.getChildren().listIterator(from);
+            int middle = from + 1;
+            for (long half = children.next().size(); middle < to - 1 && half < size / 2; middle++) {
+                half += children.next().size();
+            }
+            final SearchTask<E> before = new SearchTask<>(this, parent, from, middle, this.element, this.found);
+            final SearchTask<E> after = new SearchTask<>(this, parent, middle, to, this.element, this.found);
+            // The search of the value itself prefers the last children, as the sequential search does.
+            final SearchTask<E> first = this.found == null ? after : before;
+            final SearchTask<E> second = this.found == null ? before : after;
+            second.fork();
+            final INaryTreeNode<E> result = first.compute();
+            if (result != null) {
+                second.obsolete = true;
+                return result;
+            }
+            return second.join();
+        }
+
+        private INaryTreeNode<E> searchSequentially(final INaryTreeNode<E> parent, final int from, final int to) {
+            final boolean identity = this.found == null;
+            final NaryTreeStack<E> stack = new NaryTreeStack<>(identity);
+            stack.push(parent, from, to);
+            int visited = 0;
+            while (!stack.isEmpty()) {
+                final INaryTreeNode<E> node = stack.nextChild();
+                if (node == null) {
+                    stack.pop();
+                    continue;
+                }
+                if (visited++ % SearchTask.CHECK_INTERVAL == 0 && this.isStopped()) {
+                    return null;
+                }
+                if (NaryTreeNode.matches(node.getValue(), this.element, identity)) {
+                    return node;
+                }
+                if (NaryTreeNode.searchesBelow(node.getValue(), identity)) {
+                    stack.push(node);
+                }
+            }
+            return null;
+        }
+
+        private INaryTreeNode<E> found(final INaryTreeNode<E> node) {
+            if (node != null && this.found != null) {
+                this.found.set(true);
+            }
+            return node;
+        }
+
+        private boolean isStopped() {
+            if (this.found != null && this.found.get()) {
+                return true;
+            }
+            for (SearchTask<E> task = this; task != null; task = task.parentTask) {
+                if (task.obsolete) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.am.treenode;
+
+/**
+ * Measures one instrumented operation of a {@link NaryTree} for its {@link TreeMetrics} listener
+ * and for the JDK Flight Recorder.
+ * A probe is only created when a listener is set or a recording enables {@link NaryTreeOperationEvent}:
+ * otherwise {@link #start(TreeMetrics, TreeMetrics.Operation)} returns null, and the disabled event it checked
+ * is eliminated by the JIT compiler, so an operation without instrumentation costs a null check.
+ */
+final class NaryTreeProbe {
+    private final TreeMetrics metrics;
+
+    private final TreeMetrics.Operation operation;
+
+    private final NaryTreeOperationEvent event;
+
+    private final long start;
+
+    /**
+     * The number of nodes visited so far, updated by the instrumented searches.
+     */
+    int visitedNodes;
+
+    private NaryTreeProbe(final TreeMetrics metrics, final TreeMetrics.Operation operation,
+                          final NaryTreeOperationEvent event) {
+        this.metrics = metrics;
+        this.operation = operation;
+        this.event = event;
+        this.start = System.nanoTime();
+    }
+
+    /**
+     * Starts measuring an operation, if it is instrumented.
+     *
+     * @param metrics   - the listener of the tree, or null
+     * @param operation - the started operation
+     *
+     * @return the probe measuring the operation, or null if neither the listener nor the recorder is enabled
+     */
+    static NaryTreeProbe start(final TreeMetrics metrics, final TreeMetrics.Operation operation) {
+        final NaryTreeOperationEvent event = new NaryTreeOperationEvent();
+        if (metrics == null && !event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return new NaryTreeProbe(metrics, operation, event);
+    }
+
+    /**
+     * Stops measuring the operation, and reports it.
+     *
+     * @param visitedNodes - the number of nodes visited by the operation, added to those counted by the searches
+     * @param treeSize     - the size of the tree after the operation
+     */
+    void stop(final int visitedNodes, final int treeSize) {
+        final long duration = System.nanoTime() - this.start;
+        this.visitedNodes += visitedNodes;
+        this.event.end();
+        if (this.event.shouldCommit()) {
+            this.event.operation = this.operation.name();
+            this.event.visitedNodes = this.visitedNodes;
+            this.event.treeSize = treeSize;
+            this.event.commit();
+        }
+        if (this.metrics != null) {
+            this.metrics.record(this.operation, duration, this.visitedNodes);
+        }
+    }
+}
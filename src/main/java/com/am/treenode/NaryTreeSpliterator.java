@@ -0,0 +1,157 @@
+package com.am.treenode;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * A spliterator over the values of a tree in prefix order, which splits along subtree boundaries.
+ * A spliterator covers the value of a single node, called its head, followed by either one whole subtree
+ * or the subtrees of a range of consecutive children of a node.
+ * Splitting expands a whole subtree into its value and the range of its children, then halves the range,
+ * so each part is made of complete subtrees and its exact size is known from the sizes of the subtrees.
+ * The tree must not be modified while it is traversed.
+ *
+ * @param <E> the type of elements held in the traversed tree
+ */
+final class NaryTreeSpliterator<E> implements Spliterator<E> {
+    private INaryTreeNode<E> head;
+
+    private INaryTreeNode<E> whole;
+
+    private INaryTreeNode<E> parent;
+
+    private int from;
+
+    private int to;
+
+    private long size;
+
+    private Iterator<E> iterator;
+
+    /**
+     * Instantiates a new NaryTreeSpliterator over a whole subtree.
+     *
+     * @param root - the root of the traversed subtree
+     */
+    NaryTreeSpliterator(final INaryTreeNode<E> root) {
+        this.whole = root;
+        this.size = root.size();
+    }
+
+    private NaryTreeSpliterator(final INaryTreeNode<E> head, final INaryTreeNode<E> parent, final int from,
+                                final int to, final long size) {
+        this.head = head;
+        this.parent = parent;
+        this.from = from;
+        this.to = to;
+        this.size = size;
+    }
+
+    @Override
+    public boolean tryAdvance(final Consumer<? super E> action) {
+        if (this.head != null) {
+            final E value = this.head.getValue();
+            this.head = null;
+            this.size--;
+            action.accept(value);
+            return true;
+        }
+        if (this.iterator == null) {
+            this.iterator = this.remaining();
+        }
+        if (this.iterator.hasNext()) {
+            this.size--;
+            action.accept(this.iterator.next());
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void forEachRemaining(final Consumer<? super E> action) {
+        if (this.head != null) {
+            final E value = this.head.getValue();
+            this.head = null;
+            action.accept(value);
+        }
+        if (this.iterator == null) {
+            this.iterator = this.remaining();
+        }
+        this.iterator.forEachRemaining(action);
+        this.size = 0;
+    }
+
+    @Override
+    public Spliterator<E> trySplit() {
+        if (this.iterator != null) {
+            return null;
+        }
+        while (true) {
+            if (this.whole != null) {
+                if (this.head != null || this.whole.isLeaf()) {
+                    return this.splitHead();
+                }
+                this.head = this.whole;
+                this.parent = this.whole;
+                this.from = 0;
+                this.to = this.whole.getChildrenCount();
+                this.whole = null;
+            }
+            final int count = this.to - this.from;
+            if (count >= 2) {
+                final int middle = this.from + count / 2;
+                long prefixSize = this.head == null ? 0 : 1;
+                // A single iterator, since reaching each child by its index is linear on linked children.
+                final Iterator<INaryTreeNode<E>> children = this.parent.getChildren().listIterator(this.from);
+                for (int i = this.from; i < middle; i++) {
+                    prefixSize += children.next().size();
+                }
+                final NaryTreeSpliterator<E> prefix = new NaryTreeSpliterator<>(this.head, this.parent, this.from,
+                        middle, prefixSize);
+                this.head = null;
+                this.from = middle;
+                this.size -= prefixSize;
+                return prefix;
+            }
+            if (count == 0) {
+                return null;
+            }
+            this.whole = this.parent.getChild(this.from);
+            this.parent = null;
+            this.from = 0;
+            this.to = 0;
+        }
+    }
+
+    private Spliterator<E> splitHead() {
+        if (this.head == null) {
+            return null;
+        }
+        final NaryTreeSpliterator<E> prefix = new NaryTreeSpliterator<>(this.head, null, 0, 0, 1);
+        this.head = null;
+        this.size--;
+        return prefix;
+    }
+
+    private Iterator<E> remaining() {
+        if (this.whole != null) {
+            return NaryTreeIterator.prefix(this.whole);
+        }
+        if (this.parent != null) {
+            return NaryTreeIterator.prefix(this.parent, this.from, this.to);
+        }
+        return Collections.emptyIterator();
+    }
+
+    @Override
+    public long estimateSize() {
+        return this.size;
+    }
+
+    @Override
+    public int characteristics() {
+        return Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED;
+    }
+}
@@ -0,0 +1,235 @@
+package com.am.treenode;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.ListIterator;
+
+/**
+ * The explicit stack of the non-recursive depth-first walks of this package.
+ * It holds the nodes of the current path, each with the position of its next child to visit, so a walk uses memory
+ * proportional to its depth. The children of the nodes with {@link INaryTreeNode#hasRandomAccessChildren() random
+ * access children} are reached by their index, so that the walk allocates nothing per node once the stack has grown;
+ * the children of the other nodes are reached through one iterator per inner node, so that the walk stays linear.
+ * <p>
+ * Each level of the stack also holds an int label and a long accumulator, which are left to the walks, so that they
+ * keep their state along the path without stacks of their own.
+ *
+ * @param <E> the type of elements held in the walked tree
+ */
+final class NaryTreeStack<E> {
+    /**
+     * True if the children of each node are visited from the last one to the first one.
+     */
+    private final boolean reversed;
+
+    private Object[] nodes = new Object[16];
+
+    /**
+     * The number of children of each node returned so far.
+     */
+    private int[] taken = new int[16];
+
+    /**
+     * The index of the first child of each node to return.
+     */
+    private int[] firsts = new int[16];
+
+    /**
+     * The index after the last child of each node to return.
+     */
+    private int[] ends = new int[16];
+
+    /**
+     * The iterators over the children of the nodes without random access children, allocated on the first of them.
+     */
+    private Object[] iterators;
+
+    private int[] labels = new int[16];
+
+    private long[] accumulators = new long[16];
+
+    private int depth;
+
+    /**
+     * Instantiates an empty stack visiting the children of each node in their order.
+     */
+    NaryTreeStack() {
+        this(false);
+    }
+
+    /**
+     * Instantiates an empty stack.
+     *
+     * @param reversed - true to visit the children of each node from the last one to the first one
+     */
+    NaryTreeStack(final boolean reversed) {
+        this.reversed = reversed;
+    }
+
+    /**
+     * Pushes a node, whose children are then returned by {@link #nextChild()}.
+     *
+     * @param node - the pushed node
+     */
+    void push(final INaryTreeNode<E> node) {
+        this.push(node, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Pushes a node whose children are returned only within a range, from its last index if the stack is reversed.
+     *
+     * @param node - the pushed node
+     * @param from - the index of the first returned child, inclusive
+     * @param to   - the index of the last returned child, exclusive
+     */
+    void push(final INaryTreeNode<E> node, final int from, final int to) {
+        if (this.depth == this.nodes.length) {
+            final int length = this.depth * 2;
+            this.nodes = Arrays.copyOf(this.nodes, length);
+            this.taken = Arrays.copyOf(this.taken, length);
+            this.firsts = Arrays.copyOf(this.firsts, length);
+            this.ends = Arrays.copyOf(this.ends, length);
+            this.labels = Arrays.copyOf(this.labels, length);
+            this.accumulators = Arrays.copyOf(this.accumulators, length);
+            if (this.iterators != null) {
+                this.iterators = Arrays.copyOf(this.iterators, length);
+            }
+        }
+        final int level = this.depth++;
+        this.nodes[level] = node;
+        this.labels[level] = 0;
+        this.accumulators[level] = 0;
+        this.taken[level] = 0;
+        if (node.isLeaf()) {
+            this.firsts[level] = 0;
+            this.ends[level] = 0;
+            return;
+        }
+        // The children are counted on the list which is iterated, so that both agree on concurrent trees.
+        final List<INaryTreeNode<E>> children = node.hasRandomAccessChildren() ? null : node.getChildren();
+        final int count = children == null ? node.getChildrenCount() : children.size();
+        this.firsts[level] = Math.min(from, count);
+        this.ends[level] = Math.max(this.firsts[level], Math.min(to, count));
+        if (children != null) {
+            if (this.iterators == null) {
+                this.iterators = new Object[this.nodes.length];
+            }
+            this.iterators[level] = children.listIterator(this.reversed ? this.ends[level] : this.firsts[level]);
+        }
+    }
+
+    /**
+     * Returns the next child to visit of the node on top of the stack, or null if it has none left.
+     *
+     * @return the next child of the top node
+     */
+    @SuppressWarnings("unchecked")
+    INaryTreeNode<E> nextChild() {
+        final int level = this.depth - 1;
+        final int index = this.taken[level];
+        if (this.firsts[level] + index >= this.ends[level]) {
+            return null;
+        }
+        this.taken[level] = index + 1;
+        final ListIterator<INaryTreeNode<E>> children = this.iterators == null ? null
+                : (ListIterator<INaryTreeNode<E>>) this.iterators[level];
+        if (children != null) {
+            return this.reversed ? children.previous() : children.next();
+        }
+        final INaryTreeNode<E> node = (INaryTreeNode<E>) this.nodes[level];
+        return node.getChild(this.reversed ? this.ends[level] - 1 - index : this.firsts[level] + index);
+    }
+
+    /**
+     * Pops the node on top of the stack.
+     *
+     * @return the popped node
+     */
+    @SuppressWarnings("unchecked")
+    INaryTreeNode<E> pop() {
+        final int level = --this.depth;
+        final INaryTreeNode<E> node = (INaryTreeNode<E>) this.nodes[level];
+        this.nodes[level] = null;
+        if (this.iterators != null) {
+            this.iterators[level] = null;
+        }
+        return node;
+    }
+
+    /**
+     * Returns the node on top of the stack.
+     *
+     * @return the top node
+     */
+    @SuppressWarnings("unchecked")
+    INaryTreeNode<E> peek() {
+        return (INaryTreeNode<E>) this.nodes[this.depth - 1];
+    }
+
+    /**
+     * Returns the number of children of the node on top of the stack returned so far.
+     *
+     * @return the number of returned children
+     */
+    int taken() {
+        return this.taken[this.depth - 1];
+    }
+
+    /**
+     * Returns the number of children of the node on top of the stack which are returned, taken and not taken yet.
+     *
+     * @return the number of children to return
+     */
+    int count() {
+        return this.ends[this.depth - 1] - this.firsts[this.depth - 1];
+    }
+
+    /**
+     * Returns the label of the node on top of the stack.
+     *
+     * @return the label, 0 until it is set
+     */
+    int label() {
+        return this.labels[this.depth - 1];
+    }
+
+    /**
+     * Sets the label of the node on top of the stack.
+     *
+     * @param label - the new label
+     */
+    void label(final int label) {
+        this.labels[this.depth - 1] = label;
+    }
+
+    /**
+     * Returns the accumulator of the node on top of the stack.
+     *
+     * @return the accumulator, 0 until it is set
+     */
+    long accumulator() {
+        return this.accumulators[this.depth - 1];
+    }
+
+    /**
+     * Sets the accumulator of the node on top of the stack.
+     *
+     * @param accumulator - the new accumulator
+     */
+    void accumulator(final long accumulator) {
+        this.accumulators[this.depth - 1] = accumulator;
+    }
+
+    /**
+     * Returns the number of nodes in the stack.
+     *
+     * @return the depth of the stack
+     */
+    int depth() {
+        return this.depth;
+    }
+
+    boolean isEmpty() {
+        return this.depth == 0;
+    }
+}
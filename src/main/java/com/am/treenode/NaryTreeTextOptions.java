@@ -0,0 +1,88 @@
+package com.am.treenode;
+
+/**
+ * The cut-offs of a pretty text rendering of a tree, see {@link INaryTree#writePrettyText(Appendable, NaryTreeTextOptions)}.
+ * The depth of the root is 0, as for {@link INaryTree#accept(TreeVisitor, int)} and {@link TreeVisitor}.
+ * The children of a node at the maximum depth, and the nodes after the maximum number of nodes,
+ * are replaced by a single {@value NaryTreeNodeUtils#VALUE_PRETTY_ELLIPSIS} line.
+ * The options are immutable: the {@code with} methods return new options.
+ */
+public final class NaryTreeTextOptions {
+    private static final NaryTreeTextOptions UNLIMITED = new NaryTreeTextOptions(Integer.MAX_VALUE, Integer.MAX_VALUE);
+
+    private final int maxDepth;
+
+    private final int maxNodes;
+
+    private NaryTreeTextOptions(final int maxDepth, final int maxNodes) {
+        this.maxDepth = maxDepth;
+        this.maxNodes = maxNodes;
+    }
+
+    /**
+     * Returns the options rendering the whole tree.
+     *
+     * @return the options without cut-offs
+     */
+    public static NaryTreeTextOptions unlimited() {
+        return NaryTreeTextOptions.UNLIMITED;
+    }
+
+    /**
+     * Returns these options with a maximum depth.
+     *
+     * @param maxDepth - the depth of the deepest rendered nodes, 0 to render only the root
+     *
+     * @return the new options
+     *
+     * @throws IllegalArgumentException if the maximum depth is negative
+     */
+    public NaryTreeTextOptions withMaxDepth(final int maxDepth) {
+        if (maxDepth < 0) {
+            throw new IllegalArgumentException("The maximum depth cannot be negative: " + maxDepth);
+        }
+        return new NaryTreeTextOptions(maxDepth, this.maxNodes);
+    }
+
+    /**
+     * Returns these options with a maximum number of nodes.
+     *
+     * @param maxNodes - the number of rendered nodes, at least 1
+     *
+     * @return the new options
+     *
+     * @throws IllegalArgumentException if the maximum number of nodes is lower than 1
+     */
+    public NaryTreeTextOptions withMaxNodes(final int maxNodes) {
+        if (maxNodes < 1) {
+            throw new IllegalArgumentException("The maximum number of nodes must be at least 1: " + maxNodes);
+        }
+        return new NaryTreeTextOptions(this.maxDepth, maxNodes);
+    }
+
+    /**
+     * Returns the depth of the deepest rendered nodes.
+     *
+     * @return the maximum depth
+     */
+    public int getMaxDepth() {
+        return this.maxDepth;
+    }
+
+    /**
+     * Returns the number of rendered nodes.
+     *
+     * @return the maximum number of nodes
+     */
+    public int getMaxNodes() {
+        return this.maxNodes;
+    }
+
+    @Override
+    public String toString() {
+        return "NaryTreeTextOptions{" +
+                "maxDepth=" + this.maxDepth +
+                ", maxNodes=" + this.maxNodes +
+                '}';
+    }
+}
@@ -0,0 +1,194 @@
+package com.am.treenode;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.function.Function;
+
+/**
+ * Builds a tree from its text representation, as written by {@link INaryTree#generateText()}:
+ * {@code [value] ([child], [child] ([grandchild]))}.
+ * The text is read in a single pass through a character buffer, with an explicit stack of the nodes being read.
+ * Whitespace is allowed between the brackets, parentheses and commas. A value is the text between its opening
+ * bracket and the first closing bracket followed by a comma, a parenthesis or the end of the text, and
+ * {@value NaryTreeNodeUtils#VALUE_NULL} is read as a null value, as it is written.
+ *
+ * @param <E> the type of elements held in the read tree
+ */
+final class NaryTreeTextReader<E> {
+    private static final int BUFFER_SIZE = 1 << 13;
+
+    private static final int END = -1;
+
+    private final Reader reader;
+
+    private final Function<String, ? extends E> decoder;
+
+    private final char[] buffer = new char[NaryTreeTextReader.BUFFER_SIZE];
+
+    private final StringBuilder value = new StringBuilder();
+
+    private int position;
+
+    private int limit;
+
+    /**
+     * The offset in the text of the start of the buffer.
+     */
+    private long offset;
+
+    /**
+     * Instantiates a new NaryTreeTextReader on top of a reader.
+     *
+     * @param reader  - the reader providing the text
+     * @param decoder - converts the text of each non-null value to a value
+     */
+    NaryTreeTextReader(final Reader reader, final Function<String, ? extends E> decoder) {
+        this.reader = reader;
+        this.decoder = decoder;
+    }
+
+    /**
+     * Reads the whole tree.
+     * Each node is attached to its parent once all its children have been read,
+     * so that the aggregates of the open nodes are updated in constant time.
+     *
+     * @return the root node of the tree
+     *
+     * @throws IOException if the reader fails or the text is malformed
+     */
+    @SuppressWarnings("unchecked")
+    NaryTreeNode<E> read() throws IOException {
+        NaryTreeNode<E>[] stack = (NaryTreeNode<E>[]) new NaryTreeNode<?>[16];
+        int depth = 0;
+        while (true) {
+            // A node starts here.
+            this.expect(NaryTreeNodeUtils.VALUE_PREFIX.charAt(0));
+            final NaryTreeNode<E> node = new NaryTreeNode<>(this.readValue());
+            if (this.peekToken() == NaryTreeNodeUtils.CHILDREN_PREFIX.charAt(0)) {
+                this.position++;
+                if (depth == stack.length) {
+                    stack = Arrays.copyOf(stack, depth * 2);
+                }
+                stack[depth++] = node;
+                continue;
+            }
+            // The node is complete: attach it, and close the parents whose last child it is.
+            NaryTreeNode<E> complete = node;
+            while (true) {
+                if (depth == 0) {
+                    if (this.peekToken() != NaryTreeTextReader.END) {
+                        throw this.malformed("Expected the end of the text");
+                    }
+                    return complete;
+                }
+                stack[depth - 1].add(complete);
+                final int token = this.peekToken();
+                if (token == NaryTreeNodeUtils.CHILDREN_SEPARATOR.charAt(0)) {
+                    this.position++;
+                    break;
+                }
+                if (token != NaryTreeNodeUtils.CHILDREN_SUFFIX.charAt(0)) {
+                    throw this.malformed("Expected '" + NaryTreeNodeUtils.CHILDREN_SEPARATOR.charAt(0) + "' or '"
+                            + NaryTreeNodeUtils.CHILDREN_SUFFIX + "'");
+                }
+                this.position++;
+                complete = stack[--depth];
+                stack[depth] = null;
+            }
+        }
+    }
+
+    /**
+     * Reads a value after its opening bracket, up to and including its closing bracket.
+     *
+     * @return the decoded value
+     *
+     * @throws IOException if the reader fails or the text ends in the value
+     */
+    private E readValue() throws IOException {
+        final char suffix = NaryTreeNodeUtils.VALUE_SUFFIX.charAt(0);
+        final StringBuilder value = this.value;
+        value.setLength(0);
+        int closing = -1;
+        while (true) {
+            if (this.position == this.limit && !this.fill()) {
+                if (closing < 0) {
+                    throw this.malformed("Unterminated value");
+                }
+                break;
+            }
+            final char c = this.buffer[this.position];
+            if (c == suffix) {
+                closing = value.length();
+            } else if (closing >= 0) {
+                if (NaryTreeTextReader.isDelimiter(c)) {
+                    break;
+                }
+                if (!Character.isWhitespace(c)) {
+                    closing = -1;
+                }
+            }
+            if (closing < 0) {
+                // Scan the plain characters of the value in bulk.
+                int end = this.position + 1;
+                while (end < this.limit && this.buffer[end] != suffix) {
+                    end++;
+                }
+                value.append(this.buffer, this.position, end - this.position);
+                this.position = end;
+            } else {
+                value.append(c);
+                this.position++;
+            }
+        }
+        value.setLength(closing);
+        if (NaryTreeNodeUtils.VALUE_NULL.contentEquals(value)) {
+            return null;
+        }
+        return this.decoder.apply(value.toString());
+    }
+
+    private static boolean isDelimiter(final char c) {
+        return c == NaryTreeNodeUtils.CHILDREN_PREFIX.charAt(0) || c == NaryTreeNodeUtils.CHILDREN_SUFFIX.charAt(0)
+                || c == NaryTreeNodeUtils.CHILDREN_SEPARATOR.charAt(0);
+    }
+
+    private void expect(final char expected) throws IOException {
+        if (this.peekToken() != expected) {
+            throw this.malformed("Expected '" + expected + "'");
+        }
+        this.position++;
+    }
+
+    /**
+     * Skips the whitespace and returns the next character without consuming it.
+     *
+     * @return the next character, or {@link #END} at the end of the text
+     *
+     * @throws IOException if the reader fails
+     */
+    private int peekToken() throws IOException {
+        while (true) {
+            if (this.position == this.limit && !this.fill()) {
+                return NaryTreeTextReader.END;
+            }
+            final char c = this.buffer[this.position];
+            if (!Character.isWhitespace(c)) {
+                return c;
+            }
+            this.position++;
+        }
+    }
+
+    private boolean fill() throws IOException {
+        this.offset += this.limit;
+        this.position = 0;
+        this.limit = Math.max(0, this.reader.read(this.buffer));
+        return this.limit > 0;
+    }
+
+    private IOException malformed(final String message) {
+        return new IOException(message + " at offset " + (this.offset + this.position));
+    }
+}
@@ -0,0 +1,202 @@
+package com.am.treenode;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Streams the text representations of a tree to an {@link Appendable}, without building intermediate strings.
+ * As a {@link NaryTreeHandler}, it writes the format of {@link INaryTree#generateText()} during a walk,
+ * and {@link #writePretty(INaryTreeNode, Appendable, NaryTreeTextOptions)} writes the format of
+ * {@link INaryTree#toPrettyText()}, which {@link #visitPretty(INaryTree, Appendable, NaryTreeTextOptions)} also
+ * writes for the trees only exposing their structure through {@link INaryTree#accept(TreeVisitor, int)}.
+ *
+ * @param <E> the type of elements held in the written tree
+ */
+final class NaryTreeTextWriter<E> implements NaryTreeHandler<E> {
+    private final Appendable appendable;
+
+    /**
+     * True if the next node is not the first child of its parent.
+     */
+    private boolean separator;
+
+    /**
+     * Instantiates a new NaryTreeTextWriter on top of an appendable.
+     *
+     * @param appendable - the appendable receiving the text
+     */
+    NaryTreeTextWriter(final Appendable appendable) {
+        this.appendable = appendable;
+    }
+
+    @Override
+    public void enter(final E value, final boolean leaf) throws IOException {
+        if (this.separator) {
+            this.appendable.append(NaryTreeNodeUtils.CHILDREN_SEPARATOR);
+        }
+        this.appendable.append(NaryTreeNodeUtils.VALUE_PREFIX)
+                .append(String.valueOf(value))
+                .append(NaryTreeNodeUtils.VALUE_SUFFIX);
+        if (!leaf) {
+            this.appendable.append(NaryTreeNodeUtils.VALUE_SEPARATOR).append(NaryTreeNodeUtils.CHILDREN_PREFIX);
+        }
+        this.separator = leaf;
+    }
+
+    @Override
+    public void leave(final E value, final boolean leaf) throws IOException {
+        if (!leaf) {
+            this.appendable.append(NaryTreeNodeUtils.CHILDREN_SUFFIX);
+            this.separator = true;
+        }
+    }
+
+    /**
+     * Writes the pretty text representation of a subtree, one line per node.
+     * The subtree is walked without recursion, and the indentation of the lines is appended from a single buffer
+     * which grows and shrinks with the depth, so the cost of a line does not depend on its depth.
+     * The walk stops as soon as the maximum number of nodes is written, and does not descend below the maximum depth.
+     *
+     * @param node       - the root of the subtree
+     * @param appendable - the appendable receiving the text
+     * @param options    - the cut-offs of the rendering
+     * @param <E>        - the type of elements held in the tree
+     *
+     * @return the number of written nodes, the ellipses aside
+     *
+     * @throws IOException if the appendable fails
+     */
+    static <E> int writePretty(final INaryTreeNode<E> node, final Appendable appendable,
+                               final NaryTreeTextOptions options) throws IOException {
+        final StringBuilder indent = new StringBuilder();
+        appendable.append(String.valueOf(node.getValue())).append('\n');
+        if (node.isLeaf()) {
+            return 1;
+        }
+        if (options.getMaxDepth() == 0 || options.getMaxNodes() == 1) {
+            NaryTreeTextWriter.writeLine(appendable, indent, NaryTreeNodeUtils.VALUE_PRETTY_ELLIPSIS);
+            return 1;
+        }
+        int written = 1;
+        final NaryTreeStack<E> stack = new NaryTreeStack<>();
+        stack.push(node);
+        while (!stack.isEmpty()) {
+            final INaryTreeNode<E> child = stack.nextChild();
+            if (child == null) {
+                stack.pop();
+                indent.setLength(Math.max(0, indent.length() - NaryTreeNodeUtils.VALUE_PRETTY_DEPTH.length()));
+                continue;
+            }
+            if (written == options.getMaxNodes()) {
+                NaryTreeTextWriter.writeLine(appendable, indent, NaryTreeNodeUtils.VALUE_PRETTY_ELLIPSIS);
+                return written;
+            }
+            NaryTreeTextWriter.writeLine(appendable, indent, String.valueOf(child.getValue()));
+            written++;
+            if (child.isLeaf()) {
+                continue;
+            }
+            indent.append(NaryTreeNodeUtils.VALUE_PRETTY_DEPTH);
+            // The child is at the depth of the stack, the root being at depth 0 alone in it.
+            if (stack.depth() + 1 > options.getMaxDepth()) {
+                NaryTreeTextWriter.writeLine(appendable, indent, NaryTreeNodeUtils.VALUE_PRETTY_ELLIPSIS);
+                indent.setLength(indent.length() - NaryTreeNodeUtils.VALUE_PRETTY_DEPTH.length());
+                continue;
+            }
+            stack.push(child);
+        }
+        return written;
+    }
+
+    /**
+     * Writes the pretty text representation of a tree during a {@link INaryTree#accept(TreeVisitor, int) visit},
+     * with the same output as {@link #writePretty(INaryTreeNode, Appendable, NaryTreeTextOptions)}.
+     * The visit goes one level below the maximum depth, to find out which of the deepest written nodes have children.
+     *
+     * @param tree       - the visited tree
+     * @param appendable - the appendable receiving the text
+     * @param options    - the cut-offs of the rendering
+     * @param <E>        - the type of elements held in the tree
+     *
+     * @throws IOException if the appendable fails
+     */
+    static <E> void visitPretty(final INaryTree<E> tree, final Appendable appendable,
+                                final NaryTreeTextOptions options) throws IOException {
+        final StringBuilder indent = new StringBuilder();
+        try {
+            tree.accept(new TreeVisitor<E>() {
+                private int written;
+
+                /**
+                 * True if the children of the last written node are already replaced by an ellipsis.
+                 */
+                private boolean cut;
+
+                @Override
+                public Result enter(final E value, final int depth) {
+                    try {
+                        if (depth == 0) {
+                            appendable.append(String.valueOf(value)).append('\n');
+                            this.written++;
+                            return Result.CONTINUE;
+                        }
+                        NaryTreeTextWriter.indent(indent, depth);
+                        if (depth > options.getMaxDepth()) {
+                            if (!this.cut) {
+                                NaryTreeTextWriter.writeLine(appendable, indent,
+                                        NaryTreeNodeUtils.VALUE_PRETTY_ELLIPSIS);
+                                this.cut = true;
+                            }
+                            return Result.SKIP_SUBTREE;
+                        }
+                        this.cut = false;
+                        if (this.written == options.getMaxNodes()) {
+                            NaryTreeTextWriter.writeLine(appendable, indent, NaryTreeNodeUtils.VALUE_PRETTY_ELLIPSIS);
+                            return Result.TERMINATE;
+                        }
+                        NaryTreeTextWriter.writeLine(appendable, indent, String.valueOf(value));
+                        this.written++;
+                        return Result.CONTINUE;
+                    } catch (final IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            }, (int) Math.min(Integer.MAX_VALUE, options.getMaxDepth() + 1L));
+        } catch (final UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Sets the indentation of the lines of the nodes at a depth, the root being at depth 0.
+     */
+    private static void indent(final StringBuilder indent, final int depth) {
+        final int length = (depth - 1) * NaryTreeNodeUtils.VALUE_PRETTY_DEPTH.length();
+        while (indent.length() < length) {
+            indent.append(NaryTreeNodeUtils.VALUE_PRETTY_DEPTH);
+        }
+        indent.setLength(length);
+    }
+
+    private static void writeLine(final Appendable appendable, final CharSequence indent, final String text)
+            throws IOException {
+        appendable.append(indent)
+                .append(NaryTreeNodeUtils.VALUE_PRETTY_CHILDREN_PREFIX)
+                .append(text)
+                .append('\n');
+    }
+
+    /**
+     * Flushes an appendable if it can be flushed.
+     *
+     * @param appendable - the appendable which received the text
+     *
+     * @throws IOException if the appendable fails
+     */
+    static void flush(final Appendable appendable) throws IOException {
+        if (appendable instanceof Flushable) {
+            ((Flushable) appendable).flush();
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.am.treenode;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Converts the values of a tree to and from bytes, for the binary tree formats.
+ * Null values are handled by the formats themselves and are never passed to a codec.
+ * Equal values must have equal encodings, so that values can be searched by comparing their bytes.
+ *
+ * @param <E> the type of the converted values
+ */
+public interface NaryTreeValueCodec<E> {
+    /**
+     * Returns a codec of strings encoded in UTF-8.
+     *
+     * @return a codec of strings
+     */
+    static NaryTreeValueCodec<String> utf8() {
+        return NaryTreeValueCodecs.UTF8;
+    }
+
+    /**
+     * Returns a codec of integers encoded on 4 bytes.
+     *
+     * @return a codec of integers
+     */
+    static NaryTreeValueCodec<Integer> ints() {
+        return NaryTreeValueCodecs.INTS;
+    }
+
+    /**
+     * Returns a codec of longs encoded on 8 bytes.
+     *
+     * @return a codec of longs
+     */
+    static NaryTreeValueCodec<Long> longs() {
+        return NaryTreeValueCodecs.LONGS;
+    }
+
+    /**
+     * Returns the number of bytes of the encoding of a value.
+     *
+     * @param value - the encoded value, never null
+     *
+     * @return the size of the encoding
+     */
+    int size(E value);
+
+    /**
+     * Writes the encoding of a value at the position of a buffer, which has enough room for it.
+     *
+     * @param value  - the encoded value, never null
+     * @param buffer - the buffer receiving exactly {@link #size(Object)} bytes
+     */
+    void encode(E value, ByteBuffer buffer);
+
+    /**
+     * Reads a value from the remaining bytes of a buffer.
+     *
+     * @param buffer - the buffer whose remaining bytes are the encoding of the value
+     *
+     * @return the decoded value
+     */
+    E decode(ByteBuffer buffer);
+}
@@ -0,0 +1,91 @@
+package com.am.treenode;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The codecs returned by the factories of {@link NaryTreeValueCodec}.
+ */
+enum NaryTreeValueCodecs {
+    ;
+
+    static final NaryTreeValueCodec<String> UTF8 = new NaryTreeValueCodec<>() {
+        /**
+         * Counts the bytes of the encoding without encoding the value, which {@link #encode(String, ByteBuffer)}
+         * does next. An unpaired surrogate is encoded as a single replacement byte, as by
+         * {@link String#getBytes(java.nio.charset.Charset)}.
+         */
+        @Override
+        public int size(final String value) {
+            final int length = value.length();
+            int size = length;
+            for (int i = 0; i < length; i++) {
+                final char c = value.charAt(i);
+                if (c < 0x80) {
+                    continue;
+                }
+                if (c < 0x800) {
+                    size++;
+                } else if (!Character.isSurrogate(c)) {
+                    size += 2;
+                } else if (Character.isHighSurrogate(c) && i + 1 < length
+                        && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    // The two chars of a supplementary code point take 4 bytes.
+                    size += 2;
+                    i++;
+                }
+            }
+            return size;
+        }
+
+        @Override
+        public void encode(final String value, final ByteBuffer buffer) {
+            buffer.put(value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public String decode(final ByteBuffer buffer) {
+            if (buffer.hasArray()) {
+                return new String(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining(),
+                        StandardCharsets.UTF_8);
+            }
+            final byte[] bytes = new byte[buffer.remaining()];
+            buffer.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    };
+
+    static final NaryTreeValueCodec<Integer> INTS = new NaryTreeValueCodec<>() {
+        @Override
+        public int size(final Integer value) {
+            return Integer.BYTES;
+        }
+
+        @Override
+        public void encode(final Integer value, final ByteBuffer buffer) {
+            buffer.putInt(value);
+        }
+
+        @Override
+        public Integer decode(final ByteBuffer buffer) {
+            return buffer.getInt();
+        }
+    };
+
+    static final NaryTreeValueCodec<Long> LONGS = new NaryTreeValueCodec<>() {
+        @Override
+        public int size(final Long value) {
+            return Long.BYTES;
+        }
+
+        @Override
+        public void encode(final Long value, final ByteBuffer buffer) {
+            buffer.putLong(value);
+        }
+
+        @Override
+        public Long decode(final ByteBuffer buffer) {
+            return buffer.getLong();
+        }
+    };
+}
@@ -0,0 +1,324 @@
+package com.am.treenode;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.function.UnaryOperator;
+
+/**
+ * An immutable, persistent N-aryTree.
+ * A tree is never modified: {@link #plus(Object)}, {@link #minus(Object)} and their variants return a new version
+ * of the tree, which shares every untouched subtree with the previous version and only copies the nodes on the path
+ * from the changed node to the root. Versions can therefore be kept and read by any number of threads without
+ * locking, and {@link #snapshot()} is constant time.
+ * The size, height and number of leaves of each subtree are computed once, when its root is created.
+ * The {@link #add(Object)} and {@link #remove(Object)} methods throw {@link UnsupportedOperationException},
+ * and so do the mutators of the nodes returned by {@link #getNodeFromElement(Object)}.
+ *
+ * @param <E> the type elements held in this tree
+ */
+public final class PersistentNaryTree<E> extends AbstractNaryTree<E> {
+    private final PersistentNaryTreeNode<E> root;
+
+    /**
+     * Construct by default for the PersistentNaryTree.
+     */
+    public PersistentNaryTree() {
+        this((E) null);
+    }
+
+    /**
+     * Construct a PersistentNaryTree with a root element.
+     *
+     * @param root - the root element
+     */
+    public PersistentNaryTree(final E root) {
+        this(new PersistentNaryTreeNode<>(root));
+    }
+
+    private PersistentNaryTree(final PersistentNaryTreeNode<E> root) {
+        this.root = root;
+    }
+
+    /**
+     * Returns a persistent copy of a tree. The copy is linear in the size of the tree, and does not recurse.
+     *
+     * @param tree - the copied tree
+     * @param <E>  - the type of elements held in the tree
+     *
+     * @return a persistent tree holding the same values as the copied tree
+     */
+    public static <E> PersistentNaryTree<E> copyOf(final NaryTree<E> tree) {
+        return new PersistentNaryTree<>(PersistentNaryTree.copy(tree.getRootNode()));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E> PersistentNaryTreeNode<E> copy(final INaryTreeNode<E> root) {
+        // The copies of the children of the nodes of the stack, in order, the last ones belonging to the top node.
+        final List<PersistentNaryTreeNode<E>> copies = new ArrayList<>();
+        final NaryTreeStack<E> stack = new NaryTreeStack<>();
+        stack.push(root);
+        while (true) {
+            final INaryTreeNode<E> child = stack.nextChild();
+            if (child != null) {
+                stack.push(child);
+                continue;
+            }
+            final List<PersistentNaryTreeNode<E>> children = copies.subList(copies.size() - stack.taken(),
+                    copies.size());
+            final PersistentNaryTreeNode<E> copy = new PersistentNaryTreeNode<>(stack.pop().getValue(),
+                    (PersistentNaryTreeNode<E>[]) children.toArray(new PersistentNaryTreeNode<?>[0]));
+            children.clear();
+            if (stack.isEmpty()) {
+                return copy;
+            }
+            copies.add(copy);
+        }
+    }
+
+    /**
+     * Returns this tree. A persistent tree never changes, so it is its own snapshot.
+     *
+     * @return this tree
+     */
+    public PersistentNaryTree<E> snapshot() {
+        return this;
+    }
+
+    /**
+     * Returns a new version of this tree with the root holding another value.
+     *
+     * @param element - the new root element
+     *
+     * @return the new version of the tree
+     */
+    public PersistentNaryTree<E> withRoot(final E element) {
+        return new PersistentNaryTree<>(this.root.withValue(element));
+    }
+
+    /**
+     * Returns a new version of this tree with an element added as the last child of the root.
+     *
+     * @param element - the added element
+     *
+     * @return the new version of the tree
+     *
+     * @see INaryTree#add(Object)
+     */
+    public PersistentNaryTree<E> plus(final E element) {
+        return new PersistentNaryTree<>(this.root.withChild(new PersistentNaryTreeNode<>(element)));
+    }
+
+    /**
+     * Returns a new version of this tree with an element added as the last child of the first node, in prefix order,
+     * holding the parent element.
+     *
+     * @param parent  - the element held by the parent of the added element
+     * @param element - the added element
+     *
+     * @return the new version of the tree, or this tree if no node holds the parent element
+     */
+    public PersistentNaryTree<E> plus(final E parent, final E element) {
+        return this.update(parent, node -> node.withChild(new PersistentNaryTreeNode<>(element)));
+    }
+
+    /**
+     * Returns a new version of this tree without an element.
+     * As with {@link INaryTree#remove(Object)}, the root value is cleared if it is equal to the element,
+     * otherwise the subtree of the first child of the root holding the element is removed.
+     *
+     * @param element - the removed element
+     *
+     * @return the new version of the tree, or this tree if the element was not found
+     */
+    public PersistentNaryTree<E> minus(final Object element) {
+        final E value = this.root.getValue();
+        if (value != null && value.equals(element)) {
+            return this.withRoot(null);
+        }
+        final int index = this.root.indexOfChild(element);
+        return index < 0 ? this : new PersistentNaryTree<>(this.root.withoutChild(index));
+    }
+
+    /**
+     * Returns a new version of this tree without the subtree of the first child holding an element of the first node,
+     * in prefix order, holding the parent element.
+     *
+     * @param parent  - the element held by the parent of the removed element
+     * @param element - the removed element
+     *
+     * @return the new version of the tree, or this tree if the element was not found
+     */
+    public PersistentNaryTree<E> minus(final E parent, final Object element) {
+        return this.update(parent, node -> {
+            final int index = node.indexOfChild(element);
+            return index < 0 ? node : node.withoutChild(index);
+        });
+    }
+
+    /**
+     * Replaces the first node, in prefix order, holding an element, and copies the path from that node to the root.
+     *
+     * @param element - the element held by the replaced node
+     * @param update  - returns the replacement of the node
+     *
+     * @return the new version of the tree, or this tree if no node holds the element or the node was not replaced
+     */
+    private PersistentNaryTree<E> update(final Object element, final UnaryOperator<PersistentNaryTreeNode<E>> update) {
+        // The stack holds the path to the visited node, each level with the number of children taken so far.
+        final NaryTreeStack<E> stack = new NaryTreeStack<>();
+        INaryTreeNode<E> node = this.root;
+        while (!Objects.equals(node.getValue(), element)) {
+            stack.push(node);
+            node = null;
+            while (!stack.isEmpty() && (node = stack.nextChild()) == null) {
+                stack.pop();
+            }
+            if (node == null) {
+                return this;
+            }
+        }
+        PersistentNaryTreeNode<E> updated = update.apply((PersistentNaryTreeNode<E>) node);
+        if (updated == node) {
+            return this;
+        }
+        while (!stack.isEmpty()) {
+            final int index = stack.taken() - 1;
+            updated = ((PersistentNaryTreeNode<E>) stack.pop()).withChild(index, updated);
+        }
+        return new PersistentNaryTree<>(updated);
+    }
+
+    /**
+     * Returns the root node of this tree.
+     *
+     * @return the root node
+     */
+    @Override
+    PersistentNaryTreeNode<E> getRootNode() {
+        return this.root;
+    }
+
+    @Override
+    public E getRoot() {
+        return this.root.getValue();
+    }
+
+    /**
+     * Always throws {@link UnsupportedOperationException}: use {@link #plus(Object)} instead.
+     *
+     * @param element - element to be added
+     *
+     * @return never returns normally
+     */
+    @Override
+    public boolean add(final E element) {
+        throw new UnsupportedOperationException("A persistent tree cannot be modified, use plus instead");
+    }
+
+    /**
+     * Always throws {@link UnsupportedOperationException}: use {@link #minus(Object)} instead.
+     *
+     * @param element - element to be removed
+     *
+     * @return never returns normally
+     */
+    @Override
+    public boolean remove(final Object element) {
+        throw new UnsupportedOperationException("A persistent tree cannot be modified, use minus instead");
+    }
+
+    @Override
+    public String generateText() {
+        return this.root.generateText();
+    }
+
+    @Override
+    public boolean contains(final Object element) {
+        return this.root.contains(element);
+    }
+
+    @Override
+    public int getHeight() {
+        return this.root.getHeight();
+    }
+
+    @Override
+    public int size() {
+        return this.root.size();
+    }
+
+    @Override
+    public int getNumberOfLeaves() {
+        return this.root.getNumberOfLeaves();
+    }
+
+    @Override
+    public String toJson() {
+        return this.root.toJson();
+    }
+
+    @Override
+    public void toJson(final Writer writer) throws IOException {
+        this.root.toJson(writer);
+    }
+
+    @Override
+    public String toPrettyText() {
+        return this.root.toPrettyText();
+    }
+
+    @Override
+    public List<E> toPostfixList() {
+        return this.root.toPostfixList();
+    }
+
+    @Override
+    public List<E> toPrefixList() {
+        return this.root.toPrefixList();
+    }
+
+    @Override
+    public List<E> toByWidthList() {
+        return this.root.toByWidthList();
+    }
+
+    @Override
+    public Iterator<E> prefixIterator() {
+        return this.root.prefixIterator();
+    }
+
+    @Override
+    public Iterator<E> postfixIterator() {
+        return this.root.postfixIterator();
+    }
+
+    @Override
+    public Iterator<E> breadthFirstIterator() {
+        return this.root.breadthFirstIterator();
+    }
+
+    @Override
+    public INaryTree<E> getNodeFromElement(final E element) {
+        return this.root.getNodeFromElement(element);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return false;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return this.breadthFirstIterator();
+    }
+
+    @Override
+    public Spliterator<E> spliterator() {
+        return this.root.spliterator();
+    }
+}
@@ -0,0 +1,297 @@
+package com.am.treenode;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+
+/**
+ * An immutable node of a {@link PersistentNaryTree}.
+ * The value, the children and the size, height and number of leaves of the subtree are fixed at construction,
+ * so a node can be shared by any number of trees and read by any number of threads without locking.
+ * The mutators of {@link INaryTreeNode} throw {@link UnsupportedOperationException}: modified copies
+ * are created with the {@code with} methods instead.
+ *
+ * @param <E> the type parameter
+ */
+final class PersistentNaryTreeNode<E> implements INaryTreeNode<E> {
+    @SuppressWarnings("rawtypes")
+    private static final PersistentNaryTreeNode[] NO_CHILDREN = new PersistentNaryTreeNode[0];
+
+    private final E value;
+
+    private final PersistentNaryTreeNode<E>[] children;
+
+    private final int size;
+
+    private final int height;
+
+    private final int leaves;
+
+    /**
+     * Instantiates a new leaf PersistentNaryTreeNode.
+     *
+     * @param element - the value of the node
+     */
+    @SuppressWarnings("unchecked")
+    PersistentNaryTreeNode(final E element) {
+        this(element, PersistentNaryTreeNode.NO_CHILDREN);
+    }
+
+    /**
+     * Instantiates a new PersistentNaryTreeNode. The children array is not copied and must not be modified afterwards.
+     *
+     * @param element  - the value of the node
+     * @param children - the children of the node
+     */
+    PersistentNaryTreeNode(final E element, final PersistentNaryTreeNode<E>[] children) {
+        this.value = element;
+        this.children = children;
+        int size = 1;
+        int height = 0;
+        int leaves = 0;
+        for (final PersistentNaryTreeNode<E> child : children) {
+            size += child.size;
+            height = Math.max(height, child.height);
+            leaves += child.leaves;
+        }
+        this.size = size;
+        this.height = height + 1;
+        this.leaves = children.length == 0 ? 1 : leaves;
+    }
+
+    /**
+     * Returns a copy of this node holding another value, sharing the children of this node.
+     *
+     * @param element - the value of the copy
+     *
+     * @return the copy of this node
+     */
+    PersistentNaryTreeNode<E> withValue(final E element) {
+        return new PersistentNaryTreeNode<>(element, this.children);
+    }
+
+    /**
+     * Returns a copy of this node with an additional last child.
+     *
+     * @param child - the added child
+     *
+     * @return the copy of this node
+     */
+    PersistentNaryTreeNode<E> withChild(final PersistentNaryTreeNode<E> child) {
+        final PersistentNaryTreeNode<E>[] updated = Arrays.copyOf(this.children, this.children.length + 1);
+        updated[this.children.length] = child;
+        return new PersistentNaryTreeNode<>(this.value, updated);
+    }
+
+    /**
+     * Returns a copy of this node where a child is replaced.
+     *
+     * @param index - the index of the replaced child
+     * @param child - the new child
+     *
+     * @return the copy of this node
+     */
+    PersistentNaryTreeNode<E> withChild(final int index, final PersistentNaryTreeNode<E> child) {
+        final PersistentNaryTreeNode<E>[] updated = this.children.clone();
+        updated[index] = child;
+        return new PersistentNaryTreeNode<>(this.value, updated);
+    }
+
+    /**
+     * Returns a copy of this node without one of its children.
+     *
+     * @param index - the index of the removed child
+     *
+     * @return the copy of this node
+     */
+    PersistentNaryTreeNode<E> withoutChild(final int index) {
+        final PersistentNaryTreeNode<E>[] updated = Arrays.copyOf(this.children, this.children.length - 1);
+        System.arraycopy(this.children, index + 1, updated, index, this.children.length - index - 1);
+        return new PersistentNaryTreeNode<>(this.value, updated);
+    }
+
+    /**
+     * Returns the index of the first child holding a non-null value equal to the specified element, as matched by
+     * {@link INaryTree#remove(Object)}.
+     *
+     * @param element - the searched element
+     *
+     * @return the index of the child, or -1 if there is none
+     */
+    int indexOfChild(final Object element) {
+        for (int i = 0; i < this.children.length; i++) {
+            final E childValue = this.children[i].value;
+            if (childValue != null && childValue.equals(element)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public PersistentNaryTreeNode<E> getChild(final int index) {
+        return this.children[index];
+    }
+
+    @Override
+    public boolean add(final INaryTreeNode<E> node) {
+        throw new UnsupportedOperationException("A persistent tree cannot be modified");
+    }
+
+    @Override
+    public List<INaryTreeNode<E>> getChildren() {
+        return Collections.unmodifiableList(Arrays.asList(this.children));
+    }
+
+    @Override
+    public boolean isLeaf() {
+        return this.children.length == 0;
+    }
+
+    @Override
+    public boolean hasRandomAccessChildren() {
+        return true;
+    }
+
+    @Override
+    public int getChildrenCount() {
+        return this.children.length;
+    }
+
+    @Override
+    public E getValue() {
+        return this.value;
+    }
+
+    @Override
+    public void setValue(final E value) {
+        throw new UnsupportedOperationException("A persistent tree cannot be modified");
+    }
+
+    @Override
+    public E getRoot() {
+        return this.value;
+    }
+
+    @Override
+    public boolean add(final E element) {
+        throw new UnsupportedOperationException("A persistent tree cannot be modified");
+    }
+
+    @Override
+    public boolean remove(final Object element) {
+        throw new UnsupportedOperationException("A persistent tree cannot be modified");
+    }
+
+    @Override
+    public String generateText() {
+        return NaryTreeNode.generateText(this);
+    }
+
+    @Override
+    public boolean contains(final Object element) {
+        return NaryTreeNode.find(this, element, false, null) != null;
+    }
+
+    @Override
+    public int getHeight() {
+        return this.height;
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public int getNumberOfLeaves() {
+        return this.leaves;
+    }
+
+    @Override
+    public String toJson() {
+        final StringWriter writer = new StringWriter();
+        try {
+            this.toJson(writer);
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return writer.toString();
+    }
+
+    @Override
+    public void toJson(final Writer writer) throws IOException {
+        final NaryTreeJsonWriter<E> jsonWriter = new NaryTreeJsonWriter<>(writer);
+        this.walk(jsonWriter);
+        jsonWriter.flush();
+    }
+
+    @Override
+    public String toPrettyText() {
+        return NaryTreeNode.toPrettyText(this);
+    }
+
+    @Override
+    public List<E> toPostfixList() {
+        return NaryTreeNode.toList(this.postfixIterator(), this.size);
+    }
+
+    @Override
+    public List<E> toPrefixList() {
+        return NaryTreeNode.toList(this.prefixIterator(), this.size);
+    }
+
+    @Override
+    public List<E> toByWidthList() {
+        return NaryTreeNode.toList(this.breadthFirstIterator(), this.size);
+    }
+
+    @Override
+    public Iterator<E> prefixIterator() {
+        return NaryTreeIterator.prefix(this);
+    }
+
+    @Override
+    public Iterator<E> postfixIterator() {
+        return NaryTreeIterator.postfix(this);
+    }
+
+    @Override
+    public Iterator<E> breadthFirstIterator() {
+        return NaryTreeIterator.breadthFirst(this);
+    }
+
+    @Override
+    public INaryTree<E> getNodeFromElement(final E element) {
+        return NaryTreeNode.find(this, element, true, null);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return false;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return this.breadthFirstIterator();
+    }
+
+    @Override
+    public Spliterator<E> spliterator() {
+        return new NaryTreeSpliterator<>(this);
+    }
+
+    @Override
+    public String toString() {
+        return "PersistentNaryTreeNode{" +
+                "value=" + this.value +
+                ", children=" + Arrays.toString(this.children) +
+                '}';
+    }
+}
@@ -0,0 +1,63 @@
+package com.am.treenode;
+
+/**
+ * Receives a record of each instrumented operation of a {@link NaryTree}, see {@link NaryTree#setMetrics(TreeMetrics)}.
+ * The listener is called on the thread running the operation, after the operation completed, so it must be cheap
+ * and, if the tree is read from several threads, thread-safe.
+ * The same operations are also reported as {@code com.am.treenode.NaryTreeOperation} JDK Flight Recorder events
+ * while a recording enables them, with or without a listener.
+ */
+@FunctionalInterface
+public interface TreeMetrics {
+    /**
+     * The instrumented operations.
+     */
+    enum Operation {
+        /**
+         * {@link NaryTree#add(Object)}. Visits the added node.
+         */
+        ADD,
+        /**
+         * {@link NaryTree#remove(Object)}. Visits the root, and the children of the root, which are counted
+         * whether or not the search stopped before the last one.
+         */
+        REMOVE,
+        /**
+         * {@link NaryTree#contains(Object)}. Visits the nodes compared with the value, in prefix order,
+         * and no node when the tree is indexed.
+         */
+        CONTAINS,
+        /**
+         * {@link NaryTree#getNodeFromElement(Object)}. Visits the nodes compared with the value, in prefix order
+         * with the children of each node taken from the last one, and no node on an indexed tree.
+         */
+        GET_NODE_FROM_ELEMENT,
+        /**
+         * {@link NaryTree#toPrefixList()}, {@link NaryTree#toPostfixList()} and {@link NaryTree#toByWidthList()}.
+         * Visits every node.
+         */
+        TRAVERSAL,
+        /**
+         * {@link NaryTree#generateText()} and {@link NaryTree#writeText(Appendable)}. Visits every node.
+         */
+        TEXT,
+        /**
+         * {@link NaryTree#toPrettyText()} and {@link NaryTree#writePrettyText(Appendable, NaryTreeTextOptions)}.
+         * Visits every node, or at most the maximum number of nodes of the options.
+         */
+        PRETTY_TEXT,
+        /**
+         * {@link NaryTree#toJson()} and {@link NaryTree#toJson(java.io.Writer)}. Visits every node.
+         */
+        JSON
+    }
+
+    /**
+     * Called once an operation completed. The operations which throw an exception are not recorded.
+     *
+     * @param operation     - the operation
+     * @param durationNanos - the wall-clock duration of the operation, in nanoseconds
+     * @param visitedNodes  - the number of nodes visited by the operation
+     */
+    void record(Operation operation, long durationNanos, int visitedNodes);
+}
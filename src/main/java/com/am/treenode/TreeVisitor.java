@@ -0,0 +1,53 @@
+package com.am.treenode;
+
+/**
+ * Receives the values of the nodes of a tree during a depth-first walk, see {@link INaryTree#accept(TreeVisitor)}.
+ * Each node is entered before its children and left after them, and each callback decides how the walk goes on,
+ * so that a query only touches the nodes it needs. The depth of the root of the walk is 0.
+ *
+ * @param <E> the type of elements held in the visited tree
+ */
+public interface TreeVisitor<E> {
+    /**
+     * The decisions of a visitor on how the walk goes on.
+     */
+    enum Result {
+        /**
+         * Goes on with the walk.
+         */
+        CONTINUE,
+        /**
+         * When returned on entering a node, skips its children and does not leave the node.
+         * When returned on leaving a node, goes on with the walk.
+         */
+        SKIP_SUBTREE,
+        /**
+         * Stops the walk immediately: no other node is entered or left.
+         */
+        TERMINATE
+    }
+
+    /**
+     * Called when a node is entered, before any of its children.
+     *
+     * @param value - the value of the node
+     * @param depth - the depth of the node
+     *
+     * @return how the walk goes on
+     */
+    default Result enter(final E value, final int depth) {
+        return Result.CONTINUE;
+    }
+
+    /**
+     * Called when a node is left, after all of its children.
+     *
+     * @param value - the value of the node
+     * @param depth - the depth of the node
+     *
+     * @return how the walk goes on
+     */
+    default Result leave(final E value, final int depth) {
+        return Result.CONTINUE;
+    }
+}
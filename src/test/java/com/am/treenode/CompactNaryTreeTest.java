@@ -0,0 +1,110 @@
+package com.am.treenode;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactNaryTreeTest {
+
+    private static void fill(final INaryTree<String> tree) {
+        tree.add("B");
+        tree.add("C");
+        tree.getNodeFromElement("B").add("D");
+        tree.getNodeFromElement("B").add("E");
+        tree.getNodeFromElement("D").add("F");
+        tree.getNodeFromElement("C").add(null);
+    }
+
+    @Test
+    void sameResultsAsNaryTree() {
+        final INaryTree<String> expected = new NaryTree<>("A");
+        final INaryTree<String> tree = new CompactNaryTree<>("A", 2);
+        CompactNaryTreeTest.fill(expected);
+        CompactNaryTreeTest.fill(tree);
+        assertEquals(expected.toPrefixList(), tree.toPrefixList());
+        assertEquals(expected.toPostfixList(), tree.toPostfixList());
+        assertEquals(expected.toByWidthList(), tree.toByWidthList());
+        assertEquals(expected.toJson(), tree.toJson());
+        assertEquals(expected.generateText(), tree.generateText());
+        assertEquals(expected.size(), tree.size());
+        assertEquals(expected.getHeight(), tree.getHeight());
+        assertEquals(expected.getNumberOfLeaves(), tree.getNumberOfLeaves());
+        assertEquals(expected.toPrefixList(), tree.stream().collect(Collectors.toList()));
+        assertEquals(expected.getNodeFromElement("B").toPostfixList(), tree.getNodeFromElement("B").toPostfixList());
+        assertEquals(expected.getNodeFromElement("B").toByWidthList(), tree.getNodeFromElement("B").toByWidthList());
+        assertEquals(expected.getNodeFromElement("B").toJson(), tree.getNodeFromElement("B").toJson());
+        assertEquals(3, tree.getNodeFromElement("B").getHeight());
+        assertEquals(4, tree.getNodeFromElement("B").size());
+        assertEquals(2, tree.getNodeFromElement("B").getNumberOfLeaves());
+        assertTrue(tree.contains("F"));
+        assertTrue(tree.contains(null));
+        assertFalse(tree.contains("G"));
+        assertTrue(tree.remove("B"));
+        assertFalse(tree.contains("F"));
+        assertEquals(3, tree.size());
+        assertTrue(tree.remove("A"));
+        assertNull(tree.getRoot());
+    }
+
+    @Test
+    void indices() {
+        final CompactNaryTree<String> tree = new CompactNaryTree<>("A");
+        final int b = tree.addChild(CompactNaryTree.ROOT, "B");
+        final int c = tree.addChild(CompactNaryTree.ROOT, "C");
+        final int d = tree.addChild(b, "D");
+        assertEquals(b, tree.getFirstChild(CompactNaryTree.ROOT));
+        assertEquals(c, tree.getNextSibling(b));
+        assertEquals(CompactNaryTree.NONE, tree.getNextSibling(c));
+        assertEquals(b, tree.getParent(d));
+        assertEquals(d, tree.indexOf("D"));
+        tree.set(d, "E");
+        assertEquals("E", tree.get(d));
+        assertEquals(CompactNaryTree.NONE, tree.indexOf("D"));
+
+        // The slots of a removed subtree are reused.
+        assertTrue(tree.remove("B"));
+        assertThrows(IllegalArgumentException.class, () -> tree.get(d));
+        final int f = tree.addChild(c, "F");
+        final int g = tree.addChild(f, "G");
+        assertEquals(List.of(b, d), Arrays.asList(Math.min(f, g), Math.max(f, g)));
+        assertEquals(List.of("A", "C", "F", "G"), tree.toPrefixList());
+        assertEquals(4, tree.size());
+        assertEquals(1, tree.getNumberOfLeaves());
+    }
+
+    @Test
+    void addNode() {
+        final CompactNaryTree<String> tree = new CompactNaryTree<>("A");
+        CompactNaryTreeTest.fill(tree);
+        final NaryTreeNode<String> node = new NaryTreeNode<>("G");
+        node.add(new NaryTreeNode<>("H"));
+        ((INaryTreeNode<String>) tree.getNodeFromElement("C")).add(node);
+        assertEquals(Arrays.asList("A", "B", "D", "F", "E", "C", null, "G", "H"), tree.toPrefixList());
+        final INaryTreeNode<String> b = (INaryTreeNode<String>) tree.getNodeFromElement("B");
+        assertThrows(IllegalArgumentException.class,
+                () -> ((INaryTreeNode<String>) tree.getNodeFromElement("D")).add(b));
+        assertEquals("D", b.getChild(0).getValue());
+        assertEquals(2, b.getChildrenCount());
+    }
+
+    @Test
+    void deepTree() {
+        final int depth = 1_000_000;
+        final CompactNaryTree<Integer> tree = new CompactNaryTree<>(0);
+        for (int i = 1, node = CompactNaryTree.ROOT; i < depth; i++) {
+            node = tree.addChild(node, i);
+        }
+        assertEquals(depth, tree.size());
+        assertEquals(depth, tree.getHeight());
+        assertEquals(1, tree.getNumberOfLeaves());
+        assertEquals(depth - 1, tree.toPostfixList().get(0));
+        assertEquals(depth - 1, tree.getNodeFromElement(depth - 1).getRoot());
+        assertTrue(tree.toJson().endsWith("{\"value\":" + (depth - 1) + "}" + "]}".repeat(depth - 1)));
+        assertTrue(tree.remove(1));
+        assertEquals(1, tree.size());
+    }
+}
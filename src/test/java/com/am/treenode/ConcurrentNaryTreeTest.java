@@ -0,0 +1,187 @@
+package com.am.treenode;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentNaryTreeTest {
+
+    private static void fill(final INaryTree<String> tree) {
+        tree.add("B");
+        tree.add("C");
+        tree.getNodeFromElement("B").add("D");
+        tree.getNodeFromElement("B").add("E");
+        tree.getNodeFromElement("D").add("F");
+        tree.getNodeFromElement("C").add(null);
+    }
+
+    @Test
+    void sameResultsAsNaryTree() {
+        final INaryTree<String> expected = new NaryTree<>("A");
+        final INaryTree<String> tree = new ConcurrentNaryTree<>("A");
+        ConcurrentNaryTreeTest.fill(expected);
+        ConcurrentNaryTreeTest.fill(tree);
+        assertEquals(expected.toPrefixList(), tree.toPrefixList());
+        assertEquals(expected.toPostfixList(), tree.toPostfixList());
+        assertEquals(expected.toByWidthList(), tree.toByWidthList());
+        assertEquals(expected.toJson(), tree.toJson());
+        assertEquals(expected.generateText(), tree.generateText());
+        assertEquals(expected.size(), tree.size());
+        assertEquals(expected.getHeight(), tree.getHeight());
+        assertEquals(expected.getNumberOfLeaves(), tree.getNumberOfLeaves());
+        assertEquals(expected.toPrefixList(), tree.stream().collect(Collectors.toList()));
+        assertTrue(tree.contains("F"));
+        assertTrue(tree.contains(null));
+        assertFalse(tree.contains("G"));
+        assertTrue(tree.remove("B"));
+        assertFalse(tree.contains("F"));
+        assertEquals(3, tree.size());
+        assertTrue(tree.remove("A"));
+        assertNull(tree.getRoot());
+    }
+
+    @Test
+    void iteratorsAreWeaklyConsistent() {
+        final INaryTree<String> tree = new ConcurrentNaryTree<>("A");
+        ConcurrentNaryTreeTest.fill(tree);
+        final Iterator<String> iterator = tree.prefixIterator();
+        assertEquals("A", iterator.next());
+        assertEquals("B", iterator.next());
+        tree.remove("C");
+        tree.getNodeFromElement("E").add("G");
+        final List<String> rest = new ArrayList<>();
+        iterator.forEachRemaining(rest::add);
+        assertEquals(List.of("D", "F", "E", "G", "C", "null"),
+                rest.stream().map(String::valueOf).collect(Collectors.toList()));
+    }
+
+    @Test
+    void concurrentWritersAndReaders() throws Exception {
+        final int writers = 4;
+        final int additions = 2_000;
+        final ConcurrentNaryTree<String> tree = new ConcurrentNaryTree<>("root");
+        for (int i = 0; i < writers; i++) {
+            tree.add("writer" + i);
+        }
+        final ExecutorService executor = Executors.newFixedThreadPool(writers * 2);
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < writers; i++) {
+                final INaryTree<String> subtree = tree.getNodeFromElement("writer" + i);
+                final int writer = i;
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < additions; j++) {
+                        subtree.add(writer + "-" + j);
+                        if (j % 2 == 1) {
+                            subtree.remove(writer + "-" + (j - 1));
+                        }
+                    }
+                }));
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < 200; j++) {
+                        tree.toJson();
+                        assertTrue(tree.size() > writers);
+                        tree.forEach(value -> assertNotNull(value));
+                    }
+                }));
+            }
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(1 + writers + writers * additions / 2, tree.size());
+        assertEquals(writers * additions / 2, tree.getNumberOfLeaves());
+    }
+
+    @Test
+    void cachedAggregatesFollowWrites() {
+        final ConcurrentNaryTreeNode<Integer> root = new ConcurrentNaryTreeNode<>(0);
+        ConcurrentNaryTreeNode<Integer> last = root;
+        for (int i = 1; i < 2_000; i++) {
+            final ConcurrentNaryTreeNode<Integer> node = new ConcurrentNaryTreeNode<>(i);
+            last.add(node);
+            last = node;
+        }
+        assertEquals(2_000, root.size());
+        assertEquals(2_000, root.getHeight());
+        assertEquals(1, root.getNumberOfLeaves());
+        last.add(-1);
+        last.add(-2);
+        assertEquals(2_002, root.size());
+        assertEquals(2_001, root.getHeight());
+        assertEquals(2, root.getNumberOfLeaves());
+        assertTrue(last.remove(-1));
+        assertEquals(2_001, root.size());
+        assertEquals(1, root.getNumberOfLeaves());
+        final ConcurrentNaryTreeNode<Integer> middle = (ConcurrentNaryTreeNode<Integer>) root.getNodeFromElement(1_000);
+        assertTrue(((ConcurrentNaryTreeNode<Integer>) root.getNodeFromElement(999)).remove(1_000));
+        assertEquals(1_000, root.size());
+        assertEquals(1_001, middle.size());
+        assertTrue(root.add(middle));
+        assertEquals(2_001, root.size());
+        assertEquals(1_002, root.getHeight());
+        assertEquals(2, root.getNumberOfLeaves());
+    }
+
+    @Test
+    void rejectsCyclesAndSharedNodes() {
+        final ConcurrentNaryTreeNode<String> a = new ConcurrentNaryTreeNode<>("a");
+        final ConcurrentNaryTreeNode<String> b = new ConcurrentNaryTreeNode<>("b");
+        final ConcurrentNaryTreeNode<String> c = new ConcurrentNaryTreeNode<>("c");
+        assertTrue(a.add(b));
+        assertFalse(a.add(b));
+        assertThrows(IllegalArgumentException.class, () -> b.add(a));
+        assertThrows(IllegalArgumentException.class, () -> a.add(a));
+        assertTrue(b.add(c));
+        assertThrows(IllegalArgumentException.class, () -> c.add(a));
+        assertThrows(IllegalArgumentException.class, () -> a.add(c));
+        assertEquals("[a] ([b] ([c]))", a.generateText());
+        assertTrue(b.remove("c"));
+        assertTrue(a.add(c));
+        assertEquals("[a] ([b], [c])", a.generateText());
+        assertEquals(3, a.size());
+    }
+
+    @Test
+    void concurrentCrossAdditions() throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (int i = 0; i < 500; i++) {
+                final ConcurrentNaryTreeNode<Integer> first = new ConcurrentNaryTreeNode<>(1);
+                final ConcurrentNaryTreeNode<Integer> second = new ConcurrentNaryTreeNode<>(2);
+                final CyclicBarrier barrier = new CyclicBarrier(2);
+                final Future<Boolean> firstAdded = executor.submit(() -> {
+                    barrier.await();
+                    try {
+                        return first.add(second);
+                    } catch (final IllegalArgumentException e) {
+                        return false;
+                    }
+                });
+                final Future<Boolean> secondAdded = executor.submit(() -> {
+                    barrier.await();
+                    try {
+                        return second.add(first);
+                    } catch (final IllegalArgumentException e) {
+                        return false;
+                    }
+                });
+                assertTrue(firstAdded.get() ^ secondAdded.get());
+                assertEquals(2, first.size() + second.size() - 1);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
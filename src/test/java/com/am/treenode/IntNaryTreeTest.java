@@ -0,0 +1,43 @@
+package com.am.treenode;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntNaryTreeTest {
+
+    @Test
+    void primitives() {
+        final IntNaryTree tree = new IntNaryTree(1);
+        final int two = tree.addChild(IntNaryTree.ROOT, 2);
+        tree.addChild(IntNaryTree.ROOT, 3);
+        tree.addChild(two, 4);
+        assertArrayEquals(new int[]{1, 2, 4, 3}, tree.toPrefixArray());
+        assertTrue(tree.contains(4));
+        assertFalse(tree.contains(5));
+        assertEquals(two, tree.indexOf(2));
+        tree.setInt(two, 5);
+        assertEquals(5, tree.getInt(two));
+        assertTrue(tree.contains(5));
+        assertFalse(tree.contains(2));
+    }
+
+    @Test
+    void boxedValues() {
+        final IntNaryTree tree = new IntNaryTree(1);
+        tree.add(2);
+        tree.add(3);
+        tree.getNodeFromElement(2).add(4);
+        assertEquals(List.of(1, 2, 3, 4), tree.toByWidthList());
+        assertEquals("{\"value\":1,\"children\":[{\"value\":2,\"children\":[{\"value\":4}]},{\"value\":3}]}",
+                tree.toJson());
+        assertTrue(tree.contains((Object) 4));
+        assertFalse(tree.contains("4"));
+        assertThrows(NullPointerException.class, () -> tree.add(null));
+        assertThrows(UnsupportedOperationException.class, () -> tree.remove((Object) 1));
+        assertTrue(tree.remove((Object) 2));
+        assertEquals(2, tree.size());
+    }
+}
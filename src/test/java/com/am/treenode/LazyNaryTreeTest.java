@@ -0,0 +1,123 @@
+package com.am.treenode;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LazyNaryTreeTest {
+
+    /**
+     * The children of a complete 4-ary tree of 341 nodes, numbered in breadth first order.
+     */
+    private static List<Integer> children(final int value) {
+        final List<Integer> children = new ArrayList<>();
+        if (value < 85) {
+            for (int i = 1; i <= 4; i++) {
+                children.add(4 * value + i);
+            }
+        }
+        return children;
+    }
+
+    private static NaryTree<Integer> eager() {
+        final NaryTree<Integer> tree = new NaryTree<>(0);
+        final List<INaryTree<Integer>> nodes = new ArrayList<>(List.of(tree.getNodeFromElement(0)));
+        for (int i = 0; i < nodes.size(); i++) {
+            final INaryTree<Integer> node = nodes.get(i);
+            for (final Integer child : LazyNaryTreeTest.children(node.getRoot())) {
+                node.add(child);
+                nodes.add(node.getNodeFromElement(child));
+            }
+        }
+        return tree;
+    }
+
+    @Test
+    void loadsOnFirstAccess() {
+        final AtomicInteger loads = new AtomicInteger();
+        final Function<Integer, List<Integer>> loader = value -> {
+            loads.incrementAndGet();
+            return LazyNaryTreeTest.children(value);
+        };
+        final LazyNaryTree<Integer> tree = new LazyNaryTree<>(0, loader);
+        assertEquals(0, loads.get());
+        assertEquals(1, tree.getLoadedNodes());
+        final INaryTreeNode<Integer> root = tree.getRootNode();
+        assertEquals(4, root.getChildrenCount());
+        assertEquals(List.of(1, 2, 3, 4), root.getChildren().stream().map(INaryTreeNode::getValue).toList());
+        assertEquals(12, root.getChild(1).getChild(3).getValue());
+        assertEquals(2, loads.get());
+        assertEquals(9, tree.getLoadedNodes());
+    }
+
+    @Test
+    void sameResultsAsNaryTree() {
+        final NaryTree<Integer> expected = LazyNaryTreeTest.eager();
+        final LazyNaryTree<Integer> tree = new LazyNaryTree<>(0, LazyNaryTreeTest::children);
+        assertEquals(expected.toPrefixList(), tree.toPrefixList());
+        assertEquals(expected.toPostfixList(), tree.toPostfixList());
+        assertEquals(expected.toByWidthList(), tree.toByWidthList());
+        assertEquals(expected.generateText(), tree.generateText());
+        assertEquals(expected.toJson(), tree.toJson());
+        assertEquals(341, tree.size());
+        assertEquals(5, tree.getHeight());
+        assertEquals(256, tree.getNumberOfLeaves());
+        assertTrue(tree.contains(340));
+        assertFalse(tree.contains(341));
+        assertEquals(List.of(22, 89, 90, 91, 92), tree.getNodeFromElement(22).toPrefixList());
+    }
+
+    @Test
+    void evictsColdBranches() {
+        final AtomicInteger loads = new AtomicInteger();
+        final LazyNaryTree<Integer> tree = new LazyNaryTree<>(0, value -> {
+            loads.incrementAndGet();
+            return LazyNaryTreeTest.children(value);
+        }, 40);
+        assertEquals(LazyNaryTreeTest.eager().toPrefixList(), tree.toPrefixList());
+        assertTrue(tree.getLoadedNodes() <= 40, "loaded nodes: " + tree.getLoadedNodes());
+        assertEquals(341, loads.get());
+        // The aggregates are cached, so they are known without loading the evicted branches again.
+        assertEquals(341, tree.size());
+        final int afterSize = loads.get();
+        assertEquals(341, tree.size());
+        assertEquals(256, tree.getNumberOfLeaves());
+        assertEquals(afterSize, loads.get());
+        // Evicted branches are loaded again when they are visited.
+        assertEquals(LazyNaryTreeTest.eager().toPostfixList(), tree.toPostfixList());
+        assertTrue(loads.get() > afterSize);
+        assertTrue(tree.getLoadedNodes() <= 40, "loaded nodes: " + tree.getLoadedNodes());
+    }
+
+    @Test
+    void keepsModifiedBranches() {
+        final LazyNaryTree<Integer> tree = new LazyNaryTree<>(0, LazyNaryTreeTest::children, 20);
+        final Integer added = 1000;
+        tree.getNodeFromElement(21).add(added);
+        tree.getNodeFromElement(added).add(1001);
+        ((INaryTreeNode<Integer>) tree.getNodeFromElement(4)).setValue(-4);
+        assertTrue(tree.getNodeFromElement(5).remove(22));
+        assertEquals(338, tree.toPrefixList().size());
+        assertTrue(tree.contains(1001));
+        assertTrue(tree.contains(-4));
+        assertFalse(tree.contains(4));
+        assertFalse(tree.contains(22));
+        assertEquals(338, tree.size());
+        assertEquals(6, tree.getHeight());
+        assertEquals(253, tree.getNumberOfLeaves());
+        assertEquals(List.of(1000, 1001), tree.getNodeFromElement(added).toPrefixList());
+        // The children of a renamed node are kept, as the loader would not find them under the new value.
+        assertEquals(List.of(17, 18, 19, 20), ((INaryTreeNode<Integer>) tree.getNodeFromElement(-4)).getChildren()
+                .stream().map(INaryTreeNode::getValue).toList());
+    }
+
+    @Test
+    void invalidBudget() {
+        assertThrows(IllegalArgumentException.class, () -> new LazyNaryTree<>(0, LazyNaryTreeTest::children, 0));
+    }
+}
@@ -0,0 +1,27 @@
+package com.am.treenode;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongNaryTreeTest {
+
+    @Test
+    void primitives() {
+        final LongNaryTree tree = new LongNaryTree(1L << 40);
+        final int two = tree.addChild(LongNaryTree.ROOT, 2L);
+        tree.addChild(LongNaryTree.ROOT, 3L);
+        tree.addChild(two, 4L);
+        assertArrayEquals(new long[]{1L << 40, 2L, 4L, 3L}, tree.toPrefixArray());
+        assertTrue(tree.contains(4L));
+        assertFalse(tree.contains(5L));
+        assertEquals(two, tree.indexOf(2L));
+        tree.setLong(two, 5L);
+        assertEquals(5L, tree.getLong(two));
+        assertEquals(List.of(1L << 40, 5L, 3L, 4L), tree.toByWidthList());
+        assertTrue(tree.remove((Object) 5L));
+        assertArrayEquals(new long[]{1L << 40, 3L}, tree.toPrefixArray());
+    }
+}
@@ -0,0 +1,89 @@
+package com.am.treenode;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedNaryTreeTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void sameResultsAsNaryTree() throws IOException {
+        final INaryTree<String> expected = new NaryTree<>("A");
+        expected.add("B");
+        expected.add("C");
+        expected.getNodeFromElement("B").add("D");
+        expected.getNodeFromElement("B").add("É");
+        expected.getNodeFromElement("D").add("F");
+        expected.getNodeFromElement("C").add(null);
+        final Path path = this.directory.resolve("tree.bin");
+        MappedNaryTree.write(expected, path, NaryTreeValueCodec.utf8());
+        final MappedNaryTree<String> tree = MappedNaryTree.open(path, NaryTreeValueCodec.utf8());
+        assertEquals(expected.toPrefixList(), tree.toPrefixList());
+        assertEquals(expected.toPostfixList(), tree.toPostfixList());
+        assertEquals(expected.toByWidthList(), tree.toByWidthList());
+        assertEquals(expected.toJson(), tree.toJson());
+        assertEquals(expected.generateText(), tree.generateText());
+        assertEquals(expected.size(), tree.size());
+        assertEquals(expected.getHeight(), tree.getHeight());
+        assertEquals(expected.getNumberOfLeaves(), tree.getNumberOfLeaves());
+        assertEquals(expected.toPrefixList(), tree.parallelStream().collect(Collectors.toList()));
+        assertEquals(expected.getNodeFromElement("B").toPostfixList(), tree.getNodeFromElement("B").toPostfixList());
+        assertEquals(expected.getNodeFromElement("B").toJson(), tree.getNodeFromElement("B").toJson());
+        assertEquals("É", ((INaryTreeNode<String>) tree.getNodeFromElement("B")).getChild(1).getValue());
+        assertTrue(tree.contains("F"));
+        assertTrue(tree.contains("É"));
+        assertTrue(tree.contains(null));
+        assertFalse(tree.contains("G"));
+        assertFalse(tree.contains(1));
+        assertFalse(tree.getNodeFromElement("C").contains("F"));
+        assertThrows(UnsupportedOperationException.class, () -> tree.add("G"));
+        assertThrows(UnsupportedOperationException.class, () -> tree.getNodeFromElement("B").remove("D"));
+    }
+
+    @Test
+    void compactTree() throws IOException {
+        final IntNaryTree expected = new IntNaryTree(0);
+        for (int i = 1; i < 100_000; i++) {
+            expected.addChild(i / 7, i);
+        }
+        final Path path = this.directory.resolve("ints.bin");
+        MappedNaryTree.write(expected, path, NaryTreeValueCodec.ints());
+        final MappedNaryTree<Integer> tree = MappedNaryTree.open(path, NaryTreeValueCodec.ints());
+        assertEquals(expected.toPrefixList(), tree.toPrefixList());
+        assertEquals(expected.toByWidthList(), tree.toByWidthList());
+        assertEquals(expected.getHeight(), tree.getHeight());
+        assertEquals(expected.getNumberOfLeaves(), tree.getNumberOfLeaves());
+        assertEquals(99_999, tree.getNodeFromElement(99_999).getRoot());
+    }
+
+    @Test
+    void deepTree() throws IOException {
+        final int depth = 100_000;
+        final CompactNaryTree<Long> expected = new CompactNaryTree<>(0L);
+        for (int i = 1, node = CompactNaryTree.ROOT; i < depth; i++) {
+            node = expected.addChild(node, (long) i);
+        }
+        final Path path = this.directory.resolve("deep.bin");
+        MappedNaryTree.write(expected, path, NaryTreeValueCodec.longs());
+        final MappedNaryTree<Long> tree = MappedNaryTree.open(path, NaryTreeValueCodec.longs());
+        assertEquals(depth, tree.getHeight());
+        assertEquals(depth - 1, tree.toPostfixList().get(0));
+        assertEquals(expected.toJson(), tree.toJson());
+    }
+
+    @Test
+    void invalidFile() throws IOException {
+        final Path path = this.directory.resolve("invalid.bin");
+        Files.write(path, new byte[32]);
+        assertThrows(IOException.class, () -> MappedNaryTree.open(path, NaryTreeValueCodec.utf8()));
+    }
+}
@@ -0,0 +1,100 @@
+package com.am.treenode;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NaryTreeBinaryCodecTest {
+
+    private static <E> byte[] write(final NaryTreeBinaryCodec<E> codec, final INaryTree<E> tree) throws IOException {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        codec.write(tree, Channels.newChannel(output));
+        return output.toByteArray();
+    }
+
+    private static <E> NaryTree<E> read(final NaryTreeBinaryCodec<E> codec, final byte[] bytes) throws IOException {
+        return codec.read(Channels.newChannel(new ByteArrayInputStream(bytes)));
+    }
+
+    @Test
+    void roundTrip() throws IOException {
+        final INaryTree<String> tree = new NaryTree<>("A");
+        tree.add("B");
+        tree.add("C");
+        tree.getNodeFromElement("B").add("D");
+        tree.getNodeFromElement("B").add("É");
+        tree.getNodeFromElement("D").add("F");
+        tree.getNodeFromElement("C").add(null);
+        final NaryTreeBinaryCodec<String> codec = new NaryTreeBinaryCodec<>(NaryTreeValueCodec.utf8(), 16);
+        final byte[] bytes = NaryTreeBinaryCodecTest.write(codec, tree);
+        final NaryTree<String> read = NaryTreeBinaryCodecTest.read(codec, bytes);
+        assertEquals(tree.toJson(), read.toJson());
+        assertEquals(tree.size(), read.size());
+        assertEquals(tree.getHeight(), read.getHeight());
+        assertTrue(bytes.length * 3 < tree.toJson().length());
+    }
+
+    @Test
+    void largeValues() throws IOException {
+        final String large = "x".repeat(100);
+        final INaryTree<String> tree = new NaryTree<>(large);
+        tree.add("y");
+        tree.add(large + large);
+        final NaryTreeBinaryCodec<String> codec = new NaryTreeBinaryCodec<>(NaryTreeValueCodec.utf8(), 16);
+        assertEquals(tree.toPrefixList(),
+                NaryTreeBinaryCodecTest.read(codec, NaryTreeBinaryCodecTest.write(codec, tree)).toPrefixList());
+    }
+
+    @Test
+    void utf8Size() {
+        for (final String value : new String[]{"", "abc", "é", "€", "\uD83D\uDE00", "a\uD83Db", "\uDE00\uD83D",
+                "x\u07FF\u0800\uFFFF\uD800"}) {
+            assertEquals(value.getBytes(StandardCharsets.UTF_8).length, NaryTreeValueCodec.utf8().size(value), value);
+        }
+    }
+
+    @Test
+    void otherImplementations() throws IOException {
+        final IntNaryTree tree = new IntNaryTree(0);
+        for (int i = 1; i < 10_000; i++) {
+            tree.addChild(i / 3, i * 1000);
+        }
+        final NaryTreeBinaryCodec<Integer> codec = new NaryTreeBinaryCodec<>(NaryTreeValueCodec.ints());
+        final NaryTree<Integer> read = NaryTreeBinaryCodecTest.read(codec, NaryTreeBinaryCodecTest.write(codec, tree));
+        assertEquals(tree.toPrefixList(), read.toPrefixList());
+        assertEquals(tree.toByWidthList(), read.toByWidthList());
+    }
+
+    @Test
+    void deepTree() throws IOException {
+        final int depth = 100_000;
+        final CompactNaryTree<Long> tree = new CompactNaryTree<>(0L);
+        for (int i = 1, node = CompactNaryTree.ROOT; i < depth; i++) {
+            node = tree.addChild(node, (long) i);
+        }
+        final NaryTreeBinaryCodec<Long> codec = new NaryTreeBinaryCodec<>(NaryTreeValueCodec.longs());
+        final NaryTree<Long> read = NaryTreeBinaryCodecTest.read(codec, NaryTreeBinaryCodecTest.write(codec, tree));
+        assertEquals(depth, read.getHeight());
+        assertEquals(depth, read.size());
+    }
+
+    @Test
+    void malformed() throws IOException {
+        final NaryTreeBinaryCodec<String> codec = new NaryTreeBinaryCodec<>(NaryTreeValueCodec.utf8());
+        final INaryTree<String> tree = new NaryTree<>("A");
+        tree.add("B");
+        final byte[] bytes = NaryTreeBinaryCodecTest.write(codec, tree);
+        assertThrows(IOException.class,
+                () -> NaryTreeBinaryCodecTest.read(codec, Arrays.copyOf(bytes, bytes.length - 1)));
+        bytes[0] = 0;
+        assertThrows(StreamCorruptedException.class, () -> NaryTreeBinaryCodecTest.read(codec, bytes));
+    }
+}
@@ -0,0 +1,242 @@
+package com.am.treenode;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NaryTreeDiffTest {
+
+    private static NaryTree<String> tree(final String... edges) {
+        final NaryTree<String> tree = new NaryTree<>("r");
+        for (final String edge : edges) {
+            final String[] parentAndChild = edge.split(">");
+            // The values are interned, as the nodes are found by the identity of their value.
+            tree.getNodeFromElement(parentAndChild[0].intern()).add(parentAndChild[1].intern());
+        }
+        return tree;
+    }
+
+    private static <E> void assertApplies(final NaryTree<E> source, final NaryTree<E> target) {
+        final NaryTreeDiff<E> diff = NaryTreeDiff.between(source, target);
+        final NaryTree<E> edited = source.map(Function.identity());
+        diff.applyTo(edited);
+        assertEquals(target.generateText(), edited.generateText(), diff::toString);
+        assertEquals(target.size(), edited.size());
+        assertEquals(target.getHeight(), edited.getHeight());
+        assertEquals(target.getNumberOfLeaves(), edited.getNumberOfLeaves());
+        assertTrue(NaryTreeDiff.between(edited, target).isEmpty());
+    }
+
+    @Test
+    void identicalTrees() {
+        final NaryTree<String> source = tree("r>a", "r>b", "a>c");
+        final NaryTreeDiff<String> diff = NaryTreeDiff.between(source, source.map(Function.identity()));
+        assertTrue(diff.isEmpty());
+        assertEquals("[]", diff.toString());
+    }
+
+    @Test
+    void change() {
+        final NaryTree<String> source = tree("r>a", "r>b", "a>c", "c>d");
+        final NaryTree<String> target = source.map(Function.identity());
+        ((NaryTreeNode<String>) target.getNodeFromElement("d")).setValue("e");
+        final NaryTreeDiff<String> diff = NaryTreeDiff.between(source, target);
+        assertEquals("[CHANGE [0, 0, 0] e]", diff.toString());
+        final NaryTreeDiff.Edit<String> edit = diff.getEdits().get(0);
+        assertEquals(NaryTreeDiff.Edit.Type.CHANGE, edit.getType());
+        assertArrayEquals(new int[]{0, 0, 0}, edit.getPath());
+        assertNull(edit.getParentPath());
+        assertEquals(-1, edit.getIndex());
+        assertEquals("e", edit.getValue());
+        assertApplies(source, target);
+    }
+
+    @Test
+    void addAndRemove() {
+        final NaryTree<String> source = tree("r>a", "r>b", "a>c");
+        final NaryTree<String> target = tree("r>a", "r>b", "b>d", "d>e");
+        final NaryTreeDiff<String> diff = NaryTreeDiff.between(source, target);
+        assertEquals("[REMOVE [0, 0], ADD [1] 0 [d] ([e])]", diff.toString());
+        assertEquals("[d] ([e])", diff.getEdits().get(1).getSubtree().generateText());
+        assertApplies(source, target);
+        assertApplies(target, source);
+    }
+
+    @Test
+    void addedSubtreeIsCopied() {
+        final NaryTree<String> source = tree("r>a");
+        final NaryTree<String> target = tree("r>a", "r>b", "b>c", "b>d");
+        final NaryTreeDiff<String> diff = NaryTreeDiff.between(source, target);
+        final NaryTreeDiff.Edit<String> edit = diff.getEdits().get(0);
+        assertEquals(List.of("b", "c", "d"), edit.getSubtreeValues());
+        assertArrayEquals(new int[]{-1, 0, 0}, edit.getSubtreeParents());
+        target.getNodeFromElement("b").add("e");
+        ((NaryTreeNode<String>) target.getNodeFromElement("c")).setValue("f");
+        assertEquals("[ADD [] 1 [b] ([c], [d])]", diff.toString());
+        diff.applyTo(source);
+        assertEquals("[r] ([a], [b] ([c], [d]))", source.generateText());
+        assertNull(diff.getEdits().get(0).getPath());
+    }
+
+    @Test
+    void hashDoesNotDependOnTheJvm() {
+        final NaryTree<Object> tree = new NaryTree<>("r");
+        tree.add(1);
+        tree.add(TimeUnit.SECONDS);
+        tree.getNodeFromElement(1).add(2L);
+        tree.add(null);
+        // Computed once: the hash only depends on the values, the names of their classes and the shape.
+        assertEquals(6266312588659056540L, NaryTreeHashes.hash(tree.getRootNode(), new IdentityHashMap<>()));
+    }
+
+    @Test
+    void reorder() {
+        final NaryTree<String> source = tree("r>c", "r>a", "r>b", "a>x");
+        final NaryTree<String> target = tree("r>a", "r>b", "r>c", "a>x");
+        assertEquals("[MOVE [0] [] 2]", NaryTreeDiff.between(source, target).toString());
+        assertApplies(source, target);
+        assertApplies(target, source);
+    }
+
+    @Test
+    void moveAcrossParents() {
+        final NaryTree<String> source = tree("r>a", "r>b", "a>c", "c>d", "c>e");
+        final NaryTree<String> target = tree("r>a", "r>b", "b>c", "c>d", "c>e");
+        final NaryTreeDiff<String> diff = NaryTreeDiff.between(source, target);
+        assertEquals("[MOVE [0, 0] [1] 0]", diff.toString());
+        assertArrayEquals(new int[]{0, 0}, diff.getEdits().get(0).getPath());
+        assertArrayEquals(new int[]{1}, diff.getEdits().get(0).getParentPath());
+        assertApplies(source, target);
+        assertApplies(target, source);
+    }
+
+    @Test
+    void rootChange() {
+        final NaryTree<String> source = tree("r>a");
+        final NaryTree<String> target = new NaryTree<>("s");
+        assertEquals("[CHANGE [] s, REMOVE [0]]", NaryTreeDiff.between(source, target).toString());
+        assertApplies(source, target);
+        assertApplies(target, source);
+    }
+
+    @Test
+    void otherImplementations() {
+        final NaryTree<String> source = tree("r>a", "r>b", "a>c");
+        final PersistentNaryTree<String> target = PersistentNaryTree.copyOf(tree("r>a", "r>b", "b>c"));
+        final NaryTreeDiff<String> diff = NaryTreeDiff.between(source, target);
+        assertEquals("[MOVE [0, 0] [1] 0]", diff.toString());
+        final NaryTree<String> edited = source.map(Function.identity());
+        diff.applyTo(edited);
+        assertEquals(target.generateText(), edited.generateText());
+        assertTrue(NaryTreeDiff.between(target, edited).isEmpty());
+    }
+
+    @Test
+    void applyToAnotherTree() {
+        final NaryTree<String> source = tree("r>a", "r>b");
+        final NaryTreeDiff<String> diff = NaryTreeDiff.between(source, tree("r>b"));
+        assertThrows(IllegalArgumentException.class, () -> diff.applyTo(tree("r>b", "r>a")));
+        assertThrows(IllegalArgumentException.class, () -> diff.applyTo(tree("r>a")));
+        diff.applyTo(source);
+        assertEquals("[r] ([b])", source.generateText());
+        assertThrows(IllegalArgumentException.class, () -> diff.applyTo(source));
+    }
+
+    @Test
+    void hashFollowsChanges() {
+        final NaryTree<String> source = tree("r>a", "r>b", "a>c");
+        final NaryTree<String> target = source.map(Function.identity());
+        assertTrue(NaryTreeDiff.between(source, target).isEmpty());
+        target.getNodeFromElement("c").add("d");
+        assertEquals(1, NaryTreeDiff.between(source, target).getEdits().size());
+        target.removeSubtree("d");
+        assertTrue(NaryTreeDiff.between(source, target).isEmpty());
+        target.removeIf("c"::equals);
+        assertEquals("[REMOVE [0, 0]]", NaryTreeDiff.between(source, target).toString());
+    }
+
+    @Test
+    void randomChanges() {
+        final Random random = new Random(7);
+        for (int round = 0; round < 200; round++) {
+            final int size = 1 + random.nextInt(60);
+            final List<Integer> values = new ArrayList<>(size);
+            final int[] parents = new int[size];
+            for (int i = 0; i < size; i++) {
+                values.add(random.nextInt(size));
+                parents[i] = i == 0 ? -1 : random.nextInt(i);
+            }
+            final NaryTree<Integer> source = NaryTree.bulkLoad(values, parents, false, NaryTreeChildStorage.ARRAY);
+            final NaryTree<Integer> target = source.map(Function.identity());
+            final int changes = random.nextInt(8);
+            for (int i = 0; i < changes; i++) {
+                NaryTreeDiffTest.change(target, random);
+            }
+            NaryTreeDiffTest.assertApplies(source, target);
+        }
+    }
+
+    private static void change(final NaryTree<Integer> tree, final Random random) {
+        final List<NaryTreeNode<Integer>> nodes = new ArrayList<>();
+        NaryTreeDiffTest.collect(tree.getRootNode(), nodes);
+        final NaryTreeNode<Integer> node = nodes.get(random.nextInt(nodes.size()));
+        final NaryTreeNode<Integer> parent = node.getParent();
+        switch (random.nextInt(4)) {
+            case 0:
+                node.setValue(random.nextInt(100));
+                break;
+            case 1:
+                node.insert(random.nextInt(node.getChildrenCount() + 1), new NaryTreeNode<>(random.nextInt(100)));
+                break;
+            case 2:
+                if (parent != null) {
+                    parent.removeChild(node);
+                }
+                break;
+            default:
+                if (parent != null) {
+                    parent.removeChild(node);
+                    final List<NaryTreeNode<Integer>> remaining = new ArrayList<>();
+                    NaryTreeDiffTest.collect(tree.getRootNode(), remaining);
+                    final NaryTreeNode<Integer> newParent = remaining.get(random.nextInt(remaining.size()));
+                    newParent.insert(random.nextInt(newParent.getChildrenCount() + 1), node);
+                }
+        }
+    }
+
+    private static void collect(final INaryTreeNode<Integer> node, final List<NaryTreeNode<Integer>> nodes) {
+        nodes.add((NaryTreeNode<Integer>) node);
+        for (int i = 0; i < node.getChildrenCount(); i++) {
+            NaryTreeDiffTest.collect(node.getChild(i), nodes);
+        }
+    }
+
+    @Test
+    void largeTreeSmallChange() {
+        final int size = 100_000;
+        final List<Integer> values = new ArrayList<>(size);
+        final int[] parents = new int[size];
+        final Random random = new Random(11);
+        for (int i = 0; i < size; i++) {
+            values.add(i);
+            parents[i] = i == 0 ? -1 : random.nextInt(i);
+        }
+        final NaryTree<Integer> source = NaryTree.bulkLoad(values, parents);
+        final NaryTree<Integer> target = source.map(Function.identity());
+        assertTrue(NaryTreeDiff.between(source, target).isEmpty());
+        ((NaryTreeNode<Integer>) target.getNodeFromElement(values.get(size - 1))).setValue(-1);
+        target.getNodeFromElement(values.get(size / 2)).add(-2);
+        final NaryTreeDiff<Integer> diff = NaryTreeDiff.between(source, target);
+        assertEquals(2, diff.getEdits().size(), diff::toString);
+        diff.applyTo(source);
+        assertTrue(NaryTreeDiff.between(source, target).isEmpty());
+        assertTrue(source.contains(-2));
+    }
+}
@@ -1,9 +1,20 @@
 package com.am.treenode;
 
+import com.google.gson.Gson;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -150,6 +161,43 @@ class NaryTreeNodeTest {
         assertEquals(1, treeNode.getNumberOfLeaves());
     }
 
+    @Test
+    public void aggregatesAreMaintained() {
+        final NaryTreeNode<String> a = NaryTreeNodeTest.createTestTreeNode();
+        final NaryTreeNode<String> d = (NaryTreeNode<String>) a.getChild(0).getChild(0);
+        assertEquals(13, a.size());
+        assertEquals(4, a.getHeight());
+        assertEquals(9, a.getNumberOfLeaves());
+        d.getChild(0).add("N");
+        assertEquals(14, a.size());
+        assertEquals(5, a.getHeight());
+        assertEquals(9, a.getNumberOfLeaves());
+        assertEquals(3, a.getChild(0).getChild(0).getHeight());
+        a.getChild(0).remove("D");
+        assertEquals(9, a.size());
+        assertEquals(3, a.getHeight());
+        assertEquals(6, a.getNumberOfLeaves());
+        a.remove("C");
+        assertEquals(5, a.size());
+        assertEquals(3, a.getHeight());
+        assertEquals(3, a.getNumberOfLeaves());
+        assertNull(d.getParent());
+        assertEquals(5, d.size());
+    }
+
+    @Test
+    public void parent() {
+        final NaryTreeNode<String> treeNode = new NaryTreeNode<>("root");
+        final NaryTreeNode<String> child = new NaryTreeNode<>("child");
+        assertNull(treeNode.getParent());
+        assertTrue(treeNode.add(child));
+        assertSame(treeNode, child.getParent());
+        assertFalse(treeNode.add(child));
+        assertThrows(IllegalArgumentException.class, () -> new NaryTreeNode<String>().add(child));
+        assertThrows(IllegalArgumentException.class, () -> child.add(treeNode));
+        assertThrows(IllegalArgumentException.class, () -> child.add(child));
+    }
+
     @Test
     public void toJson() {
         final NaryTreeNode<String> treeNode = new NaryTreeNode<>("root");
@@ -164,6 +212,35 @@ class NaryTreeNodeTest {
                 treeNode.toJson());
     }
 
+    @Test
+    public void toJsonStreaming() throws IOException {
+        final NaryTreeNode<String> a = NaryTreeNodeTest.createTestTreeNode();
+        a.getChild(1).add((String) null);
+        a.getChild(1).add("<quoted \"value\">");
+        final String expected = a.toJson();
+        final StringWriter writer = new StringWriter();
+        a.toJson(writer);
+        assertEquals(expected, writer.toString());
+        final StringBuilder builder = new StringBuilder();
+        a.toJson(builder);
+        assertEquals(expected, builder.toString());
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        a.toJson(outputStream);
+        assertEquals(expected, outputStream.toString(StandardCharsets.UTF_8));
+        assertTrue(expected.contains("{\"value\":null}"));
+        assertTrue(expected.contains(new Gson().toJson("<quoted \"value\">")));
+    }
+
+    @Test
+    public void toJsonDeepTree() throws IOException {
+        final int depth = 100_000;
+        final NaryTreeNode<Integer> root = NaryTreeNodeTest.createChain(depth);
+        final StringWriter writer = new StringWriter();
+        root.toJson(writer);
+        assertTrue(writer.toString().startsWith("{\"value\":0,\"children\":[{\"value\":1,"));
+        assertTrue(writer.toString().endsWith("{\"value\":" + (depth - 1) + "}" + "]}".repeat(depth - 1)));
+    }
+
     @Test
     public void testToString() {
         final NaryTreeNode<String> treeNode = new NaryTreeNode<>("root");
@@ -246,6 +323,16 @@ class NaryTreeNodeTest {
         assertEquals(postFixListExpected, a.toPostfixList());
     }
 
+    private static NaryTreeNode<Integer> createChain(final int depth) {
+        NaryTreeNode<Integer> node = new NaryTreeNode<>(depth - 1);
+        for (int i = depth - 2; i >= 0; i--) {
+            final NaryTreeNode<Integer> parent = new NaryTreeNode<>(i);
+            parent.add(node);
+            node = parent;
+        }
+        return node;
+    }
+
     private static NaryTreeNode<String> createTestTreeNode() {
         final NaryTreeNode<String> a = new NaryTreeNode<>("A");
         final NaryTreeNode<String> b = new NaryTreeNode<>("B");
@@ -290,6 +377,102 @@ class NaryTreeNodeTest {
         assertEquals(byWidthListExpected, a.toByWidthList());
     }
 
+    @Test
+    void iterators() {
+        final INaryTree<String> a = NaryTreeNodeTest.createTestTreeNode();
+        final List<String> prefix = new LinkedList<>();
+        final List<String> postfix = new LinkedList<>();
+        final List<String> byWidth = new LinkedList<>();
+        a.prefixIterator().forEachRemaining(prefix::add);
+        a.postfixIterator().forEachRemaining(postfix::add);
+        a.breadthFirstIterator().forEachRemaining(byWidth::add);
+        assertEquals(a.toPrefixList(), prefix);
+        assertEquals(a.toPostfixList(), postfix);
+        assertEquals(a.toByWidthList(), byWidth);
+        final Iterator<String> leaf = new NaryTreeNode<>("leaf").postfixIterator();
+        assertEquals("leaf", leaf.next());
+        assertFalse(leaf.hasNext());
+        assertThrows(NoSuchElementException.class, leaf::next);
+    }
+
+    @Test
+    void iteratorsDeepTree() {
+        final int depth = 100_000;
+        final NaryTreeNode<Integer> root = NaryTreeNodeTest.createChain(depth);
+        final Iterator<Integer> prefix = root.prefixIterator();
+        final Iterator<Integer> postfix = root.postfixIterator();
+        final Iterator<Integer> byWidth = root.breadthFirstIterator();
+        for (int i = 0; i < depth; i++) {
+            assertEquals(i, prefix.next());
+            assertEquals(depth - 1 - i, postfix.next());
+            assertEquals(i, byWidth.next());
+        }
+        assertFalse(prefix.hasNext());
+        assertFalse(postfix.hasNext());
+        assertFalse(byWidth.hasNext());
+        assertEquals(depth, root.toPrefixList().size());
+    }
+
+    @Test
+    void iteratorsLinkedChildren() {
+        final Random random = new Random(9);
+        final List<Integer> values = new ArrayList<>();
+        final int[] parents = new int[500];
+        for (int i = 0; i < parents.length; i++) {
+            values.add(i);
+            parents[i] = i == 0 ? -1 : random.nextInt(i);
+        }
+        final NaryTree<Integer> array = NaryTree.bulkLoad(values, parents, false, NaryTreeChildStorage.ARRAY);
+        final NaryTree<Integer> linked = NaryTree.bulkLoad(values, parents, false, NaryTreeChildStorage.LINKED);
+        assertEquals(array.toPrefixList(), linked.toPrefixList());
+        assertEquals(array.toPostfixList(), linked.toPostfixList());
+        assertEquals(array.toByWidthList(), linked.toByWidthList());
+    }
+
+    @Test
+    void stream() {
+        final NaryTreeNode<String> a = NaryTreeNodeTest.createTestTreeNode();
+        assertEquals(a.toPrefixList(), a.stream().collect(Collectors.toList()));
+        assertEquals(a.toPrefixList(), a.parallelStream().collect(Collectors.toList()));
+        assertEquals(13, a.parallelStream().count());
+        assertEquals(Spliterator.SIZED | Spliterator.SUBSIZED,
+                a.spliterator().characteristics() & (Spliterator.SIZED | Spliterator.SUBSIZED));
+    }
+
+    @Test
+    void spliteratorSplitsAlongSubtrees() {
+        final NaryTreeNode<String> a = NaryTreeNodeTest.createTestTreeNode();
+        final Spliterator<String> suffix = a.spliterator();
+        final Spliterator<String> prefix = suffix.trySplit();
+        assertEquals(a.size(), prefix.estimateSize() + suffix.estimateSize());
+        assertEquals(9, prefix.estimateSize());
+        final List<String> values = new LinkedList<>();
+        prefix.forEachRemaining(values::add);
+        assertEquals(List.of("A", "B", "D", "K", "L", "M", "E", "F", "G"), values);
+        assertTrue(suffix.tryAdvance(values::add));
+        assertEquals(3, suffix.estimateSize());
+        suffix.forEachRemaining(values::add);
+        assertEquals(a.toPrefixList(), values);
+    }
+
+    @Test
+    void parallelStreamLargeTree() {
+        final NaryTreeNode<Integer> root = new NaryTreeNode<>(0);
+        int value = 1;
+        for (int i = 0; i < 100; i++) {
+            final NaryTreeNode<Integer> child = new NaryTreeNode<>(value++);
+            for (int j = 0; j < 1000; j++) {
+                child.add(value++);
+            }
+            root.add(child);
+        }
+        final NaryTreeNode<Integer> chain = NaryTreeNodeTest.createChain(10_000);
+        root.add(chain);
+        assertEquals(root.toPrefixList(), root.parallelStream().collect(Collectors.toList()));
+        assertEquals(root.stream().mapToLong(Integer::longValue).sum(),
+                root.parallelStream().mapToLong(Integer::longValue).sum());
+    }
+
     @Test
     void getNodeFromElement() {
         final NaryTreeNode<String> a = NaryTreeNodeTest.createTestTreeNode();
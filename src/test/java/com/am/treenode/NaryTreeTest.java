@@ -1,6 +1,32 @@
 package com.am.treenode;
 
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.MalformedJsonException;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Type;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -30,4 +56,1068 @@ class NaryTreeTest {
         tree.remove("root");
         assertFalse(tree.contains("root"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void indexedContains() {
+        INaryTree<String> tree = new NaryTree<>("root", true);
+        tree.add("child1");
+        assertTrue(tree.contains("root"));
+        assertTrue(tree.contains("child1"));
+        assertFalse(tree.contains("child2"));
+        tree.getNodeFromElement("child1").add("subChild1");
+        assertTrue(tree.contains("subChild1"));
+        tree.remove("child1");
+        assertFalse(tree.contains("child1"));
+        assertFalse(tree.contains("subChild1"));
+        tree.remove("root");
+        assertFalse(tree.contains("root"));
+        assertTrue(tree.contains(null));
+    }
+
+    @Test
+    void indexedGetNodeFromElement() {
+        INaryTree<String> tree = new NaryTree<>("root", true);
+        tree.add("child1");
+        tree.add("child2");
+        INaryTree<String> child1 = tree.getNodeFromElement("child1");
+        INaryTree<String> child2 = tree.getNodeFromElement("child2");
+        assertEquals("child1", child1.getRoot());
+        assertEquals("child2", child2.getRoot());
+        assertNull(tree.getNodeFromElement("child3"));
+        child2.add("duplicate");
+        child1.add("duplicate");
+        // The children are searched from the last one to the first one.
+        assertSame(child2.getNodeFromElement("duplicate"), tree.getNodeFromElement("duplicate"));
+        child2.remove("duplicate");
+        assertSame(child1.getNodeFromElement("duplicate"), tree.getNodeFromElement("duplicate"));
+    }
+
+    @Test
+    void searchSemantics() {
+        for (final boolean indexed : new boolean[]{false, true}) {
+            final NaryTree<String> tree = new NaryTree<>("a", indexed);
+            tree.add(null);
+            tree.add("c");
+            tree.getNodeFromElement(null).add("b");
+            // A node holding null hides its subtree from contains, but not from getNodeFromElement.
+            assertTrue(tree.contains(null));
+            assertTrue(tree.contains("c"));
+            assertFalse(tree.contains("b"));
+            assertEquals("b", tree.getNodeFromElement("b").getRoot());
+            // contains compares the values, getNodeFromElement searches the value itself.
+            final String copy = new String("c");
+            assertTrue(tree.contains(copy));
+            assertNull(tree.getNodeFromElement(copy));
+        }
+    }
+
+    @Test
+    void indexedDuplicatesInSearchOrder() {
+        final Random random = new Random(5);
+        final List<Integer> values = new ArrayList<>();
+        final int[] parents = new int[2_000];
+        for (int i = 0; i < parents.length; i++) {
+            values.add(random.nextInt(20));
+            parents[i] = i == 0 ? -1 : random.nextInt(i);
+        }
+        final NaryTree<Integer> tree = NaryTree.bulkLoad(values, parents, true, NaryTreeChildStorage.ARRAY);
+        final INaryTreeNode<Integer> root = tree.getRootNode();
+        for (int round = 0; round < 500; round++) {
+            final int value = random.nextInt(22);
+            assertSame(root.getNodeFromElement(value), tree.getNodeFromElement(value));
+            final INaryTreeNode<Integer> node = (INaryTreeNode<Integer>) tree.getNodeFromElement(random.nextInt(20));
+            if (node == null) {
+                continue;
+            }
+            switch (random.nextInt(4)) {
+                case 0:
+                    node.add(random.nextInt(22));
+                    break;
+                case 1:
+                    ((NaryTreeNode<Integer>) node).insert(0, new NaryTreeNode<>(random.nextInt(22)));
+                    break;
+                case 2:
+                    node.setValue(random.nextInt(22));
+                    break;
+                default:
+                    tree.removeSubtree(random.nextInt(22));
+            }
+        }
+    }
+
+    @Test
+    void childStorage() {
+        for (NaryTreeChildStorage childStorage : NaryTreeChildStorage.values()) {
+            INaryTree<String> tree = new NaryTree<>("root", false, childStorage);
+            tree.add("child1");
+            tree.add("child2");
+            tree.getNodeFromElement("child1").add("subChild1");
+            assertEquals(List.of("root", "child1", "child2", "subChild1"), tree.toByWidthList());
+            assertTrue(tree.remove("child1"));
+            assertEquals(List.of("root", "child2"), tree.toByWidthList());
+        }
+    }
+
+    @Test
+    void fromJson() throws IOException {
+        INaryTree<String> tree = new NaryTree<>("root");
+        tree.add("child1");
+        tree.add(null);
+        tree.getNodeFromElement("child1").add("subChild1");
+        tree.getNodeFromElement("child1").add("<subChild2>");
+        String json = tree.toJson();
+        INaryTree<String> read = NaryTree.fromJson(new StringReader(json), String.class);
+        assertEquals(json, read.toJson());
+        assertEquals(tree.toPrefixList(), read.toPrefixList());
+        assertEquals(5, read.size());
+        assertEquals(3, read.getHeight());
+        assertEquals(3, read.getNumberOfLeaves());
+    }
+
+    @Test
+    void fromJsonGenericValues() throws IOException {
+        String json = "{\"children\":[{\"value\":[3,4],\"other\":{\"value\":1}}],\"value\":[1,2]}";
+        Type type = new TypeToken<List<Integer>>() {}.getType();
+        INaryTree<List<Integer>> read = NaryTree.fromJson(new StringReader(json), type);
+        assertEquals(List.of(List.of(1, 2), List.of(3, 4)), read.toPrefixList());
+    }
+
+    @Test
+    void fromJsonDeepTree() throws IOException {
+        int depth = 100_000;
+        String json = "{\"value\":0,\"children\":[".repeat(depth - 1) + "{\"value\":0}" + "]}".repeat(depth - 1);
+        INaryTree<Integer> read = NaryTree.fromJson(new StringReader(json), Integer.class);
+        assertEquals(depth, read.size());
+        assertEquals(depth, read.getHeight());
+        assertEquals(1, read.getNumberOfLeaves());
+    }
+
+    @Test
+    void fromJsonMalformed() {
+        assertThrows(IOException.class, () -> NaryTree.fromJson(new StringReader("{\"value\":"), String.class));
+    }
+
+    @Test
+    void fromJsonWrongTokens() {
+        for (final String json : List.of("[]", "\"root\"", "{\"children\":{}}", "{\"children\":[1]}",
+                "{\"value\":1,\"children\":[[]]}", "{\"value\":[1]}")) {
+            assertThrows(MalformedJsonException.class, () -> NaryTree.fromJson(new StringReader(json), Integer.class),
+                    json);
+        }
+    }
+
+    @Test
+    void fromText() throws IOException {
+        final NaryTree<String> tree = new NaryTree<>("root");
+        tree.add("a b");
+        tree.add("c]");
+        tree.getNodeFromElement("a b").add(null);
+        tree.getNodeFromElement("a b").add("d");
+        tree.getNodeFromElement("d").add("e");
+        final NaryTree<String> read = NaryTree.fromText(new StringReader(tree.generateText()));
+        assertEquals(tree.generateText(), read.generateText());
+        assertEquals(tree.toPrefixList(), read.toPrefixList());
+        assertEquals(List.of(1, 2, 3), NaryTree.fromText(new StringReader(" [1]\n(\n  [2],\n  [3]\n)\n"),
+                Integer::valueOf).toPrefixList());
+    }
+
+    @Test
+    void fromTextDeepTree() throws IOException {
+        int depth = 100_000;
+        String text = "[0] (".repeat(depth - 1) + "[0]" + ")".repeat(depth - 1);
+        INaryTree<Integer> read = NaryTree.fromText(new StringReader(text), Integer::valueOf);
+        assertEquals(depth, read.size());
+        assertEquals(depth, read.getHeight());
+        assertEquals(1, read.getNumberOfLeaves());
+        assertTrue(read.contains(0));
+        assertFalse(read.contains(1));
+        assertNull(read.getNodeFromElement(1));
+    }
+
+    @Test
+    void searchDeepTree() {
+        final int size = 100_000;
+        final List<Integer> values = new ArrayList<>(size);
+        final int[] parents = new int[size];
+        for (int i = 0; i < size; i++) {
+            values.add(i);
+            parents[i] = i - 1;
+        }
+        final NaryTree<Integer> tree = NaryTree.bulkLoad(values, parents, false, NaryTreeChildStorage.LINKED);
+        assertTrue(tree.contains(size - 1));
+        assertFalse(tree.contains(-1));
+        assertEquals(1, tree.getNodeFromElement(values.get(size - 1)).size());
+        assertNull(tree.getNodeFromElement(size));
+        final INaryTree<Integer> node = tree.getNodeFromElement(values.get(size / 2));
+        assertEquals(size / 2, node.size());
+        assertTrue(node.contains(size - 1));
+        assertFalse(node.contains(0));
+        assertEquals(size - 1, node.getNodeFromElement(values.get(size - 1)).getRoot());
+    }
+
+    @Test
+    void wideLinkedTree() {
+        final int size = 200_000;
+        final List<Integer> values = new ArrayList<>(size);
+        final int[] parents = new int[size];
+        for (int i = 0; i < size; i++) {
+            values.add(i);
+            parents[i] = i == 0 ? -1 : 0;
+        }
+        final NaryTree<Integer> tree = NaryTree.bulkLoad(values, parents, false, NaryTreeChildStorage.LINKED);
+        // Reaching each child by its index would take quadratic time on linked children.
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            final AtomicInteger visited = new AtomicInteger();
+            assertTrue(tree.accept(new TreeVisitor<>() {
+                @Override
+                public Result enter(final Integer value, final int depth) {
+                    visited.incrementAndGet();
+                    return Result.CONTINUE;
+                }
+            }));
+            assertEquals(size, visited.get());
+            assertEquals(size - 1, tree.toByWidthList().get(size - 1));
+            assertEquals(size - 1, tree.toPostfixList().get(size - 2));
+            assertTrue(tree.isAncestor(0, size - 1));
+            assertEquals((long) size * (size - 1) / 2, StreamSupport.stream(tree.getRootNode().spliterator(), true)
+                    .mapToLong(Integer::longValue).sum());
+            tree.setSerializationCacheSize(1 << 20);
+            assertEquals(tree.generateText(), tree.map(Function.identity()).generateText());
+            final NaryTree<Integer> target = tree.map(Function.identity());
+            target.getNodeFromElement(values.get(size - 1)).add(-1);
+            assertEquals(1, NaryTreeDiff.between(tree, target).getEdits().size());
+        });
+    }
+
+    @Test
+    void fromTextMalformed() throws IOException {
+        assertThrows(IOException.class, () -> NaryTree.fromText(new StringReader("[a")));
+        assertThrows(IOException.class, () -> NaryTree.fromText(new StringReader("[a] ([b]")));
+        assertThrows(IOException.class, () -> NaryTree.fromText(new StringReader("[a] ()")));
+        assertThrows(IOException.class, () -> NaryTree.fromText(new StringReader("[a] ([b]) ([c])")));
+        assertEquals(List.of("a] [b"), NaryTree.fromText(new StringReader("[a] [b]")).toPrefixList());
+    }
+
+    @Test
+    void writeText() throws IOException {
+        final NaryTree<String> tree = new NaryTree<>("root");
+        tree.add("child1");
+        tree.add(null);
+        tree.getNodeFromElement("child1").add("subChild11");
+        final StringBuilder text = new StringBuilder();
+        tree.writeText(text);
+        assertEquals("[root] ([child1] ([subChild11]), [null])", text.toString());
+        assertEquals(text.toString(), tree.generateText());
+        final StringBuilder prettyText = new StringBuilder();
+        tree.writePrettyText(prettyText);
+        assertEquals("""
+                     root
+                     ├─child1
+                     │ ├─subChild11
+                     ├─null
+                     """, prettyText.toString());
+        assertEquals(prettyText.toString(), tree.toPrettyText());
+    }
+
+    @Test
+    void writePrettyTextLimits() throws IOException {
+        final NaryTree<String> tree = new NaryTree<>("root");
+        tree.add("child1");
+        tree.add("child2");
+        tree.getNodeFromElement("child1").add("subChild11");
+        tree.getNodeFromElement("subChild11").add("subSubChild111");
+        StringBuilder text = new StringBuilder();
+        tree.writePrettyText(text, NaryTreeTextOptions.unlimited().withMaxDepth(1));
+        assertEquals("""
+                     root
+                     ├─child1
+                     │ ├─…
+                     ├─child2
+                     """, text.toString());
+        text = new StringBuilder();
+        tree.writePrettyText(text, NaryTreeTextOptions.unlimited().withMaxDepth(3).withMaxNodes(3));
+        assertEquals("""
+                     root
+                     ├─child1
+                     │ ├─subChild11
+                     │ │ ├─…
+                     """, text.toString());
+        text = new StringBuilder();
+        tree.writePrettyText(text, NaryTreeTextOptions.unlimited().withMaxNodes(1));
+        assertEquals("""
+                     root
+                     ├─…
+                     """, text.toString());
+        text = new StringBuilder();
+        tree.writePrettyText(text, NaryTreeTextOptions.unlimited().withMaxDepth(0));
+        assertEquals("""
+                     root
+                     ├─…
+                     """, text.toString());
+        assertThrows(IllegalArgumentException.class, () -> NaryTreeTextOptions.unlimited().withMaxDepth(-1));
+    }
+
+    @Test
+    void writeTextDeepTree() throws IOException {
+        final int depth = 100_000;
+        final String text = "[0] (".repeat(depth - 1) + "[0]" + ")".repeat(depth - 1);
+        final NaryTree<String> tree = NaryTree.fromText(new StringReader(text));
+        assertEquals(text, tree.generateText());
+        final StringBuilder prettyText = new StringBuilder();
+        tree.writePrettyText(prettyText, NaryTreeTextOptions.unlimited().withMaxDepth(2));
+        assertEquals("""
+                     0
+                     ├─0
+                     │ ├─0
+                     │ │ ├─…
+                     """, prettyText.toString());
+    }
+
+    @Test
+    void foreignImplementation() throws IOException {
+        final Random random = new Random(5);
+        final List<Integer> values = new ArrayList<>();
+        final int[] parents = new int[200];
+        for (int i = 0; i < parents.length; i++) {
+            values.add(i);
+            parents[i] = i == 0 ? -1 : random.nextInt(i);
+        }
+        final NaryTree<Integer> tree = NaryTree.bulkLoad(values, parents);
+        final INaryTree<Integer> foreign = new ForeignTree<>(tree);
+        final StringBuilder text = new StringBuilder();
+        foreign.writeText(text);
+        assertEquals(tree.generateText(), text.toString());
+        for (int maxDepth = 0; maxDepth <= tree.getHeight(); maxDepth++) {
+            for (final int maxNodes : new int[]{1, 2, 7, 50, Integer.MAX_VALUE}) {
+                final NaryTreeTextOptions options = NaryTreeTextOptions.unlimited()
+                        .withMaxDepth(maxDepth).withMaxNodes(maxNodes);
+                final StringBuilder expected = new StringBuilder();
+                tree.writePrettyText(expected, options);
+                final StringBuilder actual = new StringBuilder();
+                foreign.writePrettyText(actual, options);
+                assertEquals(expected.toString(), actual.toString(), options::toString);
+            }
+        }
+        assertTrue(NaryTreeDiff.between(foreign, tree).isEmpty());
+        final NaryTree<Integer> target = tree.map(Function.identity());
+        target.getNodeFromElement(7).add(-1);
+        assertEquals(1, NaryTreeDiff.between(foreign, target).getEdits().size());
+        final INaryTree<Integer> opaque = new ForeignTree<>(tree, false);
+        final StringBuilder prettyText = new StringBuilder();
+        opaque.writePrettyText(prettyText);
+        assertEquals(tree.toPrettyText(), prettyText.toString());
+        final StringWriter json = new StringWriter();
+        opaque.toJson(json);
+        assertEquals(tree.toJson(), json.toString());
+        final List<Integer> prefix = new ArrayList<>();
+        opaque.prefixIterator().forEachRemaining(prefix::add);
+        assertEquals(tree.toPrefixList(), prefix);
+        final List<Integer> postfix = new ArrayList<>();
+        opaque.postfixIterator().forEachRemaining(postfix::add);
+        assertEquals(tree.toPostfixList(), postfix);
+        final List<Integer> byWidth = new ArrayList<>();
+        opaque.breadthFirstIterator().forEachRemaining(byWidth::add);
+        assertEquals(tree.toByWidthList(), byWidth);
+        assertThrows(UnsupportedOperationException.class, () -> opaque.accept(new TreeVisitor<>() {
+        }));
+        assertThrows(UnsupportedOperationException.class,
+                () -> opaque.writePrettyText(new StringBuilder(), NaryTreeTextOptions.unlimited().withMaxDepth(1)));
+    }
+
+    /**
+     * A tree implemented outside the package, which only exposes its structure through
+     * {@link INaryTree#accept(TreeVisitor, int)}, if at all.
+     */
+    private static final class ForeignTree<E> implements INaryTree<E> {
+        private final INaryTree<E> tree;
+
+        private final boolean exposed;
+
+        private ForeignTree(final INaryTree<E> tree) {
+            this(tree, true);
+        }
+
+        private ForeignTree(final INaryTree<E> tree, final boolean exposed) {
+            this.tree = tree;
+            this.exposed = exposed;
+        }
+
+        @Override
+        public E getRoot() {
+            return this.tree.getRoot();
+        }
+
+        @Override
+        public boolean add(final E element) {
+            return this.tree.add(element);
+        }
+
+        @Override
+        public boolean remove(final Object element) {
+            return this.tree.remove(element);
+        }
+
+        @Override
+        public String generateText() {
+            return this.tree.generateText();
+        }
+
+        @Override
+        public boolean contains(final Object element) {
+            return this.tree.contains(element);
+        }
+
+        @Override
+        public int getHeight() {
+            return this.tree.getHeight();
+        }
+
+        @Override
+        public int size() {
+            return this.tree.size();
+        }
+
+        @Override
+        public int getNumberOfLeaves() {
+            return this.tree.getNumberOfLeaves();
+        }
+
+        @Override
+        public String toJson() {
+            return this.tree.toJson();
+        }
+
+        @Override
+        public String toPrettyText() {
+            return this.tree.toPrettyText();
+        }
+
+        @Override
+        public boolean accept(final TreeVisitor<? super E> visitor, final int maxDepth) {
+            return this.exposed ? this.tree.accept(visitor, maxDepth) : INaryTree.super.accept(visitor, maxDepth);
+        }
+
+        @Override
+        public List<E> toPostfixList() {
+            return this.tree.toPostfixList();
+        }
+
+        @Override
+        public List<E> toPrefixList() {
+            return this.tree.toPrefixList();
+        }
+
+        @Override
+        public List<E> toByWidthList() {
+            return this.tree.toByWidthList();
+        }
+
+        @Override
+        public INaryTree<E> getNodeFromElement(final E element) {
+            return this.tree.getNodeFromElement(element);
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return this.tree.isEmpty();
+        }
+
+        @Override
+        public Iterator<E> iterator() {
+            return this.tree.iterator();
+        }
+    }
+
+    @Test
+    void ancestry() {
+        final NaryTree<String> tree = new NaryTree<>("root");
+        tree.add("a");
+        tree.add("b");
+        tree.getNodeFromElement("a").add("a1");
+        tree.getNodeFromElement("a").add("a2");
+        tree.getNodeFromElement("a1").add("a11");
+        tree.getNodeFromElement("b").add("b1");
+        assertTrue(tree.isAncestor("root", "a11"));
+        assertTrue(tree.isAncestor("a", "a11"));
+        assertFalse(tree.isAncestor("a11", "a"));
+        assertFalse(tree.isAncestor("a", "a"));
+        assertFalse(tree.isAncestor("b", "a11"));
+        assertFalse(tree.isAncestor("a", "missing"));
+        assertEquals(0, tree.depthOf("root"));
+        assertEquals(3, tree.depthOf("a11"));
+        assertEquals(-1, tree.depthOf("missing"));
+        assertEquals("a", tree.lowestCommonAncestor("a11", "a2").getRoot());
+        assertEquals("a", tree.lowestCommonAncestor("a", "a11").getRoot());
+        assertEquals("root", tree.lowestCommonAncestor("a2", "b1").getRoot());
+        assertEquals("a11", tree.lowestCommonAncestor("a11", "a11").getRoot());
+        assertNull(tree.lowestCommonAncestor("a11", "missing"));
+        assertEquals(List.of("a11", "a1", "a", "root"), tree.pathToRoot("a11"));
+        assertEquals(List.of(), tree.pathToRoot("missing"));
+        // The index is rebuilt after a modification.
+        tree.getNodeFromElement("b1").add("b11");
+        assertEquals(List.of("b11", "b1", "b", "root"), tree.pathToRoot("b11"));
+        tree.getNodeFromElement("root").remove("a");
+        assertEquals(-1, tree.depthOf("a11"));
+        assertEquals("b", tree.lowestCommonAncestor("b", "b11").getRoot());
+    }
+
+    @Test
+    void ancestryMatchesPaths() {
+        final Random random = new Random(42);
+        final List<Integer> values = new ArrayList<>(List.of(0));
+        final NaryTree<Integer> tree = new NaryTree<>(values.get(0), true);
+        for (int i = 1; i < 2000; i++) {
+            values.add(i);
+            tree.getNodeFromElement(values.get(random.nextInt(i))).add(values.get(i));
+        }
+        for (int i = 0; i < 500; i++) {
+            final int first = random.nextInt(2000);
+            final int second = random.nextInt(2000);
+            final List<Integer> firstPath = tree.pathToRoot(first);
+            final List<Integer> secondPath = tree.pathToRoot(second);
+            assertEquals(firstPath.size() - 1, tree.depthOf(first));
+            assertEquals(firstPath.contains(second) && first != second, tree.isAncestor(second, first));
+            Integer expected = null;
+            for (final Integer ancestor : firstPath) {
+                if (secondPath.contains(ancestor)) {
+                    expected = ancestor;
+                    break;
+                }
+            }
+            assertEquals(expected, tree.lowestCommonAncestor(first, second).getRoot());
+        }
+    }
+
+    @Test
+    void bulkLoad() {
+        final NaryTree<String> expected = new NaryTree<>("root");
+        expected.add("a");
+        expected.add("b");
+        expected.getNodeFromElement("a").add("a1");
+        expected.getNodeFromElement("a").add("a2");
+        expected.getNodeFromElement("b").add("b1");
+        final NaryTree<String> fromParents = NaryTree.bulkLoad(List.of("a2", "b", "a1", "root", "b1", "a"),
+                new int[]{5, 3, 5, -1, 1, 3});
+        assertEquals(List.of("root", "b", "b1", "a", "a2", "a1"), fromParents.toPrefixList());
+        final NaryTree<String> ordered = NaryTree.bulkLoad(List.of("root", "a", "b", "a1", "a2", "b1"),
+                new int[]{-1, 0, 0, 1, 1, 2}, true, NaryTreeChildStorage.LINKED);
+        assertEquals(expected.generateText(), ordered.generateText());
+        assertEquals(expected.size(), ordered.size());
+        assertEquals(expected.getHeight(), ordered.getHeight());
+        assertEquals(expected.getNumberOfLeaves(), ordered.getNumberOfLeaves());
+        assertTrue(ordered.contains("a2"));
+        ordered.getNodeFromElement("a2").add("a21");
+        assertEquals(4, ordered.getHeight());
+        final NaryTree<String> fromEdges = NaryTree.bulkLoadEdges(Stream.of(Map.entry("root", "a"),
+                Map.entry("a", "a1"), Map.entry("root", "b"), Map.entry("b", "b1"), Map.entry("a", "a2")));
+        assertEquals(expected.generateText(), fromEdges.generateText());
+        final NaryTree<String> fromPaths = NaryTree.bulkLoadPaths(List.of(List.of("root", "a", "a1"),
+                List.of("root", "a", "a2"), List.of("root", "b"), List.of("root", "b", "b1")));
+        assertEquals(expected.generateText(), fromPaths.generateText());
+        assertEquals(expected.size(), fromPaths.size());
+        assertEquals(expected.getNumberOfLeaves(), fromPaths.getNumberOfLeaves());
+    }
+
+    @Test
+    void bulkLoadLargeTree() {
+        final int size = 200_000;
+        final List<Integer> values = new ArrayList<>(size);
+        final int[] parents = new int[size];
+        for (int i = 0; i < size; i++) {
+            values.add(i);
+            parents[i] = i - 1;
+        }
+        final NaryTree<Integer> chain = NaryTree.bulkLoad(values, parents);
+        assertEquals(size, chain.size());
+        assertEquals(size, chain.getHeight());
+        final NaryTree<Integer> fromEdges = NaryTree.bulkLoadEdges(IntStream.range(1, size).parallel()
+                .mapToObj(i -> Map.entry((i - 1) / 8, i)));
+        assertEquals(size, fromEdges.size());
+        assertEquals(fromEdges.toByWidthList(), values);
+    }
+
+    @Test
+    void bulkLoadInvalid() {
+        assertThrows(IllegalArgumentException.class, () -> NaryTree.bulkLoad(List.of("a", "b"), new int[]{-1, -1}));
+        assertThrows(IllegalArgumentException.class, () -> NaryTree.bulkLoad(List.of("a", "b"), new int[]{1, 0}));
+        assertThrows(IllegalArgumentException.class,
+                () -> NaryTree.bulkLoad(List.of("a", "b", "c"), new int[]{-1, 2, 1}));
+        assertThrows(IllegalArgumentException.class, () -> NaryTree.bulkLoad(List.of("a", "b"), new int[]{-1, 2}));
+        assertThrows(IllegalArgumentException.class, () -> NaryTree.bulkLoad(List.of("a"), new int[]{-1, 0}));
+        assertThrows(IllegalArgumentException.class, () -> NaryTree.bulkLoadEdges(Stream.of(Map.entry("a", "b"),
+                Map.entry("c", "b"))));
+        assertThrows(IllegalArgumentException.class, () -> NaryTree.bulkLoadPaths(List.of(List.of("a"),
+                List.of("b", "c"))));
+        assertThrows(IllegalArgumentException.class, () -> NaryTree.bulkLoadPaths(List.of()));
+    }
+
+    @Test
+    void removeSubtree() {
+        for (final boolean indexed : new boolean[]{false, true}) {
+            final NaryTree<String> tree = new NaryTree<>("a", indexed);
+            tree.add("b");
+            tree.add("c");
+            tree.getNodeFromElement("b").add("d");
+            tree.getNodeFromElement("d").add("e");
+            tree.getNodeFromElement("e").add("f");
+            tree.getNodeFromElement("c").add("g");
+            assertEquals(3, tree.removeSubtree("d"));
+            assertEquals(List.of("a", "b", "c", "g"), tree.toPrefixList());
+            assertEquals(4, tree.size());
+            assertEquals(3, tree.getHeight());
+            assertEquals(2, tree.getNumberOfLeaves());
+            assertFalse(tree.contains("f"));
+            assertEquals(0, tree.removeSubtree("f"));
+            assertEquals(0, tree.removeSubtree("a"));
+            assertEquals(1, tree.removeSubtree("g"));
+            assertEquals(2, tree.getHeight());
+            assertEquals(List.of("c", "a"), tree.pathToRoot("c"));
+        }
+    }
+
+    @Test
+    void removeIf() {
+        final int size = 100_000;
+        final List<Integer> values = new ArrayList<>(size);
+        final int[] parents = new int[size];
+        final List<Integer> kept = new ArrayList<>();
+        final List<Integer> keptParents = new ArrayList<>();
+        final int[] numbers = new int[size];
+        for (int i = 0; i < size; i++) {
+            values.add(i);
+            parents[i] = i == 0 ? -1 : (i - 1) / 8;
+            if (i == 0 || i % 5 != 0 && numbers[parents[i]] >= 0) {
+                numbers[i] = kept.size();
+                kept.add(i);
+                keptParents.add(i == 0 ? -1 : numbers[parents[i]]);
+            } else {
+                numbers[i] = -1;
+            }
+        }
+        final NaryTree<Integer> tree = NaryTree.bulkLoad(values, parents);
+        final NaryTree<Integer> expected = NaryTree.bulkLoad(kept,
+                keptParents.stream().mapToInt(Integer::intValue).toArray());
+        assertEquals(size - kept.size(), tree.removeIf(value -> value % 5 == 0));
+        assertEquals(expected.toPrefixList(), tree.toPrefixList());
+        assertEquals(expected.size(), tree.size());
+        assertEquals(expected.getHeight(), tree.getHeight());
+        assertEquals(expected.getNumberOfLeaves(), tree.getNumberOfLeaves());
+        assertFalse(tree.contains(5));
+        assertEquals(List.of(11, 1, 0), tree.pathToRoot(11));
+        // Pruning below an inner node updates the aggregates of its ancestors.
+        final int below = tree.getNodeFromElement(1).size() - 1;
+        assertEquals(below, ((NaryTreeNode<Integer>) tree.getNodeFromElement(1)).removeIf(value -> true));
+        assertEquals(expected.size() - below, tree.size());
+        assertEquals(0, tree.removeIf(value -> false));
+    }
+
+    @Test
+    void metrics() throws IOException {
+        final List<String> records = new ArrayList<>();
+        final NaryTree<String> tree = new NaryTree<>("a");
+        tree.setMetrics((operation, durationNanos, visitedNodes) -> {
+            assertTrue(durationNanos >= 0);
+            records.add(operation + ":" + visitedNodes);
+        });
+        tree.add("b");
+        tree.add("c");
+        tree.getNodeFromElement("b").add("d");
+        assertTrue(tree.contains("c"));
+        assertFalse(tree.contains("z"));
+        assertEquals("d", tree.getNodeFromElement("d").getRoot());
+        assertEquals(List.of("a", "b", "d", "c"), tree.toPrefixList());
+        tree.toJson(new StringWriter());
+        tree.writePrettyText(new StringBuilder(), NaryTreeTextOptions.unlimited().withMaxNodes(2));
+        tree.writePrettyText(new StringBuilder(), NaryTreeTextOptions.unlimited().withMaxDepth(0));
+        assertTrue(tree.remove("c"));
+        assertEquals(List.of("ADD:1", "ADD:1", "GET_NODE_FROM_ELEMENT:3", "CONTAINS:4", "CONTAINS:4",
+                "GET_NODE_FROM_ELEMENT:4", "TRAVERSAL:4", "JSON:4", "PRETTY_TEXT:2", "PRETTY_TEXT:1", "REMOVE:3"),
+                records);
+        tree.setMetrics(null);
+        tree.add("e");
+        assertEquals(11, records.size());
+
+        final NaryTree<String> indexed = new NaryTree<>("a", true);
+        indexed.add("b");
+        indexed.setMetrics((operation, durationNanos, visitedNodes) -> records.add(operation + ":" + visitedNodes));
+        assertTrue(indexed.contains("b"));
+        assertEquals("CONTAINS:0", records.get(records.size() - 1));
+    }
+
+    @Test
+    void flightRecorderEvents() throws IOException {
+        final Path file = Files.createTempFile("treenode", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("com.am.treenode.NaryTreeOperation").withThreshold(Duration.ZERO);
+            recording.start();
+            final NaryTree<Integer> tree = new NaryTree<>(0);
+            tree.add(1);
+            tree.contains(1);
+            recording.stop();
+            recording.dump(file);
+        }
+        try {
+            final List<RecordedEvent> events = RecordingFile.readAllEvents(file).stream()
+                    .filter(event -> event.getEventType().getName().equals("com.am.treenode.NaryTreeOperation"))
+                    .toList();
+            assertEquals(List.of("ADD", "CONTAINS"), events.stream().map(event -> event.getString("operation")).toList());
+            assertEquals(2, events.get(1).getInt("visitedNodes"));
+            assertEquals(2, events.get(1).getInt("treeSize"));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    void serializationCache() throws IOException {
+        final NaryTree<String> tree = new NaryTree<>("root", true);
+        final NaryTree<String> expected = new NaryTree<>("root");
+        tree.setSerializationCacheSize(1 << 16);
+        final Random random = new Random(7);
+        final List<String> values = new ArrayList<>(List.of("root"));
+        for (int i = 0; i < 300; i++) {
+            final String parent = values.get(random.nextInt(values.size()));
+            final String value = i % 7 == 0 ? "\"<" + i + "é>" : "n" + i;
+            tree.getNodeFromElement(parent).add(value);
+            expected.getNodeFromElement(parent).add(value);
+            values.add(value);
+            if (i % 10 == 0) {
+                assertEquals(expected.generateText(), tree.generateText());
+                assertEquals(expected.toJson(), tree.toJson());
+            }
+        }
+        assertTrue(tree.getSerializationCachedChars() > 0);
+        ((INaryTreeNode<String>) tree.getNodeFromElement(values.get(51))).setValue(null);
+        ((INaryTreeNode<String>) expected.getNodeFromElement(values.get(51))).setValue(null);
+        assertEquals(expected.toJson(), tree.toJson());
+        assertEquals(expected.generateText(), tree.generateText());
+        tree.removeSubtree("n20");
+        expected.removeSubtree("n20");
+        tree.removeIf(value -> value != null && value.endsWith("3"));
+        expected.removeIf(value -> value != null && value.endsWith("3"));
+        assertEquals(expected.generateText(), tree.generateText());
+        final StringWriter json = new StringWriter();
+        tree.toJson(json);
+        assertEquals(expected.toJson(), json.toString());
+        final StringBuilder text = new StringBuilder();
+        tree.writeText(text);
+        assertEquals(expected.generateText(), text.toString());
+
+        tree.setSerializationCacheSize(200);
+        assertEquals(expected.toJson(), tree.toJson());
+        assertEquals(expected.generateText(), tree.generateText());
+        assertTrue(tree.getSerializationCachedChars() <= 400);
+        tree.setSerializationCacheSize(0);
+        assertEquals(0, tree.getSerializationCachedChars());
+        assertEquals(expected.toJson(), tree.toJson());
+        assertThrows(IllegalArgumentException.class, () -> tree.setSerializationCacheSize(-1));
+    }
+
+    @Test
+    void serializationCacheRebuildsChangedPath() {
+        final AtomicInteger rendered = new AtomicInteger();
+        final class Counted {
+            private final int id;
+
+            private Counted(final int id) {
+                this.id = id;
+            }
+
+            @Override
+            public String toString() {
+                rendered.incrementAndGet();
+                return "v" + this.id;
+            }
+        }
+        final List<Counted> values = new ArrayList<>();
+        final int[] parents = new int[85];
+        for (int i = 0; i < parents.length; i++) {
+            values.add(new Counted(i));
+            parents[i] = i == 0 ? -1 : (i - 1) / 4;
+        }
+        final NaryTree<Counted> tree = NaryTree.bulkLoad(values, parents);
+        final List<Integer> walked = new ArrayList<>();
+        tree.setMetrics((operation, durationNanos, visitedNodes) -> {
+            if (operation == TreeMetrics.Operation.TEXT) {
+                walked.add(visitedNodes);
+            }
+        });
+        tree.setSerializationCacheSize(1 << 20);
+        final String text = tree.generateText();
+        assertEquals(85, rendered.getAndSet(0));
+        assertEquals(text, tree.generateText());
+        assertEquals(0, rendered.get());
+        // Node 5 is at depth 2: only it, its parent 1 and the root are built again, with the 5 leaves of node 5.
+        tree.getNodeFromElement(values.get(5)).add(new Counted(85));
+        final String changed = tree.generateText();
+        assertEquals(8, rendered.getAndSet(0));
+        tree.setMetrics(null);
+        assertEquals(List.of(85, 0, 8), walked);
+        tree.setSerializationCacheSize(0);
+        assertEquals(tree.generateText(), changed);
+    }
+
+    @Test
+    void serializationCacheDeepTree() {
+        final int size = 5_000;
+        final List<Integer> values = new ArrayList<>(size);
+        final int[] parents = new int[size];
+        for (int i = 0; i < size; i++) {
+            values.add(i);
+            parents[i] = i - 1;
+        }
+        final NaryTree<Integer> tree = NaryTree.bulkLoad(values, parents);
+        final NaryTree<Integer> uncached = NaryTree.bulkLoad(values, parents);
+        final List<Integer> walked = new ArrayList<>();
+        tree.setMetrics((operation, durationNanos, visitedNodes) -> walked.add(visitedNodes));
+        tree.setSerializationCacheSize(Long.MAX_VALUE);
+        final String text = tree.generateText();
+        // The cached fragments of a chain double in length from one to the next, rather than one per node.
+        assertTrue(tree.getSerializationCachedChars() <= 2L * text.length());
+        final INaryTreeNode<Integer> leaf = (INaryTreeNode<Integer>) tree.getNodeFromElement(values.get(size - 1));
+        final INaryTreeNode<Integer> uncachedLeaf =
+                (INaryTreeNode<Integer>) uncached.getNodeFromElement(values.get(size - 1));
+        long cachedNanos = Long.MAX_VALUE;
+        long uncachedNanos = Long.MAX_VALUE;
+        for (int i = 0; i < 30; i++) {
+            leaf.setValue(i);
+            uncachedLeaf.setValue(i);
+            long start = System.nanoTime();
+            final String changed = tree.generateText();
+            cachedNanos = Math.min(cachedNanos, System.nanoTime() - start);
+            start = System.nanoTime();
+            assertEquals(uncached.generateText(), changed);
+            uncachedNanos = Math.min(uncachedNanos, System.nanoTime() - start);
+            assertTrue(tree.getSerializationCachedChars() <= 2L * changed.length());
+        }
+        assertTrue(walked.stream().allMatch(visitedNodes -> visitedNodes <= size));
+        // Serializing a changed chain again walks it all once and copies the checkpoints of the path,
+        // which keeps it in the same range as a serialization without cache.
+        assertTrue(cachedNanos <= 3 * uncachedNanos + 1_000_000, cachedNanos + " ns > " + uncachedNanos + " ns");
+    }
+
+    /**
+     * Records the calls of a walk, and skips or terminates it on chosen values.
+     */
+    private static final class RecordingVisitor implements TreeVisitor<String> {
+        private final StringBuilder trace = new StringBuilder();
+
+        private final String skipped;
+
+        private final String terminatedOnEnter;
+
+        private final String terminatedOnLeave;
+
+        private RecordingVisitor(final String skipped, final String terminatedOnEnter,
+                                 final String terminatedOnLeave) {
+            this.skipped = skipped;
+            this.terminatedOnEnter = terminatedOnEnter;
+            this.terminatedOnLeave = terminatedOnLeave;
+        }
+
+        @Override
+        public Result enter(final String value, final int depth) {
+            this.trace.append(" +").append(value).append(depth);
+            if (value.equals(this.terminatedOnEnter)) {
+                return Result.TERMINATE;
+            }
+            return value.equals(this.skipped) ? Result.SKIP_SUBTREE : Result.CONTINUE;
+        }
+
+        @Override
+        public Result leave(final String value, final int depth) {
+            this.trace.append(" -").append(value).append(depth);
+            return value.equals(this.terminatedOnLeave) ? Result.TERMINATE : Result.CONTINUE;
+        }
+    }
+
+    private static String visit(final INaryTree<String> tree, final int maxDepth, final String skipped,
+                                final String terminatedOnEnter, final String terminatedOnLeave) {
+        final RecordingVisitor visitor = new RecordingVisitor(skipped, terminatedOnEnter, terminatedOnLeave);
+        final boolean completed = tree.accept(visitor, maxDepth);
+        return visitor.trace.substring(1) + (completed ? "" : " !");
+    }
+
+    private static List<String> visits(final INaryTree<String> tree) {
+        return List.of(NaryTreeTest.visit(tree, Integer.MAX_VALUE, null, null, null),
+                NaryTreeTest.visit(tree, 1, null, null, null),
+                NaryTreeTest.visit(tree, 0, null, null, null),
+                NaryTreeTest.visit(tree, Integer.MAX_VALUE, "b", null, null),
+                NaryTreeTest.visit(tree, Integer.MAX_VALUE, "a", null, null),
+                NaryTreeTest.visit(tree, Integer.MAX_VALUE, null, "e", null),
+                NaryTreeTest.visit(tree, Integer.MAX_VALUE, null, null, "b"),
+                NaryTreeTest.visit(tree, 1, null, null, "a"));
+    }
+
+    @Test
+    void accept(@TempDir final Path directory) throws IOException {
+        final NaryTree<String> tree = new NaryTree<>("a");
+        tree.add("b");
+        tree.add("c");
+        tree.getNodeFromElement("b").add("d");
+        tree.getNodeFromElement("b").add("e");
+        tree.getNodeFromElement("c").add("f");
+        final List<String> expected = List.of(
+                "+a0 +b1 +d2 -d2 +e2 -e2 -b1 +c1 +f2 -f2 -c1 -a0",
+                "+a0 +b1 -b1 +c1 -c1 -a0",
+                "+a0 -a0",
+                "+a0 +b1 +c1 +f2 -f2 -c1 -a0",
+                "+a0",
+                "+a0 +b1 +d2 -d2 +e2 !",
+                "+a0 +b1 +d2 -d2 +e2 -e2 -b1 !",
+                "+a0 +b1 -b1 +c1 -c1 -a0 !");
+        assertEquals(expected, NaryTreeTest.visits(tree));
+        assertThrows(IllegalArgumentException.class, () -> tree.accept(new TreeVisitor<>() {
+        }, -1));
+        assertTrue(tree.accept(new TreeVisitor<>() {
+        }));
+
+        final ConcurrentNaryTree<String> concurrent = new ConcurrentNaryTree<>("a");
+        final CompactNaryTree<String> compact = new CompactNaryTree<>("a");
+        final int b = compact.addChild(CompactNaryTree.ROOT, "b");
+        final int c = compact.addChild(CompactNaryTree.ROOT, "c");
+        compact.addChild(b, "d");
+        compact.addChild(b, "e");
+        compact.addChild(c, "f");
+        concurrent.add("b");
+        concurrent.add("c");
+        concurrent.getNodeFromElement("b").add("d");
+        concurrent.getNodeFromElement("b").add("e");
+        concurrent.getNodeFromElement("c").add("f");
+        final Path file = directory.resolve("tree.bin");
+        MappedNaryTree.write(tree, file, NaryTreeValueCodecs.UTF8);
+        assertEquals(expected, NaryTreeTest.visits(MappedNaryTree.open(file, NaryTreeValueCodecs.UTF8)));
+        assertEquals(expected, NaryTreeTest.visits(concurrent));
+        assertEquals(expected, NaryTreeTest.visits(compact));
+        assertEquals(expected, NaryTreeTest.visits(PersistentNaryTree.copyOf(tree)));
+    }
+
+    @Test
+    void acceptDeepTree() {
+        final int size = 100_000;
+        final List<Integer> values = new ArrayList<>(size);
+        final int[] parents = new int[size];
+        for (int i = 0; i < size; i++) {
+            values.add(i);
+            parents[i] = i - 1;
+        }
+        final NaryTree<Integer> chain = NaryTree.bulkLoad(values, parents);
+        final int[] counts = new int[2];
+        assertTrue(chain.accept(new TreeVisitor<>() {
+            @Override
+            public Result enter(final Integer value, final int depth) {
+                counts[0]++;
+                return Result.CONTINUE;
+            }
+
+            @Override
+            public Result leave(final Integer value, final int depth) {
+                counts[1] += depth == value ? 1 : 0;
+                return Result.CONTINUE;
+            }
+        }));
+        assertArrayEquals(new int[]{size, size}, counts);
+    }
+
+    @Test
+    void acceptAllocatesNothingPerNode() {
+        final int size = 100_000;
+        final List<Integer> values = new ArrayList<>(size);
+        final int[] parents = new int[size];
+        for (int i = 0; i < size; i++) {
+            values.add(i);
+            parents[i] = i == 0 ? -1 : (i - 1) / 4;
+        }
+        final NaryTree<Integer> tree = NaryTree.bulkLoad(values, parents);
+        final TreeVisitor<Integer> visitor = new TreeVisitor<>() {
+        };
+        final com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assertTrue(tree.accept(visitor));
+        final long before = threads.getCurrentThreadAllocatedBytes();
+        assertTrue(tree.accept(visitor));
+        // Only the stack of the walk is allocated, whatever the number of nodes.
+        assertTrue(threads.getCurrentThreadAllocatedBytes() - before < 16_384);
+    }
+
+    @Test
+    void map() {
+        final NaryTree<String> tree = new NaryTree<>("a", true, NaryTreeChildStorage.LINKED);
+        tree.add("bb");
+        tree.add("ccc");
+        tree.getNodeFromElement("bb").add("dddd");
+        final NaryTree<Integer> lengths = tree.map(String::length);
+        assertEquals("[1] ([2] ([4]), [3])", lengths.generateText());
+        assertTrue(lengths.isIndexed());
+        assertEquals(NaryTreeChildStorage.LINKED, lengths.getChildStorage());
+        assertTrue(lengths.contains(4));
+        assertEquals(3, lengths.getHeight());
+        assertEquals(2, lengths.getNumberOfLeaves());
+        lengths.getNodeFromElement(3).add(5);
+        assertEquals(4, tree.size());
+        assertEquals(lengths.generateText().replace(", [5]", "").replace(" ([5])", ""),
+                tree.mapParallel(String::length).generateText());
+        assertThrows(IllegalStateException.class, () -> tree.mapParallel(value -> {
+            throw new IllegalStateException(value);
+        }));
+    }
+
+    @Test
+    void mapParallelLargeTree() {
+        final int size = 200_000;
+        final List<Integer> values = new ArrayList<>(size);
+        final int[] parents = new int[size];
+        final Random random = new Random(3);
+        for (int i = 0; i < size; i++) {
+            values.add(i);
+            parents[i] = i == 0 ? -1 : random.nextInt(i);
+        }
+        final NaryTree<Integer> tree = NaryTree.bulkLoad(values, parents);
+        final NaryTree<String> expected = tree.map(value -> "v" + value);
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            final NaryTree<String> mapped = tree.mapParallel(value -> "v" + value, pool);
+            assertEquals(expected.toPrefixList(), mapped.toPrefixList());
+            assertEquals(expected.toPostfixList(), mapped.toPostfixList());
+            assertEquals(tree.getHeight(), mapped.getHeight());
+            assertEquals(tree.getNumberOfLeaves(), mapped.getNumberOfLeaves());
+            assertEquals(size, mapped.size());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void parallel() {
+        NaryTree<Integer> tree = new NaryTree<>(-1);
+        Integer last = null;
+        for (int i = 0; i < 20; i++) {
+            tree.add(i);
+            INaryTree<Integer> child = tree.getNodeFromElement(i);
+            for (int j = 0; j < 2_000; j++) {
+                last = j % 500 == 0 ? 42 : 1_000 + i * 2_000 + j;
+                child.add(last);
+            }
+        }
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            final NaryTreeParallelQuery<Integer> parallel = tree.parallel(pool);
+            assertTrue(parallel.contains(-1));
+            assertTrue(parallel.contains(39_999));
+            assertTrue(parallel.contains(42));
+            assertFalse(parallel.contains(-2));
+            assertSame(tree.getNodeFromElement(42), parallel.getNodeFromElement(42));
+            assertSame(tree.getNodeFromElement(19), parallel.getNodeFromElement(19));
+            assertSame(tree.getNodeFromElement(last), parallel.getNodeFromElement(last));
+            assertNotNull(parallel.getNodeFromElement(last));
+            assertNull(parallel.getNodeFromElement(-2));
+            // The value itself is searched, not an equal one.
+            assertNull(parallel.getNodeFromElement(39_999));
+            assertEquals(tree.size(), parallel.size());
+            assertEquals(tree.getHeight(), parallel.getHeight());
+            assertEquals(tree.getNumberOfLeaves(), parallel.getNumberOfLeaves());
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
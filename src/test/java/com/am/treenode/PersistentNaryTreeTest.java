@@ -0,0 +1,104 @@
+package com.am.treenode;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PersistentNaryTreeTest {
+
+    private static PersistentNaryTree<String> create() {
+        return new PersistentNaryTree<>("A")
+                .plus("B")
+                .plus("C")
+                .plus("B", "D")
+                .plus("B", "E")
+                .plus("D", "F")
+                .plus("C", null);
+    }
+
+    @Test
+    void sameResultsAsNaryTree() {
+        final INaryTree<String> expected = new NaryTree<>("A");
+        expected.add("B");
+        expected.add("C");
+        expected.getNodeFromElement("B").add("D");
+        expected.getNodeFromElement("B").add("E");
+        expected.getNodeFromElement("D").add("F");
+        expected.getNodeFromElement("C").add(null);
+        final PersistentNaryTree<String> tree = PersistentNaryTreeTest.create();
+        assertEquals(expected.toPrefixList(), tree.toPrefixList());
+        assertEquals(expected.toPostfixList(), tree.toPostfixList());
+        assertEquals(expected.toByWidthList(), tree.toByWidthList());
+        assertEquals(expected.toJson(), tree.toJson());
+        assertEquals(expected.generateText(), tree.generateText());
+        assertEquals(expected.size(), tree.size());
+        assertEquals(expected.getHeight(), tree.getHeight());
+        assertEquals(expected.getNumberOfLeaves(), tree.getNumberOfLeaves());
+        assertEquals(expected.toPrefixList(), tree.stream().collect(Collectors.toList()));
+        assertTrue(tree.contains("F"));
+        assertTrue(tree.contains(null));
+        assertFalse(tree.contains("G"));
+        assertEquals(expected.toPrefixList(), PersistentNaryTree.copyOf((NaryTree<String>) expected).toPrefixList());
+    }
+
+    @Test
+    void versionsShareUntouchedSubtrees() {
+        final PersistentNaryTree<String> tree = PersistentNaryTreeTest.create();
+        final PersistentNaryTree<String> added = tree.plus("F", "G");
+        assertEquals(7, tree.size());
+        assertEquals(8, added.size());
+        assertEquals(4, tree.getHeight());
+        assertEquals(5, added.getHeight());
+        assertFalse(tree.contains("G"));
+        assertTrue(added.contains("G"));
+        assertSame(tree.getNodeFromElement("C"), added.getNodeFromElement("C"));
+        assertSame(tree.getNodeFromElement("E"), added.getNodeFromElement("E"));
+        assertNotSame(tree.getNodeFromElement("D"), added.getNodeFromElement("D"));
+
+        final PersistentNaryTree<String> removed = added.minus("B", "D");
+        assertEquals(List.of("A", "B", "E", "C"), removed.toPrefixList().subList(0, 4));
+        assertEquals(5, removed.size());
+        assertEquals(2, removed.getNumberOfLeaves());
+        assertSame(added.getNodeFromElement("C"), removed.getNodeFromElement("C"));
+        assertEquals(8, added.size());
+
+        assertEquals(Arrays.asList("A", "C", null), tree.minus("B").toPrefixList());
+        assertNull(tree.minus("A").getRoot());
+        assertSame(tree, tree.minus("G"));
+        assertSame(tree, tree.plus("G", "H"));
+        assertSame(tree, tree.minus("B", "G"));
+        assertSame(tree, tree.snapshot());
+    }
+
+    @Test
+    void immutable() {
+        final PersistentNaryTree<String> tree = PersistentNaryTreeTest.create();
+        assertThrows(UnsupportedOperationException.class, () -> tree.add("G"));
+        assertThrows(UnsupportedOperationException.class, () -> tree.remove("B"));
+        assertThrows(UnsupportedOperationException.class, () -> tree.getNodeFromElement("B").add("G"));
+        assertThrows(UnsupportedOperationException.class, () -> tree.getNodeFromElement("B").remove("D"));
+        assertEquals(7, tree.size());
+    }
+
+    @Test
+    void deepTree() {
+        final int depth = 100_000;
+        NaryTreeNode<Integer> node = new NaryTreeNode<>(depth - 1);
+        for (int i = depth - 2; i >= 0; i--) {
+            final NaryTreeNode<Integer> parent = new NaryTreeNode<>(i);
+            parent.add(node);
+            node = parent;
+        }
+        PersistentNaryTree<Integer> tree = PersistentNaryTree.copyOf(
+                new NaryTree<>(NaryTreeChildStorage.ARRAY, false, node));
+        assertEquals(depth, tree.size());
+        tree = tree.plus(depth - 1, depth);
+        assertEquals(depth + 1, tree.getHeight());
+        assertEquals(depth + 1, tree.toPrefixList().size());
+        assertEquals(1, tree.minus(0, 1).size());
+    }
+}